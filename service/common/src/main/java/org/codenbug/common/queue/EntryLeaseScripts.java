@@ -0,0 +1,35 @@
+package org.codenbug.common.queue;
+
+/**
+ * 입장 lease를 다루는 서비스들이 함께 사용하는 redis 스크립트
+ * <p>
+ * 입장 lease는 message-dispatcher가 승급할 때 발급하고, main-server가 예매를 마치면 반납하며, dispatcher의 reaper가
+ * 만료된 lease와 dead letter로 옮긴 메시지의 lease를 반납합니다. 반납하는 곳이 여럿이어도 같은 의미로 동작하도록 이 클래스에 모아둡니다.
+ * </p>
+ */
+public final class EntryLeaseScripts {
+
+	/**
+	 * 유저의 입장 lease가 남아있을 때만 삭제하고, 자리를 돌려준 뒤 입장 토큰도 삭제합니다.
+	 * 토큰이 남아있으면 돌려준 자리를 다른 유저가 쓰는 동안 같은 자리로 계속 좌석/결제 API를 호출할 수 있기 때문입니다.
+	 * 여러 곳에서 반납해도 자리는 한 번만 돌아갑니다.
+	 * <ul>
+	 *     <li>KEYS[1] = "ENTRY_LEASES:{eventId}"</li>
+	 *     <li>KEYS[2] = "ENTRY_QUEUE_COUNT:{eventId}"</li>
+	 *     <li>KEYS[3] = "ENTRY_TOKEN:{eventId}"</li>
+	 *     <li>ARGV[1] = userId</li>
+	 * </ul>
+	 * 자리를 돌려줬다면 1, 이미 반납된 lease라면 0을 리턴합니다.
+	 */
+	public static final String RELEASE = """
+		if redis.call("ZREM", KEYS[1], ARGV[1]) == 1 then
+		    redis.call("INCR", KEYS[2])
+		    redis.call("HDEL", KEYS[3], ARGV[1])
+		    return 1
+		end
+		return 0
+		""";
+
+	private EntryLeaseScripts() {
+	}
+}
@@ -0,0 +1,65 @@
+package org.codenbug.common.queue;
+
+/**
+ * 대기열 승급 규칙과 대기 시간 추정 모델
+ * <p>
+ * message-dispatcher의 승급 스크립트({@code promote_waiting_for_event.lua})는 승급 주기마다 남은 입장 자리 수만큼
+ * idx가 가장 작은 대기 유저를 꺼내 승급시키고, 입장한 유저가 좌석 선점 / 결제를 마치거나 lease가 만료되면 자리가 돌아옵니다.
+ * 시뮬레이터와 운영 중인 대기열 서버가 같은 규칙으로 대기 시간을 계산하도록 이 클래스에 모아둡니다.
+ * </p>
+ */
+public final class QueueWaitModel {
+
+	// EntryPromoteThread의 승급 주기 (cron "* * * * * *")
+	public static final long PROMOTE_INTERVAL_MILLIS = 1000L;
+
+	private QueueWaitModel() {
+	}
+
+	/**
+	 * 한 번의 승급 주기에 꺼낼 대기 유저 수. 남은 자리가 음수라면(window가 줄어든 경우) 승급하지 않습니다.
+	 *
+	 * @param available 남은 입장 자리 ({@code ENTRY_QUEUE_COUNT})
+	 * @param waiting 대기 인원
+	 */
+	public static long promotable(long available, long waiting) {
+		return Math.max(0L, Math.min(available, waiting));
+	}
+
+	/**
+	 * entry window가 가득 찬 상태에서 유지되는 초당 입장 인원. 자리 하나가 평균 체류 시간마다 한 번 비므로 window / 체류 시간입니다.
+	 *
+	 * @param window entry window 크기
+	 * @param meanStayMillis 입장한 유저가 자리를 돌려주기까지의 평균 시간
+	 */
+	public static double steadyThroughput(long window, double meanStayMillis) {
+		if (window <= 0 || meanStayMillis <= 0) {
+			return 0;
+		}
+		return window * 1000.0 / meanStayMillis;
+	}
+
+	/**
+	 * 목표 초당 입장 인원을 유지하는 데 필요한 entry window 크기. {@link #steadyThroughput}의 역입니다.
+	 */
+	public static long requiredWindow(double targetPerSecond, double meanStayMillis) {
+		return (long)Math.ceil(targetPerSecond * meanStayMillis / 1000.0);
+	}
+
+	/**
+	 * 내 앞에 남은 인원과 초당 입장 인원으로 입장까지의 예상 대기 시간을 계산합니다.
+	 * 승급은 주기마다 한 번에 일어나므로 주기 단위로 올림합니다.
+	 *
+	 * @param order 내 앞에 남은 인원 (1이면 다음 승급 대상)
+	 * @param servedPerSecond 초당 입장 인원
+	 * @return 예상 대기 시간(ms). 입장 속도를 알 수 없다면 -1
+	 */
+	public static long estimateWaitMillis(long order, double servedPerSecond) {
+		if (servedPerSecond <= 0) {
+			return -1L;
+		}
+		double perTick = servedPerSecond * PROMOTE_INTERVAL_MILLIS / 1000.0;
+		long ticks = (long)Math.ceil(order / perTick);
+		return Math.max(1L, ticks) * PROMOTE_INTERVAL_MILLIS;
+	}
+}
@@ -5,6 +5,7 @@ import java.security.Key;
 import java.util.Date;
 import java.util.Map;
 
+import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
@@ -21,6 +22,19 @@ public class JwtUtil {
 			.compact();
 	}
 
+	/**
+	 * 서명과 만료 시간을 검증하고 토큰의 claims를 반환합니다.
+	 *
+	 * @throws io.jsonwebtoken.JwtException 서명이 올바르지 않거나 만료된 토큰인 경우
+	 */
+	public static Claims parseClaims(String token, String secret) {
+		return Jwts.parserBuilder()
+			.setSigningKey(getSigningKey(secret))
+			.build()
+			.parseClaimsJws(token)
+			.getBody();
+	}
+
 	private static Key getSigningKey(String secret) {
 		byte[] keyBytes = secret.getBytes(StandardCharsets.UTF_8);
 		return Keys.hmacShaKeyFor(keyBytes);
@@ -0,0 +1,58 @@
+package org.codenbug.common.queue;
+
+import static org.assertj.core.api.Assertions.*;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class QueueWaitModelTest {
+
+	@DisplayName("승급 인원 - 남은 자리와 대기 인원 중 작은 값")
+	@Test
+	void promotable() {
+		assertThat(QueueWaitModel.promotable(10, 3)).isEqualTo(3);
+		assertThat(QueueWaitModel.promotable(3, 10)).isEqualTo(3);
+		assertThat(QueueWaitModel.promotable(5, 0)).isZero();
+	}
+
+	@DisplayName("승급 인원 - window가 줄어 남은 자리가 음수라면 승급하지 않음")
+	@Test
+	void promotable_negativeAvailable() {
+		assertThat(QueueWaitModel.promotable(-5, 10)).isZero();
+	}
+
+	@DisplayName("처리량 - window / 평균 체류 시간이며 requiredWindow가 역으로 계산")
+	@Test
+	void steadyThroughput_requiredWindow() {
+		assertThat(QueueWaitModel.steadyThroughput(600, 60_000)).isEqualTo(10.0);
+		assertThat(QueueWaitModel.requiredWindow(10.0, 60_000)).isEqualTo(600);
+		// 필요한 window는 올림
+		assertThat(QueueWaitModel.requiredWindow(1.5, 1_000)).isEqualTo(2);
+		assertThat(QueueWaitModel.steadyThroughput(0, 60_000)).isZero();
+		assertThat(QueueWaitModel.steadyThroughput(100, 0)).isZero();
+	}
+
+	@DisplayName("예상 대기 시간 - 승급 주기 단위로 올림")
+	@Test
+	void estimateWaitMillis_roundUpToTick() {
+		// 초당 10명이면 한 주기에 10명이 입장
+		assertThat(QueueWaitModel.estimateWaitMillis(1, 10)).isEqualTo(1_000);
+		assertThat(QueueWaitModel.estimateWaitMillis(10, 10)).isEqualTo(1_000);
+		assertThat(QueueWaitModel.estimateWaitMillis(11, 10)).isEqualTo(2_000);
+		// 초당 0.5명이면 5번째 유저는 10주기 뒤
+		assertThat(QueueWaitModel.estimateWaitMillis(5, 0.5)).isEqualTo(10_000);
+	}
+
+	@DisplayName("예상 대기 시간 - 다음 승급 대상이라도 최소 한 주기")
+	@Test
+	void estimateWaitMillis_atLeastOneTick() {
+		assertThat(QueueWaitModel.estimateWaitMillis(0, 10)).isEqualTo(QueueWaitModel.PROMOTE_INTERVAL_MILLIS);
+	}
+
+	@DisplayName("예상 대기 시간 - 입장 속도를 모르면 -1")
+	@Test
+	void estimateWaitMillis_unknownRate() {
+		assertThat(QueueWaitModel.estimateWaitMillis(5, 0)).isEqualTo(-1);
+		assertThat(QueueWaitModel.estimateWaitMillis(5, -1)).isEqualTo(-1);
+	}
+}
@@ -0,0 +1,18 @@
+package org.codeNbug.mainserver.domain.event.dto;
+
+import lombok.Getter;
+
+/**
+ * 행사 수용 인원 변경 이벤트 클래스
+ * 행사 등록/수정 트랜잭션이 커밋된 후 대기열 서버에 좌석 수를 알리기 위해 사용됨
+ */
+@Getter
+public class EventCapacityEventDto {
+	private final Long eventId;
+	private final Integer seatCount;
+
+	public EventCapacityEventDto(Long eventId, Integer seatCount) {
+		this.eventId = eventId;
+		this.seatCount = seatCount;
+	}
+}
@@ -0,0 +1,16 @@
+package org.codeNbug.mainserver.domain.event.dto;
+
+import lombok.Getter;
+
+/**
+ * 행사 잔여 좌석 변경 이벤트 클래스
+ * 결제 승인/취소로 판매된 좌석 수가 바뀐 후 대기열 서버에 잔여 좌석 수와 매진 여부를 알리기 위해 사용됨
+ */
+@Getter
+public class SeatInventoryEventDto {
+	private final Long eventId;
+
+	public SeatInventoryEventDto(Long eventId) {
+		this.eventId = eventId;
+	}
+}
@@ -1,12 +1,18 @@
 package org.codeNbug.mainserver.domain.event.repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
 import org.codeNbug.mainserver.domain.event.entity.Event;
+import org.codeNbug.mainserver.domain.event.entity.EventStatusEnum;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 public interface JpaCommonEventRepository extends JpaRepository<Event, Long> {
 	Optional<Event> findByEventIdAndIsDeletedFalse(Long eventId);
@@ -15,4 +21,14 @@ public interface JpaCommonEventRepository extends JpaRepository<Event, Long> {
 
 	// Pageable 기반 Slice 조회
 	Slice<Event> findSliceByIsDeletedFalse(Pageable pageable);
+
+	// 예매 시작이 다가온 행사 조회 (예매 시작 전 warm-up 대상)
+	List<Event> findByIsDeletedFalseAndBookingStartBetween(LocalDateTime from, LocalDateTime to);
+
+	// 예매 시작 시각에 상태 변경. 취소되었거나 이미 바뀐 행사는 건드리지 않음
+	@Transactional
+	@Modifying(clearAutomatically = true)
+	@Query("UPDATE Event e SET e.status = :to WHERE e.eventId = :eventId AND e.status = :from AND e.isDeleted = false")
+	int updateStatus(@Param("eventId") Long eventId, @Param("from") EventStatusEnum from,
+		@Param("to") EventStatusEnum to);
 }
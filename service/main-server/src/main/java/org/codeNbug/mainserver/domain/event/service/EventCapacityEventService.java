@@ -0,0 +1,80 @@
+package org.codeNbug.mainserver.domain.event.service;
+
+import java.util.List;
+
+import org.codeNbug.mainserver.domain.event.dto.EventCapacityEventDto;
+import org.codeNbug.mainserver.domain.event.entity.Event;
+import org.codeNbug.mainserver.domain.manager.repository.EventRepository;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 행사 수용 인원 카탈로그 발행 리스너
+ * <p>
+ * 행사의 좌석 수를 redis hash에 기록하고 변경 채널로 알립니다.
+ * 대기열 서버는 이 값을 로컬 캐시에 보관하고 변경 메시지를 받으면 캐시를 갱신하므로,
+ * 대기열 진입 시 메인 서버로 HTTP 요청을 보내지 않습니다.
+ * </p>
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class EventCapacityEventService {
+	// 행사별 좌석 수를 저장하는 hash의 key값
+	public static final String EVENT_CAPACITY_KEY_NAME = "EVENT_CAPACITY";
+	// 좌석 수가 변경된 행사 id를 알리는 채널명
+	public static final String EVENT_CAPACITY_CHANNEL_NAME = "EVENT_CAPACITY_UPDATED";
+
+	private final StringRedisTemplate redisTemplate;
+	private final EventRepository eventRepository;
+
+	/**
+	 * 행사 등록/수정이 커밋된 후 좌석 수를 발행
+	 *
+	 * @param event 수용 인원 변경 이벤트
+	 */
+	@TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+	public void handleEventCapacityEvent(EventCapacityEventDto event) {
+		try {
+			redisTemplate.opsForHash()
+				.put(EVENT_CAPACITY_KEY_NAME, event.getEventId().toString(), event.getSeatCount().toString());
+			redisTemplate.convertAndSend(EVENT_CAPACITY_CHANNEL_NAME, event.getEventId().toString());
+		} catch (Exception e) {
+			log.error("행사 수용 인원 발행 실패. 이벤트ID: {}, 오류: {}", event.getEventId(), e.getMessage(), e);
+		}
+	}
+
+	/**
+	 * 서버 시작 시 삭제되지 않은 모든 행사의 좌석 수를 한 번에 기록
+	 * 카탈로그 도입 이전에 등록된 행사도 대기열 서버에서 조회할 수 있도록 합니다.
+	 */
+	@EventListener(ApplicationReadyEvent.class)
+	public void publishAll() {
+		try {
+			List<Event> events = eventRepository.findAllByIsDeletedFalse();
+			redisTemplate.executePipelined((RedisCallback<Object>)connection -> {
+				StringRedisConnection stringConnection = (StringRedisConnection)connection;
+				for (Event event : events) {
+					if (event.getInformation() == null || event.getInformation().getSeatCount() == null) {
+						continue;
+					}
+					stringConnection.hSet(EVENT_CAPACITY_KEY_NAME, event.getEventId().toString(),
+						event.getInformation().getSeatCount().toString());
+				}
+				return null;
+			});
+			log.info("행사 수용 인원 {}건 발행 완료", events.size());
+		} catch (Exception e) {
+			log.error("행사 수용 인원 일괄 발행 실패. 오류: {}", e.getMessage(), e);
+		}
+	}
+}
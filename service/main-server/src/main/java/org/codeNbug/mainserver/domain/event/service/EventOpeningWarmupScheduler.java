@@ -0,0 +1,157 @@
+package org.codeNbug.mainserver.domain.event.service;
+
+import static org.codeNbug.mainserver.global.Redis.config.RedisConfig.*;
+import static org.codeNbug.mainserver.global.Redis.entry.EntryLeaseService.*;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+
+import org.codeNbug.mainserver.domain.event.dto.EventCapacityEventDto;
+import org.codeNbug.mainserver.domain.event.dto.SeatInventoryEventDto;
+import org.codeNbug.mainserver.domain.event.entity.Event;
+import org.codeNbug.mainserver.domain.event.entity.EventStatusEnum;
+import org.codeNbug.mainserver.domain.event.repository.JpaCommonEventRepository;
+import org.codeNbug.mainserver.domain.seat.service.SeatService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 예매 시작 전 warm-up 스케줄러
+ * <p>
+ * 예매 시작이 lead-millis 이내로 다가온 행사를 찾아 예매 시작 직후 처음 만들어지던 구조를 미리 준비합니다.
+ * 1. 좌석 레이아웃 캐시를 DB에서 다시 읽어 적재합니다.
+ * 2. 좌석 수 / 잔여 좌석 수를 대기열 서버가 읽는 hash에 발행합니다.
+ * 3. entry window와 남은 입장 자리 키를 대기열 서버와 같은 초기값으로 만들어 둡니다. 이미 있다면 건드리지 않습니다.
+ * 4. 조회수 순위에 행사를 등록해 상세 조회가 처음부터 증가 연산만 하도록 합니다.
+ * 또한 1분 주기 상태 변경 배치를 기다리지 않도록 예매 시작 시각에 정확히 OPEN으로 바꾸는 작업을 예약합니다.
+ * 인스턴스마다 로컬 캐시와 JIT가 따로 데워져야 하므로 모든 인스턴스가 실행하며, redis 기록과 상태 변경은 여러 번 실행해도 같은 결과입니다.
+ * </p>
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class EventOpeningWarmupScheduler {
+	// 행사별 entry window 크기의 key값. 실제 키는 "ENTRY_WINDOW:{eventId}"
+	public static final String ENTRY_WINDOW_KEY_NAME = "ENTRY_WINDOW";
+	private static final String VIEW_COUNT_KEY_NAME = "viewCount:top";
+
+	private final JpaCommonEventRepository eventRepository;
+	private final SeatService seatService;
+	private final EventCapacityEventService eventCapacityEventService;
+	private final SeatInventoryEventService seatInventoryEventService;
+	private final StringRedisTemplate stringRedisTemplate;
+	private final RedisTemplate<String, Object> redisTemplate;
+	private final TaskScheduler taskScheduler;
+
+	// 예매 시작 시각에 상태 변경이 예약된 행사 (eventId -> 예약)
+	private final Map<Long, ScheduledOpening> openings = new ConcurrentHashMap<>();
+
+	@Value("${custom.event.warmup.lead-millis:600000}")
+	private long leadMillis;
+
+	// 대기열 서버의 custom.queue.entry-window.initial과 맞춤
+	@Value("${custom.event.warmup.initial-entry-window:100}")
+	private int initialEntryWindow;
+
+	/**
+	 * 예매 시작이 다가온 행사를 찾아 warm-up하고 예매 시작 시각의 상태 변경을 예약합니다.
+	 * 이미 예약한 행사는 예매 시작 시각이 바뀐 경우에만 다시 준비합니다.
+	 */
+	@Scheduled(fixedDelayString = "${custom.event.warmup.scan-millis:30000}")
+	public void scan() {
+		try {
+			LocalDateTime now = LocalDateTime.now();
+			openings.values().removeIf(opening -> opening.future().isDone());
+
+			List<Event> events = eventRepository.findByIsDeletedFalseAndBookingStartBetween(now,
+				now.plusNanos(leadMillis * 1_000_000));
+			for (Event event : events) {
+				if (event.getStatus() == EventStatusEnum.CANCELLED) {
+					continue;
+				}
+				ScheduledOpening scheduled = openings.get(event.getEventId());
+				if (scheduled != null && scheduled.bookingStart().equals(event.getBookingStart())) {
+					continue;
+				}
+				if (scheduled != null) {
+					scheduled.future().cancel(false);
+				}
+				warmUp(event);
+				scheduleOpening(event);
+			}
+		} catch (Exception e) {
+			log.error("예매 시작 warm-up 대상 조회 실패. 오류: {}", e.getMessage(), e);
+		}
+	}
+
+	/**
+	 * 행사 하나를 warm-up합니다. 한 단계가 실패하더라도 나머지 단계는 진행합니다.
+	 *
+	 * @param event 예매 시작이 다가온 행사
+	 */
+	public void warmUp(Event event) {
+		Long eventId = event.getEventId();
+		long startedAt = System.currentTimeMillis();
+		try {
+			seatService.warmSeatLayout(eventId);
+		} catch (Exception e) {
+			log.warn("좌석 레이아웃 warm-up 실패. 이벤트ID: {}, 오류: {}", eventId, e.getMessage());
+		}
+
+		Integer seatCount = event.getInformation() == null ? null : event.getInformation().getSeatCount();
+		if (seatCount != null) {
+			eventCapacityEventService.handleEventCapacityEvent(new EventCapacityEventDto(eventId, seatCount));
+			try {
+				String initialWindow = String.valueOf(Math.min(seatCount, initialEntryWindow));
+				stringRedisTemplate.opsForValue().setIfAbsent(eventKey(ENTRY_WINDOW_KEY_NAME, eventId), initialWindow);
+				stringRedisTemplate.opsForValue()
+					.setIfAbsent(eventKey(ENTRY_QUEUE_COUNT_KEY_NAME, eventId), initialWindow);
+			} catch (Exception e) {
+				log.warn("입장 자리 초기화 실패. 이벤트ID: {}, 오류: {}", eventId, e.getMessage());
+			}
+		}
+		seatInventoryEventService.handleSeatInventoryEvent(new SeatInventoryEventDto(eventId));
+
+		try {
+			int viewCount = event.getViewCount() == null ? 0 : event.getViewCount();
+			redisTemplate.opsForZSet().addIfAbsent(VIEW_COUNT_KEY_NAME, "event:" + eventId, viewCount);
+		} catch (Exception e) {
+			log.warn("조회수 순위 등록 실패. 이벤트ID: {}, 오류: {}", eventId, e.getMessage());
+		}
+		log.info("행사 {} 예매 시작 warm-up 완료 ({}ms). 예매 시작: {}", eventId,
+			System.currentTimeMillis() - startedAt, event.getBookingStart());
+	}
+
+	private void scheduleOpening(Event event) {
+		Long eventId = event.getEventId();
+		ScheduledFuture<?> future = taskScheduler.schedule(() -> open(eventId),
+			event.getBookingStart().atZone(ZoneId.systemDefault()).toInstant());
+		openings.put(eventId, new ScheduledOpening(event.getBookingStart(), future));
+	}
+
+	private void open(Long eventId) {
+		try {
+			int updated = eventRepository.updateStatus(eventId, EventStatusEnum.CLOSED, EventStatusEnum.OPEN);
+			if (updated > 0) {
+				log.info("행사 {} 예매 시작. 상태를 OPEN으로 변경", eventId);
+			}
+		} catch (Exception e) {
+			// 1분 주기 상태 변경 배치가 다시 반영하므로 로그만 남김
+			log.error("행사 예매 시작 상태 변경 실패. 이벤트ID: {}, 오류: {}", eventId, e.getMessage(), e);
+		}
+	}
+
+	private record ScheduledOpening(LocalDateTime bookingStart, ScheduledFuture<?> future) {
+	}
+}
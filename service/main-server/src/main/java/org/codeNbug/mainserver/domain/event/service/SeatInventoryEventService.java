@@ -0,0 +1,53 @@
+package org.codeNbug.mainserver.domain.event.service;
+
+import org.codeNbug.mainserver.domain.event.dto.SeatInventoryEventDto;
+import org.codeNbug.mainserver.domain.seat.repository.SeatRepository;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 행사 잔여 좌석 발행 리스너
+ * <p>
+ * 결제 승인/취소로 판매된 좌석 수가 바뀌면 아직 판매되지 않은 좌석 수를 redis hash에 기록하고 변경 채널로 알립니다.
+ * 잔여 좌석이 0이면 매진이며, 대기열 서버는 새 진입을 거절하고 대기 중인 유저에게 매진을 알린 뒤 연결을 종료합니다.
+ * 환불로 잔여 좌석이 다시 생기면 같은 경로로 매진이 풀립니다.
+ * </p>
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class SeatInventoryEventService {
+	// 행사별 잔여 좌석 수를 저장하는 hash의 key값. field는 행사 id
+	public static final String EVENT_INVENTORY_KEY_NAME = "EVENT_INVENTORY";
+	// 잔여 좌석 수가 변경된 행사 id를 알리는 채널명
+	public static final String EVENT_INVENTORY_CHANNEL_NAME = "EVENT_INVENTORY_UPDATED";
+
+	private final StringRedisTemplate redisTemplate;
+	private final SeatRepository seatRepository;
+
+	/**
+	 * 좌석 판매 상태가 커밋된 후 잔여 좌석 수를 발행
+	 * 트랜잭션 밖에서 발행된 경우(결제 승인)에는 바로 실행합니다.
+	 *
+	 * @param event 잔여 좌석 변경 이벤트
+	 */
+	@TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+	public void handleSeatInventoryEvent(SeatInventoryEventDto event) {
+		try {
+			long remaining = seatRepository.countUnsoldSeatsByEventId(event.getEventId());
+			redisTemplate.opsForHash()
+				.put(EVENT_INVENTORY_KEY_NAME, event.getEventId().toString(), String.valueOf(remaining));
+			redisTemplate.convertAndSend(EVENT_INVENTORY_CHANNEL_NAME, event.getEventId().toString());
+			if (remaining == 0) {
+				log.info("행사 {} 매진", event.getEventId());
+			}
+		} catch (Exception e) {
+			log.error("행사 잔여 좌석 발행 실패. 이벤트ID: {}, 오류: {}", event.getEventId(), e.getMessage(), e);
+		}
+	}
+}
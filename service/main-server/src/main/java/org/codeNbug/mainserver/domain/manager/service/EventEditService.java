@@ -4,6 +4,7 @@ import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
 
+import org.codeNbug.mainserver.domain.event.dto.EventCapacityEventDto;
 import org.codeNbug.mainserver.domain.event.dto.EventRegisterResponse;
 import org.codeNbug.mainserver.domain.event.entity.Event;
 import org.codeNbug.mainserver.domain.event.entity.EventCategoryEnum;
@@ -21,6 +22,7 @@ import org.codeNbug.mainserver.domain.seat.repository.SeatLayoutRepository;
 import org.codeNbug.mainserver.domain.seat.repository.SeatRepository;
 import org.codeNbug.mainserver.domain.seat.service.SeatService;
 import org.codeNbug.mainserver.global.exception.globalException.BadRequestException;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -39,6 +41,7 @@ public class EventEditService {
 	private final PurchaseRepository purchaseRepository;
 	private final NotificationService notificationService;
 	private final SeatService seatService;
+	private final ApplicationEventPublisher eventPublisher;
 
 	/**
 	 * 이벤트 수정 메인 메서드입니다.
@@ -60,6 +63,8 @@ public class EventEditService {
 		updateBookingPeriod(event, request);
 		updateSeatLayout(eventId, request);
 		updateSeatsAndGrades(event, request);
+		// 커밋 후 대기열 서버가 사용할 좌석 수 발행
+		eventPublisher.publishEvent(new EventCapacityEventDto(eventId, request.getSeatCount()));
 
 		// 이벤트 수정 알림 처리 추가
 		try {
@@ -4,6 +4,7 @@ import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
 
+import org.codeNbug.mainserver.domain.event.dto.EventCapacityEventDto;
 import org.codeNbug.mainserver.domain.event.dto.EventRegisterResponse;
 import org.codeNbug.mainserver.domain.event.entity.Event;
 import org.codeNbug.mainserver.domain.event.entity.EventInformation;
@@ -20,6 +21,7 @@ import org.codeNbug.mainserver.domain.seat.service.SeatService;
 import org.codeNbug.mainserver.global.exception.globalException.BadRequestException;
 import org.codenbug.user.domain.user.entity.User;
 import org.codenbug.user.domain.user.repository.UserRepository;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -36,6 +38,7 @@ public class EventRegisterService {
 	private final UserRepository userRepository;
 	private final SeatGradeRepository seatGradeRepository;
 	private final SeatService seatService;
+	private final ApplicationEventPublisher eventPublisher;
 
 	/**
 	 * 이벤트 등록 메인 메서드
@@ -56,6 +59,8 @@ public class EventRegisterService {
 		event.setSeatLayout(seatLayout);
 		event.setMinPrice(minPrice);
 		event.setMaxPrice(maxPrice);
+		// 커밋 후 대기열 서버가 사용할 좌석 수 발행
+		eventPublisher.publishEvent(new EventCapacityEventDto(event.getEventId(), request.getSeatCount()));
 		return eventDomainService.buildEventRegisterResponse(request, event);
 	}
 
@@ -9,6 +9,7 @@ import java.util.List;
 import java.util.Objects;
 import java.util.UUID;
 
+import org.codeNbug.mainserver.domain.event.dto.SeatInventoryEventDto;
 import org.codeNbug.mainserver.domain.event.entity.Event;
 import org.codeNbug.mainserver.domain.manager.dto.ManagerRefundRequest;
 import org.codeNbug.mainserver.domain.manager.dto.ManagerRefundResponse;
@@ -38,9 +39,11 @@ import org.codeNbug.mainserver.domain.ticket.repository.TicketRepository;
 import org.codeNbug.mainserver.external.toss.dto.CanceledPaymentInfo;
 import org.codeNbug.mainserver.external.toss.dto.ConfirmedPaymentInfo;
 import org.codeNbug.mainserver.external.toss.service.TossPaymentService;
+import org.codeNbug.mainserver.global.Redis.entry.EntryFeedbackRecorder;
 import org.codeNbug.mainserver.global.exception.globalException.BadRequestException;
 import org.codenbug.user.domain.user.entity.User;
 import org.codenbug.user.domain.user.repository.UserRepository;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
@@ -63,6 +66,8 @@ public class PurchaseService {
 	private final RedisLockService redisLockService;
 	private final ManagerEventRepository managerEventRepository;
 	private final NotificationService notificationService;
+	private final EntryFeedbackRecorder entryFeedbackRecorder;
+	private final ApplicationEventPublisher eventPublisher;
 
 	/**
 	 * 결제 사전 등록 처리
@@ -103,6 +108,7 @@ public class PurchaseService {
 	public ConfirmPaymentResponse confirmPayment(ConfirmPaymentRequest request, Long userId) throws
 		IOException,
 		InterruptedException {
+		Long eventId = null;
 		try {
 			Purchase purchase = purchaseRepository.findById(request.getPurchaseId())
 				.orElseThrow(() -> new IllegalArgumentException("[confirm] 구매 정보를 찾을 수 없습니다."));
@@ -115,7 +121,7 @@ public class PurchaseService {
 				throw new BadRequestException("[confirm] 결제 금액이 일치하지 않습니다.");
 			}
 
-			Long eventId = redisLockService.extractEventIdByUserId(userId);
+			eventId = redisLockService.extractEventIdByUserId(userId);
 			List<Long> seatIds = redisLockService.getLockedSeatIdsByUserId(userId);
 
 			Event event = eventRepository.findById(eventId)
@@ -161,7 +167,12 @@ public class PurchaseService {
 			purchaseRepository.save(purchase);
 
 			redisLockService.releaseAllLocks(userId);
-			redisLockService.releaseAllEntryQueueLocks(userId);
+			redisLockService.releaseAllEntryQueueLocks(userId, eventId);
+
+			// 입장 인원 조절을 위해 결제 완료 처리량 기록
+			entryFeedbackRecorder.recordCheckout(eventId);
+			// 잔여 좌석 수와 매진 여부를 대기열 서버에 알림
+			eventPublisher.publishEvent(new SeatInventoryEventDto(eventId));
 
 			// 결제 완료 알림 생성
 			try {
@@ -196,7 +207,10 @@ public class PurchaseService {
 			throw e;
 		} finally {
 			redisLockService.releaseAllLocks(userId);
-			redisLockService.releaseAllEntryQueueLocks(userId);
+			// 입장 토큰과 lease는 행사별 키에 있으므로 행사를 알아낸 뒤에만 반납
+			if (eventId != null) {
+				redisLockService.releaseAllEntryQueueLocks(userId, eventId);
+			}
 		}
 	}
 
@@ -303,6 +317,11 @@ public class PurchaseService {
 
 			ticketRepository.delete(ticket);
 		}
+		// 환불된 좌석만큼 잔여 좌석이 늘어나므로 매진 여부를 다시 알림
+		tickets.stream()
+			.map(ticket -> ticket.getEvent().getEventId())
+			.distinct()
+			.forEach(eventId -> eventPublisher.publishEvent(new SeatInventoryEventDto(eventId)));
 
 		for (CanceledPaymentInfo.CancelDetail cancelDetail : canceledPaymentInfo.getCancels()) {
 			PurchaseCancel purchaseCancel = PurchaseCancel.builder()
@@ -465,6 +484,11 @@ public class PurchaseService {
 			responseList.add(response);
 		}
 
+		// 환불된 좌석만큼 잔여 좌석이 늘어나므로 커밋 후 매진 여부를 다시 알림
+		if (!purchasesToRefund.isEmpty()) {
+			eventPublisher.publishEvent(new SeatInventoryEventDto(eventId));
+		}
+
 		return responseList;
 	}
 
@@ -21,4 +21,8 @@ public interface SeatRepository extends JpaRepository<Seat, Long> {
 
 	@Query("SELECT s FROM Seat s WHERE s.event.eventId = :eventId AND s.available = true ORDER BY s.id ASC")
 	List<Seat> findFirstByEventIdAndAvailableTrue(@Param("eventId") Long eventId);
+
+	// 아직 판매되지 않은(티켓이 발급되지 않은) 좌석 수. 선점 중인 좌석은 선점이 풀리면 다시 판매될 수 있으므로 포함한다
+	@Query("SELECT COUNT(s) FROM Seat s WHERE s.event.eventId = :eventId AND s.ticket IS NULL")
+	long countUnsoldSeatsByEventId(@Param("eventId") Long eventId);
 }
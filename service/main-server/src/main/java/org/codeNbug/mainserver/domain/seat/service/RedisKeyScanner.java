@@ -4,6 +4,9 @@ import java.nio.charset.StandardCharsets;
 import java.util.HashSet;
 import java.util.Set;
 
+import org.springframework.data.redis.connection.RedisClusterConnection;
+import org.springframework.data.redis.connection.RedisClusterNode;
+import org.springframework.data.redis.core.Cursor;
 import org.springframework.data.redis.core.RedisCallback;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.data.redis.core.ScanOptions;
@@ -14,6 +17,7 @@ import lombok.RequiredArgsConstructor;
 /**
  * Redis 키 스캔 유틸리티
  * - 운영 환경에서도 안전하게 키를 조회할 수 있도록 SCAN 명령어 기반으로 구현
+ * - redis cluster에서는 SCAN이 노드 하나만 순회하므로 모든 master 노드를 각각 스캔
  */
 @Component
 @RequiredArgsConstructor
@@ -36,13 +40,25 @@ public class RedisKeyScanner {
 				.count(1000)
 				.build();
 
-			try (var cursor = connection.scan(options)) {
-				while (cursor.hasNext()) {
-					result.add(new String(cursor.next(), StandardCharsets.UTF_8));
+			if (connection instanceof RedisClusterConnection clusterConnection) {
+				for (RedisClusterNode node : clusterConnection.clusterGetNodes()) {
+					if (node.isMaster()) {
+						collect(clusterConnection.scan(node, options), result);
+					}
 				}
+			} else {
+				collect(connection.scan(options), result);
 			}
 
 			return result;
 		});
 	}
+
+	private void collect(Cursor<byte[]> cursor, Set<String> result) {
+		try (cursor) {
+			while (cursor.hasNext()) {
+				result.add(new String(cursor.next(), StandardCharsets.UTF_8));
+			}
+		}
+	}
 }
\ No newline at end of file
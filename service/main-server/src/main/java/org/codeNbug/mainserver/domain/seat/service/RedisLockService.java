@@ -1,9 +1,12 @@
 package org.codeNbug.mainserver.domain.seat.service;
 
+import static org.codeNbug.mainserver.global.Redis.config.RedisConfig.*;
+
 import java.time.Duration;
 import java.util.List;
 import java.util.Set;
 
+import org.codeNbug.mainserver.global.Redis.entry.EntryLeaseService;
 import org.codeNbug.mainserver.global.exception.globalException.BadRequestException;
 import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.stereotype.Service;
@@ -25,6 +28,7 @@ import lombok.extern.slf4j.Slf4j;
 public class RedisLockService {
 	private final StringRedisTemplate redisTemplate;
 	private final RedisKeyScanner redisKeyScanner;
+	private final EntryLeaseService entryLeaseService;
 	private static final String PREFIX = "seat:lock:";
 	public static final String ENTRY_TOKEN_STORAGE_KEY_NAME = "ENTRY_TOKEN";
 
@@ -125,14 +129,19 @@ public class RedisLockService {
 	 * entry Queue 의 대기열 해제
 	 *
 	 * @param userId 사용자 ID
+	 * @param eventId 행사 ID
 	 */
-	public void releaseAllEntryQueueLocks(Long userId) {
-		Long deletedCount = redisTemplate.opsForHash().delete(ENTRY_TOKEN_STORAGE_KEY_NAME, userId.toString());
+	public void releaseAllEntryQueueLocks(Long userId, Long eventId) {
+		Long deletedCount = redisTemplate.opsForHash()
+			.delete(eventKey(ENTRY_TOKEN_STORAGE_KEY_NAME, eventId), userId.toString());
 
 		if (deletedCount > 0) {
 			log.info("ENTRY_TOKEN 해시에서 userId {}의 토큰을 삭제했습니다.", userId);
 		} else {
 			log.warn("ENTRY_TOKEN 해시에서 userId {}에 해당하는 토큰이 존재하지 않습니다.", userId);
 		}
+
+		// 입장 자리 lease를 반납해 다음 대기자가 승급될 수 있도록 함
+		entryLeaseService.release(eventId, userId);
 	}
 }
\ No newline at end of file
@@ -15,6 +15,7 @@ import org.codeNbug.mainserver.domain.seat.entity.SeatLayout;
 import org.codeNbug.mainserver.domain.seat.repository.SeatLayoutRepository;
 import org.codeNbug.mainserver.domain.seat.repository.SeatRepository;
 import org.codeNbug.mainserver.global.exception.globalException.BadRequestException;
+import org.codeNbug.mainserver.global.Redis.entry.EntryFeedbackRecorder;
 import org.codeNbug.mainserver.global.exception.globalException.ConflictException;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.data.redis.core.RedisTemplate;
@@ -38,6 +39,7 @@ public class SeatService {
 	private final EventRepository eventRepository;
 	private final SeatLayoutRepository seatLayoutRepository;
 	private final RedisTemplate<String, Object> redisTemplate;
+	private final EntryFeedbackRecorder entryFeedbackRecorder;
 
 	private static final String SEAT_CACHE_KEY_PREFIX = "seatLayout:";
 	private static final String SEAT_LOCK_KEY_PREFIX = "seat:lock:";
@@ -62,6 +64,23 @@ public class SeatService {
 			return cached;
 		}
 
+		return loadSeatLayout(eventId);
+	}
+
+	/**
+	 * 예매 시작 전에 좌석 레이아웃을 DB에서 다시 읽어 캐시에 미리 적재
+	 * 예매 시작 직후 몰리는 첫 조회들이 동시에 캐시를 만들지 않도록 합니다.
+	 *
+	 * @param eventId 이벤트 ID
+	 * @throws IllegalArgumentException 좌석 레이아웃이 없는 이벤트일 경우
+	 */
+	public void warmSeatLayout(Long eventId) {
+		loadSeatLayout(eventId);
+	}
+
+	private SeatLayoutResponse loadSeatLayout(Long eventId) {
+		String cacheKey = SEAT_CACHE_KEY_PREFIX + eventId;
+
 		SeatLayout seatLayout = seatLayoutRepository.findByEvent_EventId(eventId)
 			.orElseThrow(() -> new IllegalArgumentException("해당 이벤트에 좌석 레이아웃이 존재하지 않습니다."));
 
@@ -110,6 +129,9 @@ public class SeatService {
 			reservedSeatIds = selectSeats(null, userId, eventId, false, seatSelectRequest.getTicketCount());
 		}
 
+		// 입장 인원 조절을 위해 좌석 선점 처리량 기록
+		entryFeedbackRecorder.recordSeatHold(eventId);
+
 		SeatSelectResponse seatSelectResponse = new SeatSelectResponse();
 		seatSelectResponse.setSeatList(reservedSeatIds);
 		return seatSelectResponse;
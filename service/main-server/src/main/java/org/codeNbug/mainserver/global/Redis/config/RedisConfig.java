@@ -1,9 +1,12 @@
 package org.codeNbug.mainserver.global.Redis.config;
 
+import java.util.List;
+
 import org.codeNbug.mainserver.domain.seat.service.RedisListenerService;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisClusterConfiguration;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
@@ -21,6 +24,10 @@ public class RedisConfig {
 	@Value("${spring.data.redis.port}")
 	private int port;
 
+	// redis cluster 노드 목록 (host:port). 비어있으면 host/port의 단일 노드에 연결
+	@Value("${spring.data.redis.cluster.nodes:}")
+	private List<String> clusterNodes;
+
 	private final RedisListenerService redisListenerService;
 
 	public RedisConfig(RedisListenerService redisListenerService) {
@@ -63,6 +70,21 @@ public class RedisConfig {
 
 	@Bean
 	public RedisConnectionFactory redisConnectionFactory() {
+		if (!clusterNodes.isEmpty()) {
+			return new LettuceConnectionFactory(new RedisClusterConfiguration(clusterNodes));
+		}
 		return new LettuceConnectionFactory(host, port);
 	}
+
+	/**
+	 * 행사별 키를 만듭니다. 행사 id를 hash tag({@code {eventId}})로 감싸므로
+	 * redis cluster에서도 한 행사의 대기열 / 입장 키는 모두 같은 slot에 놓입니다.
+	 *
+	 * @param prefix 키 종류 (예: {@code ENTRY_LEASES})
+	 * @param eventId 행사 id
+	 * @return {@code prefix:{eventId}} 형식의 키 (예: {@code ENTRY_LEASES:{42}})
+	 */
+	public static String eventKey(String prefix, Object eventId) {
+		return prefix + ":{" + eventId + "}";
+	}
 }
\ No newline at end of file
@@ -0,0 +1,55 @@
+package org.codeNbug.mainserver.global.Redis.entry;
+
+import static org.codeNbug.mainserver.global.Redis.config.RedisConfig.*;
+
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 입장 인원 조절을 위한 처리량 기록기
+ * <p>
+ * 좌석 선점과 결제 완료 횟수를 행사별 누적 카운터로 redis에 기록합니다.
+ * message-dispatcher는 주기적으로 이 값의 증가량을 읽어 entry window 크기를 조절합니다.
+ * 기록 실패가 예매 흐름에 영향을 주지 않도록 예외는 로그만 남깁니다.
+ * </p>
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class EntryFeedbackRecorder {
+	// 행사별 좌석 선점 누적 횟수의 key값. 실제 키는 "SEAT_HOLD_COUNT:{eventId}"
+	public static final String SEAT_HOLD_COUNT_KEY_NAME = "SEAT_HOLD_COUNT";
+	// 행사별 결제 완료 누적 횟수의 key값. 실제 키는 "CHECKOUT_COUNT:{eventId}"
+	public static final String CHECKOUT_COUNT_KEY_NAME = "CHECKOUT_COUNT";
+
+	private final StringRedisTemplate redisTemplate;
+
+	/**
+	 * 좌석 선점 성공을 기록
+	 *
+	 * @param eventId 행사 ID
+	 */
+	public void recordSeatHold(Long eventId) {
+		increment(SEAT_HOLD_COUNT_KEY_NAME, eventId);
+	}
+
+	/**
+	 * 결제 완료를 기록
+	 *
+	 * @param eventId 행사 ID
+	 */
+	public void recordCheckout(Long eventId) {
+		increment(CHECKOUT_COUNT_KEY_NAME, eventId);
+	}
+
+	private void increment(String key, Long eventId) {
+		try {
+			redisTemplate.opsForValue().increment(eventKey(key, eventId));
+		} catch (Exception e) {
+			log.warn("입장 피드백 기록 실패. key: {}, 이벤트ID: {}, 오류: {}", key, eventId, e.getMessage());
+		}
+	}
+}
@@ -0,0 +1,78 @@
+package org.codeNbug.mainserver.global.Redis.entry;
+
+import static org.codeNbug.mainserver.global.Redis.config.RedisConfig.*;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import org.codenbug.common.queue.EntryLeaseScripts;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.RedisZSetCommands;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.stereotype.Component;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 입장 자리(entry slot) lease 관리 서비스
+ * <p>
+ * 대기열에서 승급된 유저는 message-dispatcher가 발급한 lease를 가지며, lease는 행사별 {@code ENTRY_LEASES:{eventId}} zset에
+ * 만료 시각을 score로 저장됩니다. 좌석/결제 API에서 입장 토큰이 검증될 때마다 만료 시각을 연장하고,
+ * 예매가 끝나면 lease를 반납해 자리를 돌려줍니다. 연장되지 않은 lease는 dispatcher의 reaper가 회수합니다.
+ * </p>
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class EntryLeaseService {
+	// 유저별 lease 만료 시각을 저장하는 zset의 key값. 실제 키는 "ENTRY_LEASES:{eventId}"
+	public static final String ENTRY_LEASE_KEY_NAME = "ENTRY_LEASES";
+	// 행사별 남은 입장 자리 수의 key값. 실제 키는 "ENTRY_QUEUE_COUNT:{eventId}"
+	public static final String ENTRY_QUEUE_COUNT_KEY_NAME = "ENTRY_QUEUE_COUNT";
+
+	// lease 반납은 dispatcher의 reaper와 같은 스크립트를 사용
+	private static final DefaultRedisScript<Long> RELEASE_SCRIPT =
+		new DefaultRedisScript<>(EntryLeaseScripts.RELEASE, Long.class);
+
+	private final StringRedisTemplate redisTemplate;
+
+	@Value("${custom.entry.lease-millis:300000}")
+	private long leaseMillis;
+
+	/**
+	 * 유저의 lease 만료 시각을 연장합니다. lease가 없다면(이미 만료되어 회수되었다면) 새로 만들지 않습니다.
+	 *
+	 * @param eventId 행사 ID
+	 * @param userId 유저 ID
+	 */
+	public void renew(Long eventId, Long userId) {
+		byte[] key = eventKey(ENTRY_LEASE_KEY_NAME, eventId).getBytes(StandardCharsets.UTF_8);
+		byte[] member = userId.toString().getBytes(StandardCharsets.UTF_8);
+		double expiresAt = System.currentTimeMillis() + leaseMillis;
+		try {
+			redisTemplate.execute((RedisCallback<Boolean>)connection -> connection.zSetCommands()
+				.zAdd(key, expiresAt, member, RedisZSetCommands.ZAddArgs.ifExists()));
+		} catch (Exception e) {
+			log.warn("입장 lease 연장 실패. 사용자ID: {}, 오류: {}", userId, e.getMessage());
+		}
+	}
+
+	/**
+	 * 유저의 lease를 반납하고 입장 자리를 돌려준 뒤 입장 토큰을 삭제합니다.
+	 *
+	 * @param eventId 행사 ID
+	 * @param userId 유저 ID
+	 */
+	public void release(Long eventId, Long userId) {
+		Long released = redisTemplate.execute(RELEASE_SCRIPT,
+			List.of(eventKey(ENTRY_LEASE_KEY_NAME, eventId), eventKey(ENTRY_QUEUE_COUNT_KEY_NAME, eventId),
+				eventKey(EntryTokenValidator.ENTRY_TOKEN_STORAGE_KEY_NAME, eventId)),
+			userId.toString());
+		if (released != null && released > 0) {
+			log.info("userId {}의 입장 lease를 반납했습니다.", userId);
+		}
+	}
+}
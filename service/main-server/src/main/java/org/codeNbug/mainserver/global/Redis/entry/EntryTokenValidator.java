@@ -1,9 +1,14 @@
 package org.codeNbug.mainserver.global.Redis.entry;
 
+import static org.codeNbug.mainserver.global.Redis.config.RedisConfig.*;
+
+import org.codenbug.common.util.JwtUtil;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.stereotype.Component;
 
+import io.jsonwebtoken.Claims;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
@@ -13,10 +18,17 @@ import lombok.extern.slf4j.Slf4j;
 public class EntryTokenValidator {
 
 	private final StringRedisTemplate redisTemplate;
+	private final EntryLeaseService entryLeaseService;
+	// 입장 토큰을 저장하는 hash의 key값. 실제 키는 "ENTRY_TOKEN:{eventId}"
 	public static final String ENTRY_TOKEN_STORAGE_KEY_NAME = "ENTRY_TOKEN";
 
+	@Value("${jwt.secret}")
+	private String secret;
+
 	public void validate(Long userId, String token) {
-		String redisKey = ENTRY_TOKEN_STORAGE_KEY_NAME;
+		// 토큰은 행사별 키에 저장되므로 토큰에 담긴 행사 id로 조회
+		Long eventId = parseEventId(token);
+		String redisKey = eventKey(ENTRY_TOKEN_STORAGE_KEY_NAME, eventId);
 		String storedToken = (String)redisTemplate.opsForHash().get(redisKey, userId.toString());
 
 		if (storedToken == null) {
@@ -28,5 +40,17 @@ public class EntryTokenValidator {
 		if (!storedToken.equals(token)) {
 			throw new AccessDeniedException("유효하지 않은 입장 토큰입니다.");
 		}
+
+		// 좌석/결제 활동이 있었으므로 입장 자리 lease를 연장
+		entryLeaseService.renew(eventId, userId);
+	}
+
+	private Long parseEventId(String token) {
+		try {
+			Claims claims = JwtUtil.parseClaims(token, secret);
+			return Long.valueOf(claims.get("eventId").toString());
+		} catch (Exception e) {
+			throw new AccessDeniedException("유효하지 않은 입장 토큰입니다.");
+		}
 	}
-}
\ No newline at end of file
+}
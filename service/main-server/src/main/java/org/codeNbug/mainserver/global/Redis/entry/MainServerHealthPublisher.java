@@ -0,0 +1,76 @@
+package org.codeNbug.mainserver.global.Redis.entry;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 메인 서버의 응답 지연(p99)을 주기적으로 redis에 발행합니다.
+ * <p>
+ * {@code MAIN_SERVER_HEALTH} hash에 인스턴스별로 "p99(ms):발행 시각(ms)" 형태로 기록하며,
+ * message-dispatcher는 최근에 발행된 값 중 가장 큰 p99를 기준으로 entry window를 줄이거나 늘립니다.
+ * p99는 스프링이 기록하는 {@code http.server.requests} 타이머의 백분위 값을 사용합니다.
+ * </p>
+ */
+@Slf4j
+@Component
+public class MainServerHealthPublisher {
+	// 인스턴스별 p99 응답 지연을 저장하는 hash의 key값
+	public static final String MAIN_SERVER_HEALTH_KEY_NAME = "MAIN_SERVER_HEALTH";
+	private static final String HTTP_SERVER_REQUESTS = "http.server.requests";
+	private static final double P99 = 0.99;
+
+	private final StringRedisTemplate redisTemplate;
+	private final MeterRegistry meterRegistry;
+	private final String instanceName;
+
+	public MainServerHealthPublisher(StringRedisTemplate redisTemplate, MeterRegistry meterRegistry) {
+		this.redisTemplate = redisTemplate;
+		this.meterRegistry = meterRegistry;
+		this.instanceName = resolveInstanceName();
+	}
+
+	private static String resolveInstanceName() {
+		try {
+			return InetAddress.getLocalHost().getHostName();
+		} catch (UnknownHostException e) {
+			return "main-" + UUID.randomUUID().toString().substring(0, 8);
+		}
+	}
+
+	@Scheduled(fixedDelay = 1000)
+	public void publish() {
+		try {
+			long p99Millis = Math.round(currentP99Millis());
+			redisTemplate.opsForHash()
+				.put(MAIN_SERVER_HEALTH_KEY_NAME, instanceName, p99Millis + ":" + System.currentTimeMillis());
+		} catch (Exception e) {
+			log.warn("메인 서버 상태 발행 실패: {}", e.getMessage());
+		}
+	}
+
+	/**
+	 * 모든 요청 경로의 p99 중 가장 큰 값을 반환합니다. 기록된 요청이 없으면 0을 반환합니다.
+	 */
+	private double currentP99Millis() {
+		double max = 0;
+		for (Timer timer : meterRegistry.find(HTTP_SERVER_REQUESTS).timers()) {
+			for (ValueAtPercentile percentile : timer.takeSnapshot().percentileValues()) {
+				if (percentile.percentile() == P99) {
+					max = Math.max(max, percentile.value(TimeUnit.MILLISECONDS));
+				}
+			}
+		}
+		return max;
+	}
+}
@@ -9,6 +9,7 @@ import java.util.Collections;
 import java.util.Map;
 import java.util.Optional;
 
+import org.codeNbug.mainserver.domain.event.dto.EventCapacityEventDto;
 import org.codeNbug.mainserver.domain.event.dto.EventRegisterResponse;
 import org.codeNbug.mainserver.domain.event.entity.Event;
 import org.codeNbug.mainserver.domain.event.entity.EventCategoryEnum;
@@ -31,6 +32,7 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 
 @ExtendWith(MockitoExtension.class)
 class EventRegisterServiceTest {
@@ -50,6 +52,9 @@ class EventRegisterServiceTest {
 	@Mock
 	private ManagerEventRepository managerEventRepository;
 
+	@Mock
+	private ApplicationEventPublisher eventPublisher;
+
 	@InjectMocks
 	private EventRegisterService eventRegisterService;
 
@@ -109,6 +114,7 @@ class EventRegisterServiceTest {
 		assertNotNull(response);
 		assertEquals("Test Event", response.getTitle());
 		assertEquals("Seoul", response.getLocation());
+		verify(eventPublisher).publishEvent(any(EventCapacityEventDto.class));
 	}
 
 	// 더미 요청 생성 메서드
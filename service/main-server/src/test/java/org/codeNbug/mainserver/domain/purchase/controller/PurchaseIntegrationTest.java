@@ -35,6 +35,7 @@ import org.codeNbug.mainserver.domain.seat.service.SeatService;
 import org.codeNbug.mainserver.domain.ticket.repository.TicketRepository;
 import org.codeNbug.mainserver.external.toss.service.TossPaymentService;
 import org.codeNbug.mainserver.external.toss.service.TossPaymentServiceImpl;
+import org.codeNbug.mainserver.global.Redis.config.RedisConfig;
 import org.codeNbug.mainserver.util.BaseTestUtil;
 import org.codenbug.user.domain.user.entity.User;
 import org.codenbug.user.domain.user.repository.UserRepository;
@@ -195,7 +196,7 @@ class PurchaseIntegrationTest {
 			.andRespond(withSuccess("{\"data\": {\"entryAuthToken\": \"testToken\"}}", MediaType.APPLICATION_JSON));
 
 		redisTemplate.opsForHash().put(
-			ENTRY_TOKEN_STORAGE_KEY_NAME,
+			RedisConfig.eventKey(ENTRY_TOKEN_STORAGE_KEY_NAME, SelecatbleTestEvent.getEventId()),
 			String.valueOf(testUser.getUserId()),
 			testToken
 		);
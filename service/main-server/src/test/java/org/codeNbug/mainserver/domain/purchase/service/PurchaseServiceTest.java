@@ -10,6 +10,7 @@ import java.time.OffsetDateTime;
 import java.util.List;
 import java.util.Optional;
 
+import org.codeNbug.mainserver.domain.event.dto.SeatInventoryEventDto;
 import org.codeNbug.mainserver.domain.event.entity.Event;
 import org.codeNbug.mainserver.domain.manager.repository.EventRepository;
 import org.codeNbug.mainserver.domain.notification.service.NotificationService;
@@ -34,6 +35,7 @@ import org.codeNbug.mainserver.domain.ticket.repository.TicketRepository;
 import org.codeNbug.mainserver.external.toss.dto.CanceledPaymentInfo;
 import org.codeNbug.mainserver.external.toss.dto.ConfirmedPaymentInfo;
 import org.codeNbug.mainserver.external.toss.service.TossPaymentService;
+import org.codeNbug.mainserver.global.Redis.entry.EntryFeedbackRecorder;
 import org.codeNbug.mainserver.global.exception.globalException.BadRequestException;
 import org.codenbug.user.domain.user.entity.User;
 import org.codenbug.user.domain.user.repository.UserRepository;
@@ -43,6 +45,7 @@ import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -79,6 +82,12 @@ class PurchaseServiceTest {
 	@Mock
 	private NotificationService notificationService;
 
+	@Mock
+	private EntryFeedbackRecorder entryFeedbackRecorder;
+
+	@Mock
+	private ApplicationEventPublisher eventPublisher;
+
 	private Long userId;
 	private Long eventId;
 	private User user;
@@ -227,6 +236,8 @@ class PurchaseServiceTest {
 		assertThat(response.getStatus()).isEqualTo("DONE");
 		assertThat(response.getMethod().name()).isEqualTo("카드");
 		assertThat(response.getOrderId()).isEqualTo("orderId");
+		then(entryFeedbackRecorder).should().recordCheckout(eventId);
+		then(eventPublisher).should().publishEvent(any(SeatInventoryEventDto.class));
 	}
 
 	@Test
@@ -318,7 +329,7 @@ class PurchaseServiceTest {
 
 		// then
 		verify(redisLockService).releaseAllLocks(userId);
-		verify(redisLockService).releaseAllEntryQueueLocks(userId);
+		verify(redisLockService).releaseAllEntryQueueLocks(userId, eventId);
 	}
 
 	@DisplayName("결제 취소 성공")
@@ -349,6 +360,7 @@ class PurchaseServiceTest {
 		assertThat(response.getStatus()).isEqualTo("CANCELED");
 		assertThat(response.getCancels().get(0).getCancelAmount()).isEqualTo(1000);
 		assertThat(response.getCancels().get(0).getCancelReason()).isEqualTo("단순 변심");
+		then(eventPublisher).should().publishEvent(any(SeatInventoryEventDto.class));
 	}
 
 	@DisplayName("결제 취소 실패 - 결제 정보 없음")
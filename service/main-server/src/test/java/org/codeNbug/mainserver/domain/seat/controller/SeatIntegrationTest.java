@@ -28,6 +28,7 @@ import org.codeNbug.mainserver.domain.seat.repository.SeatLayoutRepository;
 import org.codeNbug.mainserver.domain.seat.repository.SeatRepository;
 import org.codeNbug.mainserver.domain.seat.service.RedisLockService;
 import org.codeNbug.mainserver.domain.seat.service.SeatService;
+import org.codeNbug.mainserver.global.Redis.config.RedisConfig;
 import org.codeNbug.mainserver.global.Redis.entry.EntryTokenValidator;
 import org.codeNbug.mainserver.global.dto.RsData;
 import org.codenbug.user.domain.user.constant.UserRole;
@@ -266,7 +267,8 @@ public class SeatIntegrationTest {
 			}
 		}
 
-		redisTemplate.opsForHash().put(EntryTokenValidator.ENTRY_TOKEN_STORAGE_KEY_NAME,
+		redisTemplate.opsForHash().put(
+			RedisConfig.eventKey(EntryTokenValidator.ENTRY_TOKEN_STORAGE_KEY_NAME, testEvent.getEventId()),
 			String.valueOf(testUser.getUserId()),
 			testToken);
 	}
@@ -18,6 +18,7 @@ import org.codeNbug.mainserver.domain.seat.entity.SeatGradeEnum;
 import org.codeNbug.mainserver.domain.seat.entity.SeatLayout;
 import org.codeNbug.mainserver.domain.seat.repository.SeatLayoutRepository;
 import org.codeNbug.mainserver.domain.seat.repository.SeatRepository;
+import org.codeNbug.mainserver.global.Redis.entry.EntryFeedbackRecorder;
 import org.codeNbug.mainserver.global.exception.globalException.BadRequestException;
 import org.codeNbug.mainserver.global.exception.globalException.ConflictException;
 import org.junit.jupiter.api.BeforeEach;
@@ -57,6 +58,9 @@ class SeatServiceTest {
 	@Mock
 	private SeatTransactionService seatTransactionService;
 
+	@Mock
+	private EntryFeedbackRecorder entryFeedbackRecorder;
+
 	private Long userId;
 	private Long eventId;
 	private SeatLayout seatLayout;
@@ -133,6 +137,22 @@ class SeatServiceTest {
 		assertThat(result.getSeats().get(1).getLocation()).isEqualTo("A2");
 	}
 
+	@Test
+	@DisplayName("좌석 레이아웃 warm-up - 캐시가 있어도 DB에서 다시 읽어 적재")
+	void warmSeatLayout_success() {
+		// given
+		given(seatLayoutRepository.findByEvent_EventId(eventId)).willReturn(Optional.of(seatLayout));
+		given(seatRepository.findAllByLayoutIdWithGrade(seatLayout.getId()))
+			.willReturn(List.of(seat1, seat2));
+
+		// when
+		seatService.warmSeatLayout(eventId);
+
+		// then
+		then(valueOperations).should(never()).get(any());
+		then(valueOperations).should().set(eq("seatLayout:" + eventId), any(SeatLayoutResponse.class), any());
+	}
+
 	@Test
 	@DisplayName("좌석 조회 실패 - 존재하지 않는 이벤트")
 	void getSeatLayout_eventNotFound() {
@@ -165,6 +185,7 @@ class SeatServiceTest {
 		// then
 		assertThat(result).isNotNull();
 		assertThat(result.getSeatList()).containsExactly(1L, 2L);
+		then(entryFeedbackRecorder).should().recordSeatHold(eventId);
 	}
 
 	@Test
@@ -0,0 +1,49 @@
+package org.codeNbug.mainserver.global.Redis.config;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.util.List;
+import java.util.stream.LongStream;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import io.lettuce.core.cluster.SlotHash;
+
+class RedisConfigTest {
+
+	// 대기열 / 승급 / 입장 스크립트가 한 번에 다루는 행사별 키 종류
+	private static final List<String> EVENT_KEY_PREFIXES = List.of(
+		"WAITING", "WAITING_QUEUE_RECORD", "WAITING_USER_ID", "WAITING_QUEUE_IDX", "WAITING_QUEUE_START_IDX",
+		"WAITING_LAST_SEEN", "WAITING_QUEUE_LEFT", "ENTRY", "ENTRY_QUEUE_COUNT", "ENTRY_WINDOW", "ENTRY_LEASES",
+		"ENTRY_TOKEN", "PROMOTE_LEASE", "SEAT_HOLD_COUNT", "CHECKOUT_COUNT");
+
+	@DisplayName("행사별 키 - hash tag 형식")
+	@Test
+	void eventKey_format() {
+		assertThat(RedisConfig.eventKey("ENTRY_LEASES", 42L)).isEqualTo("ENTRY_LEASES:{42}");
+	}
+
+	@DisplayName("행사별 키 - 한 행사의 키는 모두 같은 cluster slot")
+	@Test
+	void eventKey_sameSlot() {
+		for (long eventId : new long[] {1L, 42L, 1_000_003L}) {
+			int slot = SlotHash.getSlot(RedisConfig.eventKey(EVENT_KEY_PREFIXES.get(0), eventId));
+			for (String prefix : EVENT_KEY_PREFIXES) {
+				assertThat(SlotHash.getSlot(RedisConfig.eventKey(prefix, eventId)))
+					.as("%s of event %d", prefix, eventId)
+					.isEqualTo(slot);
+			}
+		}
+	}
+
+	@DisplayName("행사별 키 - 다른 행사는 여러 slot으로 분산")
+	@Test
+	void eventKey_spreadAcrossSlots() {
+		long distinctSlots = LongStream.rangeClosed(1, 100)
+			.mapToInt(eventId -> SlotHash.getSlot(RedisConfig.eventKey("WAITING", eventId)))
+			.distinct()
+			.count();
+		assertThat(distinctSlots).isGreaterThan(90);
+	}
+}
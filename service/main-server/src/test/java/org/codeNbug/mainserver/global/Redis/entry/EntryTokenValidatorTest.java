@@ -0,0 +1,111 @@
+package org.codeNbug.mainserver.global.Redis.entry;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.codeNbug.mainserver.global.Redis.config.RedisConfig.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.BDDMockito.*;
+
+import java.util.Map;
+
+import org.codenbug.common.util.JwtUtil;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+@ExtendWith(MockitoExtension.class)
+class EntryTokenValidatorTest {
+
+	private static final String SECRET = "entry-token-validator-test-secret-0123456789";
+	private static final Long USER_ID = 1001L;
+	private static final Long EVENT_ID = 42L;
+	private static final String TOKEN_KEY = eventKey(EntryTokenValidator.ENTRY_TOKEN_STORAGE_KEY_NAME, EVENT_ID);
+
+	@Mock
+	private StringRedisTemplate redisTemplate;
+
+	@Mock
+	private HashOperations<String, Object, Object> hashOperations;
+
+	@Mock
+	private EntryLeaseService entryLeaseService;
+
+	@InjectMocks
+	private EntryTokenValidator entryTokenValidator;
+
+	@BeforeEach
+	void setUp() {
+		ReflectionTestUtils.setField(entryTokenValidator, "secret", SECRET);
+	}
+
+	@DisplayName("validate - 저장된 토큰과 같다면 토큰의 행사 id로 입장 lease를 연장")
+	@Test
+	void validate_renewLease() {
+		// given
+		String token = token(SECRET, 60_000);
+		given(redisTemplate.opsForHash()).willReturn(hashOperations);
+		given(hashOperations.get(TOKEN_KEY, USER_ID.toString())).willReturn("\"" + token + "\"");
+
+		// when
+		entryTokenValidator.validate(USER_ID, token);
+
+		// then
+		then(entryLeaseService).should().renew(EVENT_ID, USER_ID);
+	}
+
+	@DisplayName("validate - 만료된 토큰은 redis를 조회하지 않고 거부")
+	@Test
+	void validate_expiredToken() {
+		// given
+		String token = token(SECRET, -60_000);
+
+		// when & then
+		assertThatThrownBy(() -> entryTokenValidator.validate(USER_ID, token))
+			.isInstanceOf(AccessDeniedException.class);
+		then(redisTemplate).shouldHaveNoInteractions();
+		then(entryLeaseService).shouldHaveNoInteractions();
+	}
+
+	@DisplayName("validate - 다른 secret으로 서명되었거나 읽을 수 없는 토큰은 거부")
+	@Test
+	void validate_invalidSignature() {
+		// given
+		String forged = token("another-entry-token-secret-0123456789abcdef", 60_000);
+
+		// when & then
+		assertThatThrownBy(() -> entryTokenValidator.validate(USER_ID, forged))
+			.isInstanceOf(AccessDeniedException.class);
+		assertThatThrownBy(() -> entryTokenValidator.validate(USER_ID, "not-a-token"))
+			.isInstanceOf(AccessDeniedException.class);
+		then(redisTemplate).shouldHaveNoInteractions();
+		then(entryLeaseService).shouldHaveNoInteractions();
+	}
+
+	@DisplayName("validate - 저장된 토큰이 없거나 다르면 거부하고 lease를 연장하지 않음")
+	@Test
+	void validate_storedTokenMismatch() {
+		// given
+		String token = token(SECRET, 60_000);
+		given(redisTemplate.opsForHash()).willReturn(hashOperations);
+		given(hashOperations.get(eq(TOKEN_KEY), anyString())).willReturn(null, token(SECRET, 120_000));
+
+		// when & then
+		assertThatThrownBy(() -> entryTokenValidator.validate(USER_ID, token))
+			.isInstanceOf(AccessDeniedException.class);
+		assertThatThrownBy(() -> entryTokenValidator.validate(USER_ID, token))
+			.isInstanceOf(AccessDeniedException.class);
+		then(entryLeaseService).shouldHaveNoInteractions();
+	}
+
+	private static String token(String secret, long expirationMillis) {
+		return JwtUtil.createToken(Map.of("userId", USER_ID, "eventId", EVENT_ID), secret, USER_ID.toString(),
+			expirationMillis);
+	}
+}
@@ -0,0 +1,161 @@
+package org.codenbug.messagedispatcher.metrics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * 승급부터 DISPATCH 스트림 전달까지 dispatcher 파이프라인의 이벤트별 지표를 수집합니다.
+ * <p>
+ * 모든 지표는 {@code eventId} tag를 가지며, 승급 스크립트 / relay 지표는 작업을 수행한 스레드에서 바로 기록하고
+ * ENTRY 스트림의 길이 / pending / 컨슈머 그룹 lag는 스트림 정리 주기마다 이미 조회한 값을 gauge로 노출합니다.
+ * 지표를 위해 redis를 따로 조회하지 않으므로 운영 중에도 켜둘 수 있습니다.
+ * 대기 행사 registry에서 빠진 이벤트의 지표는 registry에서 제거합니다.
+ * </p>
+ */
+@Component
+public class PipelineMetrics {
+
+	private final MeterRegistry registry;
+	private final Map<String, EventMeters> events = new ConcurrentHashMap<>();
+
+	public PipelineMetrics(MeterRegistry registry) {
+		this.registry = registry;
+	}
+
+	/**
+	 * 승급 스크립트 한 번의 실행 시간과 승급된 인원을 기록합니다. 자리가 없어 아무도 승급되지 않은 주기도 0으로 기록합니다.
+	 */
+	public void recordPromotion(String eventId, long elapsedNanos, long promoted) {
+		EventMeters meters = eventMeters(eventId);
+		meters.promoteScript.record(elapsedNanos, TimeUnit.NANOSECONDS);
+		meters.promotedPerTick.record(promoted);
+	}
+
+	/**
+	 * ENTRY 스트림에서 읽은 한 배치의 전달 결과를 기록합니다.
+	 *
+	 * @param batchSize 읽은 메시지 수
+	 * @param dropped 대상 인스턴스가 죽어 전달하지 않고 lease를 반환한 메시지 수
+	 */
+	public void recordRelay(String eventId, int batchSize, int dropped) {
+		EventMeters meters = eventMeters(eventId);
+		meters.batchSize.record(batchSize);
+		meters.relayed.increment(batchSize - dropped);
+		meters.dropped.increment(dropped);
+	}
+
+	/**
+	 * 승급 메시지가 ENTRY 스트림에 추가된 시점부터 DISPATCH 스트림으로 전달되기까지의 시간을 기록합니다.
+	 */
+	public void recordRelayLag(String eventId, long lagMillis) {
+		eventMeters(eventId).relayLag.record(Math.max(0, lagMillis), TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * 스트림 정리 주기에 조회한 ENTRY 스트림의 상태를 기록합니다.
+	 *
+	 * @param lag 컨슈머 그룹이 아직 읽지 않은 메시지 수. redis 7 미만이거나 redis가 계산할 수 없는 경우 null
+	 */
+	public void recordEntryStream(String eventId, long length, long pending, Long lag) {
+		EventMeters meters = eventMeters(eventId);
+		meters.streamLength = length;
+		meters.streamPending = pending;
+		meters.groupLag = lag == null ? Double.NaN : lag;
+	}
+
+	/**
+	 * 대기 행사 registry에 남아있는 이벤트를 제외한 나머지 이벤트의 지표를 제거합니다.
+	 */
+	public void retain(Set<String> activeEventIds) {
+		for (String eventId : events.keySet()) {
+			if (!activeEventIds.contains(eventId)) {
+				EventMeters meters = events.remove(eventId);
+				if (meters != null) {
+					meters.registered.forEach(registry::remove);
+				}
+			}
+		}
+	}
+
+	private EventMeters eventMeters(String eventId) {
+		return events.computeIfAbsent(eventId, EventMeters::new);
+	}
+
+	/**
+	 * 이벤트 하나의 지표. gauge는 스트림 정리 주기에 마지막으로 조회한 값을 읽습니다.
+	 */
+	private final class EventMeters {
+		private final List<Meter> registered = new ArrayList<>();
+
+		private final Timer promoteScript;
+		private final DistributionSummary promotedPerTick;
+		private final Counter relayed;
+		private final Counter dropped;
+		private final DistributionSummary batchSize;
+		private final Timer relayLag;
+
+		private volatile long streamLength;
+		private volatile long streamPending;
+		private volatile double groupLag = Double.NaN;
+
+		private EventMeters(String eventId) {
+			this.promoteScript = add(Timer.builder("entry_promote_script")
+				.description("승급 스크립트 한 번의 실행 시간")
+				.tag("eventId", eventId)
+				.publishPercentiles(0.5, 0.99)
+				.register(registry));
+			this.promotedPerTick = add(DistributionSummary.builder("entry_promote_users")
+				.description("승급 스크립트 한 번에 승급된 인원")
+				.tag("eventId", eventId)
+				.register(registry));
+			this.relayed = add(Counter.builder("entry_relay_records")
+				.description("ENTRY 스트림에서 DISPATCH 스트림으로 전달한 메시지 수")
+				.tag("eventId", eventId)
+				.register(registry));
+			this.dropped = add(Counter.builder("entry_relay_dropped")
+				.description("대상 queue-server 인스턴스가 죽어 전달하지 않고 lease를 반환한 메시지 수")
+				.tag("eventId", eventId)
+				.register(registry));
+			this.batchSize = add(DistributionSummary.builder("entry_relay_batch_size")
+				.description("한 번에 전달한 메시지 수")
+				.tag("eventId", eventId)
+				.register(registry));
+			this.relayLag = add(Timer.builder("entry_relay_lag")
+				.description("ENTRY 스트림에 추가된 시점부터 DISPATCH 스트림으로 전달되기까지의 시간")
+				.tag("eventId", eventId)
+				.publishPercentiles(0.5, 0.99)
+				.register(registry));
+
+			add(Gauge.builder("entry_stream_length", this, meters -> meters.streamLength)
+				.description("ENTRY 스트림 길이")
+				.tag("eventId", eventId)
+				.register(registry));
+			add(Gauge.builder("entry_stream_pending", this, meters -> meters.streamPending)
+				.description("ENTRY 스트림에서 읽었지만 ack되지 않은 메시지 수")
+				.tag("eventId", eventId)
+				.register(registry));
+			add(Gauge.builder("entry_stream_lag", this, meters -> meters.groupLag)
+				.description("ENTRY 스트림의 컨슈머 그룹이 아직 읽지 않은 메시지 수")
+				.tag("eventId", eventId)
+				.register(registry));
+		}
+
+		private <M extends Meter> M add(M meter) {
+			registered.add(meter);
+			return meter;
+		}
+	}
+}
@@ -1,16 +1,11 @@
 package org.codenbug.messagedispatcher.redis;
 
-import java.time.Duration;
-
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
-import org.springframework.data.redis.connection.stream.MapRecord;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
-import org.springframework.data.redis.stream.StreamMessageListenerContainer;
-import org.springframework.data.redis.stream.StreamMessageListenerContainer.StreamMessageListenerContainerOptions;
 
 @Configuration
 public class RedisConfig {
@@ -22,32 +17,89 @@ public class RedisConfig {
 	public static final String WAITING_QUEUE_KEY_NAME = "WAITING";
 	// entry queue 컨슈머 생성 시 그룹 이름
 	public static final String ENTRY_QUEUE_GROUP_NAME = "ENTRY_QUEUE";
-	// entry queue redis stream 키 이름
+	// entry queue redis stream 키 이름. 실제 스트림은 "ENTRY:{eventId}"로 행사마다 분리된다
 	public static final String ENTRY_QUEUE_KEY_NAME = "ENTRY";
-	// entry queue의 현재 인원을  저장하기 위한 space의 key값
+	// 행사별 entry queue의 남은 자리를 저장하는 key값. 실제 키는 "ENTRY_QUEUE_COUNT:{eventId}"
 	public static final String ENTRY_QUEUE_COUNT_KEY_NAME = "ENTRY_QUEUE_COUNT";
+	// 행사별 entry window(동시에 입장 가능한 인원) 크기를 저장하는 key값. 실제 키는 "ENTRY_WINDOW:{eventId}"
+	public static final String ENTRY_WINDOW_KEY_NAME = "ENTRY_WINDOW";
+	// main-server가 발행하는 행사별 좌석 수 hash의 key값. entry window의 상한으로 사용
+	public static final String EVENT_CAPACITY_KEY_NAME = "EVENT_CAPACITY";
+	// main-server가 발행하는 행사별 잔여 좌석 수 hash의 key값. 0이면 매진이며 승급을 멈추고 대기열을 비운다
+	public static final String EVENT_INVENTORY_KEY_NAME = "EVENT_INVENTORY";
+	// main-server가 기록하는 행사별 좌석 선점 / 결제 완료 누적 횟수의 key값. 실제 키는 "SEAT_HOLD_COUNT:{eventId}" 형식
+	public static final String SEAT_HOLD_COUNT_KEY_NAME = "SEAT_HOLD_COUNT";
+	public static final String CHECKOUT_COUNT_KEY_NAME = "CHECKOUT_COUNT";
+	// main-server 인스턴스별 p99 응답 지연을 저장하는 hash의 key값
+	public static final String MAIN_SERVER_HEALTH_KEY_NAME = "MAIN_SERVER_HEALTH";
+	// 승급된 유저의 입장 lease 만료 시각을 저장하는 zset의 key값. 실제 키는 "ENTRY_LEASES:{eventId}"
+	public static final String ENTRY_LEASE_KEY_NAME = "ENTRY_LEASES";
+	// 입장 lease가 남아있을 수 있는 행사 id를 등록해두는 set의 key값. reaper가 이 set을 순회한다
+	public static final String ENTRY_LEASE_EVENT_REGISTRY_KEY_NAME = "ENTRY_LEASE_EVENTS";
+	// queue-server가 발급한 입장 토큰을 저장하는 hash의 key값. 실제 키는 "ENTRY_TOKEN:{eventId}". 만료된 lease의 토큰을 삭제할 때 사용
+	public static final String ENTRY_TOKEN_STORAGE_KEY_NAME = "ENTRY_TOKEN";
+	// queue-server 인스턴스 생존 키의 prefix. 실제 키는 "QUEUE_INSTANCE_ALIVE:{instanceId}"이며 ttl이 지나면 사라진다
+	public static final String QUEUE_INSTANCE_ALIVE_KEY_NAME = "QUEUE_INSTANCE_ALIVE";
+	// 대기 유저의 마지막 연결 시각을 저장하는 zset의 key값. 실제 키는 "WAITING_LAST_SEEN:{eventId}"
+	public static final String WAITING_LAST_SEEN_KEY_NAME = "WAITING_LAST_SEEN";
+	// 대기 중 이탈한 유저의 idx를 저장하는 zset의 key값. queue-server가 순번 계산 시 보정에 사용
+	public static final String WAITING_QUEUE_LEFT_KEY_NAME = "WAITING_QUEUE_LEFT";
 	// dispatch queue의 컨슈머 그룹명
 	public static final String ENTRY_QUEUE_CONSUMER_NAME = "ENTRY_QUEUE_CONSUMER";
+	// dispatch stream 키의 prefix. 실제 스트림은 "DISPATCH:{instanceId}"로 queue-server 인스턴스마다 분리된다
 	public static final String DISPATCH_QUEUE_CHANNEL_NAME = "DISPATCH";
+	// 생성된 인스턴스별 dispatch 스트림 키를 등록해두는 set의 key값. 스트림 정리 시 순회한다
+	public static final String DISPATCH_STREAM_REGISTRY_KEY_NAME = "DISPATCH_STREAMS";
+	// 최대 시도 횟수를 넘도록 전달되지 못한 승급 메시지를 보관하는 스트림의 key값
+	public static final String DISPATCH_DLQ_KEY_NAME = "DISPATCH_DLQ";
 	public static final Integer ENTRY_QUEUE_CAPACITY = 1000;
 	public static final String WAITING_QUEUE_IN_USER_RECORD_KEY_NAME = "WAITING_USER_ID";
+	// 대기 유저가 연결된 instanceId를 저장하는 hash의 key값. 실제 키는 "WAITING_QUEUE_RECORD:{eventId}", field는 userId
+	public static final String WAITING_QUEUE_RECORD_KEY_NAME = "WAITING_QUEUE_RECORD";
+	// waiting zset member / record 값의 인코딩 버전. migration이 끝나면 WAITING_ENCODING_VERSION 값으로 기록된다
+	public static final String WAITING_ENCODING_VERSION_KEY_NAME = "WAITING_ENCODING_VERSION";
+	public static final String WAITING_ENCODING_VERSION = "2";
+	// 키 배치 버전. 전역 키를 행사별 키("PREFIX:{eventId}")로 옮기는 migration이 끝나면 KEY_LAYOUT_VERSION 값으로 기록된다
+	public static final String KEY_LAYOUT_VERSION_KEY_NAME = "KEY_LAYOUT_VERSION";
+	public static final String KEY_LAYOUT_VERSION = "2";
+	// 키 배치 migration을 한 레플리카만 실행하도록 잡는 lock의 key값
+	public static final String KEY_LAYOUT_MIGRATION_LOCK_KEY_NAME = "KEY_LAYOUT_MIGRATION_LOCK";
+	// 이벤트별로 대기열에 진입한 마지막 idx의 key값. 실제 키는 "WAITING_QUEUE_IDX:{eventId}". 입장 gate의 도착률 계산에 사용
+	public static final String WAITING_QUEUE_IDX_KEY_NAME = "WAITING_QUEUE_IDX";
+	// 행사별 입장 gate 상태의 key값. 실제 키는 "ENTRY_GATE:{eventId}"이며 "OPEN"이면 queue-server가 대기열 없이 바로 입장시킨다
+	public static final String ENTRY_GATE_KEY_NAME = "ENTRY_GATE";
+	// 입장 gate 상태가 바뀐 행사 id를 알리는 채널명
+	public static final String ENTRY_GATE_CHANNEL_NAME = "ENTRY_GATE_UPDATED";
+	// queue-server가 진입 요청이 들어오는 행사 id를 등록해두는 set의 key값. gate controller가 순회한다
+	public static final String ENTRY_GATE_EVENT_REGISTRY_KEY_NAME = "ENTRY_GATE_EVENTS";
+	// 대기열을 거치지 않고 바로 입장한 누적 인원의 key값. 실제 키는 "ENTRY_ADMIT_COUNT:{eventId}"
+	public static final String ENTRY_ADMIT_COUNT_KEY_NAME = "ENTRY_ADMIT_COUNT";
+	// 이벤트별로 entry queue로 승급이 끝난 마지막 idx(served cursor)를 저장하는 key값. 실제 키는 "WAITING_QUEUE_START_IDX:{eventId}"
+	public static final String WAITING_QUEUE_START_IDX_KEY = "WAITING_QUEUE_START_IDX";
+	// 대기 인원이 남아있는 이벤트 id를 등록해두는 set의 key값. KEYS 스캔 대신 이 set을 순회한다
+	public static final String WAITING_EVENT_REGISTRY_KEY_NAME = "WAITING_EVENTS";
+	// 살아있는 dispatcher 레플리카를 마지막 heartbeat 시각과 함께 저장하는 zset의 key값
+	public static final String DISPATCHER_REPLICA_KEY_NAME = "DISPATCHER_REPLICAS";
+	// 이벤트별 승급 소유권(lease) key의 prefix. 실제 키는 "PROMOTE_LEASE:{eventId}"
+	public static final String PROMOTE_LEASE_KEY_NAME = "PROMOTE_LEASE";
+
+	/**
+	 * 행사별 키를 만듭니다. 행사 id를 hash tag({@code {eventId}})로 감싸므로
+	 * redis cluster에서도 한 행사의 키는 모두 같은 slot에 놓이고, 스크립트가 한 slot 안에서만 실행됩니다.
+	 *
+	 * @param prefix 키 종류 (예: {@code WAITING})
+	 * @param eventId 행사 id
+	 * @return {@code prefix:{eventId}} 형식의 키 (예: {@code WAITING:{42}})
+	 */
+	public static String eventKey(String prefix, Object eventId) {
+		return prefix + ":{" + eventId + "}";
+	}
 
 	@Bean
 	public RedisTemplate<String, Object> basicRedisTemplate(RedisConnectionFactory redisConnectionFactory) {
+		// 행사별 ENTRY 스트림의 컨슈머 그룹은 승급 스크립트가 스트림을 처음 만들 때 함께 생성한다
 		RedisTemplate<String, Object> redisTemplate = getRedisTemplate(redisConnectionFactory);
 		redisTemplate.afterPropertiesSet();
-
-		// 컨슈머 그룹이 없으면 새로운 컨슈머 그룹 생성
-		try {
-			if (redisTemplate.opsForStream()
-				.groups(ENTRY_QUEUE_KEY_NAME)
-				.stream()
-				.noneMatch(xInfoGroup -> xInfoGroup.groupName().equals(ENTRY_QUEUE_GROUP_NAME))) {
-				redisTemplate.opsForStream().createGroup(ENTRY_QUEUE_KEY_NAME, ENTRY_QUEUE_GROUP_NAME);
-			}
-		} catch (Exception e) {
-			redisTemplate.opsForStream().createGroup(ENTRY_QUEUE_KEY_NAME, ENTRY_QUEUE_GROUP_NAME);
-		}
 		return redisTemplate;
 	}
 
@@ -64,20 +116,4 @@ public class RedisConfig {
 		redisTemplate.setValueSerializer(jsonSerializer);
 		return redisTemplate;
 	}
-
-	@Bean
-	public StreamMessageListenerContainer<String, MapRecord<String, String, String>> streamContainer(
-		RedisConnectionFactory cf) {
-
-		StreamMessageListenerContainerOptions<String, MapRecord<String, String, String>> options
-			= StreamMessageListenerContainerOptions.builder()
-			.batchSize(10)
-			.pollTimeout(Duration.ofSeconds(2))
-			.build();
-
-		StreamMessageListenerContainer<String, MapRecord<String, String, String>> container
-			= StreamMessageListenerContainer.create(cf, options);
-		container.start();
-		return container;
-	}
 }
@@ -0,0 +1,61 @@
+package org.codenbug.messagedispatcher.shard;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * 이벤트를 dispatcher 레플리카에 배정하기 위한 consistent hash ring
+ * <p>
+ * 각 레플리카는 {@code virtualNodes}개의 가상 노드로 ring에 배치되고, 이벤트 id의 해시값 이후 처음 만나는
+ * 가상 노드의 레플리카가 그 이벤트의 담당이 됩니다. 레플리카가 추가되거나 빠질 때 일부 이벤트만 담당이 바뀝니다.
+ * 생성 이후 변경되지 않으므로 여러 스레드에서 공유해도 안전합니다.
+ * </p>
+ */
+public class ConsistentHashRing {
+
+	private final NavigableMap<Long, String> ring = new TreeMap<>();
+	private final List<String> replicas;
+
+	public ConsistentHashRing(Collection<String> replicas, int virtualNodes) {
+		this.replicas = List.copyOf(replicas);
+		for (String replica : this.replicas) {
+			for (int i = 0; i < virtualNodes; i++) {
+				ring.put(hash(replica + "#" + i), replica);
+			}
+		}
+	}
+
+	/**
+	 * 주어진 키를 담당하는 레플리카를 반환합니다. ring이 비어있다면 null을 반환합니다.
+	 */
+	public String ownerOf(String key) {
+		if (ring.isEmpty()) {
+			return null;
+		}
+		Map.Entry<Long, String> entry = ring.ceilingEntry(hash(key));
+		return entry != null ? entry.getValue() : ring.firstEntry().getValue();
+	}
+
+	public List<String> getReplicas() {
+		return replicas;
+	}
+
+	private static long hash(String key) {
+		try {
+			byte[] digest = MessageDigest.getInstance("MD5").digest(key.getBytes(StandardCharsets.UTF_8));
+			long h = 0;
+			for (int i = 0; i < 8; i++) {
+				h = (h << 8) | (digest[i] & 0xFF);
+			}
+			return h;
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+}
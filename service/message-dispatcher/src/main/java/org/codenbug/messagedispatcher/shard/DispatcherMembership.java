@@ -0,0 +1,96 @@
+package org.codenbug.messagedispatcher.shard;
+
+import static org.codenbug.messagedispatcher.redis.RedisConfig.*;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 살아있는 dispatcher 레플리카 목록을 관리합니다.
+ * <p>
+ * 각 레플리카는 주기적으로 {@code DISPATCHER_REPLICAS} zset에 현재 시각을 score로 기록하고,
+ * 일정 시간 동안 갱신되지 않은 레플리카는 죽은 것으로 보고 제거합니다.
+ * 레플리카 목록이 바뀌면 consistent hash ring을 다시 만들어 이벤트 담당을 재배정합니다.
+ * </p>
+ */
+@Slf4j
+@Component
+public class DispatcherMembership {
+
+	private final StringRedisTemplate redisTemplate;
+	private final String replicaId;
+	private final long replicaTtlMillis;
+	private final int virtualNodes;
+
+	private volatile ConsistentHashRing ring;
+
+	public DispatcherMembership(StringRedisTemplate redisTemplate,
+		@Value("${custom.dispatcher.replica-id:}") String replicaId,
+		@Value("${custom.dispatcher.replica-ttl-millis:5000}") long replicaTtlMillis,
+		@Value("${custom.dispatcher.virtual-nodes:160}") int virtualNodes) {
+		this.redisTemplate = redisTemplate;
+		this.replicaId = replicaId.isBlank() ? generateReplicaId() : replicaId;
+		this.replicaTtlMillis = replicaTtlMillis;
+		this.virtualNodes = virtualNodes;
+		this.ring = new ConsistentHashRing(List.of(this.replicaId), virtualNodes);
+	}
+
+	private static String generateReplicaId() {
+		String host;
+		try {
+			host = InetAddress.getLocalHost().getHostName();
+		} catch (UnknownHostException e) {
+			host = "dispatcher";
+		}
+		return host + "-" + UUID.randomUUID().toString().substring(0, 8);
+	}
+
+	/**
+	 * 마지막 heartbeat에서 만든 ring을 반환합니다. heartbeat를 기록하지 않으므로 승급 주기 밖에서 담당 여부를 확인할 때 사용합니다.
+	 */
+	public ConsistentHashRing getRing() {
+		return ring;
+	}
+
+	public String getReplicaId() {
+		return replicaId;
+	}
+
+	/**
+	 * 자신의 heartbeat를 기록하고, 죽은 레플리카를 정리한 뒤 현재 레플리카 목록으로 만든 ring을 반환합니다.
+	 */
+	public ConsistentHashRing heartbeat() {
+		long now = System.currentTimeMillis();
+		redisTemplate.opsForZSet().add(DISPATCHER_REPLICA_KEY_NAME, replicaId, now);
+		redisTemplate.opsForZSet().removeRangeByScore(DISPATCHER_REPLICA_KEY_NAME, 0, now - replicaTtlMillis);
+
+		Set<String> members = redisTemplate.opsForZSet().range(DISPATCHER_REPLICA_KEY_NAME, 0, -1);
+		List<String> replicas = members == null || members.isEmpty() ? List.of(replicaId) : new ArrayList<>(members);
+
+		// 레플리카 구성이 바뀐 경우에만 ring을 다시 만듦
+		if (!replicas.equals(ring.getReplicas())) {
+			log.info("dispatcher replicas changed: {} -> {}", ring.getReplicas(), replicas);
+			ring = new ConsistentHashRing(replicas, virtualNodes);
+		}
+		return ring;
+	}
+
+	/**
+	 * 종료 시 목록에서 즉시 빠져 다른 레플리카가 ttl을 기다리지 않고 재배정하도록 합니다.
+	 */
+	@PreDestroy
+	public void leave() {
+		redisTemplate.opsForZSet().remove(DISPATCHER_REPLICA_KEY_NAME, replicaId);
+	}
+}
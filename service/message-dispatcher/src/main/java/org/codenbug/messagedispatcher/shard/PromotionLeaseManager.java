@@ -0,0 +1,105 @@
+package org.codenbug.messagedispatcher.shard;
+
+import static org.codenbug.messagedispatcher.redis.RedisConfig.*;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * 이벤트별 승급 소유권(lease)을 관리합니다.
+ * <p>
+ * lease는 {@code PROMOTE_LEASE:{eventId}} 키에 소유 레플리카 id를 값으로 하여 만료 시간과 함께 저장됩니다.
+ * 소유자만 lease를 갱신하거나 반납할 수 있고, 소유자가 죽으면 만료 후 다른 레플리카가 가져갑니다.
+ * 승급 스크립트도 lease 소유자를 확인하므로 담당이 바뀌는 순간에도 두 레플리카가 같은 이벤트를 승급시키지 않습니다.
+ * </p>
+ */
+@Component
+public class PromotionLeaseManager {
+
+	// 비어있으면 새로 획득하고, 자신의 lease라면 만료 시간을 연장
+	private static final String ACQUIRE_OR_RENEW_SCRIPT = """
+		local owner = redis.call("GET", KEYS[1])
+		if owner == ARGV[1] then
+		    redis.call("PEXPIRE", KEYS[1], ARGV[2])
+		    return 1
+		end
+		if not owner then
+		    redis.call("SET", KEYS[1], ARGV[1], "PX", ARGV[2])
+		    return 1
+		end
+		return 0
+		""";
+
+	// 자신의 lease일 때만 삭제
+	private static final String RELEASE_SCRIPT = """
+		if redis.call("GET", KEYS[1]) == ARGV[1] then
+		    return redis.call("DEL", KEYS[1])
+		end
+		return 0
+		""";
+
+	private final StringRedisTemplate redisTemplate;
+	private final DispatcherMembership membership;
+	private final long leaseMillis;
+	private final DefaultRedisScript<Long> acquireOrRenewScript;
+	private final DefaultRedisScript<Long> releaseScript;
+
+	// 이 레플리카가 보유 중인 lease의 이벤트 id
+	private final Set<String> heldLeases = ConcurrentHashMap.newKeySet();
+
+	public PromotionLeaseManager(StringRedisTemplate redisTemplate, DispatcherMembership membership,
+		@Value("${custom.dispatcher.promote.lease-millis:3000}") long leaseMillis) {
+		this.redisTemplate = redisTemplate;
+		this.membership = membership;
+		this.leaseMillis = leaseMillis;
+		this.acquireOrRenewScript = new DefaultRedisScript<>(ACQUIRE_OR_RENEW_SCRIPT, Long.class);
+		this.releaseScript = new DefaultRedisScript<>(RELEASE_SCRIPT, Long.class);
+	}
+
+	public static String leaseKey(String eventId) {
+		return eventKey(PROMOTE_LEASE_KEY_NAME, eventId);
+	}
+
+	/**
+	 * 이벤트의 lease를 획득하거나 연장합니다. 다른 레플리카가 보유 중이라면 false를 반환합니다.
+	 */
+	public boolean acquireOrRenew(String eventId) {
+		Long result = redisTemplate.execute(acquireOrRenewScript, List.of(leaseKey(eventId)),
+			membership.getReplicaId(), String.valueOf(leaseMillis));
+		boolean acquired = result != null && result == 1L;
+		if (acquired) {
+			heldLeases.add(eventId);
+		} else {
+			heldLeases.remove(eventId);
+		}
+		return acquired;
+	}
+
+	/**
+	 * 자신이 보유 중인 lease를 반납합니다. 보유하지 않은 lease라면 아무것도 하지 않습니다.
+	 */
+	public void release(String eventId) {
+		if (heldLeases.remove(eventId)) {
+			redisTemplate.execute(releaseScript, List.of(leaseKey(eventId)), membership.getReplicaId());
+		}
+	}
+
+	public Set<String> getHeldLeases() {
+		return Set.copyOf(heldLeases);
+	}
+
+	@PreDestroy
+	public void releaseAll() {
+		for (String eventId : getHeldLeases()) {
+			release(eventId);
+		}
+	}
+}
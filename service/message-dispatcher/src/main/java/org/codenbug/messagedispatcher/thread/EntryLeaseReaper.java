@@ -0,0 +1,111 @@
+package org.codenbug.messagedispatcher.thread;
+
+import static org.codenbug.messagedispatcher.redis.RedisConfig.*;
+
+import java.util.List;
+import java.util.Set;
+
+import org.codenbug.common.queue.EntryLeaseScripts;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 만료된 입장 lease를 회수합니다.
+ * <p>
+ * 승급 스크립트는 자리를 차감할 때 유저에게 lease를 발급하고({@code ENTRY_LEASES:{eventId}} zset, score는 만료 시각),
+ * main-server는 좌석/결제 API에서 입장 토큰이 검증될 때마다 만료 시각을 연장합니다.
+ * 브라우저를 닫거나 queue-server 인스턴스가 죽어 연장되지 않은 lease는 이 reaper가 한 번에 모아서
+ * 자리를 돌려주고 입장 토큰을 삭제합니다. 스크립트로 원자적으로 처리하므로 여러 레플리카가 동시에 실행해도 안전합니다.
+ * lease는 행사별 키에 있으므로 {@code ENTRY_LEASE_EVENTS}에 등록된 행사를 순회하며, lease가 모두 사라진 행사는 등록을 해제합니다.
+ * </p>
+ */
+@Slf4j
+@Component
+public class EntryLeaseReaper {
+
+	// 만료 시각이 지난 lease를 최대 ARGV[2]개까지 회수
+	private static final String REAP_SCRIPT = """
+		local expired = redis.call("ZRANGEBYSCORE", KEYS[1], "-inf", ARGV[1], "LIMIT", 0, ARGV[2])
+		for _, userId in ipairs(expired) do
+		    redis.call("ZREM", KEYS[1], userId)
+		    redis.call("HDEL", KEYS[3], userId)
+		end
+		if #expired > 0 then
+		    redis.call("INCRBY", KEYS[2], #expired)
+		end
+		return #expired
+		""";
+
+	private final StringRedisTemplate redisTemplate;
+	private final DefaultRedisScript<Long> reapScript;
+	private final DefaultRedisScript<Long> releaseScript;
+	private final int reapBatchSize;
+
+	public EntryLeaseReaper(StringRedisTemplate redisTemplate,
+		@Value("${custom.dispatcher.lease.reap-batch-size:1000}") int reapBatchSize) {
+		this.redisTemplate = redisTemplate;
+		this.reapScript = new DefaultRedisScript<>(REAP_SCRIPT, Long.class);
+		this.releaseScript = new DefaultRedisScript<>(EntryLeaseScripts.RELEASE, Long.class);
+		this.reapBatchSize = reapBatchSize;
+	}
+
+	@Scheduled(fixedDelayString = "${custom.dispatcher.lease.reap-interval-millis:1000}")
+	public void reap() {
+		Set<String> eventIds = redisTemplate.opsForSet().members(ENTRY_LEASE_EVENT_REGISTRY_KEY_NAME);
+		if (eventIds == null) {
+			return;
+		}
+		String now = String.valueOf(System.currentTimeMillis());
+		for (String eventId : eventIds) {
+			try {
+				reap(eventId, now);
+			} catch (Exception e) {
+				log.warn("event {} 입장 lease 회수 실패: {}", eventId, e.getMessage());
+			}
+		}
+	}
+
+	private void reap(String eventId, String now) {
+		String leaseKey = eventKey(ENTRY_LEASE_KEY_NAME, eventId);
+		List<String> keys = List.of(leaseKey, eventKey(ENTRY_QUEUE_COUNT_KEY_NAME, eventId),
+			eventKey(ENTRY_TOKEN_STORAGE_KEY_NAME, eventId));
+		long reaped;
+		do {
+			Long result = redisTemplate.execute(reapScript, keys, now, String.valueOf(reapBatchSize));
+			reaped = result == null ? 0 : result;
+			if (reaped > 0) {
+				log.info("event {}: 만료된 입장 lease {}건 회수", eventId, reaped);
+			}
+		} while (reaped >= reapBatchSize);
+
+		// 남은 lease가 없다면 등록 해제. 승급은 lease를 발급하기 전에 등록하므로, 해제한 뒤 다시 확인해 그 사이 발급된 lease가 있다면 되돌림
+		if (isEmpty(leaseKey)) {
+			redisTemplate.opsForSet().remove(ENTRY_LEASE_EVENT_REGISTRY_KEY_NAME, eventId);
+			if (!isEmpty(leaseKey)) {
+				redisTemplate.opsForSet().add(ENTRY_LEASE_EVENT_REGISTRY_KEY_NAME, eventId);
+			}
+		}
+	}
+
+	private boolean isEmpty(String leaseKey) {
+		Long size = redisTemplate.opsForZSet().zCard(leaseKey);
+		return size == null || size == 0;
+	}
+
+	/**
+	 * 유저의 lease를 반납하고 자리를 돌려준 뒤 입장 토큰을 삭제합니다. 이미 반납된 lease라면 아무것도 하지 않습니다.
+	 *
+	 * @return 자리를 돌려줬다면 true
+	 */
+	public boolean release(String eventId, String userId) {
+		Long released = redisTemplate.execute(releaseScript,
+			List.of(eventKey(ENTRY_LEASE_KEY_NAME, eventId), eventKey(ENTRY_QUEUE_COUNT_KEY_NAME, eventId),
+				eventKey(ENTRY_TOKEN_STORAGE_KEY_NAME, eventId)), userId);
+		return released != null && released > 0;
+	}
+}
@@ -8,36 +8,55 @@ import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.UncheckedIOException;
 import java.util.List;
-import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.stream.Collectors;
 
+import org.codenbug.messagedispatcher.metrics.PipelineMetrics;
+import org.codenbug.messagedispatcher.shard.ConsistentHashRing;
+import org.codenbug.messagedispatcher.shard.DispatcherMembership;
+import org.codenbug.messagedispatcher.shard.PromotionLeaseManager;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.io.ClassPathResource;
-import org.springframework.data.redis.connection.stream.StreamRecords;
-import org.springframework.data.redis.core.HashOperations;
-import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.serializer.GenericToStringSerializer;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
-
 import lombok.extern.slf4j.Slf4j;
 
 @Component
 @Slf4j
 public class EntryPromoteThread {
 
-	private final RedisTemplate<String, Object> redisTemplate;
-	private final ObjectMapper objectMapper;
-	private final DefaultRedisScript<Long> promoteAllScript;
+	private final StringRedisTemplate redisTemplate;
+	private final DefaultRedisScript<Long> promoteScript;
+	private final DispatcherMembership membership;
+	private final PromotionLeaseManager leaseManager;
+	private final Executor promoteExecutor;
+	private final long entryLeaseMillis;
+	private final PipelineMetrics metrics;
+
+	// 승급 작업이 진행 중인 이벤트 id. 같은 이벤트의 작업이 겹쳐서 실행되지 않도록 함
+	private final Set<String> inFlightEvents = ConcurrentHashMap.newKeySet();
 
-	public EntryPromoteThread(RedisTemplate<String, Object> redisTemplate, ObjectMapper objectMapper) {
+	public EntryPromoteThread(StringRedisTemplate redisTemplate, DispatcherMembership membership,
+		PromotionLeaseManager leaseManager, @Qualifier("promoteExecutor") Executor promoteExecutor,
+		@Value("${custom.dispatcher.lease.entry-lease-millis:300000}") long entryLeaseMillis, PipelineMetrics metrics) {
 		this.redisTemplate = redisTemplate;
-		this.objectMapper = objectMapper;
-		promoteAllScript = new DefaultRedisScript<>();
-		promoteAllScript.setScriptText(loadLuaScriptFromResource("promote_all_waiting_for_event.lua"));
-		promoteAllScript.setResultType(Long.class);
+		this.membership = membership;
+		this.leaseManager = leaseManager;
+		this.promoteExecutor = promoteExecutor;
+		this.entryLeaseMillis = entryLeaseMillis;
+		this.metrics = metrics;
+		promoteScript = new DefaultRedisScript<>();
+		promoteScript.setScriptText(loadLuaScriptFromResource("promote_waiting_for_event.lua"));
+		promoteScript.setResultType(Long.class);
 	}
 
 	private String loadLuaScriptFromResource(String scriptName) {
@@ -50,100 +69,164 @@ public class EntryPromoteThread {
 		}
 	}
 
+	/**
+	 * 대기 인원이 남아있는 이벤트 중 이 레플리카가 담당하는 이벤트의 승급 작업을 worker에 배정합니다.
+	 * <p>
+	 * 이벤트의 담당 레플리카는 consistent hash ring으로 결정하고, 실제 승급은 lease를 보유한 경우에만 수행합니다.
+	 * 레플리카가 추가되거나 죽어서 담당이 바뀌면 기존 담당은 lease를 반납하거나 만료되고, 새 담당이 lease를 가져갑니다.
+	 * </p>
+	 */
 	@Scheduled(cron = "* * * * * *")
 	public void promoteToEntryQueue() {
-		// 1) waiting 스트림의 모든 레코드를 조회
-		redisTemplate.multi();
+		ConsistentHashRing ring = membership.heartbeat();
+		String replicaId = membership.getReplicaId();
+
+		// 1) 대기 인원이나 아직 전달되지 않은 승급 메시지가 남아있는 이벤트 목록을 registry에서 조회
+		Set<String> eventIds = redisTemplate.opsForSet().members(WAITING_EVENT_REGISTRY_KEY_NAME).stream()
+			.map(Object::toString)
+			.collect(Collectors.toSet());
+
+		// 2) 더 이상 담당이 아니거나 대기열이 사라진 이벤트의 lease는 반납
+		for (String eventId : leaseManager.getHeldLeases()) {
+			if (!eventIds.contains(eventId) || !replicaId.equals(ring.ownerOf(eventId))) {
+				leaseManager.release(eventId);
+			}
+		}
+
+		// 3) 담당 이벤트의 lease를 획득/연장하고 승급 작업을 worker에 배정
+		for (String eventId : eventIds) {
+			if (!replicaId.equals(ring.ownerOf(eventId)) || !leaseManager.acquireOrRenew(eventId)) {
+				continue;
+			}
+			// 이전 주기의 작업이 아직 끝나지 않았다면 건너뜀
+			if (!inFlightEvents.add(eventId)) {
+				continue;
+			}
+			try {
+				promoteExecutor.execute(() -> {
+					try {
+						promote(eventId);
+					} finally {
+						inFlightEvents.remove(eventId);
+					}
+				});
+			} catch (RejectedExecutionException e) {
+				inFlightEvents.remove(eventId);
+				log.warn("event {} 승급 작업 배정 실패: {}", eventId, e.getMessage());
+			}
+		}
+	}
+
+	/**
+	 * 한 이벤트의 승급 스크립트를 실행합니다.
+	 * 스크립트 자체가 원자적으로 수행되며 lease 소유 여부도 스크립트 안에서 다시 확인합니다.
+	 * 스크립트는 행사의 hash tag를 가진 키만 다루므로, 다른 slot에 있는 registry는 스크립트 전후에 따로 갱신합니다.
+	 */
+	private void promote(String eventId) {
 		try {
-			List<String> keys = redisTemplate.keys(WAITING_QUEUE_KEY_NAME + ":*").stream().collect(Collectors.toList());
-			for (String key : keys) {
-				String eventId = key.split(":")[1];
-				String entryCountHashKey = ENTRY_QUEUE_COUNT_KEY_NAME;                    // ex: "ENTRY_QUEUE_COUNT"
-				String waitingRecordHash =
-					"WAITING_QUEUE_RECORD:" + eventId;            // ex: "WAITING_QUEUE_RECORD:42"
-				String waitingZsetKey = WAITING_QUEUE_KEY_NAME + ":" + eventId;       // ex: "waiting:42"
-				String waitingInUserHash =
-					WAITING_QUEUE_IN_USER_RECORD_KEY_NAME + ":" + eventId; // ex: "WAITING_QUEUE_IN_USER_RECORD:42"
-				String entryStreamKey = ENTRY_QUEUE_KEY_NAME;                         // ex: "ENTRY_QUEUE"
-
-				List<String> scriptKeys = List.of(
-					entryCountHashKey,
-					waitingRecordHash,
-					waitingZsetKey,
-					waitingInUserHash,
-					entryStreamKey
-				);
-
-				// ARGV는 [eventId] 하나만 필요
-				Long result = redisTemplate.execute(
-					promoteAllScript,
-					scriptKeys,
-					Long.parseLong(eventId)
-				);
-				if (result == null) {
-					throw new RuntimeException("promoteToEntryQueue failed");
-				}
-				if (result == 0L) {
-					throw new RuntimeException("promoteToEntryQueue failed");
-				}
+			if (isSoldOut(eventId)) {
+				clearSoldOut(eventId);
+				return;
+			}
+
+			List<String> scriptKeys = List.of(
+				eventKey(ENTRY_QUEUE_COUNT_KEY_NAME, eventId),                // ex: "ENTRY_QUEUE_COUNT:{42}"
+				eventKey(WAITING_QUEUE_RECORD_KEY_NAME, eventId),             // ex: "WAITING_QUEUE_RECORD:{42}"
+				eventKey(WAITING_QUEUE_KEY_NAME, eventId),                    // ex: "WAITING:{42}"
+				eventKey(WAITING_QUEUE_IN_USER_RECORD_KEY_NAME, eventId),     // ex: "WAITING_USER_ID:{42}"
+				eventKey(ENTRY_QUEUE_KEY_NAME, eventId),                      // ex: "ENTRY:{42}"
+				eventKey(WAITING_QUEUE_START_IDX_KEY, eventId),               // ex: "WAITING_QUEUE_START_IDX:{42}"
+				PromotionLeaseManager.leaseKey(eventId),                      // ex: "PROMOTE_LEASE:{42}"
+				eventKey(ENTRY_LEASE_KEY_NAME, eventId),                      // ex: "ENTRY_LEASES:{42}"
+				eventKey(WAITING_LAST_SEEN_KEY_NAME, eventId)                 // ex: "WAITING_LAST_SEEN:{42}"
+			);
+
+			// 스크립트가 발급할 입장 lease를 reaper가 찾을 수 있도록 먼저 등록
+			// reaper는 registry에서 제거한 뒤 lease가 남아있는지 다시 확인하므로, lease 발급보다 먼저 등록해야 빠지지 않는다
+			redisTemplate.opsForSet().add(ENTRY_LEASE_EVENT_REGISTRY_KEY_NAME, eventId);
+
+			// ARGV는 [eventId, replicaId, 입장 lease 만료 시각, ENTRY 컨슈머 그룹명]. lease 값과 비교해야 하므로 문자열 그대로 전달
+			// 결과는 승급된 인원 수. 자리가 없거나 대기 인원이 없으면 0이며 정상 상황이다
+			long startedAt = System.nanoTime();
+			Long promoted = redisTemplate.execute(
+				promoteScript,
+				new StringRedisSerializer(),
+				new GenericToStringSerializer<>(Long.class),
+				scriptKeys,
+				eventId,
+				membership.getReplicaId(),
+				String.valueOf(System.currentTimeMillis() + entryLeaseMillis),
+				ENTRY_QUEUE_GROUP_NAME
+			);
+			metrics.recordPromotion(eventId, System.nanoTime() - startedAt, promoted == null ? 0 : promoted);
+			if (promoted != null && promoted > 0) {
+				log.debug("event {}: {}명 entry queue로 승급", eventId, promoted);
+			} else {
+				retireIfDrained(eventId);
 			}
 		} catch (Exception e) {
-			log.info(e.getMessage());
-			redisTemplate.discard();
+			log.warn("event {} 승급 실패: {}", eventId, e.getMessage());
 		}
-		redisTemplate.exec();
 	}
 
-	private void doPromote(String key) throws JsonProcessingException {
-
-		HashOperations<String, String, Object> hashOps = redisTemplate.opsForHash();
-
-		// 해당 키의 스트림 내의 모든 메시지 얻기
-		List<Object> records =
-			redisTemplate.opsForZSet()
-				.range(key, 0, -1).stream().map(
-					item -> {
-						try {
-							return redisTemplate.opsForHash()
-								.get("WAITING_QUEUE_RECORD:" + key.split(":")[1].toString(),
-									objectMapper.readTree(item.toString()).get("userId").toString());
-						} catch (JsonProcessingException e) {
-							throw new RuntimeException(e);
-						}
-					}
-				).toList();
-
-		for (Object record : records) {
-			// 메시지 내 데이터 파싱
-			Long userId = Long.parseLong(objectMapper.readTree(record.toString()).get("userId").toString());
-			Long eventId = Long.parseLong(objectMapper.readTree(record.toString()).get("eventId").toString());
-			String instanceId = String.valueOf(objectMapper.readTree(record.toString()).get("instanceId"));
-
-			// 이 waiting 스트림 메시지에 해당하는 유저가 이벤트의 entry queue에 들어갈수 있는지 검사
-			// 해당 event의 entry queue count를 조회
-			Long queueCount = Long.parseLong(
-				hashOps.get(ENTRY_QUEUE_COUNT_KEY_NAME, eventId.toString()).toString());
-			// 이 값이 1 이상이라면 들어갈 자리가 있다는 뜻이므로 유저를 entry queue로 넣음
-			if (queueCount != null && queueCount > 0) {
-
-				// 2) 해당 event의 entry queue count 1만큼 감소
-				Long tmp = hashOps.increment(ENTRY_QUEUE_COUNT_KEY_NAME, eventId.toString(), -1);
-
-				// entry queue message를 생성
-				redisTemplate.opsForStream()
-					.add(StreamRecords.mapBacked(
-						Map.of("userId", userId, "eventId", eventId, "instanceId", instanceId)
-					).withStreamKey(ENTRY_QUEUE_KEY_NAME));
-
-				// 4) 스트림에서 해당 레코드 삭제
-				redisTemplate.opsForZSet().remove(key,
-					objectMapper.writeValueAsString(Map.of("userId", userId)));
-				redisTemplate.opsForHash().delete("WAITING_QUEUE_RECORD:" + eventId.toString(), userId.toString());
-
-				hashOps.delete(WAITING_QUEUE_IN_USER_RECORD_KEY_NAME + ":" + eventId.toString(),
-					userId.toString());
-			}
+	/**
+	 * main-server가 발행한 잔여 좌석 수가 0인지 확인합니다. 아직 발행되지 않은 행사는 매진되지 않은 것으로 봅니다.
+	 */
+	private boolean isSoldOut(String eventId) {
+		Object remaining = redisTemplate.opsForHash().get(EVENT_INVENTORY_KEY_NAME, eventId);
+		return remaining != null && Long.parseLong(remaining.toString()) <= 0;
+	}
+
+	/**
+	 * 매진된 행사의 대기열을 비웁니다. 승급되더라도 좌석 선택에서 실패할 뿐이므로 더 이상 승급하지 않습니다.
+	 * 대기 중인 sse 유저는 queue-server가 매진 메시지를 보내고 연결을 종료하고, polling 유저는 다음 조회에서 매진을 응답받습니다.
+	 * 이미 승급되어 ENTRY 스트림에 남은 메시지는 그대로 전달한 뒤 registry에서 제거합니다.
+	 */
+	private void clearSoldOut(String eventId) {
+		Boolean cleared = redisTemplate.delete(eventKey(WAITING_QUEUE_KEY_NAME, eventId));
+		redisTemplate.delete(List.of(
+			eventKey(WAITING_QUEUE_IN_USER_RECORD_KEY_NAME, eventId),
+			eventKey(WAITING_QUEUE_RECORD_KEY_NAME, eventId),
+			eventKey(WAITING_LAST_SEEN_KEY_NAME, eventId)
+		));
+		if (Boolean.TRUE.equals(cleared)) {
+			log.info("event {} 매진. 대기열을 비웠습니다.", eventId);
+		}
+		retireIfDrained(eventId);
+	}
+
+	/**
+	 * 대기열이 비었고 ENTRY 스트림의 승급 메시지도 모두 전달되었다면 대기 행사 registry에서 이벤트를 제거합니다.
+	 * <p>
+	 * registry에서 빠지면 lease가 반납되어 relay도 더 이상 이 행사의 스트림을 읽지 않으므로, 전달이 끝난 뒤에만 제거합니다.
+	 * queue-server는 유저를 대기열에 추가한 뒤 registry에 등록하므로, 제거한 다음 대기열을 다시 확인해
+	 * 그 사이 들어온 유저가 있다면 다시 등록합니다.
+	 * </p>
+	 */
+	private void retireIfDrained(String eventId) {
+		String waitingKey = eventKey(WAITING_QUEUE_KEY_NAME, eventId);
+		if (!isEmpty(waitingKey) || !isRelayed(eventKey(ENTRY_QUEUE_KEY_NAME, eventId))) {
+			return;
+		}
+		redisTemplate.opsForSet().remove(WAITING_EVENT_REGISTRY_KEY_NAME, eventId);
+		if (!isEmpty(waitingKey)) {
+			redisTemplate.opsForSet().add(WAITING_EVENT_REGISTRY_KEY_NAME, eventId);
+		}
+	}
+
+	private boolean isEmpty(String waitingKey) {
+		Long size = redisTemplate.opsForZSet().zCard(waitingKey);
+		return size == null || size == 0;
+	}
+
+	private boolean isRelayed(String entryStreamKey) {
+		if (!Boolean.TRUE.equals(redisTemplate.hasKey(entryStreamKey))) {
+			return true;
 		}
+		String lastId = redisTemplate.opsForStream().info(entryStreamKey).lastGeneratedId();
+		return redisTemplate.opsForStream().groups(entryStreamKey).stream()
+			.filter(group -> group.groupName().equals(ENTRY_QUEUE_GROUP_NAME))
+			.anyMatch(group -> lastId.equals(group.lastDeliveredId()) && Long.valueOf(0).equals(group.pendingCount()));
 	}
 }
 
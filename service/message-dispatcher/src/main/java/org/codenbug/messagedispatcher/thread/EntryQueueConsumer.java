@@ -1,57 +1,258 @@
 package org.codenbug.messagedispatcher.thread;
 
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
+import org.codenbug.messagedispatcher.metrics.PipelineMetrics;
 import org.codenbug.messagedispatcher.redis.RedisConfig;
+import org.codenbug.messagedispatcher.shard.DispatcherMembership;
+import org.codenbug.messagedispatcher.shard.PromotionLeaseManager;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.RedisStreamCommands;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
 import org.springframework.data.redis.connection.stream.Consumer;
 import org.springframework.data.redis.connection.stream.MapRecord;
 import org.springframework.data.redis.connection.stream.ReadOffset;
+import org.springframework.data.redis.connection.stream.RecordId;
 import org.springframework.data.redis.connection.stream.StreamOffset;
-import org.springframework.data.redis.core.RedisTemplate;
-import org.springframework.data.redis.stream.StreamMessageListenerContainer;
-import org.springframework.data.redis.stream.Subscription;
+import org.springframework.data.redis.connection.stream.StreamReadOptions;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StreamOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.stereotype.Component;
 
+import io.lettuce.core.cluster.SlotHash;
 import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
 
+/**
+ * ENTRY 스트림의 승급 메시지를 유저가 연결된 queue-server 인스턴스의 DISPATCH 스트림으로 전달합니다.
+ * <p>
+ * ENTRY 스트림은 행사마다 {@code ENTRY:{eventId}}로 분리되어 있으므로, 이 레플리카가 승급 lease를 보유한 행사의 스트림만 읽습니다.
+ * 보유한 행사의 스트림을 XREADGROUP 한 번으로 함께 읽고, 메시지가 없으면 {@code block-millis} 동안 redis에서 대기합니다.
+ * redis cluster에서는 slot이 다른 스트림을 한 명령으로 읽을 수 없으므로 같은 slot의 스트림끼리 묶어 읽고,
+ * 앞의 묶음에서 읽은 메시지가 없을 때만 마지막 묶음을 blocking으로 읽습니다.
+ * 아직 승급 메시지가 없어 스트림(과 컨슈머 그룹)이 만들어지지 않은 행사는 스트림이 생길 때까지 읽지 않습니다.
+ * 대상 스트림으로의 XADD는 파이프라인으로 한 번에 보낸 뒤 전달된 메시지를 스트림마다 하나의 XACK로 모아서 ack합니다.
+ * 대상 queue-server 인스턴스의 생존 키가 사라졌다면 유저가 받을 수 없으므로 전달하지 않고 입장 자리 lease를 반환합니다.
+ * 전달하는 메시지에는 승급 시각(ENTRY 메시지 id의 시각)을 {@code promotedAt}으로 담아, queue-server가 ack할 때
+ * 승급부터 전달 완료까지의 시간을 기록할 수 있도록 합니다.
+ * </p>
+ */
+@Slf4j
 @Component
 public class EntryQueueConsumer {
-	private final StreamMessageListenerContainer<String, MapRecord<String, String, String>> container;
-	private final RedisTemplate<String, Object> redisTemplate;
+	private final StringRedisTemplate redisTemplate;
+	private final DispatcherMembership membership;
+	private final PromotionLeaseManager leaseManager;
+	private final EntryLeaseReaper leaseReaper;
+	private final int batchSize;
+	private final Duration blockTimeout;
+	private final PipelineMetrics metrics;
+	private final boolean clusterMode;
+	// 컨슈머 그룹이 있는 것을 확인한 ENTRY 스트림. relay 스레드에서만 사용
+	private final Set<String> readableStreams = new HashSet<>();
 
-	public EntryQueueConsumer(StreamMessageListenerContainer<String, MapRecord<String, String, String>> container,
-		RedisTemplate<String, Object> redisTemplate) {
-		this.container = container;
+	private volatile boolean running = true;
+	private Thread relayThread;
+
+	public EntryQueueConsumer(StringRedisTemplate redisTemplate, DispatcherMembership membership,
+		PromotionLeaseManager leaseManager, EntryLeaseReaper leaseReaper, PipelineMetrics metrics,
+		@Value("${custom.dispatcher.relay.batch-size:500}") int batchSize,
+		@Value("${custom.dispatcher.relay.block-millis:100}") long blockMillis) {
 		this.redisTemplate = redisTemplate;
+		this.membership = membership;
+		this.leaseManager = leaseManager;
+		this.leaseReaper = leaseReaper;
+		this.batchSize = batchSize;
+		this.blockTimeout = Duration.ofMillis(blockMillis);
+		this.metrics = metrics;
+		this.clusterMode = redisTemplate.getRequiredConnectionFactory() instanceof LettuceConnectionFactory lettuce
+			&& lettuce.isClusterAware();
 	}
 
 	@PostConstruct
 	public void startListening() {
-		Subscription sub = container.receive(
-			Consumer.from(RedisConfig.ENTRY_QUEUE_GROUP_NAME, RedisConfig.ENTRY_QUEUE_CONSUMER_NAME),
-			StreamOffset.create(RedisConfig.ENTRY_QUEUE_KEY_NAME, ReadOffset.lastConsumed()),
-			this::handleMessage);
+		relayThread = new Thread(this::relayLoop, "entry-relay");
+		relayThread.setDaemon(true);
+		relayThread.start();
+	}
 
+	@PreDestroy
+	public void stopListening() {
+		running = false;
+		if (relayThread != null) {
+			relayThread.interrupt();
+		}
 	}
 
-	private void handleMessage(MapRecord<String, String, String> record) {
-		Map<String, String> body = record.getValue();
-		// 1) 메시지 처리 로직
-		String userId = body.get("userId");
-		String eventId = body.get("eventId");
-		String instanceId = body.get("instanceId").substring(1, body.get("instanceId").length() - 1);
+	private void relayLoop() {
+		// 레플리카마다 고유한 컨슈머 이름을 사용해 pending 메시지가 레플리카별로 관리되도록 함
+		Consumer consumer = Consumer.from(RedisConfig.ENTRY_QUEUE_GROUP_NAME,
+			RedisConfig.ENTRY_QUEUE_CONSUMER_NAME + ":" + membership.getReplicaId());
+		StreamReadOptions readOptions = StreamReadOptions.empty().count(batchSize);
+		StreamReadOptions blockingReadOptions = readOptions.block(blockTimeout);
+		StreamOperations<String, String, String> streamOps = redisTemplate.opsForStream();
 
-		redisTemplate.opsForStream()
-			.add(RedisConfig.DISPATCH_QUEUE_CHANNEL_NAME, Map.of(
-				"userId", Long.parseLong(userId),
-				"eventId", Long.parseLong(eventId),
-				"instanceId", instanceId)
-			);
-		// 2) ACK
-		redisTemplate.opsForStream()
-			.acknowledge(RedisConfig.ENTRY_QUEUE_KEY_NAME, RedisConfig.ENTRY_QUEUE_GROUP_NAME, record.getId());
+		while (running) {
+			try {
+				Map<String, String> streamEvents = new HashMap<>();
+				List<List<String>> readGroups = groupReadableStreams(leaseManager.getHeldLeases(), streamEvents);
+				if (readGroups.isEmpty()) {
+					sleepQuietly();
+					continue;
+				}
+				boolean relayed = false;
+				for (int i = 0; i < readGroups.size(); i++) {
+					boolean block = !relayed && i == readGroups.size() - 1;
+					List<MapRecord<String, String, String>> records = read(streamOps, consumer,
+						block ? blockingReadOptions : readOptions, readGroups.get(i));
+					if (records == null || records.isEmpty()) {
+						continue;
+					}
+					// 여러 스트림의 메시지가 섞여 있으므로 스트림마다 나누어 전달
+					Map<String, List<MapRecord<String, String, String>>> byStream = new LinkedHashMap<>();
+					for (MapRecord<String, String, String> record : records) {
+						byStream.computeIfAbsent(record.getStream(), key -> new ArrayList<>()).add(record);
+					}
+					byStream.forEach((streamKey, streamRecords) ->
+						relay(streamKey, streamEvents.get(streamKey), streamRecords));
+					relayed = true;
+				}
+			} catch (Exception e) {
+				if (!running) {
+					break;
+				}
+				// 스트림이 삭제되어 컨슈머 그룹이 사라졌을 수 있으므로 다음 루프에서 다시 확인
+				readableStreams.clear();
+				log.warn("entry relay 실패: {}", e.getMessage());
+				sleepQuietly();
+			}
+		}
+	}
 
+	/**
+	 * 보유한 행사 중 ENTRY 스트림이 만들어진 행사의 스트림 키를 한 번에 읽을 수 있는 묶음으로 나눕니다.
+	 * 스트림은 승급 스크립트가 컨슈머 그룹과 함께 만들므로, 스트림이 있다면 그룹도 있습니다.
+	 *
+	 * @param streamEvents 스트림 키에서 행사 id로의 매핑을 채워 넣을 map
+	 * @return 단일 redis라면 하나의 묶음, cluster라면 slot별 묶음
+	 */
+	private List<List<String>> groupReadableStreams(Set<String> eventIds, Map<String, String> streamEvents) {
+		Map<Integer, List<String>> groups = new LinkedHashMap<>();
+		for (String eventId : eventIds) {
+			String streamKey = RedisConfig.eventKey(RedisConfig.ENTRY_QUEUE_KEY_NAME, eventId);
+			if (!readableStreams.contains(streamKey)) {
+				if (!Boolean.TRUE.equals(redisTemplate.hasKey(streamKey))) {
+					continue;
+				}
+				readableStreams.add(streamKey);
+			}
+			streamEvents.put(streamKey, eventId);
+			int group = clusterMode ? SlotHash.getSlot(streamKey) : 0;
+			groups.computeIfAbsent(group, slot -> new ArrayList<>()).add(streamKey);
+		}
+		// lease를 반납한 행사의 스트림은 잊음
+		readableStreams.retainAll(streamEvents.keySet());
+		return new ArrayList<>(groups.values());
 	}
 
-}
+	// StreamOperations.read는 제네릭 varargs를 받아 호출하는 쪽에 unchecked 경고가 생긴다.
+	// 배열은 이 호출 안에서만 사용되고 StreamOffset<String> 외의 값이 들어가지 않으므로 안전하다
+	@SuppressWarnings("unchecked")
+	private List<MapRecord<String, String, String>> read(StreamOperations<String, String, String> streamOps,
+		Consumer consumer, StreamReadOptions readOptions, List<String> streamKeys) {
+		StreamOffset<String>[] offsets = streamKeys.stream()
+			.map(streamKey -> StreamOffset.create(streamKey, ReadOffset.lastConsumed()))
+			.toArray(StreamOffset[]::new);
+		return streamOps.read(consumer, readOptions, offsets);
+	}
+
+	/**
+	 * 한 배치의 메시지를 대상 DISPATCH 스트림으로 파이프라인 XADD한 뒤, 한 번의 XACK로 ack합니다.
+	 */
+	private void relay(String entryStreamKey, String eventId, List<MapRecord<String, String, String>> records) {
+		List<RecordId> relayedIds = new ArrayList<>(records.size());
+		List<String> orphanedUserIds = new ArrayList<>();
+		Map<String, Boolean> instanceAlive = checkInstancesAlive(records);
+		long now = System.currentTimeMillis();
+
+		redisTemplate.executePipelined((RedisCallback<Object>)connection -> {
+			RedisStreamCommands streamCommands = connection.streamCommands();
+			for (MapRecord<String, String, String> record : records) {
+				Map<String, String> body = record.getValue();
+				String instanceId = body.get("instanceId");
+				if (instanceId == null) {
+					// 전달할 인스턴스를 알 수 없는 메시지는 ack만 하고 버림
+					log.warn("instanceId가 없는 entry 메시지: {}", record.getId());
+					relayedIds.add(record.getId());
+					continue;
+				}
+				if (!instanceAlive.get(instanceId)) {
+					// 유저가 연결된 인스턴스가 죽었으므로 전달하지 않고 ack한 뒤 입장 자리를 반환
+					orphanedUserIds.add(body.get("userId"));
+					relayedIds.add(record.getId());
+					continue;
+				}
+
+				// 유저가 연결된 queue-server 인스턴스의 dispatch 스트림으로만 전달
+				Map<byte[], byte[]> raw = new LinkedHashMap<>();
+				raw.put(bytes("userId"), bytes(body.get("userId")));
+				raw.put(bytes("eventId"), bytes(body.get("eventId")));
+				raw.put(bytes("instanceId"), bytes(instanceId));
+				raw.put(bytes("promotedAt"), bytes(String.valueOf(record.getId().getTimestamp())));
+				byte[] dispatchStreamKey = bytes(RedisConfig.DISPATCH_QUEUE_CHANNEL_NAME + ":" + instanceId);
+				streamCommands.xAdd(MapRecord.create(dispatchStreamKey, raw));
+				// 스트림 정리 대상으로 등록
+				connection.setCommands().sAdd(bytes(RedisConfig.DISPATCH_STREAM_REGISTRY_KEY_NAME), dispatchStreamKey);
+				relayedIds.add(record.getId());
+				metrics.recordRelayLag(eventId, now - record.getId().getTimestamp());
+			}
+			return null;
+		});
+
+		// 파이프라인이 예외 없이 끝났다면 모두 전달된 것이므로 한 번에 ack
+		redisTemplate.opsForStream().acknowledge(entryStreamKey,
+			RedisConfig.ENTRY_QUEUE_GROUP_NAME, relayedIds.toArray(RecordId[]::new));
 
+		orphanedUserIds.forEach(userId -> leaseReaper.release(eventId, userId));
+
+		metrics.recordRelay(eventId, relayedIds.size(), orphanedUserIds.size());
+	}
+
+	/**
+	 * 배치에 포함된 대상 인스턴스마다 생존 키가 남아있는지 한 번씩만 확인합니다.
+	 */
+	private Map<String, Boolean> checkInstancesAlive(List<MapRecord<String, String, String>> records) {
+		Map<String, Boolean> alive = new HashMap<>();
+		for (MapRecord<String, String, String> record : records) {
+			String instanceId = record.getValue().get("instanceId");
+			if (instanceId != null && !alive.containsKey(instanceId)) {
+				alive.put(instanceId, Boolean.TRUE.equals(
+					redisTemplate.hasKey(RedisConfig.QUEUE_INSTANCE_ALIVE_KEY_NAME + ":" + instanceId)));
+			}
+		}
+		return alive;
+	}
+
+	private static byte[] bytes(String value) {
+		return value.getBytes(StandardCharsets.UTF_8);
+	}
+
+	private void sleepQuietly() {
+		try {
+			Thread.sleep(blockTimeout.toMillis());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			running = false;
+		}
+	}
+}
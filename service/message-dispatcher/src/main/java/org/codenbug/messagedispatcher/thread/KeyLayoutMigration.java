@@ -0,0 +1,235 @@
+package org.codenbug.messagedispatcher.thread;
+
+import static org.codenbug.messagedispatcher.redis.RedisConfig.*;
+
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Range;
+import org.springframework.data.redis.connection.DataType;
+import org.springframework.data.redis.connection.Limit;
+import org.springframework.data.redis.connection.stream.MapRecord;
+import org.springframework.data.redis.connection.stream.ReadOffset;
+import org.springframework.data.redis.connection.stream.RecordId;
+import org.springframework.data.redis.connection.stream.StreamRecords;
+import org.springframework.data.redis.core.StreamOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations.TypedTuple;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 전역 키에 저장되던 대기열 / 승급 / 입장 데이터를 행사별 키({@code PREFIX:{eventId}})로 옮깁니다.
+ * <p>
+ * 이전 배치는 남은 자리, entry window, idx, served cursor, 좌석 선점 / 결제 횟수를 전역 hash의 eventId field에,
+ * 입장 lease / 입장 토큰 / ENTRY 스트림을 전역 키 하나에, 대기열 키를 hash tag 없는 {@code WAITING:42} 형식으로 저장했습니다.
+ * 각 값을 새 키로 옮긴 뒤 이전 키를 삭제하며, 단일 키 명령만 사용하므로 cluster에서도 실행할 수 있습니다.
+ * </p>
+ * <p>
+ * 새 키에 이미 값이 있다면 새 값을 유지합니다. 따라서 이전 배치로 동작하는 서버를 모두 내리고, message-dispatcher를 먼저 띄워
+ * migration이 끝난 뒤 queue-server와 main-server를 올려야 합니다. 승급 / window 스케줄러보다 먼저 실행되도록 빈 초기화 시점에 실행하며,
+ * {@link WaitingEncodingMigration}은 옮겨진 행사별 대기열 키를 변환합니다.
+ * </p>
+ */
+@Slf4j
+@Component
+public class KeyLayoutMigration {
+
+	// 이전 배치에서 행사 id를 field로 사용하던 전역 hash. 행사별 문자열 키로 옮긴다
+	private static final List<String> LEGACY_EVENT_HASHES = List.of(ENTRY_QUEUE_COUNT_KEY_NAME, ENTRY_WINDOW_KEY_NAME,
+		WAITING_QUEUE_IDX_KEY_NAME, WAITING_QUEUE_START_IDX_KEY, SEAT_HOLD_COUNT_KEY_NAME, CHECKOUT_COUNT_KEY_NAME);
+	// 이전 배치에서 "PREFIX:eventId" 형식이던 행사별 키. PROMOTE_LEASE는 몇 초 안에 만료되므로 옮기지 않는다
+	private static final List<String> LEGACY_EVENT_KEYS = List.of(WAITING_QUEUE_KEY_NAME, WAITING_QUEUE_RECORD_KEY_NAME,
+		WAITING_QUEUE_IN_USER_RECORD_KEY_NAME, WAITING_LAST_SEEN_KEY_NAME, WAITING_QUEUE_LEFT_KEY_NAME);
+	// 이전 배치에서 입장 lease를 가진 유저의 행사 id를 저장하던 hash (userId -> eventId)
+	private static final String LEGACY_ENTRY_LEASE_EVENT_KEY_NAME = "ENTRY_LEASE_EVENT";
+	private static final Duration LOCK_TTL = Duration.ofMinutes(10);
+
+	private final StringRedisTemplate redisTemplate;
+	private final int batchSize;
+
+	public KeyLayoutMigration(StringRedisTemplate redisTemplate,
+		@Value("${custom.dispatcher.migration.batch-size:1000}") int batchSize) {
+		this.redisTemplate = redisTemplate;
+		this.batchSize = batchSize;
+	}
+
+	@PostConstruct
+	public void migrate() {
+		if (KEY_LAYOUT_VERSION.equals(redisTemplate.opsForValue().get(KEY_LAYOUT_VERSION_KEY_NAME))) {
+			return;
+		}
+		// 스트림 메시지는 두 번 옮기면 중복 승급되므로 여러 레플리카가 동시에 기동해도 한 레플리카만 실행
+		if (!Boolean.TRUE.equals(
+			redisTemplate.opsForValue().setIfAbsent(KEY_LAYOUT_MIGRATION_LOCK_KEY_NAME, "1", LOCK_TTL))) {
+			log.info("다른 레플리카가 키 배치 migration을 실행 중");
+			return;
+		}
+		try {
+			Set<String> eventIds = new HashSet<>();
+			Set<String> registered = redisTemplate.opsForSet().members(WAITING_EVENT_REGISTRY_KEY_NAME);
+			if (registered != null) {
+				eventIds.addAll(registered);
+			}
+			for (String hashKey : LEGACY_EVENT_HASHES) {
+				eventIds.addAll(migrateEventHash(hashKey));
+			}
+			for (String eventId : eventIds) {
+				for (String prefix : LEGACY_EVENT_KEYS) {
+					move(prefix + ":" + eventId, eventKey(prefix, eventId));
+				}
+			}
+			migrateEntryLeases();
+			migrateEntryStream();
+			redisTemplate.opsForValue().set(KEY_LAYOUT_VERSION_KEY_NAME, KEY_LAYOUT_VERSION);
+			log.info("키 배치 migration 완료. 이벤트 {}개", eventIds.size());
+		} catch (Exception e) {
+			// 옮기지 못한 키가 남아있다면 다음 기동 시 다시 시도하도록 버전을 기록하지 않음. 모든 단계는 다시 실행해도 안전하다
+			log.warn("키 배치 migration 실패: {}", e.getMessage());
+		} finally {
+			redisTemplate.delete(KEY_LAYOUT_MIGRATION_LOCK_KEY_NAME);
+		}
+	}
+
+	/**
+	 * 전역 hash의 field(eventId)마다 값을 {@code hashKey:{eventId}} 문자열 키로 옮기고 hash를 삭제합니다.
+	 *
+	 * @return hash에 값이 있던 행사 id
+	 */
+	private Set<String> migrateEventHash(String hashKey) {
+		if (redisTemplate.type(hashKey) != DataType.HASH) {
+			return Set.of();
+		}
+		Map<String, String> values = redisTemplate.<String, String>opsForHash().entries(hashKey);
+		values.forEach((eventId, value) -> redisTemplate.opsForValue().setIfAbsent(eventKey(hashKey, eventId), value));
+		redisTemplate.delete(hashKey);
+		return values.keySet();
+	}
+
+	/**
+	 * 키를 ttl과 함께 새 이름으로 옮깁니다. 두 키의 slot이 다를 수 있으므로 RENAME 대신 DUMP / RESTORE를 사용합니다.
+	 */
+	private void move(String from, String to) {
+		byte[] value = redisTemplate.dump(from);
+		if (value == null) {
+			return;
+		}
+		if (Boolean.TRUE.equals(redisTemplate.hasKey(to))) {
+			log.warn("{}가 이미 있어 {}를 옮기지 않음", to, from);
+			return;
+		}
+		Long ttl = redisTemplate.getExpire(from, TimeUnit.MILLISECONDS);
+		redisTemplate.restore(to, value, ttl == null || ttl < 0 ? 0 : ttl, TimeUnit.MILLISECONDS);
+		redisTemplate.delete(from);
+	}
+
+	/**
+	 * 전역 입장 lease zset과 입장 토큰 hash를 lease의 행사별 키로 나눕니다.
+	 * 행사 id는 이전 배치의 {@code ENTRY_LEASE_EVENT}에서 찾으며, 행사를 알 수 없는 lease와 토큰은 옮기지 않습니다.
+	 */
+	private void migrateEntryLeases() {
+		Map<String, String> leaseEvents = redisTemplate.<String, String>opsForHash()
+			.entries(LEGACY_ENTRY_LEASE_EVENT_KEY_NAME);
+
+		if (redisTemplate.type(ENTRY_LEASE_KEY_NAME) == DataType.ZSET) {
+			Set<TypedTuple<String>> leases = redisTemplate.opsForZSet()
+				.rangeWithScores(ENTRY_LEASE_KEY_NAME, 0, -1);
+			long dropped = 0;
+			for (TypedTuple<String> lease : leases == null ? Set.<TypedTuple<String>>of() : leases) {
+				String eventId = leaseEvents.get(lease.getValue());
+				if (eventId == null || lease.getScore() == null) {
+					dropped++;
+					continue;
+				}
+				// 승급과 같이 registry에 먼저 등록해 reaper가 lease를 놓치지 않도록 함
+				redisTemplate.opsForSet().add(ENTRY_LEASE_EVENT_REGISTRY_KEY_NAME, eventId);
+				redisTemplate.opsForZSet()
+					.addIfAbsent(eventKey(ENTRY_LEASE_KEY_NAME, eventId), lease.getValue(), lease.getScore());
+			}
+			if (dropped > 0) {
+				log.warn("행사를 알 수 없는 입장 lease {}건은 옮기지 않음", dropped);
+			}
+			redisTemplate.delete(ENTRY_LEASE_KEY_NAME);
+		}
+
+		if (redisTemplate.type(ENTRY_TOKEN_STORAGE_KEY_NAME) == DataType.HASH) {
+			// lease가 없는 토큰은 main-server가 이미 거부하므로 버림
+			Map<String, String> tokens = redisTemplate.<String, String>opsForHash()
+				.entries(ENTRY_TOKEN_STORAGE_KEY_NAME);
+			tokens.forEach((userId, token) -> {
+				String eventId = leaseEvents.get(userId);
+				if (eventId != null) {
+					redisTemplate.opsForHash()
+						.putIfAbsent(eventKey(ENTRY_TOKEN_STORAGE_KEY_NAME, eventId), userId, token);
+				}
+			});
+			redisTemplate.delete(ENTRY_TOKEN_STORAGE_KEY_NAME);
+		}
+		redisTemplate.delete(LEGACY_ENTRY_LEASE_EVENT_KEY_NAME);
+	}
+
+	/**
+	 * 전역 ENTRY 스트림에서 아직 queue-server로 전달되지 않은 승급 메시지를 행사별 ENTRY 스트림으로 옮기고 스트림을 삭제합니다.
+	 * 옮긴 batch는 바로 지우므로 중간에 실패해 다시 실행해도 같은 메시지를 두 번 옮기지 않습니다.
+	 */
+	private void migrateEntryStream() {
+		if (redisTemplate.type(ENTRY_QUEUE_KEY_NAME) != DataType.STREAM) {
+			return;
+		}
+		StreamOperations<String, String, String> streamOps = redisTemplate.opsForStream();
+		List<UndeliveredFilter> filters = streamOps.groups(ENTRY_QUEUE_KEY_NAME).stream()
+			.map(group -> UndeliveredFilter.of(redisTemplate, ENTRY_QUEUE_KEY_NAME, group))
+			.toList();
+
+		Set<String> eventIds = new HashSet<>();
+		long moved = 0;
+		List<MapRecord<String, String, String>> records;
+		do {
+			records = streamOps.range(ENTRY_QUEUE_KEY_NAME, Range.unbounded(), Limit.limit().count(batchSize));
+			if (records == null || records.isEmpty()) {
+				break;
+			}
+			for (MapRecord<String, String, String> record : records) {
+				String eventId = record.getValue().get("eventId");
+				// 컨슈머 그룹이 없다면 아무도 읽지 않은 것
+				boolean undelivered = filters.isEmpty()
+					|| filters.stream().anyMatch(filter -> filter.isUndelivered(record.getId()));
+				if (!undelivered || eventId == null) {
+					continue;
+				}
+				String streamKey = eventKey(ENTRY_QUEUE_KEY_NAME, eventId);
+				if (eventIds.add(eventId)) {
+					// relay는 WAITING_EVENTS에 등록된 행사의 스트림만 읽음
+					redisTemplate.opsForSet().add(WAITING_EVENT_REGISTRY_KEY_NAME, eventId);
+					createGroupIfAbsent(streamKey);
+				}
+				streamOps.add(StreamRecords.mapBacked(record.getValue()).withStreamKey(streamKey));
+				moved++;
+			}
+			streamOps.delete(ENTRY_QUEUE_KEY_NAME, records.stream().map(MapRecord::getId).toArray(RecordId[]::new));
+		} while (records.size() >= batchSize);
+
+		redisTemplate.delete(ENTRY_QUEUE_KEY_NAME);
+		log.info("전역 ENTRY 스트림에서 전달되지 않은 승급 메시지 {}건을 행사 {}개의 스트림으로 옮김", moved, eventIds.size());
+	}
+
+	/**
+	 * 승급 스크립트와 같이 스트림의 처음부터 읽는 컨슈머 그룹을 만듭니다.
+	 */
+	private void createGroupIfAbsent(String streamKey) {
+		try {
+			redisTemplate.opsForStream().createGroup(streamKey, ReadOffset.from("0-0"), ENTRY_QUEUE_GROUP_NAME);
+		} catch (DataAccessException alreadyCreated) {
+			// 승급 스크립트가 먼저 스트림과 그룹을 만든 경우
+			log.debug("stream {}의 컨슈머 그룹이 이미 존재합니다.", streamKey);
+		}
+	}
+}
@@ -0,0 +1,343 @@
+package org.codenbug.messagedispatcher.thread;
+
+import static org.codenbug.messagedispatcher.redis.RedisConfig.*;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.codenbug.messagedispatcher.metrics.PipelineMetrics;
+import org.codenbug.messagedispatcher.shard.DispatcherMembership;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Range;
+import org.springframework.data.redis.connection.Limit;
+import org.springframework.data.redis.connection.stream.MapRecord;
+import org.springframework.data.redis.connection.stream.PendingMessage;
+import org.springframework.data.redis.connection.stream.PendingMessages;
+import org.springframework.data.redis.connection.stream.RecordId;
+import org.springframework.data.redis.connection.stream.StreamInfo;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StreamOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 행사별 ENTRY 스트림과 인스턴스별 DISPATCH 스트림의 보존 기간과 pending 메시지를 관리합니다.
+ * <p>
+ * 1. 일정 시간 이상 ack되지 않은 pending 메시지를 가져와 다시 전달하고,
+ *    최대 시도 횟수를 넘은 메시지는 {@code DISPATCH_DLQ}로 옮긴 뒤 차감했던 entry 자리를 돌려줍니다.
+ * 2. 모든 컨슈머 그룹이 처리를 끝낸 지점(ack된 offset)보다 오래된 메시지를 XTRIM MINID ~ 로 잘라냅니다.
+ * 3. 스트림 길이, pending 수, 컨슈머 그룹 lag를 gauge로 노출합니다. ENTRY 스트림은 행사별로 {@link PipelineMetrics}에,
+ *    DISPATCH 스트림은 인스턴스별 스트림 이름으로 기록합니다.
+ * 4. 생존 키가 orphan-grace 이상 사라진 queue-server 인스턴스의 DISPATCH 스트림은 아직 전달되지 않았거나 ack되지 않은
+ *    메시지의 입장 lease를 반환한 뒤 삭제합니다. 이미 전달된 유저의 lease는 main-server가 연장하거나 reaper가 만료 시 회수합니다.
+ * </p>
+ */
+@Slf4j
+@Component
+public class StreamMaintenanceThread {
+
+	private static final String ATTEMPT_FIELD = "attempt";
+	private static final long DLQ_MAX_LEN = 10000;
+
+	private final StringRedisTemplate redisTemplate;
+	private final DispatcherMembership membership;
+	private final EntryLeaseReaper entryLeaseReaper;
+	private final MeterRegistry registry;
+	private final PipelineMetrics metrics;
+	private final Duration minIdle;
+	private final int maxAttempts;
+	private final int reclaimBatchSize;
+	private final long orphanGraceMillis;
+
+	// 생존 키가 사라진 것을 처음 확인한 시각 (DISPATCH 스트림 키 -> ms)
+	private final Map<String, Long> aliveMissingSince = new ConcurrentHashMap<>();
+
+	// DISPATCH 스트림별 gauge. 스트림이 삭제되면 등록한 gauge와 함께 제거한다
+	private final Map<String, DispatchStreamGauges> dispatchStreamGauges = new ConcurrentHashMap<>();
+
+	public StreamMaintenanceThread(StringRedisTemplate redisTemplate, DispatcherMembership membership,
+		EntryLeaseReaper entryLeaseReaper, MeterRegistry registry, PipelineMetrics metrics,
+		@Value("${custom.dispatcher.reclaim.min-idle-millis:30000}") long minIdleMillis,
+		@Value("${custom.dispatcher.reclaim.max-attempts:3}") int maxAttempts,
+		@Value("${custom.dispatcher.reclaim.batch-size:100}") int reclaimBatchSize,
+		@Value("${custom.dispatcher.reclaim.orphan-grace-millis:60000}") long orphanGraceMillis) {
+		this.redisTemplate = redisTemplate;
+		this.membership = membership;
+		this.entryLeaseReaper = entryLeaseReaper;
+		this.registry = registry;
+		this.metrics = metrics;
+		this.minIdle = Duration.ofMillis(minIdleMillis);
+		this.maxAttempts = maxAttempts;
+		this.reclaimBatchSize = reclaimBatchSize;
+		this.orphanGraceMillis = orphanGraceMillis;
+	}
+
+	@Scheduled(fixedDelayString = "${custom.dispatcher.reclaim.interval-millis:10000}")
+	public void maintain() {
+		List<String> streamKeys = new ArrayList<>();
+		// 승급 메시지가 남아있을 수 있는 행사는 WAITING_EVENTS에서 모두 전달될 때까지 등록이 해제되지 않음
+		Set<String> eventIds = redisTemplate.opsForSet().members(WAITING_EVENT_REGISTRY_KEY_NAME);
+		if (eventIds != null) {
+			eventIds.forEach(eventId -> streamKeys.add(eventKey(ENTRY_QUEUE_KEY_NAME, eventId)));
+			metrics.retain(eventIds);
+		}
+		Set<String> dispatchStreams = redisTemplate.opsForSet().members(DISPATCH_STREAM_REGISTRY_KEY_NAME);
+		if (dispatchStreams != null) {
+			streamKeys.addAll(dispatchStreams);
+		}
+
+		for (String streamKey : streamKeys) {
+			try {
+				maintain(streamKey);
+			} catch (Exception e) {
+				log.warn("stream {} 정리 실패: {}", streamKey, e.getMessage());
+			}
+		}
+	}
+
+	private void maintain(String streamKey) {
+		StreamOperations<String, String, String> streamOps = redisTemplate.opsForStream();
+		if (!Boolean.TRUE.equals(redisTemplate.hasKey(streamKey))) {
+			// 스트림이 사라졌다면 registry에서도 제거
+			redisTemplate.opsForSet().remove(DISPATCH_STREAM_REGISTRY_KEY_NAME, streamKey);
+			aliveMissingSince.remove(streamKey);
+			removeGauges(streamKey);
+			return;
+		}
+		if (isOrphanedDispatchStream(streamKey)) {
+			drainOrphaned(streamKey);
+			return;
+		}
+
+		RecordId safeId = null;
+		long pending = 0;
+		Long lag = 0L;
+		for (StreamInfo.XInfoGroup group : streamOps.groups(streamKey)) {
+			reclaim(streamKey, group.groupName());
+
+			// 이 그룹이 아직 처리하지 않은 가장 오래된 메시지. pending이 있다면 그 중 가장 오래된 것, 없다면 마지막 전달 위치
+			RecordId groupSafeId;
+			Long groupPending = group.pendingCount();
+			if (groupPending != null && groupPending > 0) {
+				groupSafeId = streamOps.pending(streamKey, group.groupName()).minRecordId();
+				pending += groupPending;
+			} else {
+				groupSafeId = RecordId.of(group.lastDeliveredId());
+			}
+			if (safeId == null || UndeliveredFilter.compare(groupSafeId, safeId) < 0) {
+				safeId = groupSafeId;
+			}
+			lag = sum(lag, groupLag(group));
+		}
+
+		// 모든 그룹이 처리를 끝낸 메시지만 잘라냄. 컨슈머 그룹이 없는 스트림은 처리 여부를 알 수 없으므로 두고 봄
+		if (safeId != null && safeId.getTimestamp() > 0) {
+			trimBefore(streamKey, safeId);
+		}
+
+		Long length = streamOps.size(streamKey);
+		String eventId = entryStreamEventId(streamKey);
+		if (eventId != null) {
+			metrics.recordEntryStream(eventId, length == null ? 0 : length, pending, lag);
+			return;
+		}
+		DispatchStreamGauges gauges = dispatchStreamGauges.computeIfAbsent(streamKey, DispatchStreamGauges::new);
+		gauges.length.set(length == null ? 0 : length);
+		gauges.pending.set(pending);
+		// lag를 알 수 없는 경우 -1로 노출
+		gauges.lag.set(lag == null ? -1 : lag);
+	}
+
+	/**
+	 * 컨슈머 그룹이 아직 읽지 않은 메시지 수. XINFO GROUPS의 lag 필드로, redis 7 미만이거나
+	 * 중간 메시지가 잘려 redis가 계산할 수 없는 경우 null
+	 */
+	private static Long groupLag(StreamInfo.XInfoGroup group) {
+		return group.getRaw().get("lag") instanceof Number lag ? lag.longValue() : null;
+	}
+
+	private static Long sum(Long total, Long value) {
+		return total == null || value == null ? null : total + value;
+	}
+
+	/**
+	 * {@code ENTRY:{eventId}} 형식의 스트림이면 eventId를, 아니면 null을 반환합니다.
+	 */
+	private static String entryStreamEventId(String streamKey) {
+		String prefix = ENTRY_QUEUE_KEY_NAME + ":{";
+		if (!streamKey.startsWith(prefix) || !streamKey.endsWith("}")) {
+			return null;
+		}
+		return streamKey.substring(prefix.length(), streamKey.length() - 1);
+	}
+
+	/**
+	 * {@code minIdle} 이상 ack되지 않은 pending 메시지를 이 레플리카로 claim한 뒤,
+	 * 시도 횟수를 늘려 같은 스트림에 다시 추가하거나 최대 시도 횟수를 넘었다면 dead letter로 옮깁니다.
+	 * claim은 idle 시간을 조건으로 하므로 여러 레플리카가 동시에 실행해도 한 곳에서만 처리됩니다.
+	 */
+	private void reclaim(String streamKey, String groupName) {
+		StreamOperations<String, String, String> streamOps = redisTemplate.opsForStream();
+		PendingMessages pendingMessages = streamOps.pending(streamKey, groupName, Range.unbounded(), reclaimBatchSize);
+
+		List<RecordId> staleIds = new ArrayList<>();
+		for (PendingMessage pendingMessage : pendingMessages) {
+			if (pendingMessage.getElapsedTimeSinceLastDelivery().compareTo(minIdle) >= 0) {
+				staleIds.add(pendingMessage.getId());
+			}
+		}
+		if (staleIds.isEmpty()) {
+			return;
+		}
+
+		List<MapRecord<String, String, String>> claimed = streamOps.claim(streamKey, groupName,
+			"reclaimer:" + membership.getReplicaId(), minIdle, staleIds.toArray(RecordId[]::new));
+		if (claimed.isEmpty()) {
+			return;
+		}
+
+		for (MapRecord<String, String, String> record : claimed) {
+			Map<String, String> body = new HashMap<>(record.getValue());
+			int attempt = Integer.parseInt(body.getOrDefault(ATTEMPT_FIELD, "0")) + 1;
+			if (attempt >= maxAttempts) {
+				deadLetter(streamKey, record.getId(), body);
+			} else {
+				body.put(ATTEMPT_FIELD, String.valueOf(attempt));
+				streamOps.add(streamKey, body);
+			}
+		}
+		streamOps.acknowledge(streamKey, groupName, claimed.stream().map(MapRecord::getId).toArray(RecordId[]::new));
+		log.info("stream {} 그룹 {}: pending 메시지 {}건 재처리", streamKey, groupName, claimed.size());
+	}
+
+	/**
+	 * 끝내 전달하지 못한 승급 메시지를 dead letter 스트림으로 옮기고, 입장 lease를 반납해 승급 시 차감했던 entry 자리를 돌려줍니다.
+	 */
+	private void deadLetter(String streamKey, RecordId recordId, Map<String, String> body) {
+		Map<String, String> deadLetter = new HashMap<>(body);
+		deadLetter.put("stream", streamKey);
+		deadLetter.put("recordId", recordId.getValue());
+		redisTemplate.opsForStream().add(DISPATCH_DLQ_KEY_NAME, deadLetter);
+		redisTemplate.opsForStream().trim(DISPATCH_DLQ_KEY_NAME, DLQ_MAX_LEN, true);
+
+		String userId = body.get("userId");
+		String eventId = body.get("eventId");
+		if (userId != null && eventId != null) {
+			entryLeaseReaper.release(eventId, userId);
+		}
+		log.warn("stream {}의 메시지 {}를 dead letter로 이동: {}", streamKey, recordId, body);
+	}
+
+	/**
+	 * DISPATCH 스트림을 읽는 인스턴스의 생존 키가 orphan-grace 이상 사라졌는지 확인합니다.
+	 * GC pause 등으로 살아있는 인스턴스가 ttl 갱신을 한 번 놓친 경우 스트림과 컨슈머 그룹을 지우지 않도록 유예 시간을 둡니다.
+	 */
+	private boolean isOrphanedDispatchStream(String streamKey) {
+		String prefix = DISPATCH_QUEUE_CHANNEL_NAME + ":";
+		if (!streamKey.startsWith(prefix)) {
+			return false;
+		}
+		String instanceId = streamKey.substring(prefix.length());
+		if (isAlive(instanceId)) {
+			aliveMissingSince.remove(streamKey);
+			return false;
+		}
+		long now = System.currentTimeMillis();
+		return now - aliveMissingSince.computeIfAbsent(streamKey, key -> now) >= orphanGraceMillis;
+	}
+
+	private boolean isAlive(String instanceId) {
+		return Boolean.TRUE.equals(redisTemplate.hasKey(QUEUE_INSTANCE_ALIVE_KEY_NAME + ":" + instanceId));
+	}
+
+	/**
+	 * 죽은 인스턴스로 향하던 승급 메시지 중 유저에게 전달되지 못한 메시지의 입장 lease를 반환하고 스트림을 삭제합니다.
+	 * 컨슈머 그룹이 아직 읽지 않았거나(last-delivered-id 이후) 읽었지만 ack하지 않은(PEL) 메시지만 전달되지 못한 것으로 봅니다.
+	 * ack된 메시지는 XTRIM 전까지 스트림에 남아있지만 유저가 이미 입장 토큰을 받았으므로 lease를 건드리지 않습니다.
+	 * lease 반환은 멱등이므로 여러 레플리카가 동시에 실행해도 자리가 두 번 반환되지 않습니다.
+	 */
+	private void drainOrphaned(String streamKey) {
+		StreamOperations<String, String, String> streamOps = redisTemplate.opsForStream();
+		List<UndeliveredFilter> filters = streamOps.groups(streamKey).stream()
+			.map(group -> UndeliveredFilter.of(redisTemplate, streamKey, group))
+			.toList();
+
+		long released = 0;
+		List<MapRecord<String, String, String>> records;
+		do {
+			records = streamOps.range(streamKey, Range.unbounded(), Limit.limit().count(reclaimBatchSize));
+			if (records == null || records.isEmpty()) {
+				break;
+			}
+			for (MapRecord<String, String, String> record : records) {
+				String userId = record.getValue().get("userId");
+				String eventId = record.getValue().get("eventId");
+				// 컨슈머 그룹이 없다면 아무도 읽지 않은 것
+				boolean undelivered = filters.isEmpty()
+					|| filters.stream().anyMatch(filter -> filter.isUndelivered(record.getId()));
+				if (undelivered && userId != null && eventId != null && entryLeaseReaper.release(eventId, userId)) {
+					released++;
+				}
+			}
+			streamOps.delete(streamKey, records.stream().map(MapRecord::getId).toArray(RecordId[]::new));
+		} while (records.size() >= reclaimBatchSize);
+
+		redisTemplate.delete(streamKey);
+		redisTemplate.opsForSet().remove(DISPATCH_STREAM_REGISTRY_KEY_NAME, streamKey);
+		aliveMissingSince.remove(streamKey);
+		removeGauges(streamKey);
+		log.warn("종료된 인스턴스의 stream {} 삭제, 전달되지 못한 입장 lease {}건 반환", streamKey, released);
+	}
+
+	private void trimBefore(String streamKey, RecordId minId) {
+		redisTemplate.execute((RedisCallback<Object>)connection -> connection.execute("XTRIM",
+			bytes(streamKey), bytes("MINID"), bytes("~"), bytes(minId.getValue())));
+	}
+
+	/**
+	 * 삭제된 DISPATCH 스트림의 gauge를 registry에서 제거합니다.
+	 */
+	private void removeGauges(String streamKey) {
+		DispatchStreamGauges gauges = dispatchStreamGauges.remove(streamKey);
+		if (gauges != null) {
+			gauges.registered.forEach(registry::remove);
+		}
+	}
+
+	private static byte[] bytes(String value) {
+		return value.getBytes(StandardCharsets.UTF_8);
+	}
+
+	private final class DispatchStreamGauges {
+
+		private final AtomicLong length = new AtomicLong();
+		private final AtomicLong pending = new AtomicLong();
+		private final AtomicLong lag = new AtomicLong();
+		private final List<Meter> registered = new ArrayList<>();
+
+		private DispatchStreamGauges(String streamKey) {
+			register("dispatch_stream_length", streamKey, length);
+			register("dispatch_stream_pending", streamKey, pending);
+			register("dispatch_stream_lag", streamKey, lag);
+		}
+
+		private void register(String meterName, String streamKey, AtomicLong holder) {
+			registered.add(Gauge.builder(meterName, holder, AtomicLong::get)
+				.tag("stream", streamKey)
+				.register(registry));
+		}
+	}
+}
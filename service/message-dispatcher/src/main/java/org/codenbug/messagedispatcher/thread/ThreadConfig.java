@@ -2,6 +2,7 @@ package org.codenbug.messagedispatcher.thread;
 
 import java.util.concurrent.Executor;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.scheduling.annotation.EnableAsync;
@@ -20,4 +21,19 @@ public class ThreadConfig {
 		executor.initialize();
 		return executor;
 	}
+
+	/**
+	 * 이벤트별 승급 작업을 병렬로 수행하는 executor
+	 * 한 이벤트의 승급이 오래 걸려도 다른 이벤트의 승급이 밀리지 않도록 스케줄러 스레드와 분리한다.
+	 */
+	@Bean(name = "promoteExecutor")
+	public Executor promoteExecutor(@Value("${custom.dispatcher.promote.worker-count:8}") int workerCount) {
+		ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+		executor.setCorePoolSize(workerCount);
+		executor.setMaxPoolSize(workerCount);
+		executor.setQueueCapacity(10000);
+		executor.setThreadNamePrefix("promote-worker-");
+		executor.initialize();
+		return executor;
+	}
 }
@@ -0,0 +1,41 @@
+package org.codenbug.messagedispatcher.thread;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import org.springframework.data.domain.Range;
+import org.springframework.data.redis.connection.stream.RecordId;
+import org.springframework.data.redis.connection.stream.StreamInfo;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+/**
+ * 컨슈머 그룹 하나의 전달 상태
+ * <p>
+ * 그룹이 아직 읽지 않았거나(last-delivered-id 이후) 읽었지만 ack하지 않은(PEL) 메시지를 전달되지 못한 것으로 봅니다.
+ * </p>
+ *
+ * @param lastDeliveredId 그룹이 마지막으로 읽은 메시지 id
+ * @param pendingIds 읽었지만 ack되지 않은 메시지 id
+ */
+record UndeliveredFilter(RecordId lastDeliveredId, Set<RecordId> pendingIds) {
+
+	static UndeliveredFilter of(StringRedisTemplate redisTemplate, String streamKey, StreamInfo.XInfoGroup group) {
+		Set<RecordId> pendingIds = new HashSet<>();
+		Long pendingCount = group.pendingCount();
+		if (pendingCount != null && pendingCount > 0) {
+			redisTemplate.opsForStream()
+				.pending(streamKey, group.groupName(), Range.unbounded(), pendingCount)
+				.forEach(pendingMessage -> pendingIds.add(pendingMessage.getId()));
+		}
+		return new UndeliveredFilter(RecordId.of(group.lastDeliveredId()), pendingIds);
+	}
+
+	boolean isUndelivered(RecordId recordId) {
+		return pendingIds.contains(recordId) || compare(recordId, lastDeliveredId) > 0;
+	}
+
+	static int compare(RecordId a, RecordId b) {
+		int byTimestamp = Long.compare(a.getTimestamp(), b.getTimestamp());
+		return byTimestamp != 0 ? byTimestamp : Long.compare(a.getSequence(), b.getSequence());
+	}
+}
@@ -0,0 +1,122 @@
+package org.codenbug.messagedispatcher.thread;
+
+import static org.codenbug.messagedispatcher.redis.RedisConfig.*;
+
+import java.util.List;
+import java.util.Set;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.stereotype.Component;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 이전 JSON 형식으로 저장된 대기열 데이터를 새 형식으로 변환합니다.
+ * <p>
+ * waiting zset의 member는 {@code {"userId":"123"}}에서 {@code 123}으로,
+ * {@code WAITING_QUEUE_RECORD:{eventId}}의 값은 {@code {"userId":..,"idx":..,"eventId":..,"instanceId":..}}에서
+ * instanceId 문자열로 바뀝니다. 변환이 끝나기 전에도 승급 스크립트는 두 형식을 모두 읽을 수 있으므로
+ * 서비스 중에 batch 단위로 나누어 변환합니다. 모든 batch는 멱등이라 여러 레플리카가 동시에 실행해도 안전합니다.
+ * </p>
+ */
+@Slf4j
+@Component
+public class WaitingEncodingMigration {
+
+	// ARGV[1] 이상의 score를 가진 member를 최대 ARGV[2]개 읽어 JSON member를 userId member로 바꾸고, 마지막으로 읽은 score를 리턴
+	private static final String MIGRATE_MEMBER_SCRIPT = """
+		local items = redis.call("ZRANGEBYSCORE", KEYS[1], ARGV[1], "+inf", "WITHSCORES", "LIMIT", 0, ARGV[2])
+		local last = false
+		for i = 1, #items, 2 do
+		    local member = items[i]
+		    last = items[i + 1]
+		    if string.sub(member, 1, 1) == "{" then
+		        redis.call("ZREM", KEYS[1], member)
+		        local ok, obj = pcall(cjson.decode, member)
+		        if ok and obj["userId"] then
+		            local userId = obj["userId"]
+		            if type(userId) == "number" then
+		                userId = string.format("%d", userId)
+		            end
+		            redis.call("ZADD", KEYS[1], "NX", last, userId)
+		        end
+		    end
+		end
+		return last
+		""";
+
+	// ARGV[1] 커서부터 HSCAN 한 번으로 읽은 JSON record를 instanceId 값으로 바꾸고, 다음 커서를 리턴
+	private static final String MIGRATE_RECORD_SCRIPT = """
+		local res = redis.call("HSCAN", KEYS[1], ARGV[1], "COUNT", ARGV[2])
+		local fields = res[2]
+		for i = 1, #fields, 2 do
+		    local value = fields[i + 1]
+		    if string.sub(value, 1, 1) == "{" then
+		        local ok, obj = pcall(cjson.decode, value)
+		        if ok and obj["instanceId"] then
+		            redis.call("HSET", KEYS[1], fields[i], tostring(obj["instanceId"]))
+		        else
+		            redis.call("HDEL", KEYS[1], fields[i])
+		        end
+		    end
+		end
+		return res[1]
+		""";
+
+	private final StringRedisTemplate redisTemplate;
+	private final DefaultRedisScript<String> migrateMemberScript;
+	private final DefaultRedisScript<String> migrateRecordScript;
+	private final int batchSize;
+
+	public WaitingEncodingMigration(StringRedisTemplate redisTemplate,
+		@Value("${custom.dispatcher.migration.batch-size:1000}") int batchSize) {
+		this.redisTemplate = redisTemplate;
+		this.migrateMemberScript = new DefaultRedisScript<>(MIGRATE_MEMBER_SCRIPT, String.class);
+		this.migrateRecordScript = new DefaultRedisScript<>(MIGRATE_RECORD_SCRIPT, String.class);
+		this.batchSize = batchSize;
+	}
+
+	@EventListener(ApplicationReadyEvent.class)
+	public void migrate() {
+		if (WAITING_ENCODING_VERSION.equals(redisTemplate.opsForValue().get(WAITING_ENCODING_VERSION_KEY_NAME))) {
+			return;
+		}
+		Set<String> eventIds = redisTemplate.opsForSet().members(WAITING_EVENT_REGISTRY_KEY_NAME);
+		if (eventIds != null) {
+			for (String eventId : eventIds) {
+				try {
+					migrateMembers(eventKey(WAITING_QUEUE_KEY_NAME, eventId));
+					migrateRecords(eventKey(WAITING_QUEUE_RECORD_KEY_NAME, eventId));
+				} catch (Exception e) {
+					// 변환하지 못한 이벤트가 남아있다면 다음 기동 시 다시 시도하도록 버전을 기록하지 않음
+					log.warn("event {} 대기열 인코딩 변환 실패: {}", eventId, e.getMessage());
+					return;
+				}
+			}
+		}
+		redisTemplate.opsForValue().set(WAITING_ENCODING_VERSION_KEY_NAME, WAITING_ENCODING_VERSION);
+		log.info("대기열 인코딩 변환 완료. 이벤트 {}개", eventIds == null ? 0 : eventIds.size());
+	}
+
+	private void migrateMembers(String waitingKey) {
+		List<String> keys = List.of(waitingKey);
+		String from = "-inf";
+		String last;
+		while ((last = redisTemplate.execute(migrateMemberScript, keys, from, String.valueOf(batchSize))) != null) {
+			// 마지막으로 읽은 score 다음부터 이어서 읽음. idx는 유저마다 유일하므로 같은 score가 다음 batch로 넘어가지 않는다
+			from = "(" + last;
+		}
+	}
+
+	private void migrateRecords(String recordKey) {
+		List<String> keys = List.of(recordKey);
+		String cursor = "0";
+		do {
+			cursor = redisTemplate.execute(migrateRecordScript, keys, cursor, String.valueOf(batchSize));
+		} while (cursor != null && !"0".equals(cursor));
+	}
+}
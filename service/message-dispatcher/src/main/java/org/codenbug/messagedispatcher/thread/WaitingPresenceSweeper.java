@@ -0,0 +1,91 @@
+package org.codenbug.messagedispatcher.thread;
+
+import static org.codenbug.messagedispatcher.redis.RedisConfig.*;
+
+import java.util.List;
+
+import org.codenbug.messagedispatcher.shard.PromotionLeaseManager;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 연결이 끊긴 대기 유저(ghost)를 대기열에서 제거합니다.
+ * <p>
+ * queue-server는 연결 중인 대기 유저의 마지막 연결 시각을 {@code WAITING_LAST_SEEN:{eventId}} zset에 주기적으로 기록합니다.
+ * 인스턴스가 죽으면 그 인스턴스의 유저는 더 이상 갱신되지 않으므로, 일정 시간 이상 갱신되지 않은 유저를
+ * waiting zset, record, 중복 진입 방지 hash에서 한 번에 제거하고 순번 보정을 위해 이탈자 set에 idx를 기록합니다.
+ * 승급 lease를 보유한 이벤트만 처리하므로 이벤트마다 한 레플리카에서만 실행됩니다.
+ * </p>
+ */
+@Slf4j
+@Component
+public class WaitingPresenceSweeper {
+
+	// 마지막 연결 시각이 ARGV[1] 이전인 유저를 최대 ARGV[2]명까지 대기열에서 제거
+	// migration 전의 {"userId":"123"} 형식 member도 함께 제거
+	private static final String SWEEP_SCRIPT = """
+		local stale = redis.call("ZRANGEBYSCORE", KEYS[1], "-inf", ARGV[1], "LIMIT", 0, ARGV[2])
+		for _, userId in ipairs(stale) do
+		    local idx = redis.call("HGET", KEYS[4], userId)
+		    local removed = redis.call("ZREM", KEYS[2], userId, '{"userId":"' .. userId .. '"}')
+		    if removed > 0 and idx then
+		        redis.call("ZADD", KEYS[5], idx, idx)
+		    end
+		    redis.call("HDEL", KEYS[3], userId)
+		    redis.call("HDEL", KEYS[4], userId)
+		    redis.call("ZREM", KEYS[1], userId)
+		end
+		return #stale
+		""";
+
+	private final StringRedisTemplate redisTemplate;
+	private final PromotionLeaseManager leaseManager;
+	private final DefaultRedisScript<Long> sweepScript;
+	private final long staleMillis;
+	private final int sweepBatchSize;
+
+	public WaitingPresenceSweeper(StringRedisTemplate redisTemplate, PromotionLeaseManager leaseManager,
+		@Value("${custom.dispatcher.presence.stale-millis:30000}") long staleMillis,
+		@Value("${custom.dispatcher.presence.sweep-batch-size:1000}") int sweepBatchSize) {
+		this.redisTemplate = redisTemplate;
+		this.leaseManager = leaseManager;
+		this.sweepScript = new DefaultRedisScript<>(SWEEP_SCRIPT, Long.class);
+		this.staleMillis = staleMillis;
+		this.sweepBatchSize = sweepBatchSize;
+	}
+
+	@Scheduled(fixedDelayString = "${custom.dispatcher.presence.sweep-interval-millis:5000}")
+	public void sweep() {
+		String cutoff = String.valueOf(System.currentTimeMillis() - staleMillis);
+		for (String eventId : leaseManager.getHeldLeases()) {
+			try {
+				sweep(eventId, cutoff);
+			} catch (Exception e) {
+				log.warn("event {} ghost 유저 정리 실패: {}", eventId, e.getMessage());
+			}
+		}
+	}
+
+	private void sweep(String eventId, String cutoff) {
+		List<String> keys = List.of(
+			eventKey(WAITING_LAST_SEEN_KEY_NAME, eventId),
+			eventKey(WAITING_QUEUE_KEY_NAME, eventId),
+			eventKey(WAITING_QUEUE_RECORD_KEY_NAME, eventId),
+			eventKey(WAITING_QUEUE_IN_USER_RECORD_KEY_NAME, eventId),
+			eventKey(WAITING_QUEUE_LEFT_KEY_NAME, eventId)
+		);
+		long swept;
+		do {
+			Long result = redisTemplate.execute(sweepScript, keys, cutoff, String.valueOf(sweepBatchSize));
+			swept = result == null ? 0 : result;
+			if (swept > 0) {
+				log.info("event {}: 연결이 끊긴 대기 유저 {}명 제거", eventId, swept);
+			}
+		} while (swept >= sweepBatchSize);
+	}
+}
@@ -0,0 +1,203 @@
+package org.codenbug.messagedispatcher.window;
+
+import static org.codenbug.messagedispatcher.redis.RedisConfig.*;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.codenbug.messagedispatcher.shard.ConsistentHashRing;
+import org.codenbug.messagedispatcher.shard.DispatcherMembership;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 행사별 진입 요청 도착률과 메인 서버 상태를 보고 입장 gate를 열고 닫습니다.
+ * <p>
+ * gate가 열린 행사는 queue-server가 대기열을 거치지 않고 entry window 안에서 바로 입장시키고,
+ * 닫힌 행사는 기존처럼 대기열에 추가한 뒤 승급 주기로 입장시킵니다. gate 상태가 없으면 닫힌 것으로 봅니다.
+ * 상태가 반복해서 바뀌지 않도록 여는 조건과 닫는 조건에 간격을 둡니다.
+ * 1. 도착률이 open-below 이하이고, 메인 서버 p99가 목표 이하이며, 대기 중인 유저가 없는 상태가 open-after 동안 이어지면 엽니다.
+ * 2. 도착률이 close-above 이상이거나, 메인 서버 p99가 목표를 넘거나 알 수 없거나, 대기 중인 유저가 생기면 바로 닫습니다.
+ * 도착률은 대기열 idx와 바로 입장한 누적 인원의 증가량으로 계산한 초당 진입 수의 지수 이동 평균입니다.
+ * consistent hash ring에서 행사를 담당하는 레플리카만 판단하므로 행사마다 판단하는 곳은 하나입니다.
+ * </p>
+ */
+@Slf4j
+@Component
+public class EntryGateController {
+
+	private static final String OPEN = "OPEN";
+	private static final String QUEUE = "QUEUE";
+
+	private final StringRedisTemplate redisTemplate;
+	private final DispatcherMembership membership;
+	private final MainServerHealth mainServerHealth;
+
+	private final double openBelowPerSecond;
+	private final double closeAbovePerSecond;
+	private final long openAfterMillis;
+	private final double smoothing;
+	private final long p99TargetMillis;
+	private final long idleMillis;
+
+	// 담당 행사별 도착률 계산 상태
+	private final Map<String, GateState> states = new ConcurrentHashMap<>();
+
+	public EntryGateController(StringRedisTemplate redisTemplate, DispatcherMembership membership,
+		MainServerHealth mainServerHealth,
+		@Value("${custom.dispatcher.gate.open-below-per-second:5}") double openBelowPerSecond,
+		@Value("${custom.dispatcher.gate.close-above-per-second:20}") double closeAbovePerSecond,
+		@Value("${custom.dispatcher.gate.open-after-millis:10000}") long openAfterMillis,
+		@Value("${custom.dispatcher.gate.smoothing:0.3}") double smoothing,
+		@Value("${custom.dispatcher.window.p99-target-millis:500}") long p99TargetMillis,
+		@Value("${custom.dispatcher.gate.idle-millis:600000}") long idleMillis) {
+		this.redisTemplate = redisTemplate;
+		this.membership = membership;
+		this.mainServerHealth = mainServerHealth;
+		this.openBelowPerSecond = openBelowPerSecond;
+		this.closeAbovePerSecond = closeAbovePerSecond;
+		this.openAfterMillis = openAfterMillis;
+		this.smoothing = smoothing;
+		this.p99TargetMillis = p99TargetMillis;
+		this.idleMillis = idleMillis;
+	}
+
+	@Scheduled(fixedDelayString = "${custom.dispatcher.gate.interval-millis:1000}")
+	public void evaluate() {
+		evaluateAt(System.currentTimeMillis());
+	}
+
+	// 판단 시각을 받아 테스트에서 시간을 진행시킬 수 있도록 분리
+	void evaluateAt(long now) {
+		Set<String> eventIds = redisTemplate.opsForSet().members(ENTRY_GATE_EVENT_REGISTRY_KEY_NAME);
+		ConsistentHashRing ring = membership.getRing();
+		String replicaId = membership.getReplicaId();
+		if (eventIds == null || eventIds.isEmpty()) {
+			states.clear();
+			return;
+		}
+		// 더 이상 담당이 아닌 행사의 상태는 버림. 다시 담당하게 되면 닫힌 상태부터 다시 판단
+		states.keySet().removeIf(eventId -> !eventIds.contains(eventId) || !replicaId.equals(ring.ownerOf(eventId)));
+
+		Long p99Millis = mainServerHealth.readP99();
+		for (String eventId : eventIds) {
+			if (!replicaId.equals(ring.ownerOf(eventId))) {
+				continue;
+			}
+			try {
+				evaluate(eventId, p99Millis, now);
+			} catch (Exception e) {
+				log.warn("event {} 입장 gate 판단 실패: {}", eventId, e.getMessage());
+			}
+		}
+	}
+
+	private void evaluate(String eventId, Long p99Millis, long now) {
+		// 한 행사의 키는 같은 slot에 있으므로 cluster에서도 MGET 한 번으로 읽음
+		List<String> values = redisTemplate.opsForValue().multiGet(List.of(
+			eventKey(WAITING_QUEUE_IDX_KEY_NAME, eventId),
+			eventKey(ENTRY_ADMIT_COUNT_KEY_NAME, eventId),
+			eventKey(ENTRY_GATE_KEY_NAME, eventId)));
+		if (values == null) {
+			return;
+		}
+		long arrivals = orZero(values.get(0)) + orZero(values.get(1));
+		boolean open = OPEN.equals(values.get(2));
+		Long waiting = redisTemplate.opsForZSet().size(eventKey(WAITING_QUEUE_KEY_NAME, eventId));
+		boolean hasWaiting = waiting != null && waiting > 0;
+
+		GateState state = states.get(eventId);
+		if (state == null) {
+			// 첫 주기는 기준값만 기록
+			states.put(eventId, new GateState(arrivals, now));
+			return;
+		}
+		double rate = state.update(arrivals, now, smoothing);
+
+		// 한동안 진입이 없는 행사는 registry에서 빼고 gate를 닫음. 진입이 다시 생기면 queue-server가 다시 등록한다
+		if (now - state.lastArrivalAt >= idleMillis) {
+			redisTemplate.opsForSet().remove(ENTRY_GATE_EVENT_REGISTRY_KEY_NAME, eventId);
+			states.remove(eventId);
+			if (open) {
+				change(eventId, false, rate, p99Millis, 0);
+			}
+			return;
+		}
+
+		boolean healthy = p99Millis != null && p99Millis <= p99TargetMillis;
+		if (open) {
+			if (rate >= closeAbovePerSecond || !healthy || hasWaiting) {
+				state.calmSince = 0;
+				change(eventId, false, rate, p99Millis, orZero(waiting));
+			}
+			return;
+		}
+
+		if (rate <= openBelowPerSecond && healthy && !hasWaiting) {
+			if (state.calmSince == 0) {
+				state.calmSince = now;
+			} else if (now - state.calmSince >= openAfterMillis) {
+				change(eventId, true, rate, p99Millis, 0);
+			}
+		} else {
+			state.calmSince = 0;
+		}
+	}
+
+	private void change(String eventId, boolean open, double rate, Long p99Millis, long waiting) {
+		String gateKey = eventKey(ENTRY_GATE_KEY_NAME, eventId);
+		if (open) {
+			redisTemplate.opsForValue().set(gateKey, OPEN);
+		} else {
+			redisTemplate.delete(gateKey);
+		}
+		redisTemplate.convertAndSend(ENTRY_GATE_CHANNEL_NAME, eventId);
+		log.info("event {} 입장 gate {} (rate={}/s, p99={}ms, waiting={})",
+			eventId, open ? OPEN : QUEUE, String.format("%.1f", rate), p99Millis, waiting);
+	}
+
+	private static long orZero(String value) {
+		return value == null ? 0 : Long.parseLong(value);
+	}
+
+	private static long orZero(Long value) {
+		return value == null ? 0 : value;
+	}
+
+	/**
+	 * 행사 하나의 도착률 계산 상태
+	 */
+	private static final class GateState {
+		private long lastArrivals;
+		private long lastAt;
+		private long lastArrivalAt;
+		private double rate;
+		// 여는 조건을 처음 만족한 시각. 조건이 깨지면 0
+		private long calmSince;
+
+		private GateState(long arrivals, long now) {
+			this.lastArrivals = arrivals;
+			this.lastAt = now;
+			this.lastArrivalAt = now;
+		}
+
+		private double update(long arrivals, long now, double smoothing) {
+			long elapsed = Math.max(1, now - lastAt);
+			long delta = Math.max(0, arrivals - lastArrivals);
+			double instant = delta * 1000.0 / elapsed;
+			rate = smoothing * instant + (1 - smoothing) * rate;
+			if (delta > 0) {
+				lastArrivalAt = now;
+			}
+			lastArrivals = arrivals;
+			lastAt = now;
+			return rate;
+		}
+	}
+}
@@ -0,0 +1,149 @@
+package org.codenbug.messagedispatcher.window;
+
+import static org.codenbug.messagedispatcher.redis.RedisConfig.*;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.codenbug.messagedispatcher.shard.PromotionLeaseManager;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 메인 서버의 처리량과 응답 지연을 보고 이벤트별 entry window 크기를 조절합니다.
+ * <p>
+ * entry window는 동시에 좌석 선택 단계에 있을 수 있는 인원이며, {@code ENTRY_QUEUE_COUNT}는 그 중 남은 자리입니다.
+ * AIMD 방식으로 동작합니다.
+ * 1. 메인 서버의 p99가 목표치를 넘으면 window를 일정 비율로 줄입니다.
+ * 2. 메인 서버가 건강하고 window가 거의 다 차 있다면, 직전 주기의 좌석 선점/결제 완료 수만큼(최소 increase-step) 늘립니다.
+ * 3. 메인 서버 상태가 한동안 발행되지 않았다면 판단할 근거가 없으므로 유지합니다.
+ * window의 변화량은 남은 자리에도 그대로 반영되므로, 줄어든 경우 남은 자리가 음수가 되어 입장 중인 인원이 빠질 때까지 승급이 멈춥니다.
+ * 이벤트의 승급 lease를 보유한 레플리카만 조절하므로 이벤트마다 조절하는 곳은 하나입니다.
+ * </p>
+ */
+@Slf4j
+@Component
+public class EntryWindowController {
+
+	// window 크기를 바꾸고 변화량을 남은 자리에 반영
+	private static final String ADJUST_WINDOW_SCRIPT = """
+		local old = redis.call("GET", KEYS[1])
+		if not old then
+		    return 0
+		end
+		local delta = tonumber(ARGV[1]) - tonumber(old)
+		if delta ~= 0 then
+		    redis.call("SET", KEYS[1], ARGV[1])
+		    redis.call("INCRBY", KEYS[2], delta)
+		end
+		return delta
+		""";
+
+	private final StringRedisTemplate redisTemplate;
+	private final PromotionLeaseManager leaseManager;
+	private final MainServerHealth mainServerHealth;
+	private final DefaultRedisScript<Long> adjustWindowScript;
+
+	private final long minWindow;
+	private final long increaseStep;
+	private final double decreaseFactor;
+	private final double saturationRatio;
+	private final long p99TargetMillis;
+
+	// 이벤트별 직전 주기의 좌석 선점 + 결제 완료 누적 횟수
+	private final Map<String, Long> lastCompletions = new ConcurrentHashMap<>();
+
+	public EntryWindowController(StringRedisTemplate redisTemplate, PromotionLeaseManager leaseManager,
+		MainServerHealth mainServerHealth,
+		@Value("${custom.dispatcher.window.min:10}") long minWindow,
+		@Value("${custom.dispatcher.window.increase-step:10}") long increaseStep,
+		@Value("${custom.dispatcher.window.decrease-factor:0.7}") double decreaseFactor,
+		@Value("${custom.dispatcher.window.saturation-ratio:0.1}") double saturationRatio,
+		@Value("${custom.dispatcher.window.p99-target-millis:500}") long p99TargetMillis) {
+		this.redisTemplate = redisTemplate;
+		this.leaseManager = leaseManager;
+		this.mainServerHealth = mainServerHealth;
+		this.adjustWindowScript = new DefaultRedisScript<>(ADJUST_WINDOW_SCRIPT, Long.class);
+		this.minWindow = minWindow;
+		this.increaseStep = increaseStep;
+		this.decreaseFactor = decreaseFactor;
+		this.saturationRatio = saturationRatio;
+		this.p99TargetMillis = p99TargetMillis;
+	}
+
+	@Scheduled(fixedDelayString = "${custom.dispatcher.window.interval-millis:2000}")
+	public void adjust() {
+		Set<String> ownedEvents = leaseManager.getHeldLeases();
+		lastCompletions.keySet().retainAll(ownedEvents);
+		if (ownedEvents.isEmpty()) {
+			return;
+		}
+
+		Long p99Millis = mainServerHealth.readP99();
+		for (String eventId : ownedEvents) {
+			try {
+				adjust(eventId, p99Millis);
+			} catch (Exception e) {
+				log.warn("event {} entry window 조절 실패: {}", eventId, e.getMessage());
+			}
+		}
+	}
+
+	private void adjust(String eventId, Long p99Millis) {
+		List<String> windowAndAvailable = List.of(eventKey(ENTRY_WINDOW_KEY_NAME, eventId),
+			eventKey(ENTRY_QUEUE_COUNT_KEY_NAME, eventId));
+
+		// 한 행사의 키는 같은 slot에 있으므로 cluster에서도 MGET 한 번으로 읽음
+		List<String> values = redisTemplate.opsForValue().multiGet(List.of(windowAndAvailable.get(0),
+			windowAndAvailable.get(1), eventKey(SEAT_HOLD_COUNT_KEY_NAME, eventId),
+			eventKey(CHECKOUT_COUNT_KEY_NAME, eventId)));
+		if (values == null) {
+			return;
+		}
+		Long window = parse(values.get(0));
+		Long available = parse(values.get(1));
+		if (window == null || available == null) {
+			return;
+		}
+		HashOperations<String, String, String> hashOps = redisTemplate.opsForHash();
+		Long seatCount = parse(hashOps.get(EVENT_CAPACITY_KEY_NAME, eventId));
+		long maxWindow = seatCount != null ? Math.max(minWindow, seatCount) : Long.MAX_VALUE;
+
+		long completions = orZero(parse(values.get(2))) + orZero(parse(values.get(3)));
+		Long previous = lastCompletions.put(eventId, completions);
+		long completedSinceLastTick = previous == null ? 0 : Math.max(0, completions - previous);
+
+		long nextWindow = window;
+		if (p99Millis == null) {
+			// 메인 서버 상태를 알 수 없으므로 유지
+			return;
+		} else if (p99Millis > p99TargetMillis) {
+			nextWindow = Math.max(minWindow, (long)Math.floor(window * decreaseFactor));
+		} else if (available <= window * saturationRatio) {
+			nextWindow = Math.min(maxWindow, window + Math.max(increaseStep, completedSinceLastTick));
+		}
+
+		if (nextWindow == window) {
+			return;
+		}
+		redisTemplate.execute(adjustWindowScript, windowAndAvailable, String.valueOf(nextWindow));
+		log.info("event {} entry window {} -> {} (p99={}ms, completed={}, available={})",
+			eventId, window, nextWindow, p99Millis, completedSinceLastTick, available);
+	}
+
+	private static Long parse(String value) {
+		return value == null ? null : Long.parseLong(value);
+	}
+
+	private static long orZero(Long value) {
+		return value == null ? 0 : value;
+	}
+}
@@ -0,0 +1,46 @@
+package org.codenbug.messagedispatcher.window;
+
+import static org.codenbug.messagedispatcher.redis.RedisConfig.*;
+
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * main-server 인스턴스들이 발행한 응답 지연을 읽습니다. entry window 조절과 입장 gate 판단이 같은 값을 사용합니다.
+ */
+@Component
+public class MainServerHealth {
+
+	private final StringRedisTemplate redisTemplate;
+	private final long healthStaleMillis;
+
+	public MainServerHealth(StringRedisTemplate redisTemplate,
+		@Value("${custom.dispatcher.window.health-stale-millis:5000}") long healthStaleMillis) {
+		this.redisTemplate = redisTemplate;
+		this.healthStaleMillis = healthStaleMillis;
+	}
+
+	/**
+	 * 최근에 발행된 메인 서버 인스턴스들의 p99 중 가장 큰 값을 반환합니다. 최근 발행된 값이 없다면 null을 반환합니다.
+	 */
+	public Long readP99() {
+		HashOperations<String, String, String> hashOps = redisTemplate.opsForHash();
+		Map<String, String> health = hashOps.entries(MAIN_SERVER_HEALTH_KEY_NAME);
+		long now = System.currentTimeMillis();
+		Long max = null;
+		for (String value : health.values()) {
+			// "p99(ms):발행 시각(ms)"
+			String[] parts = value.split(":");
+			if (parts.length != 2 || now - Long.parseLong(parts[1]) > healthStaleMillis) {
+				continue;
+			}
+			long p99 = Long.parseLong(parts[0]);
+			max = max == null ? p99 : Math.max(max, p99);
+		}
+		return max;
+	}
+}
@@ -0,0 +1,112 @@
+-- ==================================================================================
+-- Lua 스크립트: promote_waiting_for_event.lua
+-- KEYS: 모든 키는 같은 행사의 hash tag({eventId})를 가지므로 redis cluster에서도 한 slot에 있다
+--   KEYS[1] = "ENTRY_QUEUE_COUNT:{" .. eventId .. "}"       (예: "ENTRY_QUEUE_COUNT:{42}")
+--   KEYS[2] = "WAITING_QUEUE_RECORD:{" .. eventId .. "}"    (예: "WAITING_QUEUE_RECORD:{42}")
+--   KEYS[3] = "WAITING:{" .. eventId .. "}"                 (예: "WAITING:{42}")
+--   KEYS[4] = "WAITING_USER_ID:{" .. eventId .. "}"         (예: "WAITING_USER_ID:{42}")
+--   KEYS[5] = "ENTRY:{" .. eventId .. "}"                   (예: "ENTRY:{42}")
+--   KEYS[6] = "WAITING_QUEUE_START_IDX:{" .. eventId .. "}" (예: "WAITING_QUEUE_START_IDX:{42}")
+--   KEYS[7] = "PROMOTE_LEASE:{" .. eventId .. "}"           (예: "PROMOTE_LEASE:{42}")
+--   KEYS[8] = "ENTRY_LEASES:{" .. eventId .. "}"            (예: "ENTRY_LEASES:{42}")
+--   KEYS[9] = "WAITING_LAST_SEEN:{" .. eventId .. "}"       (예: "WAITING_LAST_SEEN:{42}")
+-- ARGV:
+--   ARGV[1] = eventId
+--   ARGV[2] = 승급을 수행하는 dispatcher 레플리카 id (lease 소유자)
+--   ARGV[3] = 승급된 유저에게 발급할 입장 lease의 만료 시각(ms)
+--   ARGV[4] = ENTRY 스트림의 컨슈머 그룹명. 스트림을 처음 만들 때 함께 생성한다
+--
+-- 남은 자리 수를 한 번만 읽고, 그 수만큼 idx가 가장 작은 대기 유저를 ZPOPMIN으로 꺼내 승급시킨다.
+-- 수행 시간은 대기열 전체 크기가 아니라 승급되는 인원 수에 비례한다.
+-- 새로 입장 lease를 받은 인원 수를 리턴한다. 자리가 없거나 대기 인원이 없으면 0을 리턴하며, 이는 실패가 아니다.
+-- 대기 행사 registry(WAITING_EVENTS)는 다른 slot에 있으므로 대기열이 빈 행사의 정리는 호출한 쪽에서 한다.
+-- ==================================================================================
+
+local eventId     = ARGV[1]
+local replicaId   = ARGV[2]
+local leaseExpiresAt = ARGV[3]
+local entryGroup  = ARGV[4]
+
+-- 이전 형식({"userId":"123"} member, JSON record)은 migration이 끝나기 전까지 함께 읽는다
+local function decodeMember(member)
+    if string.sub(member, 1, 1) ~= "{" then
+        return member
+    end
+    local ok, obj = pcall(cjson.decode, member)
+    return ok and obj["userId"] and tostring(obj["userId"]) or nil
+end
+
+local function decodeRecord(record)
+    if not record then
+        return nil
+    end
+    if string.sub(record, 1, 1) ~= "{" then
+        return record
+    end
+    local ok, obj = pcall(cjson.decode, record)
+    return ok and obj["instanceId"] and tostring(obj["instanceId"]) or nil
+end
+
+-- 0) lease 소유자가 아니라면 승급하지 않음 (담당이 바뀌는 중 중복 승급 방지)
+if redis.call("GET", KEYS[7]) ~= replicaId then
+    return 0
+end
+
+-- 1) 현재 남은 자리를 한 번만 읽기
+local available = tonumber(redis.call("GET", KEYS[1]) or "0")
+if (not available) or (available < 1) then
+    return 0
+end
+
+-- 2) 남은 자리 수만큼 idx가 가장 작은 대기 아이템을 꺼냄
+--    member는 userId, score는 대기열 idx
+local popped = redis.call("ZPOPMIN", KEYS[3], available)
+if #popped == 0 then
+    return 0
+end
+
+-- ENTRY 스트림이 처음 만들어지는 경우 relay가 처음부터 읽을 수 있도록 컨슈머 그룹을 함께 생성
+if redis.call("EXISTS", KEYS[5]) == 0 then
+    redis.call("XGROUP", "CREATE", KEYS[5], entryGroup, "0", "MKSTREAM")
+end
+
+local promoted = 0
+local lastScore = nil
+for i = 1, #popped, 2 do
+    local userId = decodeMember(popped[i])
+    lastScore = popped[i + 1]
+
+    -- 2-1) waiting record에서 유저가 연결된 instanceId 조회
+    local instanceId = userId and decodeRecord(redis.call("HGET", KEYS[2], userId)) or nil
+
+    -- 레코드가 없는 아이템은 이미 zset에서 꺼냈으므로 자리를 쓰지 않고 건너뜀
+    if instanceId then
+        -- 2-2) 행사의 ENTRY 스트림에 XADD (with ID="*")
+        redis.call("XADD", KEYS[5], "*",
+            "userId", userId, "eventId", eventId, "instanceId", instanceId)
+        -- 2-3) 입장 lease 발급. 연장되지 않으면 reaper가 자리를 회수한다
+        --      이미 lease가 있는 유저는 만료 시각만 갱신하고, 자리는 새로 발급한 lease만큼만 차감한다
+        if redis.call("ZADD", KEYS[8], leaseExpiresAt, userId) == 1 then
+            promoted = promoted + 1
+        end
+    end
+
+    -- 2-4) waiting record와 중복 진입 방지용 해시, 마지막 연결 시각에서 유저 삭제
+    if userId then
+        redis.call("HDEL", KEYS[2], userId)
+        redis.call("HDEL", KEYS[4], userId)
+        redis.call("ZREM", KEYS[9], userId)
+    end
+end
+
+-- 3) 승급된 인원만큼 entry queue count를 한 번에 감소
+if promoted > 0 then
+    redis.call("DECRBY", KEYS[1], promoted)
+end
+
+-- 4) served cursor를 마지막으로 꺼낸 유저의 idx로 갱신 (queue-server가 순번 계산에 사용)
+if lastScore then
+    redis.call("SET", KEYS[6], lastScore)
+end
+
+return promoted
@@ -0,0 +1,123 @@
+package org.codenbug.messagedispatcher.thread;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.codenbug.messagedispatcher.redis.RedisConfig.*;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import com.redis.testcontainers.RedisContainer;
+
+@Testcontainers(disabledWithoutDocker = true)
+class EntryLeaseReaperTest {
+
+	private static final String EVENT_ID = "42";
+	private static final String LEASES = eventKey(ENTRY_LEASE_KEY_NAME, EVENT_ID);
+	private static final String COUNT = eventKey(ENTRY_QUEUE_COUNT_KEY_NAME, EVENT_ID);
+	private static final String TOKENS = eventKey(ENTRY_TOKEN_STORAGE_KEY_NAME, EVENT_ID);
+
+	@Container
+	static RedisContainer redis = new RedisContainer("redis:alpine");
+
+	private static LettuceConnectionFactory connectionFactory;
+
+	private StringRedisTemplate redisTemplate;
+	private EntryLeaseReaper reaper;
+
+	@BeforeAll
+	static void connect() {
+		connectionFactory = new LettuceConnectionFactory(redis.getHost(), redis.getFirstMappedPort());
+		connectionFactory.afterPropertiesSet();
+		connectionFactory.start();
+	}
+
+	@AfterAll
+	static void disconnect() {
+		connectionFactory.destroy();
+	}
+
+	@BeforeEach
+	void setUp() {
+		redisTemplate = new StringRedisTemplate(connectionFactory);
+		redisTemplate.execute((RedisCallback<Object>)connection -> {
+			connection.serverCommands().flushAll();
+			return null;
+		});
+		// 한 번에 하나씩 회수해 batch를 반복하는 경로도 확인
+		reaper = new EntryLeaseReaper(redisTemplate, 1);
+
+		long now = System.currentTimeMillis();
+		redisTemplate.opsForSet().add(ENTRY_LEASE_EVENT_REGISTRY_KEY_NAME, EVENT_ID);
+		redisTemplate.opsForValue().set(COUNT, "5");
+		redisTemplate.opsForZSet().add(LEASES, "1001", now - 10_000);
+		redisTemplate.opsForZSet().add(LEASES, "1002", now - 1_000);
+		redisTemplate.opsForZSet().add(LEASES, "1003", now + 60_000);
+		redisTemplate.opsForHash().put(TOKENS, "1001", "token-1001");
+		redisTemplate.opsForHash().put(TOKENS, "1002", "token-1002");
+		redisTemplate.opsForHash().put(TOKENS, "1003", "token-1003");
+	}
+
+	@DisplayName("회수 - 만료된 lease만 지우고 회수한 수만큼 자리를 돌려줌")
+	@Test
+	void reap_expiredOnly() {
+		// when
+		reaper.reap();
+
+		// then
+		assertThat(redisTemplate.opsForValue().get(COUNT)).isEqualTo("7");
+		assertThat(redisTemplate.opsForZSet().range(LEASES, 0, -1)).containsExactly("1003");
+		assertThat(redisTemplate.opsForHash().keys(TOKENS)).containsExactly("1003");
+		assertThat(redisTemplate.opsForSet().isMember(ENTRY_LEASE_EVENT_REGISTRY_KEY_NAME, EVENT_ID)).isTrue();
+	}
+
+	@DisplayName("회수 - lease가 모두 사라진 행사는 registry에서 해제")
+	@Test
+	void reap_deregisterWhenEmpty() {
+		// given
+		redisTemplate.opsForZSet().add(LEASES, "1003", 0);
+
+		// when
+		reaper.reap();
+
+		// then
+		assertThat(redisTemplate.opsForValue().get(COUNT)).isEqualTo("8");
+		assertThat(redisTemplate.opsForZSet().size(LEASES)).isZero();
+		assertThat(redisTemplate.opsForSet().isMember(ENTRY_LEASE_EVENT_REGISTRY_KEY_NAME, EVENT_ID)).isFalse();
+	}
+
+	@DisplayName("반납 - 같은 lease를 두 번 반납해도 자리는 한 번만 돌려줌")
+	@Test
+	void release_idempotent() {
+		// when
+		boolean first = reaper.release(EVENT_ID, "1003");
+		boolean second = reaper.release(EVENT_ID, "1003");
+
+		// then
+		assertThat(first).isTrue();
+		assertThat(second).isFalse();
+		assertThat(redisTemplate.opsForValue().get(COUNT)).isEqualTo("6");
+		assertThat(redisTemplate.opsForHash().hasKey(TOKENS, "1003")).isFalse();
+	}
+
+	@DisplayName("반납 - 이미 회수된 lease는 자리를 다시 돌려주지 않음")
+	@Test
+	void release_afterReap() {
+		// given
+		reaper.reap();
+
+		// when
+		boolean released = reaper.release(EVENT_ID, "1001");
+
+		// then
+		assertThat(released).isFalse();
+		assertThat(redisTemplate.opsForValue().get(COUNT)).isEqualTo("7");
+	}
+}
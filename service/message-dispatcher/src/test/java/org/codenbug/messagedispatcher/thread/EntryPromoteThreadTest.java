@@ -0,0 +1,130 @@
+package org.codenbug.messagedispatcher.thread;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.codenbug.messagedispatcher.redis.RedisConfig.*;
+import static org.mockito.BDDMockito.*;
+
+import java.util.List;
+import java.util.Set;
+
+import org.codenbug.messagedispatcher.metrics.PipelineMetrics;
+import org.codenbug.messagedispatcher.shard.ConsistentHashRing;
+import org.codenbug.messagedispatcher.shard.DispatcherMembership;
+import org.codenbug.messagedispatcher.shard.PromotionLeaseManager;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import com.redis.testcontainers.RedisContainer;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@Testcontainers(disabledWithoutDocker = true)
+class EntryPromoteThreadTest {
+
+	private static final String EVENT_ID = "42";
+	private static final String REPLICA_ID = "replica-1";
+	private static final String COUNT = eventKey(ENTRY_QUEUE_COUNT_KEY_NAME, EVENT_ID);
+	private static final String WAITING = eventKey(WAITING_QUEUE_KEY_NAME, EVENT_ID);
+	private static final String RECORDS = eventKey(WAITING_QUEUE_RECORD_KEY_NAME, EVENT_ID);
+	private static final String LEASES = eventKey(ENTRY_LEASE_KEY_NAME, EVENT_ID);
+	private static final String ENTRY_STREAM = eventKey(ENTRY_QUEUE_KEY_NAME, EVENT_ID);
+
+	@Container
+	static RedisContainer redis = new RedisContainer("redis:alpine");
+
+	private static LettuceConnectionFactory connectionFactory;
+
+	@Mock
+	private DispatcherMembership membership;
+
+	@Mock
+	private PromotionLeaseManager leaseManager;
+
+	private StringRedisTemplate redisTemplate;
+	private EntryPromoteThread promoteThread;
+
+	@BeforeAll
+	static void connect() {
+		connectionFactory = new LettuceConnectionFactory(redis.getHost(), redis.getFirstMappedPort());
+		connectionFactory.afterPropertiesSet();
+		connectionFactory.start();
+	}
+
+	@AfterAll
+	static void disconnect() {
+		connectionFactory.destroy();
+	}
+
+	@BeforeEach
+	void setUp() {
+		MockitoAnnotations.openMocks(this);
+		redisTemplate = new StringRedisTemplate(connectionFactory);
+		redisTemplate.execute((RedisCallback<Object>)connection -> {
+			connection.serverCommands().flushAll();
+			return null;
+		});
+		given(membership.getReplicaId()).willReturn(REPLICA_ID);
+		given(membership.heartbeat()).willReturn(new ConsistentHashRing(List.of(REPLICA_ID), 10));
+		given(leaseManager.getHeldLeases()).willReturn(Set.of());
+		given(leaseManager.acquireOrRenew(EVENT_ID)).willReturn(true);
+		// 승급 스크립트는 lease 소유 여부를 redis에서 다시 확인한다
+		redisTemplate.opsForValue().set(PromotionLeaseManager.leaseKey(EVENT_ID), REPLICA_ID);
+
+		promoteThread = new EntryPromoteThread(redisTemplate, membership, leaseManager, Runnable::run, 300_000L,
+			new PipelineMetrics(new SimpleMeterRegistry()));
+
+		redisTemplate.opsForSet().add(WAITING_EVENT_REGISTRY_KEY_NAME, EVENT_ID);
+		redisTemplate.opsForValue().set(COUNT, "5");
+	}
+
+	@DisplayName("승급 - 새로 입장 lease를 받은 인원만큼만 자리를 차감")
+	@Test
+	void promote_newLeases() {
+		// given
+		waiting("1001", 1);
+		waiting("1002", 2);
+
+		// when
+		promoteThread.promoteToEntryQueue();
+
+		// then
+		assertThat(redisTemplate.opsForValue().get(COUNT)).isEqualTo("3");
+		assertThat(redisTemplate.opsForZSet().range(LEASES, 0, -1)).containsExactlyInAnyOrder("1001", "1002");
+		assertThat(redisTemplate.opsForStream().size(ENTRY_STREAM)).isEqualTo(2L);
+		assertThat(redisTemplate.opsForZSet().size(WAITING)).isZero();
+	}
+
+	@DisplayName("승급 - 이미 입장 lease가 있는 유저는 만료 시각만 갱신하고 자리를 다시 차감하지 않음")
+	@Test
+	void promote_existingLease() {
+		// given
+		redisTemplate.opsForZSet().add(LEASES, "1001", 1_000);
+		waiting("1001", 1);
+
+		// when
+		promoteThread.promoteToEntryQueue();
+
+		// then
+		assertThat(redisTemplate.opsForValue().get(COUNT)).isEqualTo("5");
+		assertThat(redisTemplate.opsForZSet().score(LEASES, "1001")).isGreaterThan(1_000.0);
+		assertThat(redisTemplate.opsForZSet().size(WAITING)).isZero();
+		assertThat(redisTemplate.opsForHash().hasKey(RECORDS, "1001")).isFalse();
+	}
+
+	private void waiting(String userId, long idx) {
+		redisTemplate.opsForZSet().add(WAITING, userId, idx);
+		redisTemplate.opsForHash().put(RECORDS, userId, "instance-a");
+		redisTemplate.opsForHash().put(eventKey(WAITING_QUEUE_IN_USER_RECORD_KEY_NAME, EVENT_ID), userId,
+			String.valueOf(idx));
+	}
+}
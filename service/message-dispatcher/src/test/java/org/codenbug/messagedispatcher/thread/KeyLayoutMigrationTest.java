@@ -0,0 +1,151 @@
+package org.codenbug.messagedispatcher.thread;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.codenbug.messagedispatcher.redis.RedisConfig.*;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Range;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.connection.stream.Consumer;
+import org.springframework.data.redis.connection.stream.MapRecord;
+import org.springframework.data.redis.connection.stream.ReadOffset;
+import org.springframework.data.redis.connection.stream.StreamOffset;
+import org.springframework.data.redis.connection.stream.StreamRecords;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import com.redis.testcontainers.RedisContainer;
+
+@Testcontainers(disabledWithoutDocker = true)
+class KeyLayoutMigrationTest {
+
+	private static final String EVENT_ID = "42";
+
+	@Container
+	static RedisContainer redis = new RedisContainer("redis:alpine");
+
+	private static LettuceConnectionFactory connectionFactory;
+
+	private StringRedisTemplate redisTemplate;
+	private KeyLayoutMigration migration;
+
+	@BeforeAll
+	static void connect() {
+		connectionFactory = new LettuceConnectionFactory(redis.getHost(), redis.getFirstMappedPort());
+		connectionFactory.afterPropertiesSet();
+		connectionFactory.start();
+	}
+
+	@AfterAll
+	static void disconnect() {
+		connectionFactory.destroy();
+	}
+
+	@BeforeEach
+	void setUp() {
+		redisTemplate = new StringRedisTemplate(connectionFactory);
+		redisTemplate.execute((RedisCallback<Object>)connection -> {
+			connection.serverCommands().flushAll();
+			return null;
+		});
+		// batch 여러 번에 나누어 옮겨지도록 작은 batch 크기 사용
+		migration = new KeyLayoutMigration(redisTemplate, 2);
+	}
+
+	@DisplayName("hash 변환 - 전역 hash의 행사별 값을 행사별 키로 옮기고 대기열 키도 hash tag 키로 옮김")
+	@Test
+	void migrate_eventHashesAndKeys() {
+		// given
+		redisTemplate.opsForHash().put(ENTRY_QUEUE_COUNT_KEY_NAME, EVENT_ID, "7");
+		redisTemplate.opsForHash().put(WAITING_QUEUE_IDX_KEY_NAME, EVENT_ID, "120");
+		redisTemplate.opsForHash().put(WAITING_QUEUE_START_IDX_KEY, EVENT_ID, "100");
+		redisTemplate.opsForZSet().add(WAITING_QUEUE_KEY_NAME + ":" + EVENT_ID, "1001", 101);
+		redisTemplate.opsForHash().put(WAITING_QUEUE_RECORD_KEY_NAME + ":" + EVENT_ID, "1001", "instance-a");
+		// 새 배치로 이미 기록된 값은 유지
+		redisTemplate.opsForValue().set(eventKey(WAITING_QUEUE_START_IDX_KEY, EVENT_ID), "105");
+
+		// when
+		migration.migrate();
+
+		// then
+		assertThat(redisTemplate.opsForValue().get(eventKey(ENTRY_QUEUE_COUNT_KEY_NAME, EVENT_ID))).isEqualTo("7");
+		assertThat(redisTemplate.opsForValue().get(eventKey(WAITING_QUEUE_IDX_KEY_NAME, EVENT_ID))).isEqualTo("120");
+		assertThat(redisTemplate.opsForValue().get(eventKey(WAITING_QUEUE_START_IDX_KEY, EVENT_ID))).isEqualTo("105");
+		assertThat(redisTemplate.opsForZSet().score(eventKey(WAITING_QUEUE_KEY_NAME, EVENT_ID), "1001"))
+			.isEqualTo(101.0);
+		assertThat(redisTemplate.opsForHash().get(eventKey(WAITING_QUEUE_RECORD_KEY_NAME, EVENT_ID), "1001"))
+			.isEqualTo("instance-a");
+		assertThat(redisTemplate.hasKey(ENTRY_QUEUE_COUNT_KEY_NAME)).isFalse();
+		assertThat(redisTemplate.hasKey(WAITING_QUEUE_KEY_NAME + ":" + EVENT_ID)).isFalse();
+		assertThat(redisTemplate.opsForValue().get(KEY_LAYOUT_VERSION_KEY_NAME)).isEqualTo(KEY_LAYOUT_VERSION);
+	}
+
+	@DisplayName("lease 변환 - 전역 lease와 토큰을 lease의 행사별 키로 옮기고 registry에 등록")
+	@Test
+	void migrate_entryLeases() {
+		// given
+		redisTemplate.opsForZSet().add(ENTRY_LEASE_KEY_NAME, "1001", 5_000);
+		redisTemplate.opsForZSet().add(ENTRY_LEASE_KEY_NAME, "1002", 6_000);
+		redisTemplate.opsForHash().put("ENTRY_LEASE_EVENT", "1001", EVENT_ID);
+		redisTemplate.opsForHash().put(ENTRY_TOKEN_STORAGE_KEY_NAME, "1001", "token-1001");
+		redisTemplate.opsForHash().put(ENTRY_TOKEN_STORAGE_KEY_NAME, "1003", "token-1003");
+
+		// when
+		migration.migrate();
+
+		// then
+		assertThat(redisTemplate.opsForZSet().score(eventKey(ENTRY_LEASE_KEY_NAME, EVENT_ID), "1001"))
+			.isEqualTo(5_000.0);
+		// 행사를 알 수 없는 lease와 토큰은 옮기지 않음
+		assertThat(redisTemplate.opsForZSet().size(eventKey(ENTRY_LEASE_KEY_NAME, EVENT_ID))).isEqualTo(1L);
+		assertThat(redisTemplate.<String, String>opsForHash().entries(eventKey(ENTRY_TOKEN_STORAGE_KEY_NAME, EVENT_ID)))
+			.containsExactly(Map.entry("1001", "token-1001"));
+		assertThat(redisTemplate.opsForSet().members(ENTRY_LEASE_EVENT_REGISTRY_KEY_NAME)).containsExactly(EVENT_ID);
+		assertThat(redisTemplate.hasKey(ENTRY_LEASE_KEY_NAME)).isFalse();
+		assertThat(redisTemplate.hasKey(ENTRY_TOKEN_STORAGE_KEY_NAME)).isFalse();
+		assertThat(redisTemplate.hasKey("ENTRY_LEASE_EVENT")).isFalse();
+	}
+
+	@DisplayName("스트림 변환 - 전달되지 않은 승급 메시지만 행사별 ENTRY 스트림으로 옮김")
+	@Test
+	void migrate_entryStream() {
+		// given
+		redisTemplate.opsForStream().createGroup(ENTRY_QUEUE_KEY_NAME, ReadOffset.from("0-0"), ENTRY_QUEUE_GROUP_NAME);
+		entry("1001");
+		entry("1002");
+		// 1001은 전달 후 ack, 1002는 전달했지만 ack하지 않음, 1003은 아직 읽지 않음
+		List<MapRecord<String, Object, Object>> read = redisTemplate.opsForStream().read(
+			Consumer.from(ENTRY_QUEUE_GROUP_NAME, "consumer"),
+			StreamOffset.create(ENTRY_QUEUE_KEY_NAME, ReadOffset.lastConsumed()));
+		redisTemplate.opsForStream().acknowledge(ENTRY_QUEUE_KEY_NAME, ENTRY_QUEUE_GROUP_NAME, read.get(0).getId());
+		entry("1003");
+
+		// when
+		migration.migrate();
+
+		// then
+		String streamKey = eventKey(ENTRY_QUEUE_KEY_NAME, EVENT_ID);
+		List<MapRecord<String, Object, Object>> moved = redisTemplate.opsForStream()
+			.range(streamKey, Range.unbounded());
+		assertThat(moved).extracting(record -> record.getValue().get("userId")).containsExactly("1002", "1003");
+		assertThat(redisTemplate.opsForStream().groups(streamKey))
+			.anyMatch(group -> group.groupName().equals(ENTRY_QUEUE_GROUP_NAME));
+		assertThat(redisTemplate.opsForSet().members(WAITING_EVENT_REGISTRY_KEY_NAME)).containsExactly(EVENT_ID);
+		assertThat(redisTemplate.hasKey(ENTRY_QUEUE_KEY_NAME)).isFalse();
+	}
+
+	private void entry(String userId) {
+		redisTemplate.opsForStream().add(StreamRecords.mapBacked(
+				Map.of("userId", userId, "eventId", EVENT_ID, "instanceId", "instance-a"))
+			.withStreamKey(ENTRY_QUEUE_KEY_NAME));
+	}
+}
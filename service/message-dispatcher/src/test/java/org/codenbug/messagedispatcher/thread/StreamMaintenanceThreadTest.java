@@ -0,0 +1,117 @@
+package org.codenbug.messagedispatcher.thread;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.codenbug.messagedispatcher.redis.RedisConfig.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.BDDMockito.*;
+
+import java.util.List;
+import java.util.Set;
+
+import org.codenbug.messagedispatcher.metrics.PipelineMetrics;
+import org.codenbug.messagedispatcher.shard.DispatcherMembership;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.redis.connection.stream.StreamInfo;
+import org.springframework.data.redis.core.SetOperations;
+import org.springframework.data.redis.core.StreamOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class StreamMaintenanceThreadTest {
+
+	private static final String INSTANCE_ID = "instance-a";
+	private static final String STREAM_KEY = DISPATCH_QUEUE_CHANNEL_NAME + ":" + INSTANCE_ID;
+	private static final String ALIVE_KEY = QUEUE_INSTANCE_ALIVE_KEY_NAME + ":" + INSTANCE_ID;
+
+	@Mock
+	private StringRedisTemplate redisTemplate;
+
+	@Mock
+	private SetOperations<String, String> setOperations;
+
+	@Mock
+	private StreamOperations<String, Object, Object> streamOperations;
+
+	@Mock
+	private DispatcherMembership membership;
+
+	@Mock
+	private EntryLeaseReaper entryLeaseReaper;
+
+	private SimpleMeterRegistry registry;
+	private StreamMaintenanceThread maintenanceThread;
+
+	@BeforeEach
+	void setUp() {
+		MockitoAnnotations.openMocks(this);
+		given(redisTemplate.opsForSet()).willReturn(setOperations);
+		given(redisTemplate.opsForStream()).willReturn(streamOperations);
+		given(setOperations.members(WAITING_EVENT_REGISTRY_KEY_NAME)).willReturn(Set.of());
+		given(setOperations.members(DISPATCH_STREAM_REGISTRY_KEY_NAME)).willReturn(Set.of(STREAM_KEY));
+		given(streamOperations.groups(STREAM_KEY)).willReturn(StreamInfo.XInfoGroups.fromList(List.of()));
+		given(streamOperations.size(STREAM_KEY)).willReturn(3L);
+
+		registry = new SimpleMeterRegistry();
+		// orphan-grace 0: 생존 키가 사라진 것을 확인한 즉시 orphan으로 판단
+		maintenanceThread = new StreamMaintenanceThread(redisTemplate, membership, entryLeaseReaper, registry,
+			new PipelineMetrics(registry), 30_000, 3, 100, 0);
+	}
+
+	@DisplayName("maintain - 살아있는 인스턴스의 DISPATCH 스트림 상태를 gauge로 노출")
+	@Test
+	void maintain_registerGauges() {
+		// given
+		given(redisTemplate.hasKey(STREAM_KEY)).willReturn(true);
+		given(redisTemplate.hasKey(ALIVE_KEY)).willReturn(true);
+
+		// when
+		maintenanceThread.maintain();
+
+		// then
+		assertThat(registry.get("dispatch_stream_length").tag("stream", STREAM_KEY).gauge().value()).isEqualTo(3.0);
+		assertThat(registry.get("dispatch_stream_pending").tag("stream", STREAM_KEY).gauge().value()).isZero();
+		assertThat(registry.get("dispatch_stream_lag").tag("stream", STREAM_KEY).gauge().value()).isZero();
+	}
+
+	@DisplayName("maintain - 스트림이 사라졌다면 registry와 함께 gauge도 제거")
+	@Test
+	void maintain_removeGaugesOfMissingStream() {
+		// given
+		given(redisTemplate.hasKey(STREAM_KEY)).willReturn(true, false);
+		given(redisTemplate.hasKey(ALIVE_KEY)).willReturn(true);
+		maintenanceThread.maintain();
+
+		// when
+		maintenanceThread.maintain();
+
+		// then
+		then(setOperations).should().remove(DISPATCH_STREAM_REGISTRY_KEY_NAME, STREAM_KEY);
+		assertThat(registry.find("dispatch_stream_length").meters()).isEmpty();
+		assertThat(registry.find("dispatch_stream_pending").meters()).isEmpty();
+		assertThat(registry.find("dispatch_stream_lag").meters()).isEmpty();
+	}
+
+	@DisplayName("maintain - 종료된 인스턴스의 스트림을 삭제하면 gauge도 제거")
+	@Test
+	void maintain_removeGaugesOfOrphanedStream() {
+		// given
+		given(redisTemplate.hasKey(STREAM_KEY)).willReturn(true);
+		given(redisTemplate.hasKey(ALIVE_KEY)).willReturn(true, false);
+		given(streamOperations.range(eq(STREAM_KEY), any(), any())).willReturn(List.of());
+		maintenanceThread.maintain();
+
+		// when
+		maintenanceThread.maintain();
+
+		// then
+		then(redisTemplate).should().delete(STREAM_KEY);
+		assertThat(registry.find("dispatch_stream_length").meters()).isEmpty();
+		assertThat(registry.find("dispatch_stream_pending").meters()).isEmpty();
+		assertThat(registry.find("dispatch_stream_lag").meters()).isEmpty();
+	}
+}
@@ -0,0 +1,128 @@
+package org.codenbug.messagedispatcher.thread;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.codenbug.messagedispatcher.redis.RedisConfig.*;
+
+import java.util.Set;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations.TypedTuple;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import com.redis.testcontainers.RedisContainer;
+
+@Testcontainers(disabledWithoutDocker = true)
+class WaitingEncodingMigrationTest {
+
+	private static final String EVENT_ID = "42";
+	private static final String WAITING = eventKey(WAITING_QUEUE_KEY_NAME, EVENT_ID);
+	private static final String RECORD = eventKey(WAITING_QUEUE_RECORD_KEY_NAME, EVENT_ID);
+
+	@Container
+	static RedisContainer redis = new RedisContainer("redis:alpine");
+
+	private static LettuceConnectionFactory connectionFactory;
+
+	private StringRedisTemplate redisTemplate;
+	private WaitingEncodingMigration migration;
+
+	@BeforeAll
+	static void connect() {
+		connectionFactory = new LettuceConnectionFactory(redis.getHost(), redis.getFirstMappedPort());
+		connectionFactory.afterPropertiesSet();
+		connectionFactory.start();
+	}
+
+	@AfterAll
+	static void disconnect() {
+		connectionFactory.destroy();
+	}
+
+	@BeforeEach
+	void setUp() {
+		redisTemplate = new StringRedisTemplate(connectionFactory);
+		redisTemplate.execute((RedisCallback<Object>)connection -> {
+			connection.serverCommands().flushAll();
+			return null;
+		});
+		// batch 여러 번에 나누어 변환되도록 작은 batch 크기 사용
+		migration = new WaitingEncodingMigration(redisTemplate, 2);
+
+		redisTemplate.opsForSet().add(WAITING_EVENT_REGISTRY_KEY_NAME, EVENT_ID);
+		redisTemplate.opsForZSet().add(WAITING, "{\"userId\":\"1001\"}", 1);
+		redisTemplate.opsForZSet().add(WAITING, "{\"userId\":1002}", 2);
+		redisTemplate.opsForZSet().add(WAITING, "1003", 3);
+		redisTemplate.opsForZSet().add(WAITING, "{\"broken\"", 4);
+		redisTemplate.opsForZSet().add(WAITING, "{\"userId\":\"1005\"}", 5);
+		redisTemplate.opsForHash().put(RECORD, "1001",
+			"{\"userId\":\"1001\",\"idx\":\"1\",\"eventId\":\"42\",\"instanceId\":\"instance-a\"}");
+		redisTemplate.opsForHash().put(RECORD, "1002",
+			"{\"userId\":1002,\"idx\":2,\"eventId\":42,\"instanceId\":\"instance-b\"}");
+		redisTemplate.opsForHash().put(RECORD, "1003", "instance-c");
+		redisTemplate.opsForHash().put(RECORD, "1004", "{\"broken\"");
+	}
+
+	@DisplayName("member 변환 - JSON member를 같은 score의 userId member로 바꾸고 읽을 수 없는 member는 제거")
+	@Test
+	void migrate_members() {
+		// when
+		migration.migrate();
+
+		// then
+		Set<TypedTuple<String>> members = redisTemplate.opsForZSet().rangeWithScores(WAITING, 0, -1);
+		assertThat(members).extracting(TypedTuple::getValue).containsExactly("1001", "1002", "1003", "1005");
+		assertThat(members).extracting(TypedTuple::getScore).containsExactly(1.0, 2.0, 3.0, 5.0);
+	}
+
+	@DisplayName("record 변환 - JSON record를 instanceId 값으로 바꾸고 읽을 수 없는 record는 제거")
+	@Test
+	void migrate_records() {
+		// when
+		migration.migrate();
+
+		// then
+		assertThat(redisTemplate.<String, String>opsForHash().entries(RECORD))
+			.containsEntry("1001", "instance-a")
+			.containsEntry("1002", "instance-b")
+			.containsEntry("1003", "instance-c")
+			.doesNotContainKey("1004");
+		assertThat(redisTemplate.opsForValue().get(WAITING_ENCODING_VERSION_KEY_NAME))
+			.isEqualTo(WAITING_ENCODING_VERSION);
+	}
+
+	@DisplayName("멱등 - 이미 변환된 데이터를 다시 변환해도 그대로")
+	@Test
+	void migrate_idempotent() {
+		// given
+		migration.migrate();
+		redisTemplate.delete(WAITING_ENCODING_VERSION_KEY_NAME);
+
+		// when
+		migration.migrate();
+
+		// then
+		assertThat(redisTemplate.opsForZSet().range(WAITING, 0, -1)).containsExactly("1001", "1002", "1003", "1005");
+		assertThat(redisTemplate.opsForHash().size(RECORD)).isEqualTo(3L);
+	}
+
+	@DisplayName("버전 기록 - 변환이 끝난 뒤에는 다시 기동해도 변환하지 않음")
+	@Test
+	void migrate_skipAfterVersion() {
+		// given
+		redisTemplate.opsForValue().set(WAITING_ENCODING_VERSION_KEY_NAME, WAITING_ENCODING_VERSION);
+
+		// when
+		migration.migrate();
+
+		// then
+		assertThat(redisTemplate.opsForZSet().score(WAITING, "{\"userId\":\"1001\"}")).isEqualTo(1.0);
+	}
+}
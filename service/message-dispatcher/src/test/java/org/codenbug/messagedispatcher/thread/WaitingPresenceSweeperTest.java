@@ -0,0 +1,127 @@
+package org.codenbug.messagedispatcher.thread;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.codenbug.messagedispatcher.redis.RedisConfig.*;
+import static org.mockito.BDDMockito.*;
+
+import java.util.Set;
+
+import org.codenbug.messagedispatcher.shard.PromotionLeaseManager;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import com.redis.testcontainers.RedisContainer;
+
+@Testcontainers(disabledWithoutDocker = true)
+class WaitingPresenceSweeperTest {
+
+	private static final String EVENT_ID = "42";
+	private static final String LAST_SEEN = eventKey(WAITING_LAST_SEEN_KEY_NAME, EVENT_ID);
+	private static final String WAITING = eventKey(WAITING_QUEUE_KEY_NAME, EVENT_ID);
+	private static final String RECORD = eventKey(WAITING_QUEUE_RECORD_KEY_NAME, EVENT_ID);
+	private static final String USER_IDX = eventKey(WAITING_QUEUE_IN_USER_RECORD_KEY_NAME, EVENT_ID);
+	private static final String LEFT = eventKey(WAITING_QUEUE_LEFT_KEY_NAME, EVENT_ID);
+	private static final long STALE_MILLIS = 30_000L;
+
+	@Container
+	static RedisContainer redis = new RedisContainer("redis:alpine");
+
+	private static LettuceConnectionFactory connectionFactory;
+
+	private StringRedisTemplate redisTemplate;
+	private WaitingPresenceSweeper sweeper;
+
+	@BeforeAll
+	static void connect() {
+		connectionFactory = new LettuceConnectionFactory(redis.getHost(), redis.getFirstMappedPort());
+		connectionFactory.afterPropertiesSet();
+		connectionFactory.start();
+	}
+
+	@AfterAll
+	static void disconnect() {
+		connectionFactory.destroy();
+	}
+
+	@BeforeEach
+	void setUp() {
+		redisTemplate = new StringRedisTemplate(connectionFactory);
+		redisTemplate.execute((RedisCallback<Object>)connection -> {
+			connection.serverCommands().flushAll();
+			return null;
+		});
+		PromotionLeaseManager leaseManager = mock(PromotionLeaseManager.class);
+		given(leaseManager.getHeldLeases()).willReturn(Set.of(EVENT_ID));
+		// 한 번에 하나씩 제거해 batch를 반복하는 경로도 확인
+		sweeper = new WaitingPresenceSweeper(redisTemplate, leaseManager, STALE_MILLIS, 1);
+	}
+
+	@DisplayName("ghost 제거 - 갱신되지 않은 대기 유저를 제거하고 이탈자 set에 idx를 기록")
+	@Test
+	void sweep_staleWaitingUser() {
+		// given
+		long now = System.currentTimeMillis();
+		givenWaiting("1001", 1, now - STALE_MILLIS * 2);
+		givenWaiting("1002", 2, now);
+
+		// when
+		sweeper.sweep();
+
+		// then
+		assertThat(redisTemplate.opsForZSet().range(WAITING, 0, -1)).containsExactly("1002");
+		assertThat(redisTemplate.opsForHash().keys(RECORD)).containsExactly("1002");
+		assertThat(redisTemplate.opsForHash().keys(USER_IDX)).containsExactly("1002");
+		assertThat(redisTemplate.opsForZSet().range(LAST_SEEN, 0, -1)).containsExactly("1002");
+		assertThat(redisTemplate.opsForZSet().range(LEFT, 0, -1)).containsExactly("1");
+	}
+
+	@DisplayName("ghost 제거 - 이미 대기열에서 빠진 유저는 이탈자 set에 기록하지 않음")
+	@Test
+	void sweep_notWaitingAnymore() {
+		// given
+		long now = System.currentTimeMillis();
+		givenWaiting("1001", 1, now - STALE_MILLIS * 2);
+		// 승급되어 waiting zset에서는 빠졌지만 last-seen과 idx hash가 남아있는 유저
+		redisTemplate.opsForZSet().remove(WAITING, "1001");
+
+		// when
+		sweeper.sweep();
+
+		// then
+		assertThat(redisTemplate.opsForZSet().size(LEFT)).isZero();
+		assertThat(redisTemplate.opsForHash().size(USER_IDX)).isZero();
+		assertThat(redisTemplate.opsForZSet().size(LAST_SEEN)).isZero();
+	}
+
+	@DisplayName("ghost 제거 - migration 전의 JSON member도 제거하고 idx를 기록")
+	@Test
+	void sweep_legacyMember() {
+		// given
+		long now = System.currentTimeMillis();
+		givenWaiting("1001", 1, now - STALE_MILLIS * 2);
+		redisTemplate.opsForZSet().remove(WAITING, "1001");
+		redisTemplate.opsForZSet().add(WAITING, "{\"userId\":\"1001\"}", 1);
+
+		// when
+		sweeper.sweep();
+
+		// then
+		assertThat(redisTemplate.opsForZSet().size(WAITING)).isZero();
+		assertThat(redisTemplate.opsForZSet().range(LEFT, 0, -1)).containsExactly("1");
+	}
+
+	private void givenWaiting(String userId, long idx, long lastSeen) {
+		redisTemplate.opsForZSet().add(WAITING, userId, idx);
+		redisTemplate.opsForHash().put(RECORD, userId, "instance-a");
+		redisTemplate.opsForHash().put(USER_IDX, userId, String.valueOf(idx));
+		redisTemplate.opsForZSet().add(LAST_SEEN, userId, lastSeen);
+	}
+}
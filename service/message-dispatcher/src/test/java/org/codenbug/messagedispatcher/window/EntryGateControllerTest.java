@@ -0,0 +1,186 @@
+package org.codenbug.messagedispatcher.window;
+
+import static org.codenbug.messagedispatcher.redis.RedisConfig.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.BDDMockito.*;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+import org.codenbug.messagedispatcher.shard.ConsistentHashRing;
+import org.codenbug.messagedispatcher.shard.DispatcherMembership;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.redis.core.SetOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.core.ZSetOperations;
+
+class EntryGateControllerTest {
+
+	private static final String EVENT_ID = "42";
+	private static final String REPLICA_ID = "replica-1";
+	private static final String GATE_KEY = eventKey(ENTRY_GATE_KEY_NAME, EVENT_ID);
+	private static final long IDLE_MILLIS = 600_000L;
+
+	@Mock
+	private StringRedisTemplate redisTemplate;
+
+	@Mock
+	private ValueOperations<String, String> valueOperations;
+
+	@Mock
+	private SetOperations<String, String> setOperations;
+
+	@Mock
+	private ZSetOperations<String, String> zSetOperations;
+
+	@Mock
+	private DispatcherMembership membership;
+
+	@Mock
+	private MainServerHealth mainServerHealth;
+
+	private EntryGateController controller;
+
+	// redis에 있다고 가정하는 값들
+	private long arrivals;
+	private String gate;
+	private long waiting;
+
+	@BeforeEach
+	void setUp() {
+		MockitoAnnotations.openMocks(this);
+		given(redisTemplate.opsForValue()).willReturn(valueOperations);
+		given(redisTemplate.opsForSet()).willReturn(setOperations);
+		given(redisTemplate.opsForZSet()).willReturn(zSetOperations);
+		given(setOperations.members(ENTRY_GATE_EVENT_REGISTRY_KEY_NAME)).willReturn(Set.of(EVENT_ID));
+		given(membership.getReplicaId()).willReturn(REPLICA_ID);
+		given(membership.getRing()).willReturn(new ConsistentHashRing(List.of(REPLICA_ID), 10));
+		given(mainServerHealth.readP99()).willReturn(100L);
+
+		given(valueOperations.multiGet(anyList()))
+			.willAnswer(invocation -> Arrays.asList(String.valueOf(arrivals), null, gate));
+		given(zSetOperations.size(eventKey(WAITING_QUEUE_KEY_NAME, EVENT_ID))).willAnswer(invocation -> waiting);
+		willAnswer(invocation -> gate = invocation.getArgument(1)).given(valueOperations).set(eq(GATE_KEY), anyString());
+		given(redisTemplate.delete(GATE_KEY)).willAnswer(invocation -> {
+			gate = null;
+			return true;
+		});
+
+		// open-below 5/s, close-above 20/s, open-after 10s, smoothing 0.3, p99 목표 500ms
+		controller = new EntryGateController(redisTemplate, membership, mainServerHealth, 5, 20, 10_000, 0.3, 500,
+			IDLE_MILLIS);
+	}
+
+	@DisplayName("열기 - 조용한 상태가 open-after 동안 이어진 뒤에만 gate를 엶")
+	@Test
+	void open_afterCalmPeriod() {
+		// given: 첫 주기는 기준값만 기록하고, 다음 주기부터 조용한 상태를 잼
+		controller.evaluateAt(0);
+		controller.evaluateAt(1_000);
+		controller.evaluateAt(6_000);
+		then(valueOperations).should(never()).set(eq(GATE_KEY), anyString());
+
+		// when
+		controller.evaluateAt(11_000);
+
+		// then
+		then(valueOperations).should().set(GATE_KEY, "OPEN");
+		then(redisTemplate).should().convertAndSend(ENTRY_GATE_CHANNEL_NAME, EVENT_ID);
+	}
+
+	@DisplayName("hysteresis - 열린 gate는 close-above를 넘을 때 닫히고, 닫힌 뒤에는 open-below 아래로 내려가야 다시 열림")
+	@Test
+	void hysteresis() {
+		// given: 열린 gate에 초당 30명씩 진입. 평균 도착률 9 -> 15.3 -> 19.7 -> 22.8
+		gate = "OPEN";
+		controller.evaluateAt(0);
+		for (int second = 1; second <= 3; second++) {
+			arrivals += 30;
+			controller.evaluateAt(second * 1_000L);
+		}
+		then(redisTemplate).should(never()).delete(GATE_KEY);
+
+		// when
+		arrivals += 30;
+		controller.evaluateAt(4_000);
+
+		// then
+		then(redisTemplate).should().delete(GATE_KEY);
+
+		// 초당 10명으로 줄어도 open-below보다 크므로 충분히 오래 지나도 다시 열지 않음
+		for (int second = 5; second <= 30; second++) {
+			arrivals += 10;
+			controller.evaluateAt(second * 1_000L);
+		}
+		then(valueOperations).should(never()).set(eq(GATE_KEY), anyString());
+	}
+
+	@DisplayName("닫기 - 대기 중인 유저가 생기면 도착률과 관계없이 바로 닫음")
+	@Test
+	void close_whenWaiting() {
+		// given
+		gate = "OPEN";
+		controller.evaluateAt(0);
+		waiting = 3;
+
+		// when
+		controller.evaluateAt(1_000);
+
+		// then
+		then(redisTemplate).should().delete(GATE_KEY);
+	}
+
+	@DisplayName("닫기 - 메인 서버 상태를 알 수 없으면 바로 닫음")
+	@Test
+	void close_whenHealthUnknown() {
+		// given
+		gate = "OPEN";
+		controller.evaluateAt(0);
+		given(mainServerHealth.readP99()).willReturn(null);
+
+		// when
+		controller.evaluateAt(1_000);
+
+		// then
+		then(redisTemplate).should().delete(GATE_KEY);
+	}
+
+	@DisplayName("idle - idle-millis 동안 진입이 없으면 registry에서 빼고 gate를 닫음")
+	@Test
+	void idle_deregister() {
+		// given
+		gate = "OPEN";
+		controller.evaluateAt(0);
+		controller.evaluateAt(IDLE_MILLIS - 1_000);
+		then(setOperations).should(never()).remove(anyString(), any());
+
+		// when
+		controller.evaluateAt(IDLE_MILLIS);
+
+		// then
+		then(setOperations).should().remove(ENTRY_GATE_EVENT_REGISTRY_KEY_NAME, EVENT_ID);
+		then(redisTemplate).should().delete(GATE_KEY);
+		then(redisTemplate).should().convertAndSend(ENTRY_GATE_CHANNEL_NAME, EVENT_ID);
+	}
+
+	@DisplayName("idle - 진입이 이어지는 행사는 등록을 유지")
+	@Test
+	void idle_keepWhileArriving() {
+		// given
+		controller.evaluateAt(0);
+		arrivals += 1;
+		controller.evaluateAt(IDLE_MILLIS - 1_000);
+
+		// when
+		controller.evaluateAt(IDLE_MILLIS);
+
+		// then
+		then(setOperations).should(never()).remove(anyString(), any());
+	}
+}
@@ -0,0 +1,166 @@
+package org.codenbug.messagedispatcher.window;
+
+import static org.codenbug.messagedispatcher.redis.RedisConfig.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.BDDMockito.*;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+import org.codenbug.messagedispatcher.shard.PromotionLeaseManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+
+class EntryWindowControllerTest {
+
+	private static final String EVENT_ID = "42";
+	private static final List<String> WINDOW_KEYS = List.of(eventKey(ENTRY_WINDOW_KEY_NAME, EVENT_ID),
+		eventKey(ENTRY_QUEUE_COUNT_KEY_NAME, EVENT_ID));
+
+	@Mock
+	private StringRedisTemplate redisTemplate;
+
+	@Mock
+	private ValueOperations<String, String> valueOperations;
+
+	@Mock
+	private HashOperations<String, Object, Object> hashOperations;
+
+	@Mock
+	private PromotionLeaseManager leaseManager;
+
+	@Mock
+	private MainServerHealth mainServerHealth;
+
+	private EntryWindowController controller;
+
+	@BeforeEach
+	void setUp() {
+		MockitoAnnotations.openMocks(this);
+		given(redisTemplate.opsForValue()).willReturn(valueOperations);
+		given(redisTemplate.opsForHash()).willReturn(hashOperations);
+		given(leaseManager.getHeldLeases()).willReturn(Set.of(EVENT_ID));
+		given(hashOperations.get(EVENT_CAPACITY_KEY_NAME, EVENT_ID)).willReturn("1000");
+
+		// min 10, increase-step 10, decrease-factor 0.7, saturation-ratio 0.1, p99 목표 500ms
+		controller = new EntryWindowController(redisTemplate, leaseManager, mainServerHealth, 10, 10, 0.7, 0.1, 500);
+	}
+
+	@DisplayName("감소 - p99가 목표를 넘으면 window를 decrease-factor만큼 줄임")
+	@Test
+	void adjust_multiplicativeDecrease() {
+		// given
+		given(mainServerHealth.readP99()).willReturn(800L);
+		givenCounts(100, 50, 0);
+
+		// when
+		controller.adjust();
+
+		// then
+		verifyWindowSetTo("70");
+	}
+
+	@DisplayName("감소 - min 아래로는 줄이지 않음")
+	@Test
+	void adjust_decreaseFloor() {
+		// given
+		given(mainServerHealth.readP99()).willReturn(800L);
+		givenCounts(12, 0, 0);
+
+		// when
+		controller.adjust();
+
+		// then
+		verifyWindowSetTo("10");
+	}
+
+	@DisplayName("증가 - 건강하고 window가 거의 찼다면 increase-step만큼 늘림")
+	@Test
+	void adjust_additiveIncrease() {
+		// given
+		given(mainServerHealth.readP99()).willReturn(100L);
+		givenCounts(100, 10, 0);
+
+		// when
+		controller.adjust();
+
+		// then
+		verifyWindowSetTo("110");
+	}
+
+	@DisplayName("증가 - 직전 주기의 완료 수가 increase-step보다 크면 완료 수만큼 늘림")
+	@Test
+	void adjust_increaseByCompletions() {
+		// given
+		given(mainServerHealth.readP99()).willReturn(100L);
+		givenCounts(100, 0, 40);
+		controller.adjust();
+		givenCounts(100, 0, 65);
+
+		// when
+		controller.adjust();
+
+		// then
+		verifyWindowSetTo("125");
+	}
+
+	@DisplayName("증가 - 좌석 수보다 크게 늘리지 않음")
+	@Test
+	void adjust_increaseCappedBySeatCount() {
+		// given
+		given(mainServerHealth.readP99()).willReturn(100L);
+		givenCounts(995, 0, 0);
+
+		// when
+		controller.adjust();
+
+		// then
+		verifyWindowSetTo("1000");
+	}
+
+	@DisplayName("유지 - 남은 자리가 충분하면 늘리지 않음")
+	@Test
+	void adjust_holdWhenNotSaturated() {
+		// given
+		given(mainServerHealth.readP99()).willReturn(100L);
+		givenCounts(100, 50, 0);
+
+		// when
+		controller.adjust();
+
+		// then
+		verify(redisTemplate, never()).execute(any(RedisScript.class), anyList(), any(Object[].class));
+	}
+
+	@DisplayName("유지 - 메인 서버 상태를 알 수 없으면 바꾸지 않음")
+	@Test
+	void adjust_holdWhenHealthUnknown() {
+		// given
+		given(mainServerHealth.readP99()).willReturn(null);
+		givenCounts(100, 0, 0);
+
+		// when
+		controller.adjust();
+
+		// then
+		verify(redisTemplate, never()).execute(any(RedisScript.class), anyList(), any(Object[].class));
+	}
+
+	// window, 남은 자리, 좌석 선점 + 결제 완료 누적 횟수
+	private void givenCounts(long window, long available, long completions) {
+		given(valueOperations.multiGet(anyList())).willReturn(
+			Arrays.asList(String.valueOf(window), String.valueOf(available), String.valueOf(completions), null));
+	}
+
+	private void verifyWindowSetTo(String nextWindow) {
+		verify(redisTemplate).execute(any(RedisScript.class), eq(WINDOW_KEYS), eq(nextWindow));
+	}
+}
@@ -0,0 +1,76 @@
+package org.codeNbug.queueserver.external.redis;
+
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * 대기열 zset member / record 인코딩의 크기와 파싱 비용을 비교하는 벤치마크
+ * <p>
+ * 이전 형식은 member {@code {"userId":"123"}}와 record {@code {"userId":..,"idx":..,"eventId":..,"instanceId":..}},
+ * 새 형식은 member {@code 123}과 record 값 instanceId입니다.
+ * 유저 한 명당 저장되는 member + record 값의 byte 수와, 승급 시 userId / instanceId를 꺼내는 비용을 측정합니다.
+ * </p>
+ * 실행: {@code ./gradlew :queue-server:encodingBenchmark --args="1000000"}
+ * <p>
+ * 측정 예 (JDK 21, 1,000,000명): 유저당 121.9 bytes → 43.0 bytes, 파싱 약 770 ns → 약 11 ns (JVM 파싱 기준, Lua cjson 비용은 별도)
+ * </p>
+ */
+public class WaitingRecordEncodingBenchmark {
+
+	private static final long USER_ID_OFFSET = 1_000_000L;
+	private static final long EVENT_ID = 42L;
+	private static final int ROUNDS = 5;
+
+	public static void main(String[] args) throws JsonProcessingException {
+		int userCount = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+		ObjectMapper objectMapper = new ObjectMapper();
+		String instanceId = UUID.randomUUID().toString();
+
+		String[] jsonMembers = new String[userCount];
+		String[] jsonRecords = new String[userCount];
+		String[] rawMembers = new String[userCount];
+		long jsonBytes = 0;
+		long rawBytes = 0;
+		for (int i = 0; i < userCount; i++) {
+			String userId = String.valueOf(USER_ID_OFFSET + i);
+			jsonMembers[i] = "{\"userId\":\"" + userId + "\"}";
+			jsonRecords[i] = "{\"userId\":\"" + userId + "\",\"idx\":\"" + (i + 1) + "\",\"eventId\":\"" + EVENT_ID
+				+ "\",\"instanceId\":\"" + instanceId + "\"}";
+			rawMembers[i] = userId;
+			jsonBytes += utf8Length(jsonMembers[i]) + utf8Length(jsonRecords[i]);
+			rawBytes += utf8Length(rawMembers[i]) + utf8Length(instanceId);
+		}
+
+		System.out.printf("%,d users%n", userCount);
+		System.out.printf("  JSON member + record : %.1f bytes/user%n", (double)jsonBytes / userCount);
+		System.out.printf("  raw member + record  : %.1f bytes/user%n", (double)rawBytes / userCount);
+
+		for (int round = 0; round < ROUNDS; round++) {
+			long sink = 0;
+			long start = System.nanoTime();
+			for (int i = 0; i < userCount; i++) {
+				JsonNode member = objectMapper.readTree(jsonMembers[i]);
+				JsonNode record = objectMapper.readTree(jsonRecords[i]);
+				sink += Long.parseLong(member.get("userId").asText()) + record.get("instanceId").asText().length();
+			}
+			long jsonNanos = System.nanoTime() - start;
+
+			start = System.nanoTime();
+			for (int i = 0; i < userCount; i++) {
+				sink += Long.parseLong(rawMembers[i]) + instanceId.length();
+			}
+			long rawNanos = System.nanoTime() - start;
+
+			System.out.printf("  round %d: JSON %.1f ns/user, raw %.1f ns/user (sink %d)%n", round,
+				(double)jsonNanos / userCount, (double)rawNanos / userCount, sink);
+		}
+	}
+
+	private static int utf8Length(String value) {
+		return value.getBytes(StandardCharsets.UTF_8).length;
+	}
+}
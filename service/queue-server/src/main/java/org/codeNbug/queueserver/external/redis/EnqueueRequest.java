@@ -0,0 +1,16 @@
+package org.codeNbug.queueserver.external.redis;
+
+/**
+ * 대기열 진입 스크립트 한 번의 실행에 필요한 값
+ *
+ * @param userId 대기열에 추가할 유저 id
+ * @param eventId 행사의 id
+ * @param seatCount 행사의 총 좌석 수. entry window 초기값의 상한으로 사용
+ * @param instanceId 승급 메시지를 받을 instanceId. null이라면 요청을 처리하는 인스턴스
+ */
+public record EnqueueRequest(Long userId, Long eventId, int seatCount, String instanceId) {
+
+	public EnqueueRequest(Long userId, Long eventId, int seatCount) {
+		this(userId, eventId, seatCount, null);
+	}
+}
@@ -0,0 +1,25 @@
+package org.codeNbug.queueserver.external.redis;
+
+/**
+ * 파이프라인으로 처리된 대기열 진입 요청 하나의 결과
+ * <p>
+ * 한 요청의 실패가 같은 batch의 다른 요청에 영향을 주지 않도록 요청마다 결과를 따로 담는다.
+ * </p>
+ *
+ * @param idx 유저에게 할당된 대기열 idx. 이미 입장한 유저라면 {@link WaitingQueueEnqueueScript#ADMITTED}, 실패했다면 null
+ * @param error 요청이 실패한 원인. 성공했다면 null
+ */
+public record EnqueueResult(Long idx, RuntimeException error) {
+
+	public static EnqueueResult success(Long idx) {
+		return new EnqueueResult(idx, null);
+	}
+
+	public static EnqueueResult failure(RuntimeException error) {
+		return new EnqueueResult(null, error);
+	}
+
+	public boolean isSuccess() {
+		return error == null;
+	}
+}
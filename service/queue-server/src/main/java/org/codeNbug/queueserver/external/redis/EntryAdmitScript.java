@@ -0,0 +1,81 @@
+package org.codeNbug.queueserver.external.redis;
+
+import static org.codeNbug.queueserver.external.redis.RedisConfig.*;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.stereotype.Component;
+
+/**
+ * 입장 gate가 열린 행사의 유저를 대기열을 거치지 않고 바로 입장시킨다.
+ * <p>
+ * 남은 입장 자리 차감과 입장 lease 발급을 스크립트 한 번으로 수행하므로, 승급 주기와 ENTRY / DISPATCH 스트림을 거치지 않는다.
+ * 대기 중인 유저가 있거나 자리가 없다면 입장시키지 않으며, 호출한 쪽은 기존처럼 대기열에 추가한다.
+ * </p>
+ */
+@Component
+public class EntryAdmitScript {
+
+	private final StringRedisTemplate redisTemplate;
+	private final DefaultRedisScript<Long> admitScript;
+
+	@Value("${custom.queue.entry-window.initial:100}")
+	private int initialWindow;
+
+	// 바로 입장한 유저의 입장 lease 유지 시간. dispatcher의 custom.dispatcher.lease.entry-lease-millis와 맞춤
+	@Value("${custom.queue.gate.entry-lease-millis:300000}")
+	private long entryLeaseMillis;
+
+	public EntryAdmitScript(StringRedisTemplate redisTemplate) {
+		this.redisTemplate = redisTemplate;
+		admitScript = new DefaultRedisScript<>();
+		admitScript.setScriptText(loadLuaScriptFromResource("admit_entry_user.lua"));
+		admitScript.setResultType(Long.class);
+	}
+
+	private String loadLuaScriptFromResource(String scriptName) {
+		try (InputStream is =
+				 new ClassPathResource(scriptName).getInputStream();
+			 BufferedReader reader = new BufferedReader(new InputStreamReader(is))) {
+			return reader.lines().collect(Collectors.joining("\n"));
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * 유저를 바로 입장시킨다.
+	 *
+	 * @param userId 유저 id
+	 * @param eventId 행사 id
+	 * @param seatCount 행사의 총 좌석 수. entry window가 아직 없다면 초기화에 사용
+	 * @return 입장시켰다면 true, 대기열에 추가해야 한다면 false
+	 */
+	public boolean admit(Long userId, Long eventId, int seatCount) {
+		// reaper가 입장 lease를 찾을 수 있도록 lease 발급 전에 등록
+		redisTemplate.opsForSet().add(ENTRY_LEASE_EVENT_REGISTRY_KEY_NAME, eventId.toString());
+		Long admitted = redisTemplate.execute(admitScript,
+			List.of(
+				eventKey(ENTRY_QUEUE_COUNT_KEY_NAME, eventId),
+				eventKey(ENTRY_WINDOW_KEY_NAME, eventId),
+				eventKey(ENTRY_GATE_KEY_NAME, eventId),
+				eventKey(WAITING_QUEUE_KEY_NAME, eventId),
+				eventKey(WAITING_QUEUE_IN_USER_RECORD_KEY_NAME, eventId),
+				eventKey(ENTRY_LEASE_KEY_NAME, eventId),
+				eventKey(ENTRY_ADMIT_COUNT_KEY_NAME, eventId)
+			),
+			userId.toString(), String.valueOf(seatCount), String.valueOf(initialWindow),
+			String.valueOf(System.currentTimeMillis() + entryLeaseMillis));
+		return admitted != null && admitted > 0;
+	}
+}
@@ -0,0 +1,44 @@
+package org.codeNbug.queueserver.external.redis;
+
+import static org.codeNbug.queueserver.external.redis.RedisConfig.*;
+
+import java.nio.charset.StandardCharsets;
+
+import org.springframework.data.redis.connection.RedisZSetCommands.ZAddArgs;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * 승급된 유저의 입장 lease 만료 시각을 앞당긴다.
+ * <p>
+ * lease는 message-dispatcher가 승급 시 발급하고, 반납은 main-server가 예매를 마쳤을 때, 회수는 dispatcher의 reaper가 맡는다.
+ * queue-server는 연결이 끊긴 유저의 lease가 유예 시간 뒤에 회수되도록 만료 시각만 앞당긴다.
+ * </p>
+ */
+@Component
+public class EntryLeaseScript {
+
+	private final StringRedisTemplate redisTemplate;
+
+	public EntryLeaseScript(StringRedisTemplate redisTemplate) {
+		this.redisTemplate = redisTemplate;
+	}
+
+	/**
+	 * 유저의 입장 lease가 늦어도 {@code graceMillis} 뒤에 만료되도록 앞당긴다.
+	 * 유예 시간 안에 다시 연결하거나 main-server에서 활동하면 lease가 다시 연장되고,
+	 * 그렇지 않으면 dispatcher의 reaper가 회수한다. lease가 없거나 이미 더 일찍 만료된다면 아무것도 하지 않는다.
+	 *
+	 * @param eventId 유저가 입장한 행사 id
+	 * @param userId 유저 id
+	 * @param graceMillis 재연결을 기다릴 시간
+	 */
+	public void expireWithin(Long eventId, Long userId, long graceMillis) {
+		byte[] key = eventKey(ENTRY_LEASE_KEY_NAME, eventId).getBytes(StandardCharsets.UTF_8);
+		byte[] member = userId.toString().getBytes(StandardCharsets.UTF_8);
+		double expiresAt = System.currentTimeMillis() + graceMillis;
+		redisTemplate.execute((RedisCallback<Boolean>)connection -> connection.zSetCommands()
+			.zAdd(key, expiresAt, member, ZAddArgs.empty().ifExists().lt()));
+	}
+}
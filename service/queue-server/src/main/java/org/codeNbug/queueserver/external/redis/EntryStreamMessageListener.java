@@ -3,9 +3,9 @@ package org.codeNbug.queueserver.external.redis;
 import java.time.Duration;
 import java.util.Map;
 
-import org.codeNbug.queueserver.entryauth.service.EntryAuthService;
 import org.codeNbug.queueserver.waitingqueue.entity.SseConnection;
-import org.codeNbug.queueserver.waitingqueue.entity.Status;
+import org.codeNbug.queueserver.waitingqueue.metrics.WaitingRoomMetrics;
+import org.codeNbug.queueserver.waitingqueue.registry.ConnectionRegistry;
 import org.codeNbug.queueserver.waitingqueue.service.SseEmitterService;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.redis.RedisSystemException;
@@ -18,7 +18,6 @@ import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.data.redis.stream.StreamListener;
 import org.springframework.data.redis.stream.StreamMessageListenerContainer;
 import org.springframework.stereotype.Component;
-import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import jakarta.annotation.PostConstruct;
 import jakarta.annotation.PreDestroy;
@@ -31,37 +30,46 @@ public class EntryStreamMessageListener implements StreamListener<String, MapRec
 	private final RedisTemplate<String, Object> redisTemplate;
 	private final RedisConnectionFactory redisConnectionFactory;
 	private final SseEmitterService sseEmitterService;
-	private final EntryAuthService entryAuthService;
+	private final EntryLeaseScript entryLeaseScript;
+	private final ConnectionRegistry connectionRegistry;
+	private final WaitingRoomMetrics metrics;
 
 	@Value("${custom.instance-id}")
 	private String instanceId;
 
+	// 승급 전에 연결이 끊긴 유저가 다시 연결하기를 기다리는 시간
+	@Value("${custom.queue.resume.grace-millis:30000}")
+	private long graceMillis;
+
 	private StreamMessageListenerContainer<String, MapRecord<String, String, String>> streamMessageListenerContainer;
 
 	public EntryStreamMessageListener(RedisTemplate<String, Object> redisTemplate,
 		RedisConnectionFactory redisConnectionFactory, SseEmitterService sseEmitterService,
-		EntryAuthService entryAuthService) {
+		EntryLeaseScript entryLeaseScript, ConnectionRegistry connectionRegistry, WaitingRoomMetrics metrics) {
 		this.redisTemplate = redisTemplate;
 		this.redisConnectionFactory = redisConnectionFactory;
 		this.sseEmitterService = sseEmitterService;
-		this.entryAuthService = entryAuthService;
+		this.entryLeaseScript = entryLeaseScript;
+		this.connectionRegistry = connectionRegistry;
+		this.metrics = metrics;
+	}
+
+	/**
+	 * 이 인스턴스에 연결된 유저의 승급 메시지만 담기는 dispatch 스트림 키를 반환합니다.
+	 */
+	private String getStreamKey() {
+		return RedisConfig.DISPATCH_QUEUE_CHANNEL_NAME + ":" + instanceId;
 	}
 
 	@PostConstruct
 	public void startListening() {
-		String groupName = RedisConfig.DISPATCH_QUEUE_CHANNEL_NAME + ":" + instanceId;
+		String streamKey = getStreamKey();
+		String groupName = RedisConfig.DISPATCH_QUEUE_GROUP_NAME;
 		String consumerName = instanceId + "-consumer"; // 각 인스턴스마다 고유한 컨슈머 이름
 
-		// 컨슈머 그룹 생성 (이미 RedisConfig의 basicRedisTemplate 빈에서 시도함)
-		try {
-			// 스트림이 존재하지 않으면 BUSYGROUP 에러가 발생할 수 있으므로 확인
-			if (redisTemplate.opsForStream().groups(RedisConfig.DISPATCH_QUEUE_CHANNEL_NAME).stream()
-				.noneMatch(xInfoGroup -> xInfoGroup.groupName().equals(groupName))) {
-				redisTemplate.opsForStream().createGroup(RedisConfig.DISPATCH_QUEUE_CHANNEL_NAME, groupName);
-			}
-		} catch (RedisSystemException e) {
-			redisTemplate.opsForStream().createGroup(RedisConfig.DISPATCH_QUEUE_CHANNEL_NAME, groupName);
-		}
+		// 컨슈머 그룹 생성
+		createGroupIfAbsent(streamKey, groupName);
+		createGroupIfAbsent(getPollingStreamKey(), groupName);
 
 		StreamMessageListenerContainer.StreamMessageListenerContainerOptions<String, MapRecord<String, String, String>> options =
 			StreamMessageListenerContainer.StreamMessageListenerContainerOptions
@@ -76,13 +84,46 @@ public class EntryStreamMessageListener implements StreamListener<String, MapRec
 		// ReadOffset.lastConsumed()는 현재 컨슈머 그룹에서 마지막으로 처리(ack)한 메시지 다음부터 읽음
 		streamMessageListenerContainer.receive(
 			Consumer.from(groupName, consumerName),
-			StreamOffset.create(RedisConfig.DISPATCH_QUEUE_CHANNEL_NAME, ReadOffset.lastConsumed()),
+			StreamOffset.create(streamKey, ReadOffset.lastConsumed()),
 			this // 리스너로 현재 클래스 인스턴스 지정
 		);
+		// polling 유저의 승급 메시지는 모든 인스턴스가 같은 그룹으로 나눠 읽음
+		streamMessageListenerContainer.receive(
+			Consumer.from(groupName, consumerName),
+			StreamOffset.create(getPollingStreamKey(), ReadOffset.lastConsumed()),
+			this::onPollingMessage
+		);
 
 		streamMessageListenerContainer.start();
 		log.info("Started listening to Redis Stream '{}' with consumer group '{}' and consumer name '{}'",
-			RedisConfig.DISPATCH_QUEUE_CHANNEL_NAME, groupName, consumerName);
+			streamKey, groupName, consumerName);
+	}
+
+	/**
+	 * 모든 인스턴스가 함께 읽는 polling 유저용 dispatch 스트림 키를 반환합니다.
+	 */
+	private String getPollingStreamKey() {
+		return RedisConfig.DISPATCH_QUEUE_CHANNEL_NAME + ":" + RedisConfig.POLLING_INSTANCE_ID;
+	}
+
+	/**
+	 * 인스턴스가 뜨기 전에 쌓인 메시지도 읽을 수 있도록 스트림의 처음부터 읽는 그룹으로 생성
+	 */
+	private void createGroupIfAbsent(String streamKey, String groupName) {
+		try {
+			// 스트림이 존재하지 않으면 에러가 발생할 수 있으므로 확인
+			if (redisTemplate.opsForStream().groups(streamKey).stream()
+				.noneMatch(xInfoGroup -> xInfoGroup.groupName().equals(groupName))) {
+				redisTemplate.opsForStream().createGroup(streamKey, ReadOffset.from("0-0"), groupName);
+			}
+		} catch (RedisSystemException e) {
+			try {
+				redisTemplate.opsForStream().createGroup(streamKey, ReadOffset.from("0-0"), groupName);
+			} catch (RedisSystemException alreadyCreated) {
+				// 다른 인스턴스가 먼저 그룹을 만든 경우
+				log.debug("stream {}의 컨슈머 그룹이 이미 존재합니다.", streamKey);
+			}
+		}
 	}
 
 	@PreDestroy
@@ -96,41 +137,57 @@ public class EntryStreamMessageListener implements StreamListener<String, MapRec
 	@Override
 	public void onMessage(MapRecord<String, String, String> message) {
 
-		String groupName = RedisConfig.DISPATCH_QUEUE_CHANNEL_NAME + ":" + instanceId;
-		String consumerName = instanceId + "-consumer";
-
 		Map<String, String> body = message.getValue();
 
 		Long userId = Long.parseLong(body.get("userId"));
 		Long eventId = Long.parseLong(body.get("eventId"));
-		SseConnection sseConnection = sseEmitterService.getEmitterMap().get(userId);
-
-		if (sseConnection == null || !sseConnection.getEventId().equals(eventId)) {
+		SseConnection sseConnection = connectionRegistry.get(userId);
+		metrics.recordPromotion(eventId);
+
+		if (sseConnection == null || sseConnection.getEventId() != eventId) {
+			// 이 인스턴스의 스트림에는 이 인스턴스에 연결했던 유저만 들어오므로, 승급 전에 연결이 끊긴 경우이다
+			// 유예 시간 안에 티켓으로 다시 연결하면 토큰을 받을 수 있도록 토큰을 발급해두고,
+			// 다시 연결하지 않으면 reaper가 자리를 돌려주도록 입장 lease 만료를 앞당긴 뒤 메시지를 정리
+			sseEmitterService.getOrIssueEntryToken(userId, eventId);
+			entryLeaseScript.expireWithin(eventId, userId, graceMillis);
+			redisTemplate.opsForStream()
+				.acknowledge(getStreamKey(), RedisConfig.DISPATCH_QUEUE_GROUP_NAME, message.getId());
+			metrics.recordDelivery(eventId, promotedAt(body));
 			return;
 		}
 
-		sseConnection.setStatus(Status.IN_PROGRESS);
-		SseEmitter emitter = sseConnection.getEmitter();
+		String token = sseEmitterService.issueEntryToken(userId, eventId);
+		metrics.recordWait(eventId, sseConnection.getJoinedAt());
+		// 전송에 실패하더라도 연결 종료 처리에서 IN_PROGRESS 상태의 lease를 정리하므로 메시지는 처리된 것으로 ack
+		sseEmitterService.sendEntryToken(sseConnection, token);
+		redisTemplate.opsForStream()
+			.acknowledge(getStreamKey(), RedisConfig.DISPATCH_QUEUE_GROUP_NAME, message.getId());
+		metrics.recordDelivery(eventId, promotedAt(body));
+	}
+
+	/**
+	 * polling 유저의 승급 메시지를 처리합니다.
+	 * 유저는 다음 상태 조회에서 토큰을 받아가므로 토큰을 발급해두고, 조회하지 않고 떠난 유저의 자리는
+	 * 유예 시간 뒤 reaper가 돌려주도록 입장 lease 만료를 앞당깁니다. 상태 조회에서 토큰을 받으면 lease가 다시 연장됩니다.
+	 */
+	private void onPollingMessage(MapRecord<String, String, String> message) {
+		Map<String, String> body = message.getValue();
+		Long userId = Long.parseLong(body.get("userId"));
+		Long eventId = Long.parseLong(body.get("eventId"));
+		metrics.recordPromotion(eventId);
 
-		String token = entryAuthService.generateEntryAuthToken(Map.of("eventId", eventId, "userId", userId),
-			"entryAuthToken");
-		redisTemplate.opsForHash()
-			.put(RedisConfig.ENTRY_TOKEN_STORAGE_KEY_NAME, userId.toString(), token);
-		try {
+		sseEmitterService.getOrIssueEntryToken(userId, eventId);
+		entryLeaseScript.expireWithin(eventId, userId, graceMillis);
+		redisTemplate.opsForStream()
+			.acknowledge(getPollingStreamKey(), RedisConfig.DISPATCH_QUEUE_GROUP_NAME, message.getId());
+		metrics.recordDelivery(eventId, promotedAt(body));
+	}
 
-			emitter.send(
-				SseEmitter.event()
-					.data(Map.of(
-						"eventId", eventId,
-						"userId", userId,
-						"status", sseConnection.getStatus(),
-						"token", token
-					))
-			);
-			redisTemplate.opsForStream()
-				.acknowledge(RedisConfig.DISPATCH_QUEUE_CHANNEL_NAME, groupName, message.getId());
-		} catch (Exception e) {
-			emitter.complete();
-		}
+	/**
+	 * dispatcher가 메시지에 담아준 승급 시각. 필드가 없다면 0
+	 */
+	private static long promotedAt(Map<String, String> body) {
+		String promotedAt = body.get("promotedAt");
+		return promotedAt == null ? 0 : Long.parseLong(promotedAt);
 	}
 }
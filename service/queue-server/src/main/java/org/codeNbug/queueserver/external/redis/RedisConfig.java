@@ -1,5 +1,8 @@
 package org.codeNbug.queueserver.external.redis;
 
+import org.codeNbug.queueserver.waitingqueue.service.EventCapacityCatalog;
+import org.codeNbug.queueserver.waitingqueue.service.EntryGateCatalog;
+import org.codeNbug.queueserver.waitingqueue.service.EventInventoryCatalog;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
@@ -7,6 +10,8 @@ import org.springframework.context.annotation.Configuration;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
 
@@ -18,10 +23,30 @@ public class RedisConfig {
 	// waiting queue redis stream 키 이름
 	public static final String WAITING_QUEUE_KEY_NAME = "WAITING";
 	public static final Integer ENTRY_QUEUE_CAPACITY = 100;
-	// 메시지의 idx 값을 저장하기 위한 space의 key값
+	// 행사별로 마지막으로 발급한 대기열 idx를 저장하는 key값. 실제 키는 "WAITING_QUEUE_IDX:{eventId}"
 	public static final String WAITING_QUEUE_IDX_KEY_NAME = "WAITING_QUEUE_IDX";
-	// entry queue의 현재 인원을  저장하기 위한 space의 key값
+	// 행사별 entry queue의 남은 자리를 저장하는 key값. 실제 키는 "ENTRY_QUEUE_COUNT:{eventId}"
 	public static final String ENTRY_QUEUE_COUNT_KEY_NAME = "ENTRY_QUEUE_COUNT";
+	// 행사별 entry window(동시에 입장 가능한 인원) 크기를 저장하는 key값. 실제 키는 "ENTRY_WINDOW:{eventId}"
+	public static final String ENTRY_WINDOW_KEY_NAME = "ENTRY_WINDOW";
+	// 승급된 유저의 입장 lease 만료 시각을 저장하는 zset의 key값. 실제 키는 "ENTRY_LEASES:{eventId}"
+	public static final String ENTRY_LEASE_KEY_NAME = "ENTRY_LEASES";
+	// 입장 lease가 남아있을 수 있는 이벤트 id를 등록해두는 set의 key값. dispatcher의 reaper가 순회한다
+	public static final String ENTRY_LEASE_EVENT_REGISTRY_KEY_NAME = "ENTRY_LEASE_EVENTS";
+	// 행사별 입장 gate 상태의 key값. 실제 키는 "ENTRY_GATE:{eventId}"이며 "OPEN"이면 대기열 없이 바로 입장시킨다
+	public static final String ENTRY_GATE_KEY_NAME = "ENTRY_GATE";
+	// 입장 gate 상태가 바뀐 행사 id를 알리는 채널명
+	public static final String ENTRY_GATE_CHANNEL_NAME = "ENTRY_GATE_UPDATED";
+	// 진입 요청이 들어오는 이벤트 id를 등록해두는 set의 key값. dispatcher의 gate controller가 순회한다
+	public static final String ENTRY_GATE_EVENT_REGISTRY_KEY_NAME = "ENTRY_GATE_EVENTS";
+	// 대기열을 거치지 않고 바로 입장한 누적 인원의 key값. 실제 키는 "ENTRY_ADMIT_COUNT:{eventId}"
+	public static final String ENTRY_ADMIT_COUNT_KEY_NAME = "ENTRY_ADMIT_COUNT";
+	// 인스턴스 생존 여부를 나타내는 key의 prefix. 실제 키는 "QUEUE_INSTANCE_ALIVE:{instanceId}"이며 ttl이 지나면 사라진다
+	public static final String QUEUE_INSTANCE_ALIVE_KEY_NAME = "QUEUE_INSTANCE_ALIVE";
+	// 대기 중인 유저가 마지막으로 연결되어 있던 시각을 저장하는 zset의 key값. 실제 키는 "WAITING_LAST_SEEN:{eventId}"
+	public static final String WAITING_LAST_SEEN_KEY_NAME = "WAITING_LAST_SEEN";
+	// 대기 중인 유저가 연결된 instanceId를 저장하는 hash의 key값. 실제 키는 "WAITING_QUEUE_RECORD:{eventId}"
+	public static final String WAITING_QUEUE_RECORD_KEY_NAME = "WAITING_QUEUE_RECORD";
 	// 메시지 내부의 userId 속성의 키 값
 	public static final String QUEUE_MESSAGE_USER_ID_KEY_NAME = "userId";
 	// 메시지 내부의 eventId 속성의 키 값
@@ -29,15 +54,46 @@ public class RedisConfig {
 	public static final String QUEUE_MESSAGE_INSTANCE_ID_KEY_NAME = "instanceId";
 	// 메시지 내부의 idx 속성의 키 값
 	public static final String QUEUE_MESSAGE_IDX_KEY_NAME = "idx";
+	// dispatch stream 키의 prefix. 이 인스턴스는 "DISPATCH:{instanceId}" 스트림만 읽는다
 	public static final String DISPATCH_QUEUE_CHANNEL_NAME = "DISPATCH";
+	// polling 모드로 대기하는 유저의 instanceId. 이 유저들의 승급 메시지는 모든 인스턴스가 함께 읽는 "DISPATCH:POLLING" 스트림에 담긴다
+	public static final String POLLING_INSTANCE_ID = "POLLING";
+	// 인스턴스별 dispatch 스트림의 컨슈머 그룹명
+	public static final String DISPATCH_QUEUE_GROUP_NAME = "DISPATCH_GROUP";
 	public static final String WAITING_QUEUE_IN_USER_RECORD_KEY_NAME = "WAITING_USER_ID";
+	// 승급된 유저의 입장 토큰을 저장하는 hash의 key값. 실제 키는 "ENTRY_TOKEN:{eventId}", field는 userId
 	public static final String ENTRY_TOKEN_STORAGE_KEY_NAME = "ENTRY_TOKEN";
+	// 이벤트별로 entry queue로 승급이 끝난 마지막 idx(served cursor)를 저장하는 key값. 실제 키는 "WAITING_QUEUE_START_IDX:{eventId}"
 	public static final String WAITING_QUEUE_START_IDX_KEY = "WAITING_QUEUE_START_IDX";
+	// 대기 중 이탈한 유저의 idx를 저장하는 zset의 key값. 순번 계산 시 보정에 사용
+	public static final String WAITING_QUEUE_LEFT_KEY_NAME = "WAITING_QUEUE_LEFT";
+	// 대기 인원이 남아있는 이벤트 id를 등록해두는 set의 key값. KEYS 스캔 대신 이 set을 순회한다
+	public static final String WAITING_EVENT_REGISTRY_KEY_NAME = "WAITING_EVENTS";
+	// main-server가 발행하는 행사별 좌석 수 hash의 key값
+	public static final String EVENT_CAPACITY_KEY_NAME = "EVENT_CAPACITY";
+	// 좌석 수가 변경된 행사 id를 알리는 채널명
+	public static final String EVENT_CAPACITY_CHANNEL_NAME = "EVENT_CAPACITY_UPDATED";
+	// main-server가 발행하는 행사별 잔여 좌석 수 hash의 key값. 0이면 매진
+	public static final String EVENT_INVENTORY_KEY_NAME = "EVENT_INVENTORY";
+	// 잔여 좌석 수가 변경된 행사 id를 알리는 채널명
+	public static final String EVENT_INVENTORY_CHANNEL_NAME = "EVENT_INVENTORY_UPDATED";
 	private static final String ENTRY_USER_STREAM_GROUP = "ENTRY_CONSUMER_GROUP";
 
 	@Value("${custom.instance-id}")
 	private String instanceId;
 
+	/**
+	 * 행사별 키를 만듭니다. 행사 id를 hash tag({@code {eventId}})로 감싸므로
+	 * redis cluster에서도 한 행사의 키는 모두 같은 slot에 놓이고, 스크립트가 한 slot 안에서만 실행됩니다.
+	 *
+	 * @param prefix 키 종류 (예: {@code WAITING})
+	 * @param eventId 행사 id
+	 * @return {@code prefix:{eventId}} 형식의 키 (예: {@code WAITING:{42}})
+	 */
+	public static String eventKey(String prefix, Object eventId) {
+		return prefix + ":{" + eventId + "}";
+	}
+
 	@Bean
 	@Qualifier("pubSubConnectionFactory")
 	public LettuceConnectionFactory redisPubSubConnectionFactory(
@@ -49,6 +105,19 @@ public class RedisConfig {
 		return factory;
 	}
 
+	@Bean
+	public RedisMessageListenerContainer redisMessageListenerContainer(RedisConnectionFactory connectionFactory,
+		EventCapacityCatalog eventCapacityCatalog, EventInventoryCatalog eventInventoryCatalog,
+		EntryGateCatalog entryGateCatalog) {
+		RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+		container.setConnectionFactory(connectionFactory);
+
+		container.addMessageListener(eventCapacityCatalog, new ChannelTopic(EVENT_CAPACITY_CHANNEL_NAME));
+		container.addMessageListener(eventInventoryCatalog, new ChannelTopic(EVENT_INVENTORY_CHANNEL_NAME));
+		container.addMessageListener(entryGateCatalog, new ChannelTopic(ENTRY_GATE_CHANNEL_NAME));
+		return container;
+	}
+
 	@Bean
 	public RedisTemplate<String, Object> basicRedisTemplate(RedisConnectionFactory redisConnectionFactory) {
 		RedisTemplate<String, Object> redisTemplate = new RedisTemplate<>();
@@ -0,0 +1,230 @@
+package org.codeNbug.queueserver.external.redis;
+
+import static org.codeNbug.queueserver.external.redis.RedisConfig.*;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.RedisSystemException;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisPipelineException;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.serializer.GenericToStringSerializer;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
+import org.springframework.stereotype.Component;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 대기열 진입을 redis 서버 측 스크립트 한 번으로 수행한다.
+ * <p>
+ * 중복 확인, idx 발급, zset 추가, record 저장이 하나의 스크립트에서 원자적으로 처리되므로
+ * 같은 유저가 동시에 진입을 시도해도 한 번만 대기열에 추가된다.
+ * 이미 승급되어 입장 lease가 있는 유저는 다시 승급되어 자리를 한 번 더 차감하지 않도록 대기열에 추가하지 않는다.
+ * 스크립트는 한 행사의 hash tag를 가진 키만 다루고, 행사 간에 공유하는 대기 행사 registry는 스크립트가 끝난 뒤 등록한다.
+ * </p>
+ */
+@Slf4j
+@Component
+public class WaitingQueueEnqueueScript {
+
+	// 이미 승급되어 입장 lease가 있는 유저에게 idx 대신 반환하는 값. 발급되는 idx는 1부터 시작한다
+	public static final long ADMITTED = -1L;
+
+	private static final StringRedisSerializer ARGS_SERIALIZER = new StringRedisSerializer();
+	private static final GenericToStringSerializer<Long> RESULT_SERIALIZER = new GenericToStringSerializer<>(Long.class);
+
+	private final StringRedisTemplate redisTemplate;
+	private final DefaultRedisScript<Long> enqueueScript;
+
+	@Value("${custom.instance-id}")
+	private String instanceId;
+
+	// 처음 대기열이 생길 때 동시에 입장시킬 인원. 이후에는 dispatcher가 처리량에 따라 조절한다
+	@Value("${custom.queue.entry-window.initial:100}")
+	private int initialWindow;
+
+	public WaitingQueueEnqueueScript(StringRedisTemplate redisTemplate) {
+		this.redisTemplate = redisTemplate;
+		enqueueScript = new DefaultRedisScript<>();
+		enqueueScript.setScriptText(loadLuaScriptFromResource("enqueue_waiting_user.lua"));
+		enqueueScript.setResultType(Long.class);
+	}
+
+	private String loadLuaScriptFromResource(String scriptName) {
+		try (InputStream is =
+				 new ClassPathResource(scriptName).getInputStream();
+			 BufferedReader reader = new BufferedReader(new InputStreamReader(is))) {
+			return reader.lines().collect(Collectors.joining("\n"));
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * 스크립트를 redis에 미리 로드한다.
+	 * cluster 연결에서는 lettuce가 SCRIPT LOAD를 모든 master 노드로 보내므로 이후의 EVALSHA는 어느 shard에서도 스크립트를 찾는다.
+	 * failover나 노드 추가로 스크립트가 없는 노드가 생기면 {@link #enqueueAll(List)}가 NOSCRIPT를 받은 요청만 다시 실행한다.
+	 */
+	@EventListener(ApplicationReadyEvent.class)
+	public void loadScript() {
+		byte[] scriptBytes = enqueueScript.getScriptAsString().getBytes(StandardCharsets.UTF_8);
+		try {
+			redisTemplate.execute((RedisCallback<String>)connection ->
+				connection.scriptingCommands().scriptLoad(scriptBytes));
+		} catch (RuntimeException e) {
+			log.warn("대기열 진입 스크립트 로드 실패. 첫 진입 요청에서 다시 로드합니다.", e);
+		}
+	}
+
+	/**
+	 * 유저 한 명을 대기열에 추가한다.
+	 *
+	 * @return 유저에게 할당된 idx. 이미 대기열에 있는 유저라면 기존 idx, 입장 lease가 있는 유저라면 {@link #ADMITTED}
+	 */
+	public Long enqueue(EnqueueRequest request) {
+		Long idx = execute(request);
+		if (idx == null || idx != ADMITTED) {
+			registerEvents(List.of(request));
+		}
+		return idx;
+	}
+
+	/**
+	 * 여러 유저를 파이프라인으로 한 번에 대기열에 추가한다.
+	 * 모든 EVALSHA가 한 번의 왕복으로 전송되고, 일부 요청이 실패해도 나머지 요청의 결과는 그대로 반환한다.
+	 *
+	 * @return 요청 순서대로 각 요청의 결과
+	 */
+	public List<EnqueueResult> enqueueAll(List<EnqueueRequest> requests) {
+		if (requests.isEmpty()) {
+			return List.of();
+		}
+		List<Object> results;
+		try {
+			results = redisTemplate.executePipelined((RedisCallback<Object>)connection -> {
+				for (EnqueueRequest request : requests) {
+					evalSha(connection, request);
+				}
+				return null;
+			});
+		} catch (RedisPipelineException e) {
+			// 실패한 명령의 자리에는 예외가, 나머지 자리에는 정상 결과가 담겨 있다
+			results = e.getPipelineResult();
+		}
+
+		List<EnqueueResult> enqueueResults = new ArrayList<>(requests.size());
+		List<EnqueueRequest> enqueued = new ArrayList<>(requests.size());
+		for (int i = 0; i < requests.size(); i++) {
+			EnqueueRequest request = requests.get(i);
+			EnqueueResult result = toResult(request, i < results.size() ? results.get(i) : null);
+			if (result.isSuccess() && result.idx() != ADMITTED) {
+				enqueued.add(request);
+			}
+			enqueueResults.add(result);
+		}
+		if (!enqueued.isEmpty()) {
+			registerEvents(enqueued);
+		}
+		return enqueueResults;
+	}
+
+	private EnqueueResult toResult(EnqueueRequest request, Object result) {
+		if (result instanceof Throwable error) {
+			if (!isNoScript(error)) {
+				return EnqueueResult.failure(error instanceof RuntimeException runtimeException ? runtimeException
+					: new RedisSystemException(error.getMessage(), error));
+			}
+			// 스크립트가 없는 노드라면 EVALSHA 실패 시 EVAL로 다시 보내는 execute로 이 요청만 다시 실행한다
+			try {
+				result = execute(request);
+			} catch (RuntimeException e) {
+				return EnqueueResult.failure(e);
+			}
+		}
+		if (result == null) {
+			return EnqueueResult.failure(new IllegalStateException("대기열 진입 결과를 받지 못했습니다. userId=" + request.userId()));
+		}
+		return EnqueueResult.success(Long.parseLong(result.toString()));
+	}
+
+	private Long execute(EnqueueRequest request) {
+		return redisTemplate.execute(enqueueScript, ARGS_SERIALIZER, RESULT_SERIALIZER, keys(request),
+			(Object[])args(request));
+	}
+
+	private static boolean isNoScript(Throwable error) {
+		for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+			if (cause.getMessage() != null && cause.getMessage().contains("NOSCRIPT")) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * 대기 인원이 생긴 행사를 registry에 등록한다.
+	 * dispatcher는 대기열이 비었을 때 registry에서 제거한 뒤 대기열을 다시 확인하므로,
+	 * 반드시 유저를 대기열에 추가한 다음에 등록해야 제거와 겹쳐도 행사가 registry에서 빠지지 않는다.
+	 */
+	private void registerEvents(List<EnqueueRequest> requests) {
+		String[] eventIds = requests.stream()
+			.map(request -> request.eventId().toString())
+			.distinct()
+			.toArray(String[]::new);
+		redisTemplate.opsForSet().add(WAITING_EVENT_REGISTRY_KEY_NAME, eventIds);
+	}
+
+	private void evalSha(RedisConnection connection, EnqueueRequest request) {
+		List<String> keys = keys(request);
+		String[] args = args(request);
+		byte[][] keysAndArgs = new byte[keys.size() + args.length][];
+		int i = 0;
+		for (String key : keys) {
+			keysAndArgs[i++] = ARGS_SERIALIZER.serialize(key);
+		}
+		for (String arg : args) {
+			keysAndArgs[i++] = ARGS_SERIALIZER.serialize(arg);
+		}
+		connection.scriptingCommands()
+			.evalSha(enqueueScript.getSha1(), ReturnType.INTEGER, keys.size(), keysAndArgs);
+	}
+
+	private List<String> keys(EnqueueRequest request) {
+		Long eventId = request.eventId();
+		return List.of(
+			eventKey(ENTRY_QUEUE_COUNT_KEY_NAME, eventId),
+			eventKey(WAITING_QUEUE_IN_USER_RECORD_KEY_NAME, eventId),
+			eventKey(WAITING_QUEUE_IDX_KEY_NAME, eventId),
+			eventKey(WAITING_QUEUE_KEY_NAME, eventId),
+			eventKey(WAITING_QUEUE_RECORD_KEY_NAME, eventId),
+			eventKey(ENTRY_WINDOW_KEY_NAME, eventId),
+			eventKey(WAITING_LAST_SEEN_KEY_NAME, eventId),
+			eventKey(ENTRY_LEASE_KEY_NAME, eventId)
+		);
+	}
+
+	private String[] args(EnqueueRequest request) {
+		return new String[] {
+			request.userId().toString(),
+			request.instanceId() != null ? request.instanceId() : instanceId,
+			String.valueOf(request.seatCount()),
+			String.valueOf(initialWindow),
+			String.valueOf(System.currentTimeMillis())
+		};
+	}
+}
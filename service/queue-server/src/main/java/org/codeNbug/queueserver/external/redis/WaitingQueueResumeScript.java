@@ -0,0 +1,94 @@
+package org.codeNbug.queueserver.external.redis;
+
+import static org.codeNbug.queueserver.external.redis.RedisConfig.*;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.codeNbug.queueserver.waitingqueue.entity.QueueTicket;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.stereotype.Component;
+
+/**
+ * 대기열 티켓으로 다시 연결한 유저의 상태를 redis 서버 측 스크립트 한 번으로 확인하고 이어간다.
+ */
+@Component
+public class WaitingQueueResumeScript {
+
+	public enum ResumeResult {
+		// 유예 시간이 지나 대기열에서 제거되었거나 lease가 회수된 상태
+		EXPIRED,
+		// 같은 idx로 대기 중인 상태
+		WAITING,
+		// 연결이 끊긴 사이 승급되어 입장 lease가 남아있는 상태
+		PROMOTED
+	}
+
+	private final StringRedisTemplate redisTemplate;
+	private final DefaultRedisScript<Long> resumeScript;
+
+	@Value("${custom.instance-id}")
+	private String instanceId;
+
+	// 다시 연결한 승급 유저의 입장 lease를 연장할 시간. main-server의 custom.entry.lease-millis와 맞춤
+	@Value("${custom.queue.resume.entry-lease-millis:300000}")
+	private long entryLeaseMillis;
+
+	public WaitingQueueResumeScript(StringRedisTemplate redisTemplate) {
+		this.redisTemplate = redisTemplate;
+		resumeScript = new DefaultRedisScript<>();
+		resumeScript.setScriptText(loadLuaScriptFromResource("resume_waiting_user.lua"));
+		resumeScript.setResultType(Long.class);
+	}
+
+	private String loadLuaScriptFromResource(String scriptName) {
+		try (InputStream is =
+				 new ClassPathResource(scriptName).getInputStream();
+			 BufferedReader reader = new BufferedReader(new InputStreamReader(is))) {
+			return reader.lines().collect(Collectors.joining("\n"));
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * 티켓의 유저가 이전 상태를 이어갈 수 있는지 확인한다.
+	 * 대기 중이라면 이후의 승급 메시지가 이 인스턴스로 오도록 record를 갱신한다.
+	 */
+	public ResumeResult resume(QueueTicket ticket) {
+		return resume(ticket, instanceId);
+	}
+
+	/**
+	 * 티켓의 유저가 이전 상태를 이어갈 수 있는지 확인하고, 대기 중이라면 승급 메시지를 {@code targetInstanceId}로 받도록 한다.
+	 */
+	public ResumeResult resume(QueueTicket ticket, String targetInstanceId) {
+		Long eventId = ticket.eventId();
+		long now = System.currentTimeMillis();
+		Long result = redisTemplate.execute(resumeScript,
+			List.of(
+				eventKey(WAITING_QUEUE_IN_USER_RECORD_KEY_NAME, eventId),
+				eventKey(WAITING_QUEUE_RECORD_KEY_NAME, eventId),
+				eventKey(WAITING_LAST_SEEN_KEY_NAME, eventId),
+				eventKey(ENTRY_LEASE_KEY_NAME, eventId)
+			),
+			ticket.userId().toString(), ticket.idx().toString(), targetInstanceId,
+			String.valueOf(now), String.valueOf(now + entryLeaseMillis));
+		if (result == null) {
+			return ResumeResult.EXPIRED;
+		}
+		return switch (result.intValue()) {
+			case 1 -> ResumeResult.WAITING;
+			case 2 -> ResumeResult.PROMOTED;
+			default -> ResumeResult.EXPIRED;
+		};
+	}
+}
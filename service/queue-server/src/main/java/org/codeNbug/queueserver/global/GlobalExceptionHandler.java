@@ -43,6 +43,27 @@ public class GlobalExceptionHandler {
 		return new ResponseEntity<>(response, HttpStatus.FORBIDDEN);
 	}
 
+	@ExceptionHandler(SoldOutException.class)
+	public ResponseEntity<ErrorResponse> handleSoldOutException(SoldOutException e) {
+		ErrorResponse response = new ErrorResponse(
+			HttpStatus.GONE.value(),
+			"매진된 행사입니다.",
+			e.getMessage()
+		);
+		return new ResponseEntity<>(response, HttpStatus.GONE);
+	}
+
+	@ExceptionHandler(QueueUnavailableException.class)
+	public ResponseEntity<ErrorResponse> handleQueueUnavailableException(QueueUnavailableException e) {
+		log.warn("Queue unavailable: {}", e.getMessage(), e.getCause());
+		ErrorResponse response = new ErrorResponse(
+			HttpStatus.SERVICE_UNAVAILABLE.value(),
+			"대기열에 진입하지 못했습니다.",
+			e.getMessage()
+		);
+		return new ResponseEntity<>(response, HttpStatus.SERVICE_UNAVAILABLE);
+	}
+
 	// 에러 응답 클래스
 	private record ErrorResponse(
 		int status,
@@ -0,0 +1,11 @@
+package org.codeNbug.queueserver.global;
+
+/**
+ * 대기열 진입 요청을 제한 시간 안에 redis에 반영하지 못했을 때 발생하는 예외
+ */
+public class QueueUnavailableException extends RuntimeException {
+
+	public QueueUnavailableException(Long eventId, Throwable cause) {
+		super("대기열에 진입하지 못했습니다. 잠시 후 다시 시도해 주세요. eventId=" + eventId, cause);
+	}
+}
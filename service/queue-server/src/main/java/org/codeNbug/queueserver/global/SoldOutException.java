@@ -0,0 +1,11 @@
+package org.codeNbug.queueserver.global;
+
+/**
+ * 매진된 행사의 대기열에 진입하려 할 때 발생하는 예외
+ */
+public class SoldOutException extends RuntimeException {
+
+	public SoldOutException(Long eventId) {
+		super("매진된 행사입니다. eventId=" + eventId);
+	}
+}
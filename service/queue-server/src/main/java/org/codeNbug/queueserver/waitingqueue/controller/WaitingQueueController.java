@@ -1,20 +1,22 @@
 package org.codeNbug.queueserver.waitingqueue.controller;
 
-import java.util.Map;
-
-import org.codeNbug.queueserver.waitingqueue.service.SseEmitterService;
+import org.codeNbug.queueserver.waitingqueue.dto.PollingStatusResponse;
+import org.codeNbug.queueserver.waitingqueue.registry.ConnectionRegistry;
+import org.codeNbug.queueserver.waitingqueue.service.WaitingQueuePollingService;
 import org.codeNbug.queueserver.waitingqueue.service.WaitingQueueEntryService;
 import org.codenbug.user.domain.user.constant.UserRole;
 import org.codenbug.user.security.annotation.RoleRequired;
+import org.springframework.http.CacheControl;
 import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-
 import io.micrometer.core.instrument.Gauge;
 import io.micrometer.core.instrument.MeterRegistry;
 import jakarta.annotation.PostConstruct;
@@ -24,19 +26,22 @@ import jakarta.annotation.PostConstruct;
 public class WaitingQueueController {
 
 	private final WaitingQueueEntryService waitingQueueEntryService;
-	private final SseEmitterService sseEmitterService;
+	private final ConnectionRegistry connectionRegistry;
+	private final WaitingQueuePollingService waitingQueuePollingService;
 	private final MeterRegistry registry;
 
 	public WaitingQueueController(WaitingQueueEntryService waitingQueueEntryService,
-		SseEmitterService sseEmitterService, MeterRegistry registry) {
+		ConnectionRegistry connectionRegistry, WaitingQueuePollingService waitingQueuePollingService,
+		MeterRegistry registry) {
 		this.waitingQueueEntryService = waitingQueueEntryService;
-		this.sseEmitterService = sseEmitterService;
+		this.connectionRegistry = connectionRegistry;
+		this.waitingQueuePollingService = waitingQueuePollingService;
 		this.registry = registry;
 	}
 
 	@PostConstruct
 	void bindGauge() {
-		Gauge.builder("sse_connections_active", sseEmitterService.getEmitterMap(), Map::size)
+		Gauge.builder("sse_connections_active", connectionRegistry, ConnectionRegistry::size)
 			.description("Number of active SSE connections")
 			.register(registry);
 	}
@@ -44,12 +49,43 @@ public class WaitingQueueController {
 	/**
 	 * 로그인한 유저가 행사 id가 {@code event-id}인 행사의 티켓 대기열에 진입합니다.
 	 * 대기열에 진입시 sse 연결을 진행합니다.
+	 * 연결이 끊긴 뒤 유예 시간 안에 이전에 받은 {@code ticket}과 함께 다시 연결하면 기존 순번을 이어갑니다.
 	 * @param eventId
+	 * @param ticket 대기열 진입 시 전달받은 재연결용 티켓
 	 */
 	@RoleRequired({UserRole.USER})
 	@GetMapping(value = "/events/{id}/tickets/waiting", produces = MediaType.TEXT_EVENT_STREAM_VALUE
 		+ ";charset=UTF-8")
-	public SseEmitter entryWaiting(@PathVariable("id") Long eventId) throws JsonProcessingException {
-		return waitingQueueEntryService.entry(eventId);
+	public SseEmitter entryWaiting(@PathVariable("id") Long eventId,
+		@RequestParam(value = "ticket", required = false) String ticket) {
+		return waitingQueueEntryService.entry(eventId, ticket);
+	}
+
+	/**
+	 * 로그인한 유저가 sse 연결 없이 polling 모드로 행사 id가 {@code event-id}인 행사의 티켓 대기열에 진입합니다.
+	 * 응답의 {@code ticket}으로 {@code pollAfterMillis} 뒤에 상태를 조회합니다.
+	 * @param eventId
+	 */
+	@RoleRequired({UserRole.USER})
+	@PostMapping("/events/{id}/tickets/waiting/polling")
+	public ResponseEntity<PollingStatusResponse> joinPolling(@PathVariable("id") Long eventId) {
+		return ResponseEntity.ok()
+			.cacheControl(CacheControl.noStore())
+			.body(waitingQueuePollingService.join(eventId));
+	}
+
+	/**
+	 * polling 모드로 대기 중인 유저의 대기 상태를 조회합니다.
+	 * 대기 중이라면 순번과 다음 조회에 사용할 티켓, 조회 간격을, 입장 가능하다면 입장 토큰을 반환합니다.
+	 * @param eventId
+	 * @param ticket 직전 응답에서 전달받은 대기열 티켓
+	 */
+	@RoleRequired({UserRole.USER})
+	@GetMapping("/events/{id}/tickets/waiting/polling")
+	public ResponseEntity<PollingStatusResponse> pollStatus(@PathVariable("id") Long eventId,
+		@RequestParam("ticket") String ticket) {
+		return ResponseEntity.ok()
+			.cacheControl(CacheControl.noStore())
+			.body(waitingQueuePollingService.status(eventId, ticket));
 	}
 }
@@ -0,0 +1,34 @@
+package org.codeNbug.queueserver.waitingqueue.dto;
+
+import org.codeNbug.queueserver.waitingqueue.entity.Status;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * polling 모드의 대기열 상태 응답
+ *
+ * @param status 대기 중이라면 IN_ENTRY, 입장 가능하다면 IN_PROGRESS, 다시 진입해야 한다면 EXPIRED, 매진되었다면 SOLD_OUT
+ * @param order 대기 중일 때 내 앞에 남은 인원
+ * @param ticket 다음 조회에 사용할 대기열 티켓
+ * @param token 입장 가능할 때 발급된 입장 토큰
+ * @param pollAfterMillis 다음 조회까지 기다릴 시간
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record PollingStatusResponse(Status status, Long order, String ticket, String token, Long pollAfterMillis) {
+
+	public static PollingStatusResponse waiting(long order, String ticket, long pollAfterMillis) {
+		return new PollingStatusResponse(Status.IN_ENTRY, order, ticket, null, pollAfterMillis);
+	}
+
+	public static PollingStatusResponse promoted(String token) {
+		return new PollingStatusResponse(Status.IN_PROGRESS, null, null, token, null);
+	}
+
+	public static PollingStatusResponse expired() {
+		return new PollingStatusResponse(Status.EXPIRED, null, null, null, null);
+	}
+
+	public static PollingStatusResponse soldOut() {
+		return new PollingStatusResponse(Status.SOLD_OUT, null, null, null, null);
+	}
+}
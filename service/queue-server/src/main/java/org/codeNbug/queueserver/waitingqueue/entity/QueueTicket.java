@@ -0,0 +1,13 @@
+package org.codeNbug.queueserver.waitingqueue.entity;
+
+/**
+ * 대기열 진입 시 발급하는 재연결용 티켓의 내용
+ *
+ * @param userId 대기열에 진입한 유저 id
+ * @param eventId 행사의 id
+ * @param idx 대기열 진입 시 할당받은 idx
+ * @param joinedAt 대기열에 처음 진입한 시각(ms). 티켓을 다시 발급해도 유지한다
+ * @param issuedAt 티켓 발급 시각(ms). polling 모드에서는 상태를 조회할 때마다 다시 발급한다
+ */
+public record QueueTicket(Long userId, Long eventId, Long idx, long joinedAt, long issuedAt) {
+}
@@ -1,23 +1,54 @@
 package org.codeNbug.queueserver.waitingqueue.entity;
 
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
 import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import lombok.Setter;
 
 public class SseConnection {
 
-	private SseEmitter emitter;
+	private final SseEmitter emitter;
+
+	private final long userId;
+
+	private final long eventId;
+
 	@Setter
-	private Status status;
+	private volatile Status status;
 
-	private Long eventId;
+	// 대기열 진입 시 할당받은 idx. 순번은 이 값과 이벤트의 served cursor로 계산한다. 할당 전에는 0
+	@Setter
+	private volatile long idx;
 
-	public SseConnection() {
-	}
+	// 대기열에 처음 진입한 시각(ms). 티켓으로 다시 연결했다면 티켓의 진입 시각. 진입부터 승급까지의 시간을 기록할 때 사용한다
+	@Setter
+	private volatile long joinedAt;
+
+	// 마지막으로 전송한 대기 순번. 순번이 의미 있게 변했을 때만 다시 전송하기 위해 사용한다. 전송 전에는 0
+	@Setter
+	private long lastSentOrder;
+
+	// 마지막으로 메시지를 전송한 시각(ms). heartbeat는 이 시각 이후 일정 시간 동안 전송이 없을 때만 보낸다.
+	private volatile long lastActiveAt = System.currentTimeMillis();
+
+	// 연결이 종료되었는지 여부
+	private volatile boolean closed;
+
+	// 남은 메시지를 모두 전송한 뒤 연결을 종료해야 하는지 여부. 매진 안내처럼 마지막 메시지를 보낸 뒤 설정한다
+	private volatile boolean closingAfterOutbound;
+
+	// 아직 전송하지 못한 메시지와 전송 상태. 대부분의 커넥션은 메시지를 받기 전까지 만들지 않도록 첫 메시지에서 생성한다
+	private volatile Outbound outbound;
 
-	public SseConnection(SseEmitter emitter, Status status, Long eventId) {
+	public SseConnection(SseEmitter emitter, Status status, long userId, long eventId) {
 		this.emitter = emitter;
 		this.status = status;
+		this.userId = userId;
 		this.eventId = eventId;
 	}
 
@@ -29,7 +60,138 @@ public class SseConnection {
 		return status;
 	}
 
-	public Long getEventId() {
+	public long getUserId() {
+		return userId;
+	}
+
+	public long getEventId() {
 		return eventId;
 	}
+
+	public long getIdx() {
+		return idx;
+	}
+
+	public boolean hasIdx() {
+		return idx > 0;
+	}
+
+	public long getJoinedAt() {
+		return joinedAt;
+	}
+
+	public long getLastSentOrder() {
+		return lastSentOrder;
+	}
+
+	public long getLastActiveAt() {
+		return lastActiveAt;
+	}
+
+	public boolean isClosed() {
+		return closed;
+	}
+
+	/**
+	 * 메시지 전송에 성공했을 때 호출해 마지막 활동 시각을 갱신한다.
+	 */
+	public void touch() {
+		this.lastActiveAt = System.currentTimeMillis();
+	}
+
+	public void close() {
+		this.closed = true;
+	}
+
+	/**
+	 * 남은 메시지를 모두 전송한 뒤 연결을 종료하도록 표시한다.
+	 */
+	public void closeAfterOutbound() {
+		this.closingAfterOutbound = true;
+	}
+
+	public boolean isClosingAfterOutbound() {
+		return closingAfterOutbound;
+	}
+
+	/**
+	 * 전송할 메시지를 추가한다.
+	 *
+	 * @return 쌓인 메시지가 {@code capacity}개 이상이라 추가하지 못했다면 false
+	 */
+	public boolean enqueue(SseEmitter.SseEventBuilder event, int capacity) {
+		Outbound outbound = outbound();
+		if (outbound.size.incrementAndGet() > capacity) {
+			outbound.size.decrementAndGet();
+			return false;
+		}
+		outbound.events.add(event);
+		return true;
+	}
+
+	/**
+	 * 전송할 순번 메시지를 교체한다.
+	 *
+	 * @return 아직 전송하지 못한 이전 순번 메시지를 덮어썼다면 true
+	 */
+	public boolean conflatePosition(SseEmitter.SseEventBuilder event) {
+		return outbound().pendingPosition.getAndSet(event) != null;
+	}
+
+	/**
+	 * 다음에 전송할 메시지를 꺼낸다. 일반 메시지를 먼저 보내고 순번 메시지는 마지막에 보낸다.
+	 */
+	public SseEmitter.SseEventBuilder nextOutbound() {
+		Outbound outbound = this.outbound;
+		if (outbound == null) {
+			return null;
+		}
+		SseEmitter.SseEventBuilder event = outbound.events.poll();
+		if (event != null) {
+			outbound.size.decrementAndGet();
+			return event;
+		}
+		return outbound.pendingPosition.getAndSet(null);
+	}
+
+	public boolean hasOutbound() {
+		Outbound outbound = this.outbound;
+		return outbound != null && (!outbound.events.isEmpty() || outbound.pendingPosition.get() != null);
+	}
+
+	public boolean startDraining() {
+		return outbound().draining.compareAndSet(false, true);
+	}
+
+	public void stopDraining() {
+		Outbound outbound = this.outbound;
+		if (outbound != null) {
+			outbound.draining.set(false);
+		}
+	}
+
+	private Outbound outbound() {
+		Outbound outbound = this.outbound;
+		if (outbound == null) {
+			synchronized (this) {
+				outbound = this.outbound;
+				if (outbound == null) {
+					outbound = new Outbound();
+					this.outbound = outbound;
+				}
+			}
+		}
+		return outbound;
+	}
+
+	private static final class Outbound {
+
+		// 아직 전송하지 못한 메시지. 크기는 SseOutbox가 제한한다.
+		private final Queue<SseEmitter.SseEventBuilder> events = new ConcurrentLinkedQueue<>();
+		private final AtomicInteger size = new AtomicInteger();
+		// 아직 전송하지 못한 최신 순번 메시지. 전송 전에 새 순번이 오면 덮어쓴다.
+		private final AtomicReference<SseEmitter.SseEventBuilder> pendingPosition = new AtomicReference<>();
+		// 전송 스레드가 이 커넥션의 메시지를 보내고 있는지 여부. 한 커넥션의 메시지는 한 번에 한 스레드만 보낸다.
+		private final AtomicBoolean draining = new AtomicBoolean();
+	}
 }
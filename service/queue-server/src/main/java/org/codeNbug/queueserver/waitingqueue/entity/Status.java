@@ -5,5 +5,9 @@ public enum Status {
 	IN_ENTRY,
 	// 대기열에서 탈출해 좌석 선택중인 상태
 	IN_PROGRESS,
+	// 유예 시간이 지나 대기열에서 제거되어 다시 진입해야 하는 상태
+	EXPIRED,
+	// 행사가 매진되어 더 이상 대기할 수 없는 상태
+	SOLD_OUT,
 
 }
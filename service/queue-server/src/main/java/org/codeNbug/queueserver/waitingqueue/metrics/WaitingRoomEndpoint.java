@@ -0,0 +1,36 @@
+package org.codeNbug.queueserver.waitingqueue.metrics;
+
+import java.util.List;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.stereotype.Component;
+
+/**
+ * 이벤트별 대기열 상태를 조회하는 읽기 전용 actuator endpoint
+ * <p>
+ * {@code GET /actuator/waitingroom}은 대기 인원이 있는 모든 이벤트를, {@code GET /actuator/waitingroom/{eventId}}는
+ * 한 이벤트의 상태를 반환합니다. 값은 {@link WaitingRoomMetrics}가 마지막으로 수집한 것이므로 redis를 추가로 조회하지 않습니다.
+ * </p>
+ */
+@Component
+@Endpoint(id = "waitingroom")
+public class WaitingRoomEndpoint {
+
+	private final WaitingRoomMetrics metrics;
+
+	public WaitingRoomEndpoint(WaitingRoomMetrics metrics) {
+		this.metrics = metrics;
+	}
+
+	@ReadOperation
+	public List<WaitingRoomMetrics.EventSnapshot> events() {
+		return metrics.snapshots();
+	}
+
+	@ReadOperation
+	public WaitingRoomMetrics.EventSnapshot event(@Selector long eventId) {
+		return metrics.snapshot(eventId);
+	}
+}
@@ -0,0 +1,335 @@
+package org.codeNbug.queueserver.waitingqueue.metrics;
+
+import static org.codeNbug.queueserver.external.redis.RedisConfig.*;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.codeNbug.queueserver.waitingqueue.registry.ConnectionRegistry;
+import org.codeNbug.queueserver.waitingqueue.thread.WaitingCursorCache;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 이벤트별 대기열 지표를 수집합니다.
+ * <p>
+ * 모든 지표는 {@code eventId} tag를 가집니다.
+ * 대기 인원, 입장 window 사용률처럼 redis에 있는 값은 주기적으로 이벤트마다 한 번씩 조회해 gauge로 노출하고,
+ * 진입 / 승급 / sse 전송처럼 이 인스턴스에서 일어나는 일은 발생한 스레드에서 바로 counter와 timer에 기록합니다.
+ * 초당 진입 / 승급 인원은 모든 인스턴스를 합친 값으로, 대기열 idx와 served cursor가 움직인 속도로 추정합니다.
+ * 대기 인원이 없어진 이벤트의 지표는 registry에서 제거합니다.
+ * </p>
+ */
+@Slf4j
+@Component
+public class WaitingRoomMetrics {
+
+	// 초당 진입 인원 추정치에 새 측정값을 반영하는 비율
+	private static final double RATE_SMOOTHING = 0.3;
+
+	private final StringRedisTemplate redisTemplate;
+	private final WaitingCursorCache cursorCache;
+	private final ConnectionRegistry connectionRegistry;
+	private final MeterRegistry registry;
+
+	private final Map<Long, EventMeters> events = new ConcurrentHashMap<>();
+
+	public WaitingRoomMetrics(StringRedisTemplate redisTemplate, WaitingCursorCache cursorCache,
+		ConnectionRegistry connectionRegistry, MeterRegistry registry) {
+		this.redisTemplate = redisTemplate;
+		this.cursorCache = cursorCache;
+		this.connectionRegistry = connectionRegistry;
+		this.registry = registry;
+	}
+
+	/**
+	 * 한 시점의 이벤트 대기열 상태
+	 *
+	 * @param queueLength 대기 인원
+	 * @param joinsPerSecond 최근 초당 진입 인원 (전체 인스턴스)
+	 * @param promotionsPerSecond 최근 초당 승급 인원 (전체 인스턴스)
+	 * @param estimatedWaitSeconds 지금 진입한 유저의 예상 대기 시간. 승급이 멈춰있다면 null
+	 * @param entryWindow 동시에 입장 가능한 인원
+	 * @param entrySlotsAvailable 남은 입장 자리
+	 * @param entrySlotUtilization 입장 window 사용률 (0 ~ 1)
+	 * @param localConnections 이 인스턴스에 연결된 sse 커넥션 수
+	 * @param waitMeanMillis 이 인스턴스에서 승급된 유저의 진입부터 승급까지 평균 시간
+	 * @param waitMaxMillis 이 인스턴스에서 승급된 유저의 진입부터 승급까지 최대 시간 (최근 구간)
+	 * @param sseSendMeanMillis sse 메시지 한 건의 평균 전송 시간
+	 * @param sseSendMaxMillis sse 메시지 한 건의 최대 전송 시간 (최근 구간)
+	 * @param sseSendFailures 전송 실패 또는 전송 대기열 초과로 종료된 sse 커넥션 수 (누적)
+	 * @param sampledAt redis 조회 시각(ms)
+	 */
+	public record EventSnapshot(long eventId, long queueLength, double joinsPerSecond, double promotionsPerSecond,
+								Long estimatedWaitSeconds, long entryWindow, long entrySlotsAvailable,
+								double entrySlotUtilization, long localConnections, double waitMeanMillis,
+								double waitMaxMillis, double sseSendMeanMillis, double sseSendMaxMillis,
+								long sseSendFailures, long sampledAt) {
+	}
+
+	@Scheduled(fixedRateString = "${custom.queue.metrics.sample-millis:2000}")
+	public void sample() {
+		Set<String> activeEventIds = redisTemplate.opsForSet().members(WAITING_EVENT_REGISTRY_KEY_NAME);
+		if (activeEventIds == null) {
+			return;
+		}
+		// 대기 인원이 없어진 이벤트의 지표는 제거
+		events.keySet().stream()
+			.filter(eventId -> !activeEventIds.contains(eventId.toString()))
+			.toList()
+			.forEach(this::remove);
+
+		for (String rawEventId : activeEventIds) {
+			Long eventId = Long.parseLong(rawEventId);
+			try {
+				sample(eventMeters(eventId));
+			} catch (Exception e) {
+				log.warn("event {} 대기열 지표 조회 실패: {}", eventId, e.getMessage());
+			}
+		}
+	}
+
+	private void sample(EventMeters meters) {
+		long eventId = meters.eventId;
+		Long queueLength = redisTemplate.opsForZSet().zCard(eventKey(WAITING_QUEUE_KEY_NAME, eventId));
+		// 한 행사의 키는 같은 slot에 있으므로 MGET 한 번으로 조회
+		List<String> values = redisTemplate.opsForValue().multiGet(List.of(
+			eventKey(WAITING_QUEUE_IDX_KEY_NAME, eventId),
+			eventKey(ENTRY_WINDOW_KEY_NAME, eventId),
+			eventKey(ENTRY_QUEUE_COUNT_KEY_NAME, eventId)));
+		long now = System.currentTimeMillis();
+
+		long lastIdx = parse(values, 0);
+		if (meters.sampledAt > 0 && now > meters.sampledAt) {
+			double measured = Math.max(0, lastIdx - meters.lastIdx) * 1000.0 / (now - meters.sampledAt);
+			meters.joinsPerSecond = meters.joinsPerSecond * (1 - RATE_SMOOTHING) + measured * RATE_SMOOTHING;
+		}
+		meters.lastIdx = lastIdx;
+		meters.queueLength = queueLength == null ? 0 : queueLength;
+		meters.entryWindow = parse(values, 1);
+		meters.entrySlotsAvailable = parse(values, 2);
+		meters.sampledAt = now;
+	}
+
+	/**
+	 * 유저가 대기열에 진입했음을 기록합니다. 티켓으로 순번을 이어받은 경우는 포함하지 않습니다.
+	 */
+	public void recordJoin(long eventId) {
+		eventMeters(eventId).joins.increment();
+	}
+
+	/**
+	 * 이 인스턴스가 승급 메시지를 처리했음을 기록합니다.
+	 */
+	public void recordPromotion(long eventId) {
+		eventMeters(eventId).promotions.increment();
+	}
+
+	/**
+	 * 유저가 입장 토큰을 받기까지 대기한 시간을 기록합니다.
+	 *
+	 * @param joinedAt 유저가 대기열에 진입한 시각(ms). 알 수 없다면(0) 기록하지 않음
+	 */
+	public void recordWait(long eventId, long joinedAt) {
+		if (joinedAt > 0) {
+			eventMeters(eventId).waitTime.record(Math.max(0, System.currentTimeMillis() - joinedAt),
+				TimeUnit.MILLISECONDS);
+		}
+	}
+
+	/**
+	 * 승급된 유저가 대기열 ZSET에서 빠진 시점부터 이 인스턴스가 DISPATCH 메시지를 ack하기까지의 시간을 기록합니다.
+	 *
+	 * @param promotedAt dispatcher가 메시지에 담아준 승급 시각(ms). 이전 버전 dispatcher가 보낸 메시지라 알 수 없다면(0) 기록하지 않음
+	 */
+	public void recordDelivery(long eventId, long promotedAt) {
+		if (promotedAt > 0) {
+			eventMeters(eventId).deliveryTime.record(Math.max(0, System.currentTimeMillis() - promotedAt),
+				TimeUnit.MILLISECONDS);
+		}
+	}
+
+	/**
+	 * sse 메시지 한 건의 전송 시간을 기록합니다.
+	 */
+	public void recordSend(long eventId, long elapsedNanos) {
+		eventMeters(eventId).sendLatency.record(elapsedNanos, TimeUnit.NANOSECONDS);
+	}
+
+	/**
+	 * sse 전송에 실패해 커넥션을 종료했음을 기록합니다.
+	 *
+	 * @param overflow 클라이언트가 따라오지 못해 전송 대기열이 넘친 경우 true, 전송 중 오류가 난 경우 false
+	 */
+	public void recordSendFailure(long eventId, boolean overflow) {
+		EventMeters meters = eventMeters(eventId);
+		(overflow ? meters.sendOverflows : meters.sendErrors).increment();
+	}
+
+	/**
+	 * 지표를 수집 중인 모든 이벤트의 상태를 이벤트 id 순으로 반환합니다.
+	 */
+	public List<EventSnapshot> snapshots() {
+		List<EventSnapshot> snapshots = new ArrayList<>();
+		events.values().stream()
+			.sorted(Comparator.comparingLong(meters -> meters.eventId))
+			.forEach(meters -> snapshots.add(snapshot(meters)));
+		return snapshots;
+	}
+
+	/**
+	 * 이벤트의 상태를 반환합니다. 지표를 수집 중이 아닌 이벤트라면 null
+	 */
+	public EventSnapshot snapshot(long eventId) {
+		EventMeters meters = events.get(eventId);
+		return meters == null ? null : snapshot(meters);
+	}
+
+	private EventSnapshot snapshot(EventMeters meters) {
+		double promotionsPerSecond = promotionsPerSecond(meters);
+		Long estimatedWaitSeconds = promotionsPerSecond > 0
+			? (long)Math.ceil(meters.queueLength / promotionsPerSecond) : null;
+		return new EventSnapshot(meters.eventId, meters.queueLength, meters.joinsPerSecond, promotionsPerSecond,
+			estimatedWaitSeconds, meters.entryWindow, meters.entrySlotsAvailable, utilization(meters),
+			connectionRegistry.sizeInEvent(meters.eventId), meters.waitTime.mean(TimeUnit.MILLISECONDS),
+			meters.waitTime.max(TimeUnit.MILLISECONDS), meters.sendLatency.mean(TimeUnit.MILLISECONDS),
+			meters.sendLatency.max(TimeUnit.MILLISECONDS),
+			(long)(meters.sendErrors.count() + meters.sendOverflows.count()), meters.sampledAt);
+	}
+
+	private double promotionsPerSecond(EventMeters meters) {
+		return cursorCache.get(meters.eventId).servedPerSecond();
+	}
+
+	private static double utilization(EventMeters meters) {
+		if (meters.entryWindow <= 0) {
+			return 0;
+		}
+		long inUse = meters.entryWindow - meters.entrySlotsAvailable;
+		return Math.min(1.0, Math.max(0, (double)inUse / meters.entryWindow));
+	}
+
+	private EventMeters eventMeters(long eventId) {
+		return events.computeIfAbsent(eventId, EventMeters::new);
+	}
+
+	private void remove(Long eventId) {
+		EventMeters meters = events.remove(eventId);
+		if (meters != null) {
+			meters.registered.forEach(registry::remove);
+		}
+	}
+
+	private static long parse(List<String> values, int index) {
+		if (values == null || values.get(index) == null) {
+			return 0;
+		}
+		return Long.parseLong(values.get(index));
+	}
+
+	/**
+	 * 이벤트 하나의 지표. gauge는 redis에서 마지막으로 조회한 값을 읽습니다.
+	 */
+	private final class EventMeters {
+		private final long eventId;
+		private final List<Meter> registered = new ArrayList<>();
+
+		private final Counter joins;
+		private final Counter promotions;
+		private final Timer waitTime;
+		private final Timer deliveryTime;
+		private final Timer sendLatency;
+		private final Counter sendErrors;
+		private final Counter sendOverflows;
+
+		private volatile long queueLength;
+		private volatile long entryWindow;
+		private volatile long entrySlotsAvailable;
+		private volatile double joinsPerSecond;
+		private volatile long lastIdx;
+		private volatile long sampledAt;
+
+		private EventMeters(long eventId) {
+			this.eventId = eventId;
+			String tag = String.valueOf(eventId);
+
+			add(Gauge.builder("waiting_queue_length", this, meters -> meters.queueLength)
+				.description("대기 인원")
+				.tag("eventId", tag)
+				.register(registry));
+			add(Gauge.builder("waiting_queue_joins_per_second", this, meters -> meters.joinsPerSecond)
+				.description("전체 인스턴스의 최근 초당 진입 인원")
+				.tag("eventId", tag)
+				.register(registry));
+			add(Gauge.builder("waiting_queue_promotions_per_second", this, WaitingRoomMetrics.this::promotionsPerSecond)
+				.description("전체 인스턴스의 최근 초당 승급 인원")
+				.tag("eventId", tag)
+				.register(registry));
+			add(Gauge.builder("entry_slots_available", this, meters -> meters.entrySlotsAvailable)
+				.description("남은 입장 자리")
+				.tag("eventId", tag)
+				.register(registry));
+			add(Gauge.builder("entry_slot_utilization", this, WaitingRoomMetrics::utilization)
+				.description("입장 window 중 사용 중인 자리의 비율")
+				.tag("eventId", tag)
+				.register(registry));
+			add(Gauge.builder("sse_connections_event", connectionRegistry,
+					connections -> connections.sizeInEvent(eventId))
+				.description("이 인스턴스에 연결된 이벤트의 sse 커넥션 수")
+				.tag("eventId", tag)
+				.register(registry));
+
+			this.joins = add(Counter.builder("waiting_queue_joins")
+				.description("이 인스턴스에서 대기열에 진입한 유저 수")
+				.tag("eventId", tag)
+				.register(registry));
+			this.promotions = add(Counter.builder("waiting_queue_promotions")
+				.description("이 인스턴스가 처리한 승급 메시지 수")
+				.tag("eventId", tag)
+				.register(registry));
+			this.waitTime = add(Timer.builder("waiting_queue_wait")
+				.description("대기열 진입부터 승급까지 걸린 시간")
+				.tag("eventId", tag)
+				.publishPercentileHistogram()
+				.register(registry));
+			this.deliveryTime = add(Timer.builder("entry_delivery_latency")
+				.description("승급되어 대기열에서 빠진 시점부터 DISPATCH 메시지 ack까지 걸린 시간")
+				.tag("eventId", tag)
+				.publishPercentileHistogram()
+				.register(registry));
+			this.sendLatency = add(Timer.builder("sse_send_latency")
+				.description("sse 메시지 한 건을 쓰는 데 걸린 시간")
+				.tag("eventId", tag)
+				.publishPercentileHistogram()
+				.register(registry));
+			this.sendErrors = add(Counter.builder("sse_send_failures")
+				.description("전송에 실패해 종료된 sse 커넥션 수")
+				.tag("eventId", tag)
+				.tag("reason", "error")
+				.register(registry));
+			this.sendOverflows = add(Counter.builder("sse_send_failures")
+				.description("전송에 실패해 종료된 sse 커넥션 수")
+				.tag("eventId", tag)
+				.tag("reason", "overflow")
+				.register(registry));
+		}
+
+		private <M extends Meter> M add(M meter) {
+			registered.add(meter);
+			return meter;
+		}
+	}
+}
@@ -0,0 +1,222 @@
+package org.codeNbug.queueserver.waitingqueue.registry;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * long 키를 boxing 없이 저장하는 동시성 map
+ * <p>
+ * 키를 여러 stripe로 나누고, 각 stripe는 {@code long[]} 키 배열과 값 배열로 이루어진 open addressing(linear probing) 테이블입니다.
+ * 항목마다 {@code Long} 키 객체와 노드 객체를 만드는 {@link java.util.concurrent.ConcurrentHashMap}과 달리
+ * 항목 하나에 배열 칸 두 개만 사용하므로, 수십만 개의 커넥션을 보관할 때의 heap 사용량과 GC 부담이 작습니다.
+ * 같은 stripe의 쓰기와 읽기는 stripe 단위 lock으로 직렬화됩니다.
+ * </p>
+ * {@link Long#MIN_VALUE}는 빈 칸 표시로 사용하므로 키로 사용할 수 없습니다.
+ *
+ * @param <V> 값의 타입
+ */
+public class ConcurrentLongMap<V> {
+
+	private static final long EMPTY = Long.MIN_VALUE;
+	private static final int STRIPE_COUNT = 64;
+	private static final int INITIAL_STRIPE_CAPACITY = 16;
+	private static final float LOAD_FACTOR = 0.6f;
+
+	private final Stripe<V>[] stripes;
+
+	@SuppressWarnings("unchecked")
+	public ConcurrentLongMap() {
+		stripes = new Stripe[STRIPE_COUNT];
+		for (int i = 0; i < STRIPE_COUNT; i++) {
+			stripes[i] = new Stripe<>();
+		}
+	}
+
+	/**
+	 * @return 이전에 저장되어 있던 값. 없었다면 null
+	 */
+	public V put(long key, V value) {
+		checkKey(key);
+		long hash = mix(key);
+		return stripeOf(hash).put(key, hash, value);
+	}
+
+	public V get(long key) {
+		checkKey(key);
+		long hash = mix(key);
+		return stripeOf(hash).get(key, hash);
+	}
+
+	/**
+	 * 키에 저장된 값이 {@code expected}와 같은 객체일 때만 삭제합니다.
+	 *
+	 * @return 삭제했다면 true
+	 */
+	public boolean remove(long key, V expected) {
+		checkKey(key);
+		long hash = mix(key);
+		return stripeOf(hash).remove(key, hash, expected);
+	}
+
+	public int size() {
+		int size = 0;
+		for (Stripe<V> stripe : stripes) {
+			size += stripe.size;
+		}
+		return size;
+	}
+
+	public boolean isEmpty() {
+		return size() == 0;
+	}
+
+	/**
+	 * 모든 값에 대해 {@code action}을 수행합니다.
+	 * stripe마다 값을 복사한 뒤 lock 밖에서 수행하므로 {@code action} 안에서 이 map을 변경해도 됩니다.
+	 */
+	public void forEachValue(Consumer<? super V> action) {
+		List<V> snapshot = new ArrayList<>();
+		for (Stripe<V> stripe : stripes) {
+			snapshot.clear();
+			stripe.copyValuesTo(snapshot);
+			snapshot.forEach(action);
+		}
+	}
+
+	private Stripe<V> stripeOf(long hash) {
+		return stripes[(int)(hash >>> 58) & (STRIPE_COUNT - 1)];
+	}
+
+	private static void checkKey(long key) {
+		if (key == EMPTY) {
+			throw new IllegalArgumentException("사용할 수 없는 키입니다: " + key);
+		}
+	}
+
+	// murmur3 finalizer. 연속된 id가 같은 칸에 몰리지 않도록 섞음
+	// 테스트에서 같은 stripe의 같은 칸으로 향하는 키를 고를 수 있도록 package-private
+	static long mix(long key) {
+		long h = key;
+		h ^= h >>> 33;
+		h *= 0xff51afd7ed558ccdL;
+		h ^= h >>> 33;
+		h *= 0xc4ceb9fe1a85ec53L;
+		h ^= h >>> 33;
+		return h;
+	}
+
+	private static final class Stripe<V> {
+		private long[] keys;
+		private Object[] values;
+		private volatile int size;
+
+		Stripe() {
+			keys = new long[INITIAL_STRIPE_CAPACITY];
+			Arrays.fill(keys, EMPTY);
+			values = new Object[INITIAL_STRIPE_CAPACITY];
+		}
+
+		@SuppressWarnings("unchecked")
+		synchronized V get(long key, long hash) {
+			int mask = keys.length - 1;
+			for (int i = (int)hash & mask; keys[i] != EMPTY; i = (i + 1) & mask) {
+				if (keys[i] == key) {
+					return (V)values[i];
+				}
+			}
+			return null;
+		}
+
+		@SuppressWarnings("unchecked")
+		synchronized V put(long key, long hash, V value) {
+			int mask = keys.length - 1;
+			int i = (int)hash & mask;
+			for (; keys[i] != EMPTY; i = (i + 1) & mask) {
+				if (keys[i] == key) {
+					V previous = (V)values[i];
+					values[i] = value;
+					return previous;
+				}
+			}
+			keys[i] = key;
+			values[i] = value;
+			size++;
+			if (size > keys.length * LOAD_FACTOR) {
+				resize();
+			}
+			return null;
+		}
+
+		synchronized boolean remove(long key, long hash, V expected) {
+			int mask = keys.length - 1;
+			for (int i = (int)hash & mask; keys[i] != EMPTY; i = (i + 1) & mask) {
+				if (keys[i] == key) {
+					if (values[i] != expected) {
+						return false;
+					}
+					deleteAt(i);
+					size--;
+					return true;
+				}
+			}
+			return false;
+		}
+
+		synchronized void copyValuesTo(List<V> target) {
+			for (int i = 0; i < keys.length; i++) {
+				if (keys[i] != EMPTY) {
+					@SuppressWarnings("unchecked")
+					V value = (V)values[i];
+					target.add(value);
+				}
+			}
+		}
+
+		/**
+		 * 삭제한 칸 뒤에 이어진 항목들을 앞으로 당겨 tombstone 없이 probing 순서를 유지합니다.
+		 */
+		private void deleteAt(int slot) {
+			int mask = keys.length - 1;
+			int hole = slot;
+			int i = slot;
+			while (true) {
+				i = (i + 1) & mask;
+				if (keys[i] == EMPTY) {
+					break;
+				}
+				int home = (int)mix(keys[i]) & mask;
+				// home이 (hole, i] 구간 밖에 있는 항목만 hole로 옮길 수 있음
+				boolean movable = hole <= i ? (home <= hole || home > i) : (home <= hole && home > i);
+				if (movable) {
+					keys[hole] = keys[i];
+					values[hole] = values[i];
+					hole = i;
+				}
+			}
+			keys[hole] = EMPTY;
+			values[hole] = null;
+		}
+
+		private void resize() {
+			long[] oldKeys = keys;
+			Object[] oldValues = values;
+			keys = new long[oldKeys.length * 2];
+			Arrays.fill(keys, EMPTY);
+			values = new Object[oldValues.length * 2];
+			int mask = keys.length - 1;
+			for (int j = 0; j < oldKeys.length; j++) {
+				if (oldKeys[j] == EMPTY) {
+					continue;
+				}
+				int i = (int)mix(oldKeys[j]) & mask;
+				while (keys[i] != EMPTY) {
+					i = (i + 1) & mask;
+				}
+				keys[i] = oldKeys[j];
+				values[i] = oldValues[j];
+			}
+		}
+	}
+}
@@ -0,0 +1,148 @@
+package org.codeNbug.queueserver.waitingqueue.registry;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import org.codeNbug.queueserver.waitingqueue.entity.SseConnection;
+import org.springframework.stereotype.Component;
+
+/**
+ * 이 인스턴스에 연결된 sse 커넥션을 보관하는 registry
+ * <p>
+ * 유저 id로 찾는 전체 map과, 순번 전송처럼 이벤트 단위로 순회하기 위한 이벤트별 map을 함께 관리합니다.
+ * 두 map 모두 {@link ConcurrentLongMap}이므로 커넥션마다 boxing된 키나 노드 객체를 만들지 않습니다.
+ * 이벤트별 map의 키(이벤트 id)는 이벤트 수만큼만 존재하므로 일반 map을 사용합니다.
+ * 이벤트별 map은 마지막 커넥션이 삭제되면 함께 제거되므로, 지나간 이벤트의 map이 프로세스가 끝날 때까지 남지 않습니다.
+ * </p>
+ */
+@Component
+public class ConnectionRegistry {
+
+	private final ConcurrentLongMap<SseConnection> byUser = new ConcurrentLongMap<>();
+	private final Map<Long, EventConnections> byEvent = new ConcurrentHashMap<>();
+
+	public SseConnection get(long userId) {
+		return byUser.get(userId);
+	}
+
+	/**
+	 * 커넥션을 등록합니다. 같은 유저의 이전 커넥션이 있다면 교체합니다.
+	 *
+	 * @return 교체된 이전 커넥션. 없었다면 null
+	 */
+	public SseConnection put(SseConnection connection) {
+		SseConnection previous = byUser.put(connection.getUserId(), connection);
+		addToEvent(connection);
+		if (previous != null) {
+			removeFromEvent(previous);
+		}
+		return previous;
+	}
+
+	/**
+	 * 등록된 커넥션이 {@code connection}일 때만 삭제합니다.
+	 *
+	 * @return 삭제했다면 true. 이미 다른 커넥션으로 교체되었다면 false
+	 */
+	public boolean remove(SseConnection connection) {
+		if (!byUser.remove(connection.getUserId(), connection)) {
+			return false;
+		}
+		removeFromEvent(connection);
+		return true;
+	}
+
+	public int size() {
+		return byUser.size();
+	}
+
+	/**
+	 * 이벤트에 연결된 커넥션 수를 반환합니다.
+	 */
+	public int sizeInEvent(long eventId) {
+		EventConnections eventConnections = byEvent.get(eventId);
+		return eventConnections == null ? 0 : eventConnections.connections.size();
+	}
+
+	// 커넥션이 남아있는 이벤트 수. 비워진 이벤트의 map이 제거되는지 테스트에서 확인할 때 사용
+	int eventCount() {
+		return byEvent.size();
+	}
+
+	public void forEach(Consumer<SseConnection> action) {
+		byUser.forEachValue(action);
+	}
+
+	/**
+	 * 이벤트에 연결된 커넥션마다 {@code action}을 수행합니다.
+	 */
+	public void forEachInEvent(long eventId, Consumer<SseConnection> action) {
+		EventConnections eventConnections = byEvent.get(eventId);
+		if (eventConnections != null) {
+			eventConnections.connections.forEachValue(action);
+		}
+	}
+
+	private void addToEvent(SseConnection connection) {
+		long eventId = connection.getEventId();
+		while (true) {
+			EventConnections eventConnections = byEvent.computeIfAbsent(eventId, id -> new EventConnections());
+			if (!eventConnections.reserve()) {
+				// 마지막 커넥션이 삭제되어 제거되는 중인 map이라면 새 map을 만들어 다시 시도
+				byEvent.remove(eventId, eventConnections);
+				continue;
+			}
+			if (eventConnections.connections.put(connection.getUserId(), connection) != null) {
+				// 같은 유저의 커넥션을 교체했다면 커넥션 수는 그대로
+				eventConnections.release();
+			}
+			return;
+		}
+	}
+
+	private void removeFromEvent(SseConnection connection) {
+		long eventId = connection.getEventId();
+		EventConnections eventConnections = byEvent.get(eventId);
+		if (eventConnections != null && eventConnections.connections.remove(connection.getUserId(), connection)
+			&& eventConnections.release()) {
+			byEvent.remove(eventId, eventConnections);
+		}
+	}
+
+	/**
+	 * 이벤트 하나의 커넥션과 커넥션 수
+	 * <p>
+	 * 커넥션 수는 map에 넣기 전에 늘리고 map에서 뺀 뒤에 줄입니다. 0이 된 map은 -1로 표시해 더 이상 커넥션을 받지 않으므로,
+	 * 제거와 동시에 추가된 커넥션이 registry에서 빠진 map에 들어가지 않습니다.
+	 * </p>
+	 */
+	private static final class EventConnections {
+
+		private final ConcurrentLongMap<SseConnection> connections = new ConcurrentLongMap<>();
+		private final AtomicInteger count = new AtomicInteger();
+
+		/**
+		 * @return 커넥션을 추가할 수 있다면 true. 이미 제거된 map이라면 false
+		 */
+		private boolean reserve() {
+			while (true) {
+				int current = count.get();
+				if (current < 0) {
+					return false;
+				}
+				if (count.compareAndSet(current, current + 1)) {
+					return true;
+				}
+			}
+		}
+
+		/**
+		 * @return 마지막 커넥션이 빠져 map을 제거해야 한다면 true
+		 */
+		private boolean release() {
+			return count.decrementAndGet() == 0 && count.compareAndSet(0, -1);
+		}
+	}
+}
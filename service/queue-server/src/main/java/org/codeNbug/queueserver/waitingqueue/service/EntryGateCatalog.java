@@ -0,0 +1,89 @@
+package org.codeNbug.queueserver.waitingqueue.service;
+
+import static org.codeNbug.queueserver.external.redis.RedisConfig.*;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 행사별 입장 gate 상태를 로컬에 보관하는 카탈로그
+ * <p>
+ * dispatcher의 gate controller가 도착률과 main-server 상태를 보고 결정한 gate 상태를 캐시하고,
+ * 변경 채널로 행사 id가 전달되면 다시 읽습니다. 채널 메시지를 놓치더라도 캐시 유지 시간이 지나면 다시 읽습니다.
+ * gate controller가 진입 요청이 들어오는 행사를 알 수 있도록 진입 시 행사 id를 registry에 주기적으로 등록합니다.
+ * </p>
+ */
+@Slf4j
+@Component
+public class EntryGateCatalog implements MessageListener {
+
+	private final Map<Long, CachedGate> gateCache = new ConcurrentHashMap<>();
+	// 행사별 마지막으로 registry에 등록한 시각
+	private final Map<Long, Long> registeredAt = new ConcurrentHashMap<>();
+	private final StringRedisTemplate redisTemplate;
+
+	@Value("${custom.queue.gate.cache-millis:5000}")
+	private long cacheMillis;
+
+	// 진입마다 SADD하지 않도록 이 간격으로만 registry에 등록. dispatcher의 custom.dispatcher.gate.idle-millis보다 짧아야 함
+	@Value("${custom.queue.gate.register-interval-millis:10000}")
+	private long registerIntervalMillis;
+
+	public EntryGateCatalog(StringRedisTemplate redisTemplate) {
+		this.redisTemplate = redisTemplate;
+	}
+
+	/**
+	 * 행사의 입장 gate가 열려 있는지 확인합니다. gate 상태가 없는 행사는 대기열을 거치도록 닫힌 것으로 봅니다.
+	 */
+	public boolean isOpen(long eventId) {
+		long now = System.currentTimeMillis();
+		CachedGate cached = gateCache.get(eventId);
+		if (cached != null && now - cached.readAt() < cacheMillis) {
+			return cached.open();
+		}
+		boolean open = "OPEN".equals(redisTemplate.opsForValue().get(eventKey(ENTRY_GATE_KEY_NAME, eventId)));
+		gateCache.put(eventId, new CachedGate(open, now));
+		return open;
+	}
+
+	/**
+	 * 진입 요청이 들어온 행사를 gate controller가 순회하는 registry에 등록합니다.
+	 */
+	public void recordArrival(long eventId) {
+		long now = System.currentTimeMillis();
+		Long last = registeredAt.get(eventId);
+		if (last != null && now - last < registerIntervalMillis) {
+			return;
+		}
+		registeredAt.put(eventId, now);
+		redisTemplate.opsForSet().add(ENTRY_GATE_EVENT_REGISTRY_KEY_NAME, String.valueOf(eventId));
+	}
+
+	/**
+	 * gate 변경 메시지를 수신하면 캐시를 비워 다음 진입에서 다시 읽도록 합니다.
+	 */
+	@Override
+	public void onMessage(Message message, byte[] pattern) {
+		String body = new String(message.getBody(), StandardCharsets.UTF_8);
+		try {
+			long eventId = Long.parseLong(body);
+			gateCache.remove(eventId);
+			log.debug("event {} 입장 gate 변경", eventId);
+		} catch (NumberFormatException e) {
+			log.warn("입장 gate 변경 메시지 파싱 실패: {}", body);
+		}
+	}
+
+	private record CachedGate(boolean open, long readAt) {
+	}
+}
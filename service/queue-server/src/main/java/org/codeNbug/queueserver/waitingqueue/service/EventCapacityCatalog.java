@@ -0,0 +1,67 @@
+package org.codeNbug.queueserver.waitingqueue.service;
+
+import static org.codeNbug.queueserver.external.redis.RedisConfig.*;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 행사별 좌석 수를 로컬에 보관하는 카탈로그
+ * <p>
+ * main-server가 행사 등록/수정 시 redis hash에 기록한 좌석 수를 처음 조회할 때 한 번 읽어 캐시하고,
+ * 변경 채널로 행사 id가 전달되면 해당 캐시를 비웁니다. 대기열 진입 경로에서는 메인 서버로 HTTP 요청을 보내지 않습니다.
+ * </p>
+ */
+@Slf4j
+@Component
+public class EventCapacityCatalog implements MessageListener {
+
+	private final Map<Long, Integer> seatCountCache = new ConcurrentHashMap<>();
+	private final StringRedisTemplate redisTemplate;
+
+	public EventCapacityCatalog(StringRedisTemplate redisTemplate) {
+		this.redisTemplate = redisTemplate;
+	}
+
+	/**
+	 * 행사의 총 좌석 수를 조회합니다.
+	 *
+	 * @param eventId 행사의 id
+	 * @return 총 좌석 수
+	 * @throws IllegalArgumentException 좌석 수가 발행되지 않은 행사인 경우
+	 */
+	public int getSeatCount(Long eventId) {
+		Integer cached = seatCountCache.get(eventId);
+		if (cached != null) {
+			return cached;
+		}
+		Object seatCount = redisTemplate.opsForHash().get(EVENT_CAPACITY_KEY_NAME, eventId.toString());
+		if (seatCount == null) {
+			throw new IllegalArgumentException("좌석 정보가 없는 행사입니다. eventId=" + eventId);
+		}
+		int parsed = Integer.parseInt(seatCount.toString());
+		seatCountCache.put(eventId, parsed);
+		return parsed;
+	}
+
+	/**
+	 * 좌석 수 변경 메시지를 수신하면 해당 행사의 캐시를 비워 다음 조회 때 다시 읽도록 합니다.
+	 */
+	@Override
+	public void onMessage(Message message, byte[] pattern) {
+		String body = new String(message.getBody(), StandardCharsets.UTF_8);
+		try {
+			seatCountCache.remove(Long.parseLong(body));
+		} catch (NumberFormatException e) {
+			log.warn("좌석 수 변경 메시지 파싱 실패: {}", body);
+		}
+	}
+}
@@ -0,0 +1,70 @@
+package org.codeNbug.queueserver.waitingqueue.service;
+
+import static org.codeNbug.queueserver.external.redis.RedisConfig.*;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 행사별 매진 여부를 로컬에 보관하는 카탈로그
+ * <p>
+ * main-server가 결제 승인/취소 후 redis hash에 기록한 잔여 좌석 수를 처음 조회할 때 한 번 읽어 캐시하고,
+ * 변경 채널로 행사 id가 전달되면 다시 읽습니다. 대기열 진입과 상태 조회는 로컬 캐시만 확인하므로 매진 확인에 redis를 조회하지 않습니다.
+ * 변경 메시지로 매진을 확인하면 이 인스턴스에서 대기 중인 유저에게 매진을 알리고 연결을 한 번에 종료합니다.
+ * </p>
+ */
+@Slf4j
+@Component
+public class EventInventoryCatalog implements MessageListener {
+
+	private final Map<Long, Boolean> soldOutCache = new ConcurrentHashMap<>();
+	private final StringRedisTemplate redisTemplate;
+	private final SseEmitterService sseEmitterService;
+
+	public EventInventoryCatalog(StringRedisTemplate redisTemplate, SseEmitterService sseEmitterService) {
+		this.redisTemplate = redisTemplate;
+		this.sseEmitterService = sseEmitterService;
+	}
+
+	/**
+	 * 행사가 매진되었는지 확인합니다. 잔여 좌석 수가 아직 발행되지 않은 행사는 매진되지 않은 것으로 봅니다.
+	 */
+	public boolean isSoldOut(long eventId) {
+		Boolean cached = soldOutCache.get(eventId);
+		if (cached != null) {
+			return cached;
+		}
+		Object remaining = redisTemplate.opsForHash().get(EVENT_INVENTORY_KEY_NAME, String.valueOf(eventId));
+		boolean soldOut = remaining != null && Long.parseLong(remaining.toString()) <= 0;
+		soldOutCache.put(eventId, soldOut);
+		return soldOut;
+	}
+
+	/**
+	 * 잔여 좌석 변경 메시지를 수신하면 해당 행사의 매진 여부를 다시 읽고, 매진되었다면 대기 중인 연결을 종료합니다.
+	 */
+	@Override
+	public void onMessage(Message message, byte[] pattern) {
+		String body = new String(message.getBody(), StandardCharsets.UTF_8);
+		long eventId;
+		try {
+			eventId = Long.parseLong(body);
+		} catch (NumberFormatException e) {
+			log.warn("잔여 좌석 변경 메시지 파싱 실패: {}", body);
+			return;
+		}
+		soldOutCache.remove(eventId);
+		if (isSoldOut(eventId)) {
+			int closed = sseEmitterService.closeSoldOut(eventId);
+			log.info("event {} 매진. 대기 중인 연결 {}개 종료", eventId, closed);
+		}
+	}
+}
@@ -0,0 +1,72 @@
+package org.codeNbug.queueserver.waitingqueue.service;
+
+import java.util.Map;
+
+import org.codeNbug.queueserver.waitingqueue.entity.QueueTicket;
+import org.codenbug.common.util.JwtUtil;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 대기열 재연결 티켓을 발급하고 검증한다.
+ * <p>
+ * 티켓은 eventId, userId, idx와 처음 진입한 시각을 담은 서명된 토큰이다. 연결이 끊긴 유저가 유예 시간 안에 티켓을 가지고
+ * 어느 인스턴스로든 다시 연결하면, 대기열에 새로 진입하지 않고 기존 순번을 그대로 이어간다.
+ * </p>
+ */
+@Slf4j
+@Service
+public class QueueTicketService {
+
+	private static final String TICKET_SUBJECT = "queueTicket";
+
+	@Value("${jwt.secret}")
+	private String secret;
+
+	@Value("${custom.queue.resume.ticket-expiration-millis:86400000}")
+	private long ticketExpiration;
+
+	/**
+	 * @param joinedAt 대기열에 처음 진입한 시각(ms). 대기 시간 지표에 사용한다
+	 */
+	public String issue(Long userId, Long eventId, Long idx, long joinedAt) {
+		return JwtUtil.createToken(Map.of("userId", userId, "eventId", eventId, "idx", idx, "joinedAt", joinedAt),
+			secret, TICKET_SUBJECT, ticketExpiration);
+	}
+
+	/**
+	 * 티켓을 검증하고 내용을 반환한다.
+	 *
+	 * @return 서명이 올바르고 만료되지 않은 대기열 티켓이라면 티켓 내용, 그렇지 않다면 null
+	 */
+	public QueueTicket parse(String ticket) {
+		if (ticket == null || ticket.isBlank()) {
+			return null;
+		}
+		try {
+			Claims claims = JwtUtil.parseClaims(ticket, secret);
+			if (!TICKET_SUBJECT.equals(claims.getSubject())) {
+				return null;
+			}
+			long issuedAt = claims.getIssuedAt().getTime();
+			// 진입 시각이 없는 이전 티켓은 발급 시각으로 대신함
+			long joinedAt = claims.get("joinedAt") instanceof Number number ? number.longValue() : issuedAt;
+			return new QueueTicket(toLong(claims.get("userId")), toLong(claims.get("eventId")),
+				toLong(claims.get("idx")), joinedAt, issuedAt);
+		} catch (JwtException | IllegalArgumentException e) {
+			log.debug("유효하지 않은 대기열 티켓: {}", e.getMessage());
+			return null;
+		}
+	}
+
+	private Long toLong(Object value) {
+		if (!(value instanceof Number number)) {
+			throw new IllegalArgumentException("티켓에 필요한 값이 없습니다.");
+		}
+		return number.longValue();
+	}
+}
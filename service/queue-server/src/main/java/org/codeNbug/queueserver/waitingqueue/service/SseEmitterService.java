@@ -3,76 +3,86 @@ package org.codeNbug.queueserver.waitingqueue.service;
 import static org.codeNbug.queueserver.external.redis.RedisConfig.*;
 
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import org.codeNbug.queueserver.entryauth.service.EntryAuthService;
+import org.codeNbug.queueserver.external.redis.EntryLeaseScript;
 import org.codeNbug.queueserver.waitingqueue.entity.SseConnection;
 import org.codeNbug.queueserver.waitingqueue.entity.Status;
+import org.codeNbug.queueserver.waitingqueue.registry.ConnectionRegistry;
+import org.codeNbug.queueserver.waitingqueue.thread.HeartbeatWheel;
+import org.codeNbug.queueserver.waitingqueue.thread.SseOutbox;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
-
 import lombok.extern.slf4j.Slf4j;
 
 @Slf4j
 @Service
 public class SseEmitterService {
 
-	private static final Map<Long, SseConnection> emitterMap = new ConcurrentHashMap<>();
-	private final ObjectMapper objectMapper;
-
-	public Map<Long, SseConnection> getEmitterMap() {
-		return emitterMap;
-	}
+	private final ConnectionRegistry connectionRegistry;
 
 	private final RedisTemplate<String, Object> redisTemplate;
-
-	public SseEmitterService(RedisTemplate<String, Object> redisTemplate, ObjectMapper objectMapper) {
+	private final StringRedisTemplate stringRedisTemplate;
+	private final HeartbeatWheel heartbeatWheel;
+	private final EntryLeaseScript entryLeaseScript;
+	private final EntryAuthService entryAuthService;
+	private final SseOutbox outbox;
+
+	// 연결이 끊긴 유저가 티켓으로 다시 연결하기를 기다리는 시간
+	// 대기 중인 유저는 dispatcher의 custom.dispatcher.presence.stale-millis가 지나면 대기열에서 제거된다
+	@Value("${custom.queue.resume.grace-millis:30000}")
+	private long graceMillis;
+
+	public SseEmitterService(RedisTemplate<String, Object> redisTemplate, StringRedisTemplate stringRedisTemplate,
+		HeartbeatWheel heartbeatWheel, EntryLeaseScript entryLeaseScript, EntryAuthService entryAuthService,
+		SseOutbox outbox, ConnectionRegistry connectionRegistry) {
 		this.redisTemplate = redisTemplate;
-		this.objectMapper = objectMapper;
+		this.stringRedisTemplate = stringRedisTemplate;
+		this.heartbeatWheel = heartbeatWheel;
+		this.entryLeaseScript = entryLeaseScript;
+		this.entryAuthService = entryAuthService;
+		this.outbox = outbox;
+		this.connectionRegistry = connectionRegistry;
 	}
 
 	public SseEmitter add(Long userId, Long eventId) {
-		if (emitterMap.containsKey(userId)) {
+		SseConnection previous = connectionRegistry.get(userId);
+		if (previous != null && !previous.isClosed() && previous.getEventId() != eventId) {
 			throw new RuntimeException("다른 대기열에 이미 들어와 있습니다.");
 		}
 		// 새로운 emitter 생성
 		SseEmitter emitter = new SseEmitter(0L);
-		// emitter연결이 끊어질 때 만약 entry상태라면 entry count를 1 증가
+		SseConnection sseConnection = new SseConnection(emitter, Status.IN_ENTRY, userId, eventId);
+
+		// emitter 연결이 끊어지더라도 바로 자리를 정리하지 않고 재연결 유예 시간을 준다
 		emitter.onCompletion(() -> {
 			log.info("emitter completed");
-			// 커넥션 정보 얻기
-			SseConnection sseConnection = emitterMap.get(userId);
-			Status status = sseConnection.getStatus();
+			// heartbeat wheel에서 더 이상 처리하지 않도록 종료 표시
+			sseConnection.close();
+			// 같은 유저가 다시 연결해 새 커넥션으로 교체되었다면 이어받은 커넥션이 상태를 관리하므로 정리하지 않음
+			if (!connectionRegistry.remove(sseConnection)) {
+				return;
+			}
 
 			// 커넥션 정보로부터 이벤트 아이디 얻기
-			String parsedEventId = sseConnection.getEventId().toString();
-
-			// 대기열 탈출 상태에서 커넥션이 종료되었다면
-			// entry_queue_count를 1 감소시킨 것을 다시 증가
-			if (status.equals(Status.IN_PROGRESS)) {
-				redisTemplate.opsForHash()
-					.increment(ENTRY_QUEUE_COUNT_KEY_NAME, parsedEventId, 1);
-				// redisTemplate.opsForHash()
-				// 	.delete(ENTRY_TOKEN_STORAGE_KEY_NAME, userId.toString());
-			} else if (status.equals(Status.IN_ENTRY)) {
-
-				try {
-					redisTemplate.opsForZSet()
-						.remove(WAITING_QUEUE_KEY_NAME + ":" + eventId,
-							objectMapper.writeValueAsString(Map.of(QUEUE_MESSAGE_USER_ID_KEY_NAME, userId)));
-				} catch (JsonProcessingException e) {
-					throw new RuntimeException(e);
-				}
-				redisTemplate.opsForHash()
-					.delete("WAITING_QUEUE_RECORD:" + eventId.toString(), userId.toString());
-				redisTemplate.opsForHash()
-					.delete(WAITING_QUEUE_IN_USER_RECORD_KEY_NAME + ":" + parsedEventId,
-						userId.toString());
+			String parsedEventId = String.valueOf(sseConnection.getEventId());
+
+			if (sseConnection.getStatus().equals(Status.IN_PROGRESS)) {
+				// 대기열 탈출 상태에서 커넥션이 종료되었다면 입장 lease가 유예 시간 뒤에 만료되도록 앞당긴다
+				// 그 사이 다시 연결하거나 main-server에서 활동하면 lease가 연장되고, 아니면 reaper가 자리를 돌려준다
+				entryLeaseScript.expireWithin(sseConnection.getEventId(), userId, graceMillis);
+			} else if (sseConnection.getStatus().equals(Status.IN_ENTRY)) {
+				// 마지막 연결 시각을 지금으로 기록해 유예 시간을 시작한다
+				// 유예 시간 안에 다시 연결하지 않으면 dispatcher의 presence sweeper가 대기열에서 제거한다
+				stringRedisTemplate.opsForZSet()
+					.add(eventKey(WAITING_LAST_SEEN_KEY_NAME, parsedEventId), userId.toString(),
+						System.currentTimeMillis());
 			}
-			emitterMap.remove(userId);
 		});
 		emitter.onError((e) -> {
 			log.info("emitter error");
@@ -81,18 +91,112 @@ public class SseEmitterService {
 			log.info("emitter timeout");
 		});
 
+		// 전역 공간에 emitter 저장. 같은 행사에 대한 이전 연결이 남아있다면 새 연결로 교체한 뒤 이전 연결을 닫음
+		previous = connectionRegistry.put(sseConnection);
+		if (previous != null) {
+			previous.close();
+			previous.getEmitter().complete();
+		}
 		// 초기 메시지 전달
-		try {
-			emitter.send(
+		outbox.send(sseConnection, SseEmitter.event().data("sse 연결 성공. userId:" + userId));
+		// 유휴 상태일 때만 heartbeat를 보내도록 wheel에 등록
+		heartbeatWheel.register(sseConnection);
+
+		return emitter;
+	}
+
+	/**
+	 * 대기열 진입에 실패한 커넥션을 정리합니다.
+	 * 유예 시간 없이 바로 registry에서 제거하고 emitter를 종료합니다.
+	 * 진입 요청이 시간 초과 뒤에 반영되었더라도 이 커넥션은 더 이상 마지막 연결 시각을 갱신하지 않으므로
+	 * dispatcher의 presence sweeper가 대기열에서 제거합니다.
+	 */
+	public void discard(SseConnection sseConnection) {
+		sseConnection.close();
+		connectionRegistry.remove(sseConnection);
+		sseConnection.getEmitter().complete();
+	}
+
+	/**
+	 * 재연결에 사용할 대기열 티켓을 전송합니다.
+	 */
+	public void sendTicket(SseConnection sseConnection, String ticket) {
+		outbox.send(sseConnection,
+			SseEmitter.event()
+				.data(Map.of(
+					"eventId", sseConnection.getEventId(),
+					"userId", sseConnection.getUserId(),
+					"status", sseConnection.getStatus(),
+					"ticket", ticket
+				))
+		);
+	}
+
+	/**
+	 * 커넥션을 대기열 탈출 상태로 바꾸고 입장 토큰을 전송합니다.
+	 * 전송에 실패하면 연결 종료 처리에서 IN_PROGRESS 상태의 lease 만료를 앞당깁니다.
+	 */
+	public void sendEntryToken(SseConnection sseConnection, String token) {
+		sseConnection.setStatus(Status.IN_PROGRESS);
+		outbox.send(sseConnection,
+			SseEmitter.event()
+				.data(Map.of(
+					"eventId", sseConnection.getEventId(),
+					"userId", sseConnection.getUserId(),
+					"status", sseConnection.getStatus(),
+					"token", token
+				))
+		);
+	}
+
+	/**
+	 * 매진된 행사에서 대기 중인 유저에게 매진 메시지를 보낸 뒤 연결을 종료합니다.
+	 * 이미 입장 토큰을 받은 유저는 좌석 선택 중일 수 있으므로 연결을 유지합니다.
+	 *
+	 * @return 종료한 커넥션 수
+	 */
+	public int closeSoldOut(long eventId) {
+		AtomicInteger closed = new AtomicInteger();
+		connectionRegistry.forEachInEvent(eventId, sseConnection -> {
+			if (sseConnection.getStatus() != Status.IN_ENTRY) {
+				return;
+			}
+			// 순번 전송 대상에서 빠지고, 연결 종료 시 마지막 연결 시각을 기록하지 않도록 상태를 먼저 바꿈
+			sseConnection.setStatus(Status.SOLD_OUT);
+			outbox.sendFinal(sseConnection,
 				SseEmitter.event()
-					.data("sse 연결 성공. userId:" + userId));
-		} catch (Exception e) {
-			emitter.complete();
-		}
+					.data(Map.of(
+						"eventId", sseConnection.getEventId(),
+						"userId", sseConnection.getUserId(),
+						"status", Status.SOLD_OUT
+					))
+			);
+			closed.incrementAndGet();
+		});
+		return closed.get();
+	}
 
-		// 전역 공간에 emitter 저장
-		emitterMap.put(userId, new SseConnection(emitter, Status.IN_ENTRY, eventId));
+	/**
+	 * 승급된 유저의 입장 토큰을 발급해 저장합니다.
+	 */
+	public String issueEntryToken(Long userId, Long eventId) {
+		String token = entryAuthService.generateEntryAuthToken(Map.of("eventId", eventId, "userId", userId),
+			"entryAuthToken");
+		redisTemplate.opsForHash()
+			.put(eventKey(ENTRY_TOKEN_STORAGE_KEY_NAME, eventId), userId.toString(), token);
+		return token;
+	}
 
-		return emitter;
+	/**
+	 * 연결이 끊긴 사이 승급된 유저의 입장 토큰을 반환합니다.
+	 * 이미 발급된 토큰이 있다면 그대로 사용해, 먼저 전달된 토큰이 덮어써져 무효가 되지 않도록 합니다.
+	 */
+	public String getOrIssueEntryToken(Long userId, Long eventId) {
+		String token = entryAuthService.generateEntryAuthToken(Map.of("eventId", eventId, "userId", userId),
+			"entryAuthToken");
+		String tokenKey = eventKey(ENTRY_TOKEN_STORAGE_KEY_NAME, eventId);
+		redisTemplate.opsForHash().putIfAbsent(tokenKey, userId.toString(), token);
+		Object stored = redisTemplate.opsForHash().get(tokenKey, userId.toString());
+		return stored == null ? token : stored.toString();
 	}
 }
@@ -1,137 +1,171 @@
 package org.codeNbug.queueserver.waitingqueue.service;
 
-import static org.codeNbug.queueserver.external.redis.RedisConfig.*;
-
-import java.io.IOException;
-import java.util.Map;
-
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+
+import org.codeNbug.queueserver.external.redis.EnqueueRequest;
+import org.codeNbug.queueserver.external.redis.EntryAdmitScript;
+import org.codeNbug.queueserver.external.redis.WaitingQueueEnqueueScript;
+import org.codeNbug.queueserver.external.redis.WaitingQueueResumeScript;
+import org.codeNbug.queueserver.global.QueueUnavailableException;
+import org.codeNbug.queueserver.global.SoldOutException;
+import org.codeNbug.queueserver.waitingqueue.entity.QueueTicket;
 import org.codeNbug.queueserver.waitingqueue.entity.SseConnection;
-import org.codenbug.user.domain.user.repository.UserRepository;
+import org.codeNbug.queueserver.waitingqueue.metrics.WaitingRoomMetrics;
+import org.codeNbug.queueserver.waitingqueue.registry.ConnectionRegistry;
+import org.codeNbug.queueserver.waitingqueue.thread.EnqueueBatcher;
 import org.codenbug.user.security.exception.AuthenticationFailedException;
 import org.codenbug.user.security.service.CustomUserDetails;
 import org.codenbug.user.security.service.SnsUserDetails;
-import org.springframework.beans.factory.annotation.Value;
-import org.springframework.data.redis.core.RedisTemplate;
-import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
 import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
-
 @Service
 public class WaitingQueueEntryService {
 
+	private static final long ENQUEUE_TIMEOUT_SECONDS = 5L;
+
 	private final SseEmitterService sseEmitterService;
-	private final RedisTemplate<String, Object> simpleRedisTemplate;
-	private final UserRepository userRepository;
-	private final ObjectMapper objectMapper;
-	private final RedisTemplate<Object, Object> redisTemplate;
-	@Value("${custom.backend.url}")
-	private String url;
-
-	@Value("${custom.instance-id}")
-	private String instanceId;
-
-	public WaitingQueueEntryService(SseEmitterService sseEmitterService,
-		RedisTemplate<String, Object> simpleRedisTemplate, UserRepository userRepository, ObjectMapper objectMapper,
-		RedisTemplate<Object, Object> redisTemplate) {
+	private final EnqueueBatcher enqueueBatcher;
+	private final EventCapacityCatalog eventCapacityCatalog;
+	private final EventInventoryCatalog eventInventoryCatalog;
+	private final QueueTicketService queueTicketService;
+	private final WaitingQueueResumeScript resumeScript;
+	private final ConnectionRegistry connectionRegistry;
+	private final WaitingRoomMetrics metrics;
+	private final EntryGateCatalog entryGateCatalog;
+	private final EntryAdmitScript entryAdmitScript;
+
+	public WaitingQueueEntryService(SseEmitterService sseEmitterService, EnqueueBatcher enqueueBatcher,
+		EventCapacityCatalog eventCapacityCatalog, QueueTicketService queueTicketService,
+		WaitingQueueResumeScript resumeScript, ConnectionRegistry connectionRegistry, WaitingRoomMetrics metrics,
+		EventInventoryCatalog eventInventoryCatalog, EntryGateCatalog entryGateCatalog,
+		EntryAdmitScript entryAdmitScript) {
 		this.sseEmitterService = sseEmitterService;
-		this.simpleRedisTemplate = simpleRedisTemplate;
-		this.userRepository = userRepository;
-		this.objectMapper = objectMapper;
-		this.redisTemplate = redisTemplate;
+		this.enqueueBatcher = enqueueBatcher;
+		this.eventCapacityCatalog = eventCapacityCatalog;
+		this.queueTicketService = queueTicketService;
+		this.resumeScript = resumeScript;
+		this.connectionRegistry = connectionRegistry;
+		this.metrics = metrics;
+		this.eventInventoryCatalog = eventInventoryCatalog;
+		this.entryGateCatalog = entryGateCatalog;
+		this.entryAdmitScript = entryAdmitScript;
 	}
 
-	public SseEmitter entry(Long eventId) throws JsonProcessingException {
+	public SseEmitter entry(Long eventId, String ticket) {
 		// 로그인한 유저 id 조회
 		Long id = getLoggedInUserId();
 
+		// 매진된 행사라면 연결을 만들기 전에 거절
+		if (eventInventoryCatalog.isSoldOut(eventId)) {
+			throw new SoldOutException(eventId);
+		}
+
+		// 총 좌석수 얻기 (로컬 카탈로그에서 조회). 좌석 정보가 없는 행사라면 연결 전에 실패
+		int seatCount = eventCapacityCatalog.getSeatCount(eventId);
+
 		// emitter 생성 및 저장
 		SseEmitter emitter = sseEmitterService.add(id, eventId);
+		SseConnection sseConnection = connectionRegistry.get(id);
+
+		// 유효한 티켓으로 다시 연결했다면 대기열에 새로 진입하지 않고 이전 상태를 이어감
+		QueueTicket queueTicket = queueTicketService.parse(ticket);
+		if (sseConnection != null && queueTicket != null && queueTicket.userId().equals(id)
+			&& queueTicket.eventId().equals(eventId) && resume(sseConnection, queueTicket, ticket)) {
+			return emitter;
+		}
+
+		// 입장 gate가 열려 있고 자리가 남아있다면 대기열을 거치지 않고 바로 입장 토큰 발급
+		entryGateCatalog.recordArrival(eventId);
+		if (sseConnection != null && entryGateCatalog.isOpen(eventId)
+			&& entryAdmitScript.admit(id, eventId, seatCount)) {
+			metrics.recordJoin(eventId);
+			sseEmitterService.sendEntryToken(sseConnection, sseEmitterService.getOrIssueEntryToken(id, eventId));
+			return emitter;
+		}
 
-		// TODO: waiting thread에 유저를 추가하도록 전달
-		enter(id, eventId);
+		Long idx;
+		try {
+			idx = enter(id, eventId, seatCount);
+		} catch (QueueUnavailableException e) {
+			// 응답으로 emitter가 전달되지 않으므로 등록해 둔 커넥션을 직접 정리
+			if (sseConnection != null) {
+				sseEmitterService.discard(sseConnection);
+			} else {
+				emitter.complete();
+			}
+			throw e;
+		}
+		// 이미 승급되어 입장 lease가 있는 유저라면 대기열에 다시 넣지 않고 입장 토큰을 다시 전송
+		if (idx == WaitingQueueEnqueueScript.ADMITTED) {
+			if (sseConnection != null) {
+				sseEmitterService.sendEntryToken(sseConnection, sseEmitterService.getOrIssueEntryToken(id, eventId));
+			}
+			return emitter;
+		}
+		metrics.recordJoin(eventId);
+		// 순번 계산을 위해 할당받은 idx를 커넥션에 기록하고 재연결용 티켓 전달
+		if (sseConnection != null) {
+			long joinedAt = System.currentTimeMillis();
+			sseConnection.setIdx(idx);
+			sseConnection.setJoinedAt(joinedAt);
+			sseEmitterService.sendTicket(sseConnection, queueTicketService.issue(id, eventId, idx, joinedAt));
+		}
 		return emitter;
 	}
 
 	/**
-	 * 사용자를 대기열에 추가한다. redis의 메시지 idx를 가져와 메시지의 idx로 추가하고 1을 증가시킨다.
-	 * 이후 WAITING stream에 메시지를 추가해 사용자를 대기열에 추가한다.
+	 * 티켓의 상태를 이어받습니다.
+	 * 아직 대기 중이라면 기존 idx로 순번 전송을 이어가고, 연결이 끊긴 사이 승급되었다면 입장 토큰을 다시 전송합니다.
 	 *
-	 * @param userId 대기열에 추가할 유저 id
-	 * @param eventId 행사의 id
+	 * @return 이어받았다면 true, 유예 시간이 지나 대기열에 새로 진입해야 한다면 false
 	 */
-	private void enter(Long userId, Long eventId) throws JsonProcessingException {
-
-		Map<Long, SseConnection> emitterMap = sseEmitterService.getEmitterMap();
-		emitterMap.forEach((id, emitterConnection) -> {
-			try {
-				emitterConnection.getEmitter().send(SseEmitter.event()
-					.comment("heartBeat")
-					.build());
-			} catch (IOException e) {
-				System.out.println("error");
-				emitterConnection.getEmitter().complete();
+	private boolean resume(SseConnection sseConnection, QueueTicket queueTicket, String ticket) {
+		switch (resumeScript.resume(queueTicket)) {
+			case WAITING -> {
+				sseConnection.setIdx(queueTicket.idx());
+				sseConnection.setJoinedAt(queueTicket.joinedAt());
+				sseEmitterService.sendTicket(sseConnection, ticket);
+				return true;
+			}
+			case PROMOTED -> {
+				String token = sseEmitterService.getOrIssueEntryToken(queueTicket.userId(), queueTicket.eventId());
+				sseEmitterService.sendEntryToken(sseConnection, token);
+				return true;
+			}
+			default -> {
+				return false;
 			}
-		});
-		// 총 좌석수 얻기
-		RestTemplate restTemplate = new RestTemplate();
-
-		ResponseEntity<String> forEntity = restTemplate.getForEntity(
-			url + "/api/v1/events/" + eventId, String.class);
-
-		int seatCount = objectMapper.readTree(forEntity.getBody())
-			.get("data")
-			.get("information")
-			.get("seatCount")
-			.asInt();
-
-		if (!simpleRedisTemplate.opsForHash().hasKey(ENTRY_QUEUE_COUNT_KEY_NAME, eventId.toString())) {
-			simpleRedisTemplate.opsForHash()
-				.put(ENTRY_QUEUE_COUNT_KEY_NAME, eventId.toString(), seatCount);
 		}
+	}
 
-
-
-
-		// 유저가 대기열에 있었는지 확인하기 위한 hash 값 조회
-		Boolean isEntered = simpleRedisTemplate.opsForHash()
-			.hasKey(WAITING_QUEUE_IN_USER_RECORD_KEY_NAME + ":" + eventId, userId.toString());
-
-		if (isEntered) {
-			return;
+	/**
+	 * 사용자를 대기열에 추가한다. 이미 대기열에 있는 유저라면 기존 idx를 그대로 사용한다.
+	 * 실제 반영은 {@link EnqueueBatcher}가 enqueue 스크립트로 원자적으로 수행한다.
+	 *
+	 * @param userId 대기열에 추가할 유저 id
+	 * @param eventId 행사의 id
+	 * @param seatCount 행사의 총 좌석 수
+	 * @return 유저에게 할당된 대기열 idx. 이미 입장 lease가 있는 유저라면 {@link WaitingQueueEnqueueScript#ADMITTED}
+	 * @throws QueueUnavailableException 제한 시간 안에 반영되지 않았거나 스크립트 실행에 실패한 경우
+	 */
+	private Long enter(Long userId, Long eventId, int seatCount) {
+
+		// 중복 확인, idx 발급, zset 추가, record 저장을 스크립트 한 번으로 처리
+		// 동시에 들어온 다른 진입 요청들과 함께 파이프라인으로 전송된다
+		try {
+			return enqueueBatcher.submit(new EnqueueRequest(userId, eventId, seatCount))
+				.orTimeout(ENQUEUE_TIMEOUT_SECONDS, TimeUnit.SECONDS)
+				.join();
+		} catch (CompletionException e) {
+			throw new QueueUnavailableException(eventId, e.getCause());
 		}
-		// 대기열 큐 idx 추가
-		Long idx = simpleRedisTemplate.opsForHash()
-			.increment(WAITING_QUEUE_IDX_KEY_NAME, eventId.toString(), 1);
-		assert idx != null;
-
-		// { idx , userId}
-		// 로 key가 WAITING:<eventId>인 zset에 저장
-		simpleRedisTemplate.opsForZSet()
-			.add(WAITING_QUEUE_KEY_NAME + ":" + eventId,
-				Map.of(QUEUE_MESSAGE_USER_ID_KEY_NAME, userId.toString()),
-				idx);
-
-		// 나머지 정보를 hash에 저장
-		simpleRedisTemplate.opsForHash()
-			.put("WAITING_QUEUE_RECORD:" + eventId, userId.toString(),
-				Map.of(QUEUE_MESSAGE_USER_ID_KEY_NAME, userId.toString(),
-					QUEUE_MESSAGE_IDX_KEY_NAME, idx.toString(),
-					QUEUE_MESSAGE_EVENT_ID_KEY_NAME, eventId.toString(),
-					QUEUE_MESSAGE_INSTANCE_ID_KEY_NAME, instanceId.toString()
-			));
-		// 유저가 대기열에 있는지 확인하기 위한 hash 값 업데이트
-		simpleRedisTemplate.opsForHash()
-			.put(WAITING_QUEUE_IN_USER_RECORD_KEY_NAME + ":" + eventId, userId.toString(), idx);
-
 	}
 
-	private Long getLoggedInUserId() {
+	static Long getLoggedInUserId() {
 		Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
 
 		if (authentication == null || !authentication.isAuthenticated()) {
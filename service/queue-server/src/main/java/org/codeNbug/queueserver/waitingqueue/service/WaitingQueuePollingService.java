@@ -0,0 +1,199 @@
+package org.codeNbug.queueserver.waitingqueue.service;
+
+import static org.codeNbug.queueserver.external.redis.RedisConfig.*;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.codeNbug.queueserver.external.redis.EnqueueRequest;
+import org.codeNbug.queueserver.external.redis.EntryAdmitScript;
+import org.codeNbug.queueserver.external.redis.WaitingQueueEnqueueScript;
+import org.codeNbug.queueserver.external.redis.WaitingQueueResumeScript;
+import org.codeNbug.queueserver.global.QueueUnavailableException;
+import org.codeNbug.queueserver.global.SoldOutException;
+import org.codeNbug.queueserver.waitingqueue.dto.PollingStatusResponse;
+import org.codeNbug.queueserver.waitingqueue.entity.QueueTicket;
+import org.codeNbug.queueserver.waitingqueue.metrics.WaitingRoomMetrics;
+import org.codeNbug.queueserver.waitingqueue.thread.EnqueueBatcher;
+import org.codeNbug.queueserver.waitingqueue.thread.WaitingCursorCache;
+import org.codenbug.common.queue.QueueWaitModel;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * sse 연결 없이 주기적인 조회로 대기하는 polling 모드의 대기열 서비스
+ * <p>
+ * 진입 시 대기열 티켓을 발급하고, 상태 조회는 티켓과 메모리에 캐싱된 이벤트별 cursor만으로 응답합니다.
+ * 인스턴스에 유저별 상태를 두지 않으므로 어느 인스턴스로 요청이 가더라도 같은 응답을 받습니다.
+ * polling 유저의 승급 메시지는 모든 인스턴스가 함께 읽는 {@code DISPATCH:POLLING} 스트림으로 전달되고,
+ * 마지막 조회 시각은 모아두었다가 {@link org.codeNbug.queueserver.waitingqueue.thread.PresenceReporter}가 한 번에 기록합니다.
+ * </p>
+ */
+@Service
+public class WaitingQueuePollingService {
+
+	private static final long ENQUEUE_TIMEOUT_SECONDS = 5L;
+	// 이 순번 이하의 유저는 가장 짧은 간격으로 조회
+	private static final long FRONT_ORDER = 100L;
+	// 예상 대기 시간 중 이 비율만큼 기다린 뒤 다시 조회
+	private static final double ETA_FRACTION = 0.25;
+	// 조회가 한 번에 몰리지 않도록 간격에 더하는 무작위 비율
+	private static final double JITTER_RATIO = 0.1;
+
+	private final EnqueueBatcher enqueueBatcher;
+	private final EventCapacityCatalog eventCapacityCatalog;
+	private final EventInventoryCatalog eventInventoryCatalog;
+	private final QueueTicketService queueTicketService;
+	private final WaitingQueueResumeScript resumeScript;
+	private final WaitingCursorCache cursorCache;
+	private final SseEmitterService sseEmitterService;
+	private final WaitingRoomMetrics metrics;
+	private final EntryGateCatalog entryGateCatalog;
+	private final EntryAdmitScript entryAdmitScript;
+
+	// 최근 조회한 polling 유저 (userId -> eventId). 마지막 연결 시각으로 한 번에 기록한 뒤 비운다
+	private final Map<Long, Long> recentPollers = new ConcurrentHashMap<>();
+
+	@Value("${custom.queue.polling.min-interval-millis:1000}")
+	private long minIntervalMillis;
+
+	// 대기 유저가 ghost로 제거되지 않도록 dispatcher의 custom.dispatcher.presence.stale-millis보다 충분히 짧게 설정
+	@Value("${custom.queue.polling.max-interval-millis:10000}")
+	private long maxIntervalMillis;
+
+	// 티켓이 발급된 지 이 시간이 지났다면 캐시 대신 redis에서 대기 상태를 확인
+	@Value("${custom.queue.polling.verify-after-millis:15000}")
+	private long verifyAfterMillis;
+
+	public WaitingQueuePollingService(EnqueueBatcher enqueueBatcher, EventCapacityCatalog eventCapacityCatalog,
+		QueueTicketService queueTicketService, WaitingQueueResumeScript resumeScript, WaitingCursorCache cursorCache,
+		SseEmitterService sseEmitterService, WaitingRoomMetrics metrics, EventInventoryCatalog eventInventoryCatalog,
+		EntryGateCatalog entryGateCatalog, EntryAdmitScript entryAdmitScript) {
+		this.enqueueBatcher = enqueueBatcher;
+		this.eventCapacityCatalog = eventCapacityCatalog;
+		this.eventInventoryCatalog = eventInventoryCatalog;
+		this.queueTicketService = queueTicketService;
+		this.resumeScript = resumeScript;
+		this.cursorCache = cursorCache;
+		this.sseEmitterService = sseEmitterService;
+		this.metrics = metrics;
+		this.entryGateCatalog = entryGateCatalog;
+		this.entryAdmitScript = entryAdmitScript;
+	}
+
+	/**
+	 * 로그인한 유저를 polling 모드로 대기열에 추가하고 첫 상태를 반환합니다.
+	 * 이미 대기열에 있는 유저라면 기존 idx를 그대로 사용합니다.
+	 * 입장 gate가 열린 행사이거나 이미 승급된 유저라면 대기열에 추가하지 않고 바로 입장 토큰을 반환합니다.
+	 */
+	public PollingStatusResponse join(Long eventId) {
+		Long userId = WaitingQueueEntryService.getLoggedInUserId();
+		if (eventInventoryCatalog.isSoldOut(eventId)) {
+			throw new SoldOutException(eventId);
+		}
+		int seatCount = eventCapacityCatalog.getSeatCount(eventId);
+
+		// 입장 gate가 열려 있고 자리가 남아있다면 대기열을 거치지 않고 바로 입장 토큰 발급
+		entryGateCatalog.recordArrival(eventId);
+		if (entryGateCatalog.isOpen(eventId) && entryAdmitScript.admit(userId, eventId, seatCount)) {
+			metrics.recordJoin(eventId);
+			return PollingStatusResponse.promoted(sseEmitterService.getOrIssueEntryToken(userId, eventId));
+		}
+
+		Long idx;
+		try {
+			idx = enqueueBatcher.submit(new EnqueueRequest(userId, eventId, seatCount, POLLING_INSTANCE_ID))
+				.orTimeout(ENQUEUE_TIMEOUT_SECONDS, TimeUnit.SECONDS)
+				.join();
+		} catch (CompletionException e) {
+			// 시간 초과 뒤에 반영되었더라도 유저가 상태를 조회하지 않으므로 presence sweeper가 대기열에서 제거한다
+			throw new QueueUnavailableException(eventId, e.getCause());
+		}
+		// 이미 승급되어 입장 lease가 있는 유저라면 대기열에 다시 넣지 않고 입장 토큰 반환
+		if (idx == WaitingQueueEnqueueScript.ADMITTED) {
+			return PollingStatusResponse.promoted(sseEmitterService.getOrIssueEntryToken(userId, eventId));
+		}
+		metrics.recordJoin(eventId);
+		return waiting(userId, eventId, idx, System.currentTimeMillis());
+	}
+
+	/**
+	 * 티켓의 대기 상태를 반환합니다.
+	 * <p>
+	 * 티켓의 idx가 cursor보다 뒤에 있고 최근에 발급된 티켓이라면 캐시만으로 순번을 계산합니다.
+	 * cursor가 티켓의 idx를 지났거나 티켓이 오래되었다면 redis에서 대기 중인지, 승급되었는지, 제거되었는지 확인합니다.
+	 * </p>
+	 */
+	public PollingStatusResponse status(Long eventId, String ticket) {
+		Long userId = WaitingQueueEntryService.getLoggedInUserId();
+		QueueTicket queueTicket = queueTicketService.parse(ticket);
+		if (queueTicket == null || !queueTicket.userId().equals(userId) || !queueTicket.eventId().equals(eventId)) {
+			return PollingStatusResponse.expired();
+		}
+		// 매진된 행사의 대기열은 dispatcher가 비우므로 redis를 조회하지 않고 바로 알림
+		if (eventInventoryCatalog.isSoldOut(eventId)) {
+			return PollingStatusResponse.soldOut();
+		}
+
+		WaitingCursorCache.Snapshot snapshot = cursorCache.get(eventId);
+		boolean recentlyVerified = System.currentTimeMillis() - queueTicket.issuedAt() < verifyAfterMillis;
+		if (queueTicket.idx() > snapshot.cursor() && recentlyVerified) {
+			recentPollers.put(userId, eventId);
+			return waiting(userId, eventId, queueTicket.idx(), queueTicket.joinedAt());
+		}
+
+		return switch (resumeScript.resume(queueTicket, POLLING_INSTANCE_ID)) {
+			case WAITING -> waiting(userId, eventId, queueTicket.idx(), queueTicket.joinedAt());
+			case PROMOTED -> {
+				metrics.recordWait(eventId, queueTicket.joinedAt());
+				yield PollingStatusResponse.promoted(sseEmitterService.getOrIssueEntryToken(userId, eventId));
+			}
+			case EXPIRED -> PollingStatusResponse.expired();
+		};
+	}
+
+	/**
+	 * 최근 조회한 polling 유저를 이벤트별로 묶어 반환하고 비웁니다.
+	 */
+	public Map<Long, Set<Long>> drainRecentPollers() {
+		Map<Long, Set<Long>> byEvent = new HashMap<>();
+		for (Long userId : recentPollers.keySet()) {
+			Long eventId = recentPollers.remove(userId);
+			if (eventId != null) {
+				byEvent.computeIfAbsent(eventId, id -> new HashSet<>()).add(userId);
+			}
+		}
+		return byEvent;
+	}
+
+	private PollingStatusResponse waiting(Long userId, Long eventId, Long idx, long joinedAt) {
+		WaitingCursorCache.Snapshot snapshot = cursorCache.get(eventId);
+		long order = snapshot.orderOf(idx);
+		return PollingStatusResponse.waiting(order, queueTicketService.issue(userId, eventId, idx, joinedAt),
+			pollInterval(order, snapshot.servedPerSecond()));
+	}
+
+	/**
+	 * 다음 조회까지의 간격을 계산합니다.
+	 * 앞쪽 순번은 가장 짧은 간격으로, 그 외에는 예상 대기 시간에 비례한 간격으로 조회하도록 합니다.
+	 */
+	private long pollInterval(long order, double servedPerSecond) {
+		long interval;
+		long etaMillis = QueueWaitModel.estimateWaitMillis(order, servedPerSecond);
+		if (order <= FRONT_ORDER) {
+			interval = minIntervalMillis;
+		} else if (etaMillis < 0) {
+			interval = maxIntervalMillis;
+		} else {
+			interval = Math.min(maxIntervalMillis, Math.max(minIntervalMillis, (long)(etaMillis * ETA_FRACTION)));
+		}
+		long jitter = (long)(interval * JITTER_RATIO * ThreadLocalRandom.current().nextDouble());
+		return Math.min(maxIntervalMillis, interval + jitter);
+	}
+}
@@ -0,0 +1,106 @@
+package org.codeNbug.queueserver.waitingqueue.thread;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+
+import org.codeNbug.queueserver.external.redis.EnqueueRequest;
+import org.codeNbug.queueserver.external.redis.EnqueueResult;
+import org.codeNbug.queueserver.external.redis.WaitingQueueEnqueueScript;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 대기열 진입 요청을 모아 파이프라인으로 한 번에 redis에 반영하는 스레드
+ * <p>
+ * 요청 스레드는 {@link #submit(EnqueueRequest)}로 요청을 넣고 결과를 기다린다.
+ * flush 스레드는 큐에 쌓인 요청을 최대 batch-size만큼 꺼내 한 번의 왕복으로 처리하므로,
+ * 진입이 몰릴수록 한 번에 처리되는 요청 수가 늘어나고 요청이 적을 때는 대기 없이 바로 처리된다.
+ * </p>
+ */
+@Slf4j
+@Component
+public class EnqueueBatcher {
+
+	private final WaitingQueueEnqueueScript enqueueScript;
+	private final BlockingQueue<PendingEnqueue> pending = new LinkedBlockingQueue<>();
+
+	@Value("${custom.queue.enqueue.batch-size:500}")
+	private int batchSize;
+
+	private volatile boolean running;
+	private Thread flushThread;
+
+	public EnqueueBatcher(WaitingQueueEnqueueScript enqueueScript) {
+		this.enqueueScript = enqueueScript;
+	}
+
+	@PostConstruct
+	public void start() {
+		running = true;
+		flushThread = new Thread(this::flushLoop, "enqueue-flusher");
+		flushThread.setDaemon(true);
+		flushThread.start();
+	}
+
+	@PreDestroy
+	public void stop() {
+		running = false;
+		if (flushThread != null) {
+			flushThread.interrupt();
+		}
+	}
+
+	/**
+	 * 대기열 진입 요청을 flush 대기열에 추가한다.
+	 *
+	 * @return 유저에게 할당된 idx로 완료되는 future
+	 */
+	public CompletableFuture<Long> submit(EnqueueRequest request) {
+		CompletableFuture<Long> future = new CompletableFuture<>();
+		pending.add(new PendingEnqueue(request, future));
+		return future;
+	}
+
+	private void flushLoop() {
+		List<PendingEnqueue> batch = new ArrayList<>(batchSize);
+		while (running) {
+			try {
+				batch.add(pending.take());
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				break;
+			}
+			pending.drainTo(batch, batchSize - 1);
+			flush(batch);
+			batch.clear();
+		}
+	}
+
+	private void flush(List<PendingEnqueue> batch) {
+		try {
+			List<EnqueueResult> results = enqueueScript.enqueueAll(batch.stream().map(PendingEnqueue::request).toList());
+			for (int i = 0; i < batch.size(); i++) {
+				EnqueueResult result = results.get(i);
+				if (result.isSuccess()) {
+					batch.get(i).future().complete(result.idx());
+				} else {
+					log.warn("대기열 진입 요청 처리 실패. {}", batch.get(i).request(), result.error());
+					batch.get(i).future().completeExceptionally(result.error());
+				}
+			}
+		} catch (Exception e) {
+			log.error("대기열 진입 요청 {}건 처리 실패", batch.size(), e);
+			batch.forEach(item -> item.future().completeExceptionally(e));
+		}
+	}
+
+	private record PendingEnqueue(EnqueueRequest request, CompletableFuture<Long> future) {
+	}
+}
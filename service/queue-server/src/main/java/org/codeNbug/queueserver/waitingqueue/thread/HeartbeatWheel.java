@@ -0,0 +1,127 @@
+package org.codeNbug.queueserver.waitingqueue.thread;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import org.codeNbug.queueserver.waitingqueue.entity.SseConnection;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * sse 커넥션의 heartbeat를 hashed timing wheel로 관리하는 스레드
+ * <p>
+ * 커넥션은 마지막 전송 시각 + heartbeat 간격에 해당하는 슬롯에 등록되고, wheel은 tick마다 현재 슬롯 하나만 처리합니다.
+ * 그 사이에 순번 정보 등 다른 메시지가 전송되었다면 heartbeat를 보내지 않고 남은 시간만큼 다시 등록합니다.
+ * 따라서 heartbeat는 유휴 상태인 커넥션에만 전송되고, 작업량은 커넥션이 등록된 시점에 따라 여러 tick에 분산됩니다.
+ * </p>
+ */
+@Slf4j
+@Component
+public class HeartbeatWheel {
+
+	@Value("${custom.queue.heartbeat.interval-millis:5000}")
+	private long intervalMillis;
+
+	@Value("${custom.queue.heartbeat.tick-millis:100}")
+	private long tickMillis;
+
+	@Value("${custom.queue.heartbeat.wheel-size:512}")
+	private int wheelSize;
+
+	private final SseOutbox outbox;
+
+	private Queue<Slot>[] wheel;
+	private long startMillis;
+	// 마지막으로 처리한 tick. wheel 스레드에서만 변경된다.
+	private volatile long currentTick;
+
+	public HeartbeatWheel(SseOutbox outbox) {
+		this.outbox = outbox;
+	}
+
+	@PostConstruct
+	@SuppressWarnings("unchecked")
+	void init() {
+		wheel = new Queue[wheelSize];
+		for (int i = 0; i < wheelSize; i++) {
+			wheel[i] = new ConcurrentLinkedQueue<>();
+		}
+		startMillis = System.currentTimeMillis();
+	}
+
+	/**
+	 * 새로 연결된 커넥션을 heartbeat 간격 뒤의 슬롯에 등록합니다.
+	 */
+	public void register(SseConnection connection) {
+		schedule(connection, intervalMillis);
+	}
+
+	private void schedule(SseConnection connection, long delayMillis) {
+		long ticks = Math.max(1L, (delayMillis + tickMillis - 1) / tickMillis);
+		long deadlineTick = currentTick + ticks;
+		wheel[(int)(deadlineTick % wheelSize)].add(new Slot(connection, deadlineTick));
+	}
+
+	/**
+	 * 경과 시간만큼 wheel을 진행시키며 도래한 슬롯을 처리합니다.
+	 * 스케줄링이 지연되어 여러 tick이 밀렸다면 밀린 슬롯을 순서대로 모두 처리합니다.
+	 */
+	@Scheduled(fixedRateString = "${custom.queue.heartbeat.tick-millis:100}")
+	public void advance() {
+		long targetTick = (System.currentTimeMillis() - startMillis) / tickMillis;
+		while (currentTick < targetTick) {
+			currentTick++;
+			expire(currentTick);
+		}
+	}
+
+	private void expire(long tick) {
+		Queue<Slot> bucket = wheel[(int)(tick % wheelSize)];
+		// 처리 중 같은 슬롯에 다시 등록되는 항목이 있으므로 현재 들어있는 항목만 꺼내서 처리
+		Queue<Slot> due = new ArrayDeque<>();
+		for (int i = bucket.size(); i > 0; i--) {
+			Slot slot = bucket.poll();
+			if (slot == null) {
+				break;
+			}
+			due.add(slot);
+		}
+
+		long now = System.currentTimeMillis();
+		for (Slot slot : due) {
+			SseConnection connection = slot.connection();
+			if (connection.isClosed()) {
+				continue;
+			}
+			// 한 바퀴 이상 남은 항목은 그대로 다시 넣음
+			if (slot.deadlineTick() > tick) {
+				bucket.add(slot);
+				continue;
+			}
+			long idle = now - connection.getLastActiveAt();
+			if (idle < intervalMillis) {
+				schedule(connection, intervalMillis - idle);
+				continue;
+			}
+			sendHeartbeat(connection);
+			schedule(connection, intervalMillis);
+		}
+	}
+
+	private void sendHeartbeat(SseConnection connection) {
+		// 아직 전송 중인 메시지가 있다면 heartbeat는 필요 없음
+		if (outbox.hasPending(connection)) {
+			return;
+		}
+		outbox.send(connection, SseEmitter.event().comment("heartBeat"));
+	}
+
+	private record Slot(SseConnection connection, long deadlineTick) {
+	}
+}
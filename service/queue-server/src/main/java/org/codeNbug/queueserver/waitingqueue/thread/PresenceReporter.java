@@ -0,0 +1,104 @@
+package org.codeNbug.queueserver.waitingqueue.thread;
+
+import static org.codeNbug.queueserver.external.redis.RedisConfig.*;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.codeNbug.queueserver.waitingqueue.entity.Status;
+import org.codeNbug.queueserver.waitingqueue.registry.ConnectionRegistry;
+import org.codeNbug.queueserver.waitingqueue.service.WaitingQueuePollingService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.zset.DefaultTuple;
+import org.springframework.data.redis.connection.zset.Tuple;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 이 인스턴스와 연결된 대기 유저의 생존 정보를 redis에 주기적으로 기록하는 스레드
+ * <p>
+ * 1. {@code QUEUE_INSTANCE_ALIVE:{instanceId}} 키를 ttl과 함께 갱신해 인스턴스가 살아있음을 알립니다.
+ * 2. 연결 중인 대기 유저와 최근 조회한 polling 유저의 마지막 연결 시각을 이벤트별 {@code WAITING_LAST_SEEN:{eventId}} zset에 한 번에 기록합니다.
+ * polling 유저의 승급 메시지를 받는 {@code QUEUE_INSTANCE_ALIVE:POLLING} 키는 polling 요청을 받을 수 있는 모든 인스턴스가 함께 갱신합니다.
+ * 인스턴스가 죽어 연결 종료 처리가 실행되지 못하더라도, 갱신이 멈춘 유저는 dispatcher의 sweeper가 대기열에서 제거합니다.
+ * </p>
+ */
+@Slf4j
+@Component
+public class PresenceReporter {
+
+	private final StringRedisTemplate redisTemplate;
+	private final ConnectionRegistry connectionRegistry;
+	private final WaitingQueuePollingService pollingService;
+
+	@Value("${custom.instance-id}")
+	private String instanceId;
+
+	@Value("${custom.queue.presence.instance-ttl-millis:15000}")
+	private long instanceTtlMillis;
+
+	public PresenceReporter(StringRedisTemplate redisTemplate, ConnectionRegistry connectionRegistry,
+		WaitingQueuePollingService pollingService) {
+		this.redisTemplate = redisTemplate;
+		this.connectionRegistry = connectionRegistry;
+		this.pollingService = pollingService;
+	}
+
+	@Scheduled(fixedDelayString = "${custom.queue.presence.interval-millis:5000}")
+	public void report() {
+		try {
+			redisTemplate.opsForValue()
+				.set(QUEUE_INSTANCE_ALIVE_KEY_NAME + ":" + instanceId, String.valueOf(System.currentTimeMillis()),
+					Duration.ofMillis(instanceTtlMillis));
+			redisTemplate.opsForValue()
+				.set(QUEUE_INSTANCE_ALIVE_KEY_NAME + ":" + POLLING_INSTANCE_ID, String.valueOf(System.currentTimeMillis()),
+					Duration.ofMillis(instanceTtlMillis));
+			reportWaitingUsers();
+		} catch (Exception e) {
+			log.warn("presence 기록 실패: {}", e.getMessage());
+		}
+	}
+
+	private void reportWaitingUsers() {
+		double now = System.currentTimeMillis();
+		Map<Long, Set<Tuple>> lastSeenByEvent = new HashMap<>();
+		connectionRegistry.forEach(connection -> {
+			if (connection.getStatus() != Status.IN_ENTRY || connection.isClosed()) {
+				return;
+			}
+			lastSeenByEvent.computeIfAbsent(connection.getEventId(), id -> new HashSet<>())
+				.add(new DefaultTuple(String.valueOf(connection.getUserId()).getBytes(StandardCharsets.UTF_8), now));
+		});
+		pollingService.drainRecentPollers().forEach((eventId, userIds) -> {
+			Set<Tuple> tuples = lastSeenByEvent.computeIfAbsent(eventId, id -> new HashSet<>());
+			userIds.forEach(userId -> tuples.add(new DefaultTuple(userId.toString().getBytes(StandardCharsets.UTF_8), now)));
+		});
+		if (lastSeenByEvent.isEmpty()) {
+			return;
+		}
+
+		// 이벤트마다 ZADD 한 번, 전체는 파이프라인 한 번으로 전송
+		redisTemplate.executePipelined((RedisCallback<Object>)connection -> {
+			lastSeenByEvent.forEach((eventId, tuples) -> connection.zSetCommands()
+				.zAdd(eventKey(WAITING_LAST_SEEN_KEY_NAME, eventId).getBytes(StandardCharsets.UTF_8), tuples));
+			return null;
+		});
+	}
+
+	/**
+	 * 정상 종료 시 생존 키를 바로 지워 ttl을 기다리지 않고 죽은 인스턴스로 처리되도록 합니다.
+	 */
+	@PreDestroy
+	public void leave() {
+		redisTemplate.delete(QUEUE_INSTANCE_ALIVE_KEY_NAME + ":" + instanceId);
+	}
+}
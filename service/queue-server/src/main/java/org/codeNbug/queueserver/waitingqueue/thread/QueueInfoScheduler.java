@@ -2,134 +2,114 @@ package org.codeNbug.queueserver.waitingqueue.thread;
 
 import static org.codeNbug.queueserver.external.redis.RedisConfig.*;
 
-import java.util.List;
+import java.util.HashMap;
 import java.util.Map;
+import java.util.Set;
 
-import org.codeNbug.queueserver.waitingqueue.entity.SseConnection;
-import org.codeNbug.queueserver.waitingqueue.service.SseEmitterService;
+import org.codeNbug.queueserver.waitingqueue.entity.Status;
+import org.codeNbug.queueserver.waitingqueue.registry.ConnectionRegistry;
+import org.codenbug.common.queue.QueueWaitModel;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
-
 import lombok.extern.slf4j.Slf4j;
 
 @Slf4j
 @Component
 public class QueueInfoScheduler {
 
+	// 이 순번 이하의 유저에게는 순번이 바뀔 때마다 전송
+	private static final long ALWAYS_NOTIFY_ORDER = 100L;
+	// 그 외의 유저에게는 마지막 전송 순번 대비 이 비율(%) 이상 변했을 때만 전송
+	private static final long MIN_CHANGE_PERCENT = 1L;
+
 	private final RedisTemplate<String, String> redisTemplate;
-	private final SseEmitterService emitterService;
-	private final ObjectMapper objectMapper;
+	private final ConnectionRegistry connectionRegistry;
+	private final WaitingCursorCache cursorCache;
+	private final SseOutbox outbox;
 
-	public QueueInfoScheduler(RedisTemplate<String, String> redisTemplate, SseEmitterService emitterService,
-		ObjectMapper objectMapper) {
+	public QueueInfoScheduler(RedisTemplate<String, String> redisTemplate, ConnectionRegistry connectionRegistry,
+		WaitingCursorCache cursorCache, SseOutbox outbox) {
 		this.redisTemplate = redisTemplate;
-		this.emitterService = emitterService;
-		this.objectMapper = objectMapper;
+		this.connectionRegistry = connectionRegistry;
+		this.cursorCache = cursorCache;
+		this.outbox = outbox;
 	}
 
 	/**
 	 * 대기열 순번 정보를 유저에게 전송하는 스레드 스케줄링 메서드
 	 * 1초마다 수행됩니다.
+	 * <p>
+	 * 이벤트마다 캐싱된 served cursor(승급이 끝난 마지막 idx)와 cursor 이후의 이탈 기록만 사용하고,
+	 * 각 유저의 순번은 자신의 idx로부터 로컬에서 계산합니다. 따라서 한 tick의 비용은 대기열 전체 길이가 아니라
+	 * 이 인스턴스에 연결된 유저 수에 비례하고, 커넥션은 registry의 이벤트별 map에서 바로 순회합니다.
+	 * </p>
 	 */
 	@Scheduled(cron = "* * * * * *")
 	public void run() {
 
-		// emitter map 가져옵니다
-		Map<Long, SseConnection> emitterMap = emitterService.getEmitterMap();
+		if (connectionRegistry.size() == 0) {
+			return;
+		}
 
-		// redis waiting queue의 모든 요소를 가져옵니다
-		redisTemplate.keys(WAITING_QUEUE_KEY_NAME + ":*").forEach(key -> {
-			try {
-				doPrintInfo(emitterMap, key);
-			} catch (JsonProcessingException e) {
-				throw new RuntimeException(e);
-			}
-		});
+		// 대기 인원이 남아있는 이벤트마다 이 인스턴스에 연결된 유저에게 순번을 전송합니다
+		Set<String> activeEventIds = redisTemplate.opsForSet().members(WAITING_EVENT_REGISTRY_KEY_NAME);
+		if (activeEventIds == null) {
+			return;
+		}
+		activeEventIds.forEach(rawEventId -> doPrintInfo(Long.parseLong(rawEventId)));
 
 	}
 
-	private void doPrintInfo(Map<Long, SseConnection> emitterMap, String key) throws JsonProcessingException {
-		// eventId에 해당하는 모든 stream 가져오기
-		List<Object> waitingList = redisTemplate.opsForZSet()
-			.range(key, 0, -1).stream().map(
-				item -> {
-					try {
-						return redisTemplate.opsForHash()
-							.get("WAITING_QUEUE_RECORD:" + key.split(":")[1].toString(),
-								objectMapper.readTree(item.toString()).get("userId").asText());
-					} catch (JsonProcessingException e) {
-						throw new RuntimeException(e);
-					}
-				}
-			).toList();
-
-		if (waitingList == null || waitingList.isEmpty()) {
-			return;
-		}
-		// 대기열 큐에 있는 모든 유저들에게 대기열 순번과 userId, eventId를 전송합니다.
-		for (Object record : waitingList) {
-			// 대기열 큐 메시지로부터 데이터를 파싱합니다.
-			Long userId = Long.parseLong(
-				objectMapper.readTree(record.toString())
-					.get(QUEUE_MESSAGE_USER_ID_KEY_NAME)
-					.toString()
-					.replaceAll("\"", ""));
-			Long eventId = Long.parseLong(
-				objectMapper.readTree(record.toString())
-					.get(QUEUE_MESSAGE_EVENT_ID_KEY_NAME)
-					.toString()
-					.replaceAll("\"", ""));
-			Long idx = Long.parseLong(
-				objectMapper.readTree(record.toString())
-					.get(QUEUE_MESSAGE_IDX_KEY_NAME)
-					.toString()
-					.replaceAll("\"", ""));
-
-			if (!emitterMap.containsKey(userId)) {
-				log.debug("user %d가 연결이 끊어진 상태입니다.".formatted(userId));
-				continue;
+	private void doPrintInfo(long eventId) {
+		// 이벤트의 served cursor와 이탈 기록은 캐시에서 조회
+		WaitingCursorCache.Snapshot snapshot = cursorCache.get(eventId);
+
+		connectionRegistry.forEachInEvent(eventId, sseConnection -> {
+			// 아직 idx를 할당받지 못했거나 이미 대기열을 벗어난 커넥션은 제외
+			if (sseConnection.getStatus() != Status.IN_ENTRY || !sseConnection.hasIdx()) {
+				return;
 			}
+			long order = snapshot.orderOf(sseConnection.getIdx());
 
-			// 파싱한 userId로 sse 연결 객체를 가져옵니다.
-			SseConnection sseConnection = emitterMap.get(userId);
-			SseEmitter emitter = sseConnection.getEmitter();
-			// 대기열 순번을 계산하고 sse 메시지를 전송합니다.
-			try {
-				emitter.send(
-					SseEmitter.event()
-						.data(Map.of("status", sseConnection.getStatus(), QUEUE_MESSAGE_USER_ID_KEY_NAME, userId,
-							QUEUE_MESSAGE_EVENT_ID_KEY_NAME, eventId, "order",
-							redisTemplate.opsForZSet()
-								.rank(WAITING_QUEUE_KEY_NAME + ":" + eventId,
-									"{\"userId\":\"%s\"}".formatted(userId))
-								+ 1))
-				);
-			} catch (Exception e) {
-				emitter.complete();
-				log.debug("user %d가 연결이 끊어진 상태입니다.".formatted(userId));
+			if (!isMeaningfulChange(sseConnection.getLastSentOrder(), order)) {
+				return;
 			}
-		}
-	}
 
-	@Scheduled(cron = "*/5 * * * * *")
-	public void heartBeat() {
-		Map<Long, SseConnection> emitterMap = emitterService.getEmitterMap();
-		for (SseConnection conn : emitterMap.values()) {
-			SseEmitter emitter = conn.getEmitter();
-			try {
-				emitter.send(
-					SseEmitter.event()
-						.comment("heartBeat")
-				);
-			} catch (Exception e) {
-				emitter.complete();
+			Map<String, Object> position = new HashMap<>();
+			position.put("status", sseConnection.getStatus());
+			position.put(QUEUE_MESSAGE_USER_ID_KEY_NAME, sseConnection.getUserId());
+			position.put(QUEUE_MESSAGE_EVENT_ID_KEY_NAME, eventId);
+			position.put("order", order);
+			// 최근 입장 속도로 추정한 예상 대기 시간. 아직 입장 속도를 알 수 없다면 보내지 않음
+			long etaMillis = QueueWaitModel.estimateWaitMillis(order, snapshot.servedPerSecond());
+			if (etaMillis >= 0) {
+				position.put("etaSeconds", etaMillis / 1000);
 			}
+
+			// 전송은 outbox가 맡으며, 클라이언트가 느리면 아직 보내지 못한 이전 순번을 이 순번으로 교체
+			outbox.sendPosition(sseConnection, SseEmitter.event().data(position));
+			sseConnection.setLastSentOrder(order);
+		});
+	}
+
+	/**
+	 * 마지막으로 전송한 순번과 비교해 다시 전송할 만큼 변했는지 판단합니다.
+	 * 앞쪽 순번은 매번, 뒤쪽 순번은 일정 비율 이상 변했을 때만 전송합니다.
+	 */
+	private boolean isMeaningfulChange(long lastSentOrder, long order) {
+		if (lastSentOrder == 0) {
+			return true;
+		}
+		if (lastSentOrder == order) {
+			return false;
+		}
+		if (order <= ALWAYS_NOTIFY_ORDER || order > lastSentOrder) {
+			return true;
 		}
+		return lastSentOrder - order >= Math.max(1L, lastSentOrder * MIN_CHANGE_PERCENT / 100);
 	}
 }
 
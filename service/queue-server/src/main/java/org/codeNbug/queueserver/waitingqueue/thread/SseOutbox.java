@@ -0,0 +1,120 @@
+package org.codeNbug.queueserver.waitingqueue.thread;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.codeNbug.queueserver.waitingqueue.entity.SseConnection;
+import org.codeNbug.queueserver.waitingqueue.metrics.WaitingRoomMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * sse 메시지를 커넥션별 전송 대기열에 넣고 별도의 스레드에서 전송합니다.
+ * <p>
+ * 스케줄러와 stream listener 스레드는 메시지를 넣기만 하고 바로 돌아가므로, 느린 클라이언트 하나가
+ * 다른 유저의 전송을 막지 않습니다. 전송은 커넥션마다 한 번에 하나의 virtual thread가 맡고,
+ * 쓰기가 막히면 그 커넥션의 virtual thread만 대기합니다.
+ * </p>
+ * <ul>
+ *     <li>순번 메시지는 커넥션마다 최신 값 하나만 남기므로, 느린 클라이언트에게는 지난 순번을 건너뛰고 최신 순번만 전송합니다.</li>
+ *     <li>그 외의 메시지는 최대 {@code capacity}개까지 쌓고, 넘치면 클라이언트가 따라오지 못하는 것으로 보고 연결을 종료합니다.
+ *     연결이 끊긴 유저는 대기열 티켓으로 다시 연결해 순번을 이어갈 수 있습니다.</li>
+ *     <li>마지막 메시지는 앞서 쌓인 메시지를 모두 전송한 뒤 보내고, 전송이 끝나면 연결을 종료합니다.</li>
+ * </ul>
+ */
+@Slf4j
+@Component
+public class SseOutbox {
+
+	private final ExecutorService senders = Executors.newVirtualThreadPerTaskExecutor();
+	private final WaitingRoomMetrics metrics;
+
+	@Value("${custom.queue.outbox.capacity:16}")
+	private int capacity;
+
+	public SseOutbox(WaitingRoomMetrics metrics) {
+		this.metrics = metrics;
+	}
+
+	/**
+	 * 메시지를 전송 대기열에 추가합니다.
+	 */
+	public void send(SseConnection connection, SseEmitter.SseEventBuilder event) {
+		if (connection.isClosed()) {
+			return;
+		}
+		if (!connection.enqueue(event, capacity)) {
+			log.debug("user {}의 전송 대기열이 가득 차 연결을 종료합니다.", connection.getUserId());
+			metrics.recordSendFailure(connection.getEventId(), true);
+			connection.getEmitter().complete();
+			return;
+		}
+		schedule(connection);
+	}
+
+	/**
+	 * 마지막 메시지를 전송 대기열에 추가하고, 전송이 끝나면 연결을 종료합니다.
+	 * 이후에 추가되는 순번 메시지는 보내지 않습니다.
+	 */
+	public void sendFinal(SseConnection connection, SseEmitter.SseEventBuilder event) {
+		connection.closeAfterOutbound();
+		send(connection, event);
+	}
+
+	/**
+	 * 순번 메시지를 전송합니다. 아직 전송하지 못한 이전 순번 메시지가 있다면 교체합니다.
+	 */
+	public void sendPosition(SseConnection connection, SseEmitter.SseEventBuilder event) {
+		if (connection.isClosed() || connection.isClosingAfterOutbound()) {
+			return;
+		}
+		connection.conflatePosition(event);
+		schedule(connection);
+	}
+
+	/**
+	 * 전송을 기다리는 메시지가 있는지 확인합니다.
+	 */
+	public boolean hasPending(SseConnection connection) {
+		return connection.hasOutbound();
+	}
+
+	private void schedule(SseConnection connection) {
+		if (connection.startDraining()) {
+			senders.execute(() -> drain(connection));
+		}
+	}
+
+	private void drain(SseConnection connection) {
+		try {
+			SseEmitter.SseEventBuilder event;
+			while (!connection.isClosed() && (event = connection.nextOutbound()) != null) {
+				long start = System.nanoTime();
+				connection.getEmitter().send(event);
+				metrics.recordSend(connection.getEventId(), System.nanoTime() - start);
+				connection.touch();
+			}
+		} catch (Exception e) {
+			log.debug("user {}가 연결이 끊어진 상태입니다.", connection.getUserId());
+			metrics.recordSendFailure(connection.getEventId(), false);
+			connection.getEmitter().complete();
+		} finally {
+			connection.stopDraining();
+			// 전송을 마치는 사이에 추가된 메시지가 있다면 다시 전송
+			if (!connection.isClosed() && connection.hasOutbound()) {
+				schedule(connection);
+			} else if (!connection.isClosed() && connection.isClosingAfterOutbound()) {
+				connection.getEmitter().complete();
+			}
+		}
+	}
+
+	@PreDestroy
+	public void shutdown() {
+		senders.shutdownNow();
+	}
+}
@@ -0,0 +1,114 @@
+package org.codeNbug.queueserver.waitingqueue.thread;
+
+import static org.codeNbug.queueserver.external.redis.RedisConfig.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 이벤트별 served cursor와 cursor 이후의 이탈 idx를 메모리에 캐싱하는 스레드
+ * <p>
+ * 유저의 순번은 자신의 idx와 이 값들만으로 계산할 수 있으므로, sse 순번 전송과 polling 상태 조회는
+ * 유저 수와 관계없이 이벤트마다 한 번씩만 redis를 조회한 결과를 공유합니다.
+ * cursor가 움직인 속도로 초당 입장 인원도 함께 추정합니다.
+ * </p>
+ */
+@Slf4j
+@Component
+public class WaitingCursorCache {
+
+	// 초당 입장 인원 추정치에 새 측정값을 반영하는 비율
+	private static final double RATE_SMOOTHING = 0.3;
+
+	private final StringRedisTemplate redisTemplate;
+	private final Map<Long, Snapshot> snapshots = new ConcurrentHashMap<>();
+
+	public WaitingCursorCache(StringRedisTemplate redisTemplate) {
+		this.redisTemplate = redisTemplate;
+	}
+
+	/**
+	 * 한 시점의 이벤트 대기열 상태
+	 *
+	 * @param cursor 승급이 끝난 마지막 idx
+	 * @param leftIdx cursor 이후에 이탈한 유저의 idx. 오름차순
+	 * @param servedPerSecond 최근 초당 입장 인원 추정치
+	 * @param loadedAt 조회 시각(ms)
+	 */
+	public record Snapshot(long cursor, long[] leftIdx, double servedPerSecond, long loadedAt) {
+
+		/**
+		 * 내 앞에 남아있는 인원 = (내 idx - cursor) - (cursor와 내 idx 사이의 이탈자 수)
+		 */
+		public long orderOf(long idx) {
+			int pos = Arrays.binarySearch(leftIdx, idx);
+			long leftBefore = pos >= 0 ? pos : -(pos + 1);
+			return Math.max(1L, idx - cursor - leftBefore);
+		}
+	}
+
+	@Scheduled(fixedRateString = "${custom.queue.cursor-cache.refresh-millis:500}")
+	public void refresh() {
+		Set<String> activeEventIds = redisTemplate.opsForSet().members(WAITING_EVENT_REGISTRY_KEY_NAME);
+		if (activeEventIds == null) {
+			return;
+		}
+		// 대기 인원이 없어진 이벤트는 캐시에서 제거
+		snapshots.keySet().removeIf(eventId -> !activeEventIds.contains(eventId.toString()));
+
+		List<String> eventIds = new ArrayList<>(activeEventIds);
+		// 행사마다 slot이 다르므로 cluster에서는 slot별 MGET으로 나뉘어 전송된다
+		List<String> cursors = redisTemplate.opsForValue()
+			.multiGet(eventIds.stream().map(eventId -> eventKey(WAITING_QUEUE_START_IDX_KEY, eventId)).toList());
+		for (int i = 0; i < eventIds.size(); i++) {
+			Long eventId = Long.parseLong(eventIds.get(i));
+			String rawCursor = cursors == null ? null : cursors.get(i);
+			try {
+				snapshots.put(eventId, load(eventId, rawCursor == null ? 0L : Long.parseLong(rawCursor)));
+			} catch (Exception e) {
+				log.warn("event {} 대기열 cursor 조회 실패: {}", eventId, e.getMessage());
+			}
+		}
+	}
+
+	/**
+	 * 이벤트의 최근 대기열 상태를 반환합니다. 아직 캐싱되지 않은 이벤트라면 바로 조회합니다.
+	 */
+	public Snapshot get(Long eventId) {
+		return snapshots.computeIfAbsent(eventId, id -> {
+			String rawCursor = redisTemplate.opsForValue().get(eventKey(WAITING_QUEUE_START_IDX_KEY, id));
+			return load(id, rawCursor == null ? 0L : Long.parseLong(rawCursor));
+		});
+	}
+
+	private Snapshot load(Long eventId, long cursor) {
+		// cursor 이전의 이탈 기록은 더 이상 순번에 영향을 주지 않으므로 정리하고, 이후의 이탈 idx만 가져옵니다
+		String leftKey = eventKey(WAITING_QUEUE_LEFT_KEY_NAME, eventId);
+		redisTemplate.opsForZSet().removeRangeByScore(leftKey, Double.NEGATIVE_INFINITY, cursor);
+		long[] leftIdx = redisTemplate.opsForZSet()
+			.rangeByScoreWithScores(leftKey, cursor + 1, Double.POSITIVE_INFINITY)
+			.stream()
+			.mapToLong(tuple -> tuple.getScore().longValue())
+			.sorted()
+			.toArray();
+
+		long now = System.currentTimeMillis();
+		Snapshot previous = snapshots.get(eventId);
+		double servedPerSecond = 0;
+		if (previous != null && now > previous.loadedAt()) {
+			double measured = Math.max(0, cursor - previous.cursor()) * 1000.0 / (now - previous.loadedAt());
+			servedPerSecond = previous.servedPerSecond() * (1 - RATE_SMOOTHING) + measured * RATE_SMOOTHING;
+		}
+		return new Snapshot(cursor, leftIdx, servedPerSecond, now);
+	}
+}
@@ -0,0 +1,59 @@
+-- ==================================================================================
+-- Lua 스크립트: admit_entry_user.lua
+-- KEYS: 모든 키는 같은 행사의 hash tag({eventId})를 가지므로 redis cluster에서도 한 slot에 있다
+--   KEYS[1] = "ENTRY_QUEUE_COUNT:{" .. eventId .. "}"    (예: "ENTRY_QUEUE_COUNT:{42}")
+--   KEYS[2] = "ENTRY_WINDOW:{" .. eventId .. "}"         (예: "ENTRY_WINDOW:{42}")
+--   KEYS[3] = "ENTRY_GATE:{" .. eventId .. "}"           (예: "ENTRY_GATE:{42}")
+--   KEYS[4] = "WAITING:{" .. eventId .. "}"              (예: "WAITING:{42}")
+--   KEYS[5] = "WAITING_USER_ID:{" .. eventId .. "}"      (예: "WAITING_USER_ID:{42}")
+--   KEYS[6] = "ENTRY_LEASES:{" .. eventId .. "}"         (예: "ENTRY_LEASES:{42}")
+--   KEYS[7] = "ENTRY_ADMIT_COUNT:{" .. eventId .. "}"    (예: "ENTRY_ADMIT_COUNT:{42}")
+-- ARGV:
+--   ARGV[1] = userId
+--   ARGV[2] = seatCount
+--   ARGV[3] = initialWindow (entry window 초기값. 좌석 수보다 크면 좌석 수를 사용)
+--   ARGV[4] = 입장 lease의 만료 시각(ms)
+--
+-- 입장 gate가 열려 있으면 대기열을 거치지 않고 바로 입장 자리를 차감하고 입장 lease를 발급한다.
+-- 대기 중인 유저가 있거나 남은 자리가 없다면 앞지르지 않도록 입장시키지 않으며, 호출한 쪽은 대기열에 추가한다.
+-- 이미 입장 lease가 있는 유저라면 자리를 다시 차감하지 않고 입장된 것으로 본다.
+-- 입장시켰다면 1, 대기열로 보내야 한다면 0을 리턴한다.
+-- 입장 lease 행사 registry(ENTRY_LEASE_EVENTS)는 다른 slot에 있으므로 호출한 쪽에서 스크립트 전에 등록한다.
+-- ==================================================================================
+
+local userId     = ARGV[1]
+local seatCount  = tonumber(ARGV[2])
+local initialWindow = math.min(seatCount, tonumber(ARGV[3]))
+local leaseExpiresAt = ARGV[4]
+
+-- 1) entry window와 entry queue count가 없다면 대기열 진입과 같은 초기 window 크기로 초기화
+redis.call("SET", KEYS[2], initialWindow, "NX")
+redis.call("SET", KEYS[1], initialWindow, "NX")
+
+-- 2) gate가 닫혀 있다면 대기열로
+if redis.call("GET", KEYS[3]) ~= "OPEN" then
+    return 0
+end
+
+-- 3) 이미 입장한 유저라면 자리를 다시 쓰지 않음
+if redis.call("ZSCORE", KEYS[6], userId) then
+    return 1
+end
+
+-- 4) 대기 중인 유저가 있다면 순서를 지키기 위해 대기열로. 이 유저가 이미 대기 중인 경우도 포함
+if redis.call("ZCARD", KEYS[4]) > 0 or redis.call("HEXISTS", KEYS[5], userId) == 1 then
+    return 0
+end
+
+-- 5) 남은 자리가 없다면 대기열로
+local available = tonumber(redis.call("GET", KEYS[1]) or "0")
+if (not available) or (available < 1) then
+    return 0
+end
+
+-- 6) 자리를 차감하고 입장 lease 발급. 연장되지 않으면 dispatcher의 reaper가 자리를 회수한다
+redis.call("DECR", KEYS[1])
+redis.call("ZADD", KEYS[6], leaseExpiresAt, userId)
+-- 7) gate controller가 도착률을 계산할 수 있도록 바로 입장한 인원 기록
+redis.call("INCR", KEYS[7])
+return 1
@@ -0,0 +1,65 @@
+-- ==================================================================================
+-- Lua 스크립트: enqueue_waiting_user.lua
+-- KEYS: 모든 키는 같은 행사의 hash tag({eventId})를 가지므로 redis cluster에서도 한 slot에 있다
+--   KEYS[1] = "ENTRY_QUEUE_COUNT:{" .. eventId .. "}"    (예: "ENTRY_QUEUE_COUNT:{42}")
+--   KEYS[2] = "WAITING_USER_ID:{" .. eventId .. "}"      (예: "WAITING_USER_ID:{42}")
+--   KEYS[3] = "WAITING_QUEUE_IDX:{" .. eventId .. "}"    (예: "WAITING_QUEUE_IDX:{42}")
+--   KEYS[4] = "WAITING:{" .. eventId .. "}"              (예: "WAITING:{42}")
+--   KEYS[5] = "WAITING_QUEUE_RECORD:{" .. eventId .. "}" (예: "WAITING_QUEUE_RECORD:{42}")
+--   KEYS[6] = "ENTRY_WINDOW:{" .. eventId .. "}"         (예: "ENTRY_WINDOW:{42}")
+--   KEYS[7] = "WAITING_LAST_SEEN:{" .. eventId .. "}"    (예: "WAITING_LAST_SEEN:{42}")
+--   KEYS[8] = "ENTRY_LEASES:{" .. eventId .. "}"         (예: "ENTRY_LEASES:{42}")
+-- ARGV:
+--   ARGV[1] = userId
+--   ARGV[2] = instanceId
+--   ARGV[3] = seatCount
+--   ARGV[4] = initialWindow (entry window 초기값. 좌석 수보다 크면 좌석 수를 사용)
+--   ARGV[5] = 현재 시각(ms). 유저의 마지막 연결 시각으로 기록
+--
+-- 중복 확인, idx 발급, zset 추가, record 저장을 한 번에 수행하고 유저의 idx를 리턴한다.
+-- waiting zset의 member는 userId 숫자 문자열, score는 idx이다.
+-- record hash는 field가 userId, 값이 instanceId이다. eventId는 키에, idx는 zset score와 WAITING_USER_ID에 있으므로 저장하지 않는다.
+-- 이미 대기열에 있는 유저라면 승급 메시지가 새로 연결한 인스턴스로 오도록 record의 instanceId만 갱신하고 기존 idx를 리턴한다.
+-- 이미 승급되어 입장 lease가 있는 유저라면 대기열에 다시 추가하지 않고 -1을 리턴한다. 다시 승급되면 자리를 한 번 더 차감하기 때문이다.
+-- 대기 행사 registry(WAITING_EVENTS)는 다른 slot에 있으므로 스크립트가 끝난 뒤 호출한 쪽에서 등록한다.
+-- ==================================================================================
+
+local userId     = ARGV[1]
+local instanceId = ARGV[2]
+local seatCount  = tonumber(ARGV[3])
+local initialWindow = math.min(seatCount, tonumber(ARGV[4]))
+local now        = ARGV[5]
+
+-- 1) entry window와 entry queue count가 없다면 초기 window 크기로 초기화
+--    이후 window 크기는 message-dispatcher의 window controller가 처리량에 따라 조절한다
+redis.call("SET", KEYS[6], initialWindow, "NX")
+redis.call("SET", KEYS[1], initialWindow, "NX")
+
+-- 2) 이미 입장한 유저라면 대기열에 추가하지 않음
+if redis.call("ZSCORE", KEYS[8], userId) then
+    return -1
+end
+
+-- 3) 마지막 연결 시각 기록. 갱신되지 않으면 sweeper가 대기열에서 제거한다
+redis.call("ZADD", KEYS[7], now, userId)
+
+-- 4) 이미 대기열에 들어와 있는 유저라면 record의 인스턴스를 갱신하고 기존 idx 리턴
+local enteredIdx = redis.call("HGET", KEYS[2], userId)
+if enteredIdx then
+    redis.call("HSET", KEYS[5], userId, instanceId)
+    return tonumber(enteredIdx)
+end
+
+-- 5) 대기열 idx 발급
+local idx = redis.call("INCR", KEYS[3])
+
+-- 6) { idx, userId } 로 waiting zset에 추가
+redis.call("ZADD", KEYS[4], idx, userId)
+
+-- 7) 유저가 연결된 instanceId를 record hash에 저장
+redis.call("HSET", KEYS[5], userId, instanceId)
+
+-- 8) 유저가 대기열에 있는지 확인하기 위한 hash 값 업데이트
+redis.call("HSET", KEYS[2], userId, idx)
+
+return idx
@@ -0,0 +1,41 @@
+-- ==================================================================================
+-- Lua 스크립트: resume_waiting_user.lua
+-- KEYS: 모든 키는 티켓에 담긴 행사의 hash tag({eventId})를 가진다
+--   KEYS[1] = "WAITING_USER_ID:{" .. eventId .. "}"      (예: "WAITING_USER_ID:{42}")
+--   KEYS[2] = "WAITING_QUEUE_RECORD:{" .. eventId .. "}" (예: "WAITING_QUEUE_RECORD:{42}")
+--   KEYS[3] = "WAITING_LAST_SEEN:{" .. eventId .. "}"    (예: "WAITING_LAST_SEEN:{42}")
+--   KEYS[4] = "ENTRY_LEASES:{" .. eventId .. "}"         (예: "ENTRY_LEASES:{42}")
+-- ARGV:
+--   ARGV[1] = userId
+--   ARGV[2] = idx (티켓에 담긴 idx)
+--   ARGV[3] = instanceId (다시 연결한 인스턴스)
+--   ARGV[4] = 현재 시각(ms)
+--   ARGV[5] = 입장 lease 만료 시각(ms). 이미 승급된 유저의 lease를 이 시각까지 연장
+--
+-- 티켓으로 다시 연결한 유저가 이전 상태를 이어갈 수 있는지 확인한다.
+-- 아직 같은 idx로 대기 중이라면 승급 메시지가 새 인스턴스로 오도록 record를 갱신하고 1을,
+-- 연결이 끊긴 사이 승급되어 lease가 남아있다면 lease를 연장하고 2를,
+-- 유예 시간이 지나 대기열에서 제거되었거나 lease가 회수되었다면 0을 리턴한다.
+-- ==================================================================================
+
+local userId     = ARGV[1]
+local idx        = ARGV[2]
+local instanceId = ARGV[3]
+local now        = ARGV[4]
+
+-- 1) 같은 idx로 대기 중이라면 record의 인스턴스를 바꾸고 마지막 연결 시각 갱신
+if redis.call("HGET", KEYS[1], userId) == idx then
+    if redis.call("HEXISTS", KEYS[2], userId) == 1 then
+        redis.call("HSET", KEYS[2], userId, instanceId)
+    end
+    redis.call("ZADD", KEYS[3], now, userId)
+    return 1
+end
+
+-- 2) 이미 승급되어 이 행사의 lease가 남아있다면 lease 연장
+if redis.call("ZSCORE", KEYS[4], userId) then
+    redis.call("ZADD", KEYS[4], "XX", "GT", ARGV[5], userId)
+    return 2
+end
+
+return 0
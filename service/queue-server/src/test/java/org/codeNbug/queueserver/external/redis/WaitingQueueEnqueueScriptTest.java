@@ -0,0 +1,162 @@
+package org.codeNbug.queueserver.external.redis;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.codeNbug.queueserver.external.redis.RedisConfig.*;
+
+import java.util.List;
+
+import org.codeNbug.queueserver.waitingqueue.entity.QueueTicket;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import com.redis.testcontainers.RedisContainer;
+
+@Testcontainers(disabledWithoutDocker = true)
+class WaitingQueueEnqueueScriptTest {
+
+	private static final long EVENT_ID = 42L;
+	private static final int SEAT_COUNT = 100;
+
+	@Container
+	static RedisContainer redis = new RedisContainer("redis:alpine");
+
+	private static LettuceConnectionFactory connectionFactory;
+
+	private StringRedisTemplate redisTemplate;
+	private WaitingQueueEnqueueScript enqueueScript;
+	private WaitingQueueResumeScript resumeScript;
+
+	@BeforeAll
+	static void connect() {
+		connectionFactory = new LettuceConnectionFactory(redis.getHost(), redis.getFirstMappedPort());
+		connectionFactory.afterPropertiesSet();
+		connectionFactory.start();
+	}
+
+	@AfterAll
+	static void disconnect() {
+		connectionFactory.destroy();
+	}
+
+	@BeforeEach
+	void setUp() {
+		redisTemplate = new StringRedisTemplate(connectionFactory);
+		redisTemplate.execute((RedisCallback<Object>)connection -> {
+			connection.serverCommands().flushAll();
+			return null;
+		});
+
+		enqueueScript = new WaitingQueueEnqueueScript(redisTemplate);
+		ReflectionTestUtils.setField(enqueueScript, "instanceId", "instance-a");
+		ReflectionTestUtils.setField(enqueueScript, "initialWindow", 10);
+		enqueueScript.loadScript();
+
+		resumeScript = new WaitingQueueResumeScript(redisTemplate);
+		ReflectionTestUtils.setField(resumeScript, "instanceId", "instance-a");
+		ReflectionTestUtils.setField(resumeScript, "entryLeaseMillis", 300_000L);
+	}
+
+	@DisplayName("enqueueAll - member는 userId, record 값은 instanceId로 저장")
+	@Test
+	void enqueueAll_rawEncoding() {
+		// when
+		List<EnqueueResult> results = enqueueScript.enqueueAll(List.of(
+			new EnqueueRequest(1001L, EVENT_ID, SEAT_COUNT),
+			new EnqueueRequest(1002L, EVENT_ID, SEAT_COUNT, "instance-b")));
+
+		// then
+		assertThat(results).extracting(EnqueueResult::idx).containsExactly(1L, 2L);
+		assertThat(redisTemplate.opsForZSet().range(eventKey(WAITING_QUEUE_KEY_NAME, EVENT_ID), 0, -1))
+			.containsExactly("1001", "1002");
+		assertThat(redisTemplate.opsForZSet().score(eventKey(WAITING_QUEUE_KEY_NAME, EVENT_ID), "1002"))
+			.isEqualTo(2.0);
+		assertThat(redisTemplate.<String, String>opsForHash()
+			.entries(eventKey(WAITING_QUEUE_RECORD_KEY_NAME, EVENT_ID)))
+			.containsEntry("1001", "instance-a")
+			.containsEntry("1002", "instance-b")
+			.hasSize(2);
+		assertThat(redisTemplate.opsForSet().members(WAITING_EVENT_REGISTRY_KEY_NAME))
+			.containsExactly(String.valueOf(EVENT_ID));
+	}
+
+	@DisplayName("enqueueAll - 이미 대기 중인 유저는 기존 idx를 받고 record의 instanceId만 갱신")
+	@Test
+	void enqueueAll_reenter() {
+		// given
+		enqueueScript.enqueueAll(List.of(new EnqueueRequest(1001L, EVENT_ID, SEAT_COUNT)));
+
+		// when
+		List<EnqueueResult> results = enqueueScript.enqueueAll(
+			List.of(new EnqueueRequest(1001L, EVENT_ID, SEAT_COUNT, "instance-b")));
+
+		// then
+		assertThat(results.get(0).idx()).isEqualTo(1L);
+		assertThat(redisTemplate.opsForZSet().size(eventKey(WAITING_QUEUE_KEY_NAME, EVENT_ID))).isEqualTo(1L);
+		assertThat(redisTemplate.opsForHash().get(eventKey(WAITING_QUEUE_RECORD_KEY_NAME, EVENT_ID), "1001"))
+			.isEqualTo("instance-b");
+	}
+
+	@DisplayName("enqueueAll - 입장 lease가 있는 유저는 대기열에 다시 추가하지 않음")
+	@Test
+	void enqueueAll_alreadyAdmitted() {
+		// given
+		redisTemplate.opsForZSet().add(eventKey(ENTRY_LEASE_KEY_NAME, EVENT_ID), "1001", System.currentTimeMillis());
+
+		// when
+		List<EnqueueResult> results = enqueueScript.enqueueAll(List.of(
+			new EnqueueRequest(1001L, EVENT_ID, SEAT_COUNT),
+			new EnqueueRequest(1002L, EVENT_ID, SEAT_COUNT)));
+
+		// then
+		assertThat(results).extracting(EnqueueResult::idx).containsExactly(WaitingQueueEnqueueScript.ADMITTED, 1L);
+		assertThat(redisTemplate.opsForZSet().range(eventKey(WAITING_QUEUE_KEY_NAME, EVENT_ID), 0, -1))
+			.containsExactly("1002");
+		assertThat(redisTemplate.opsForHash().hasKey(eventKey(WAITING_QUEUE_RECORD_KEY_NAME, EVENT_ID), "1001"))
+			.isFalse();
+	}
+
+	@DisplayName("resume - enqueue가 저장한 record를 이어받아 instanceId를 바꿈")
+	@Test
+	void resume_roundTrip() {
+		// given
+		Long idx = enqueueScript.enqueueAll(List.of(new EnqueueRequest(1001L, EVENT_ID, SEAT_COUNT))).get(0).idx();
+		long now = System.currentTimeMillis();
+		QueueTicket ticket = new QueueTicket(1001L, EVENT_ID, idx, now, now);
+
+		// when
+		WaitingQueueResumeScript.ResumeResult result = resumeScript.resume(ticket, "instance-c");
+
+		// then
+		assertThat(result).isEqualTo(WaitingQueueResumeScript.ResumeResult.WAITING);
+		assertThat(redisTemplate.opsForHash().get(eventKey(WAITING_QUEUE_RECORD_KEY_NAME, EVENT_ID), "1001"))
+			.isEqualTo("instance-c");
+	}
+
+	@DisplayName("enqueueAll - 스크립트가 없는 노드라면 요청마다 다시 실행해 결과를 돌려줌")
+	@Test
+	void enqueueAll_noScriptFallback() {
+		// given
+		redisTemplate.execute((RedisCallback<Object>)connection -> {
+			connection.scriptingCommands().scriptFlush();
+			return null;
+		});
+
+		// when
+		List<EnqueueResult> results = enqueueScript.enqueueAll(List.of(
+			new EnqueueRequest(1001L, EVENT_ID, SEAT_COUNT),
+			new EnqueueRequest(1002L, EVENT_ID, SEAT_COUNT)));
+
+		// then
+		assertThat(results).allMatch(EnqueueResult::isSuccess);
+		assertThat(results).extracting(EnqueueResult::idx).containsExactly(1L, 2L);
+	}
+}
@@ -0,0 +1,205 @@
+package org.codeNbug.queueserver.waitingqueue.registry;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class ConcurrentLongMapTest {
+
+	// stripe 하나의 초기 칸 수. 이 테스트의 충돌 키는 resize가 일어나지 않는 개수만 사용한다
+	private static final int STRIPE_CAPACITY = 16;
+
+	@DisplayName("put / get / remove - 여러 번 resize된 뒤에도 모든 키를 찾음")
+	@Test
+	void putGetRemove_acrossResize() {
+		ConcurrentLongMap<String> map = new ConcurrentLongMap<>();
+		int count = 50_000;
+
+		for (long key = 1; key <= count; key++) {
+			assertThat(map.put(key, "v" + key)).isNull();
+		}
+		assertThat(map.size()).isEqualTo(count);
+		for (long key = 1; key <= count; key++) {
+			assertThat(map.get(key)).isEqualTo("v" + key);
+		}
+
+		// 짝수 키만 삭제한 뒤 남은 키와 삭제된 키 확인
+		for (long key = 2; key <= count; key += 2) {
+			assertThat(map.remove(key, map.get(key))).isTrue();
+		}
+		assertThat(map.size()).isEqualTo(count / 2);
+		for (long key = 1; key <= count; key++) {
+			assertThat(map.get(key)).isEqualTo(key % 2 == 0 ? null : "v" + key);
+		}
+	}
+
+	@DisplayName("put - 같은 키는 값을 교체하고 이전 값을 반환")
+	@Test
+	void put_replace() {
+		ConcurrentLongMap<String> map = new ConcurrentLongMap<>();
+		map.put(7L, "first");
+
+		assertThat(map.put(7L, "second")).isEqualTo("first");
+		assertThat(map.get(7L)).isEqualTo("second");
+		assertThat(map.size()).isEqualTo(1);
+	}
+
+	@DisplayName("remove - 저장된 값이 다른 객체라면 삭제하지 않음")
+	@Test
+	void remove_expectedMismatch() {
+		ConcurrentLongMap<String> map = new ConcurrentLongMap<>();
+		String current = new String("value");
+		map.put(7L, current);
+
+		assertThat(map.remove(7L, new String("value"))).isFalse();
+		assertThat(map.get(7L)).isSameAs(current);
+		assertThat(map.remove(7L, current)).isTrue();
+		assertThat(map.isEmpty()).isTrue();
+	}
+
+	@DisplayName("remove - 테이블 끝에서 처음으로 이어진 probe chain을 삭제 후에도 유지")
+	@Test
+	void remove_wrappedProbeChain() {
+		// 같은 stripe의 마지막 칸을 home으로 갖는 키 3개와 첫 칸을 home으로 갖는 키 1개
+		// 마지막 칸 -> 0 -> 1 -> 2 순서로 테이블 끝을 넘어 이어진 chain이 만들어진다
+		List<Long> lastSlotKeys = keysAt(0, STRIPE_CAPACITY - 1, 3);
+		long firstSlotKey = keysAt(0, 0, 1).get(0);
+		ConcurrentLongMap<Long> map = new ConcurrentLongMap<>();
+		lastSlotKeys.forEach(key -> map.put(key, key));
+		map.put(firstSlotKey, firstSlotKey);
+
+		// chain의 첫 항목을 지우면 뒤의 항목들이 앞으로 당겨져야 한다
+		assertThat(map.remove(lastSlotKeys.get(0), lastSlotKeys.get(0))).isTrue();
+		assertThat(map.get(lastSlotKeys.get(0))).isNull();
+		assertThat(map.get(lastSlotKeys.get(1))).isEqualTo(lastSlotKeys.get(1));
+		assertThat(map.get(lastSlotKeys.get(2))).isEqualTo(lastSlotKeys.get(2));
+		assertThat(map.get(firstSlotKey)).isEqualTo(firstSlotKey);
+
+		// 테이블 처음으로 넘어간 항목을 지워도 남은 항목은 그대로 찾을 수 있다
+		assertThat(map.remove(lastSlotKeys.get(2), lastSlotKeys.get(2))).isTrue();
+		assertThat(map.get(lastSlotKeys.get(1))).isEqualTo(lastSlotKeys.get(1));
+		assertThat(map.get(firstSlotKey)).isEqualTo(firstSlotKey);
+		assertThat(map.size()).isEqualTo(2);
+
+		// 삭제된 자리에 다시 넣어도 중복 없이 한 칸만 사용한다
+		map.put(lastSlotKeys.get(0), -1L);
+		map.put(firstSlotKey, -2L);
+		assertThat(map.get(lastSlotKeys.get(0))).isEqualTo(-1L);
+		assertThat(map.get(firstSlotKey)).isEqualTo(-2L);
+		assertThat(map.size()).isEqualTo(3);
+	}
+
+	@DisplayName("forEachValue - 순회 중에 map을 변경할 수 있음")
+	@Test
+	void forEachValue_modifyDuringIteration() {
+		ConcurrentLongMap<Long> map = new ConcurrentLongMap<>();
+		for (long key = 1; key <= 1_000; key++) {
+			map.put(key, key);
+		}
+		List<Long> visited = new ArrayList<>();
+
+		map.forEachValue(value -> {
+			visited.add(value);
+			map.remove(value, value);
+		});
+
+		assertThat(visited).hasSize(1_000);
+		assertThat(map.isEmpty()).isTrue();
+	}
+
+	@DisplayName("빈 칸 표시용 키는 사용할 수 없음")
+	@Test
+	void reservedKey() {
+		ConcurrentLongMap<String> map = new ConcurrentLongMap<>();
+
+		assertThatThrownBy(() -> map.put(Long.MIN_VALUE, "value")).isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> map.get(Long.MIN_VALUE)).isInstanceOf(IllegalArgumentException.class);
+	}
+
+	@DisplayName("동시성 - 쓰기 스레드가 resize와 삭제를 반복해도 읽기 스레드는 기존 키를 항상 찾음")
+	@Test
+	void concurrentWritersAndReaders() throws Exception {
+		ConcurrentLongMap<Long> map = new ConcurrentLongMap<>();
+		int stableCount = 10_000;
+		for (long key = 1; key <= stableCount; key++) {
+			map.put(key, key);
+		}
+		int writerCount = 4;
+		int readerCount = 4;
+		int keysPerWriter = 20_000;
+		ExecutorService executor = Executors.newFixedThreadPool(writerCount + readerCount);
+		CountDownLatch start = new CountDownLatch(1);
+		AtomicBoolean writing = new AtomicBoolean(true);
+		try {
+			List<Future<?>> writers = new ArrayList<>();
+			for (int w = 0; w < writerCount; w++) {
+				long base = stableCount + 1 + (long)w * keysPerWriter;
+				writers.add(executor.submit(() -> {
+					start.await();
+					for (int round = 0; round < 3; round++) {
+						for (long key = base; key < base + keysPerWriter; key++) {
+							map.put(key, key);
+						}
+						for (long key = base; key < base + keysPerWriter; key++) {
+							if (!map.remove(key, map.get(key))) {
+								throw new AssertionError("삭제 실패: " + key);
+							}
+						}
+					}
+					return null;
+				}));
+			}
+			List<Future<?>> readers = new ArrayList<>();
+			for (int r = 0; r < readerCount; r++) {
+				readers.add(executor.submit(() -> {
+					start.await();
+					while (writing.get()) {
+						for (long key = 1; key <= stableCount; key++) {
+							Long value = map.get(key);
+							if (value == null || value != key) {
+								throw new AssertionError("기존 키를 찾지 못함: " + key + " -> " + value);
+							}
+						}
+					}
+					return null;
+				}));
+			}
+
+			start.countDown();
+			for (Future<?> writer : writers) {
+				writer.get(60, TimeUnit.SECONDS);
+			}
+			writing.set(false);
+			for (Future<?> reader : readers) {
+				reader.get(60, TimeUnit.SECONDS);
+			}
+		} finally {
+			writing.set(false);
+			executor.shutdownNow();
+		}
+
+		assertThat(map.size()).isEqualTo(stableCount);
+	}
+
+	// stripe 번호와 초기 테이블의 home 칸이 모두 일치하는 키를 작은 값부터 count개 찾음
+	private static List<Long> keysAt(int stripe, int slot, int count) {
+		List<Long> keys = new ArrayList<>();
+		for (long key = 1; keys.size() < count; key++) {
+			long hash = ConcurrentLongMap.mix(key);
+			if (((int)(hash >>> 58) & 63) == stripe && ((int)hash & (STRIPE_CAPACITY - 1)) == slot) {
+				keys.add(key);
+			}
+		}
+		return keys;
+	}
+}
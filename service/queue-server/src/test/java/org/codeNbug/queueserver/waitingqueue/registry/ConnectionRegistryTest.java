@@ -0,0 +1,137 @@
+package org.codeNbug.queueserver.waitingqueue.registry;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.codeNbug.queueserver.waitingqueue.entity.SseConnection;
+import org.codeNbug.queueserver.waitingqueue.entity.Status;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+class ConnectionRegistryTest {
+
+	private static final long EVENT_ID = 42L;
+
+	@DisplayName("remove - 이벤트의 마지막 커넥션이 삭제되면 이벤트별 map도 제거")
+	@Test
+	void remove_dropEmptyEvent() {
+		// given
+		ConnectionRegistry registry = new ConnectionRegistry();
+		SseConnection first = connection(1L, EVENT_ID);
+		SseConnection second = connection(2L, EVENT_ID);
+		registry.put(first);
+		registry.put(second);
+
+		// when
+		registry.remove(first);
+
+		// then
+		assertThat(registry.sizeInEvent(EVENT_ID)).isEqualTo(1);
+		assertThat(registry.eventCount()).isEqualTo(1);
+
+		// when
+		registry.remove(second);
+
+		// then
+		assertThat(registry.sizeInEvent(EVENT_ID)).isZero();
+		assertThat(registry.eventCount()).isZero();
+		assertThat(registry.size()).isZero();
+	}
+
+	@DisplayName("put - 다른 이벤트로 다시 연결하면 이전 이벤트의 map이 제거됨")
+	@Test
+	void put_moveToOtherEvent() {
+		// given
+		ConnectionRegistry registry = new ConnectionRegistry();
+		registry.put(connection(1L, EVENT_ID));
+
+		// when
+		SseConnection current = connection(1L, EVENT_ID + 1);
+		registry.put(current);
+
+		// then
+		assertThat(registry.get(1L)).isSameAs(current);
+		assertThat(registry.sizeInEvent(EVENT_ID)).isZero();
+		assertThat(registry.sizeInEvent(EVENT_ID + 1)).isEqualTo(1);
+		assertThat(registry.eventCount()).isEqualTo(1);
+	}
+
+	@DisplayName("put - 같은 이벤트에 다시 연결하면 커넥션을 교체하고 map은 유지")
+	@Test
+	void put_replaceInSameEvent() {
+		// given
+		ConnectionRegistry registry = new ConnectionRegistry();
+		SseConnection previous = connection(1L, EVENT_ID);
+		registry.put(previous);
+
+		// when
+		SseConnection current = connection(1L, EVENT_ID);
+		assertThat(registry.put(current)).isSameAs(previous);
+
+		// then
+		List<SseConnection> inEvent = new ArrayList<>();
+		registry.forEachInEvent(EVENT_ID, inEvent::add);
+		assertThat(inEvent).containsExactly(current);
+		// 교체된 이전 커넥션을 삭제해도 현재 커넥션과 map은 남음
+		assertThat(registry.remove(previous)).isFalse();
+		assertThat(registry.sizeInEvent(EVENT_ID)).isEqualTo(1);
+
+		// when
+		registry.remove(current);
+
+		// then
+		assertThat(registry.eventCount()).isZero();
+	}
+
+	@DisplayName("동시성 - 연결과 종료가 반복되어 map이 제거되는 중에도 추가된 커넥션을 잃지 않음")
+	@Test
+	void concurrentPutAndRemove() throws Exception {
+		ConnectionRegistry registry = new ConnectionRegistry();
+		int threadCount = 8;
+		int rounds = 20_000;
+		ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+		CountDownLatch start = new CountDownLatch(1);
+		try {
+			List<Future<?>> futures = new ArrayList<>();
+			for (int t = 0; t < threadCount; t++) {
+				long userId = t + 1;
+				futures.add(executor.submit(() -> {
+					start.await();
+					for (int round = 0; round < rounds; round++) {
+						SseConnection connection = connection(userId, EVENT_ID);
+						registry.put(connection);
+						List<SseConnection> inEvent = new ArrayList<>();
+						registry.forEachInEvent(EVENT_ID, inEvent::add);
+						if (!inEvent.contains(connection)) {
+							throw new AssertionError("추가한 커넥션을 찾지 못함: " + userId);
+						}
+						registry.remove(connection);
+					}
+					return null;
+				}));
+			}
+
+			start.countDown();
+			for (Future<?> future : futures) {
+				future.get(60, TimeUnit.SECONDS);
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+
+		assertThat(registry.size()).isZero();
+		assertThat(registry.eventCount()).isZero();
+	}
+
+	private static SseConnection connection(long userId, long eventId) {
+		return new SseConnection(new SseEmitter(), Status.IN_ENTRY, userId, eventId);
+	}
+}
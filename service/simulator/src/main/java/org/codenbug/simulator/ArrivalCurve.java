@@ -0,0 +1,50 @@
+package org.codenbug.simulator;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 시간에 따른 초당 진입 인원 곡선
+ * <p>
+ * {@code "0:3000,60:800,300:100"}처럼 "초:초당 인원" 지점을 선형으로 잇습니다. 마지막 지점 이후는 마지막 값을 유지합니다.
+ * </p>
+ */
+public class ArrivalCurve {
+
+	private final List<double[]> points = new ArrayList<>();
+
+	public ArrivalCurve(String spec) {
+		for (String point : spec.split(",")) {
+			String[] parts = point.trim().split(":");
+			if (parts.length != 2) {
+				throw new IllegalArgumentException("진입 곡선 형식 오류: " + point);
+			}
+			double second = Double.parseDouble(parts[0]);
+			if (!points.isEmpty() && second <= points.get(points.size() - 1)[0]) {
+				throw new IllegalArgumentException("진입 곡선의 시간은 증가해야 합니다: " + spec);
+			}
+			points.add(new double[] {second, Double.parseDouble(parts[1])});
+		}
+		if (points.isEmpty()) {
+			throw new IllegalArgumentException("진입 곡선이 비어 있습니다.");
+		}
+	}
+
+	/**
+	 * 주어진 시각(초)의 초당 진입 인원
+	 */
+	public double rateAt(double second) {
+		double[] first = points.get(0);
+		if (second <= first[0]) {
+			return first[1];
+		}
+		for (int i = 1; i < points.size(); i++) {
+			double[] to = points.get(i);
+			if (second <= to[0]) {
+				double[] from = points.get(i - 1);
+				return from[1] + (to[1] - from[1]) * (second - from[0]) / (to[0] - from[0]);
+			}
+		}
+		return points.get(points.size() - 1)[1];
+	}
+}
@@ -0,0 +1,222 @@
+package org.codenbug.simulator;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Random;
+
+import org.codenbug.common.queue.QueueWaitModel;
+
+/**
+ * 대기열 한 행사에 대한 이산 사건 시뮬레이션
+ * <p>
+ * 운영 중인 대기열과 같은 규칙으로 동작합니다.
+ * 1. 승급 주기({@link QueueWaitModel#PROMOTE_INTERVAL_MILLIS})마다 남은 입장 자리 수만큼 먼저 진입한 유저를 입장시킵니다.
+ * 2. 입장한 유저는 좌석을 선점한 뒤 일부는 결제하고, 결제하거나 포기하면 자리를 돌려줍니다.
+ * 3. 대기 중 이탈한 유저는 presence-stale 이후 ghost로 제거되며, 그 전에 승급되면 입장 lease가 만료될 때까지 자리를 차지합니다.
+ * 4. 좌석이 모두 팔리면 대기열을 비우고 이후 진입을 거절합니다.
+ * entry window는 고정값으로 두므로, window 크기별 결과를 비교해 설정할 값을 고릅니다.
+ * </p>
+ */
+public class QueueSimulation {
+
+	private final SimulationConfig config;
+	private final long window;
+	private final Random random;
+
+	private final PriorityQueue<Task> tasks = new PriorityQueue<>();
+	private final Deque<Fan> waiting = new ArrayDeque<>();
+	private final List<SimulationResult.Sample> samples = new ArrayList<>();
+	private final List<Long> waits = new ArrayList<>();
+
+	private long now;
+	private long sequence;
+	private long waitingCount;
+	private long available;
+	private long seatsLeft;
+	private long promotedTotal;
+	private long arrived;
+	private long abandoned;
+	private long ghostPromotions;
+	private long soldOutRejected;
+	private long soldOutAt = -1L;
+	private long peakWaiting;
+	private long peakJoinsPerSecond;
+	private long peakPromotionsPerSecond;
+
+	public QueueSimulation(SimulationConfig config, long window) {
+		this.config = config;
+		this.window = window;
+		this.random = new Random(config.seed());
+		this.available = window;
+		this.seatsLeft = config.seats();
+	}
+
+	public SimulationResult run() {
+		long endMillis = config.durationSeconds() * 1000;
+		scheduleArrivals(endMillis);
+		for (long at = 0; at <= endMillis; at += QueueWaitModel.PROMOTE_INTERVAL_MILLIS) {
+			schedule(at, this::promote);
+		}
+		for (long second = 0; second <= config.durationSeconds(); second += config.sampleSeconds()) {
+			long sampleSecond = second;
+			schedule(second * 1000, () -> sample(sampleSecond));
+		}
+
+		while (!tasks.isEmpty() && tasks.peek().at() <= endMillis) {
+			Task task = tasks.poll();
+			now = task.at();
+			task.action().run();
+		}
+
+		long[] waitMillis = waits.stream().mapToLong(Long::longValue).toArray();
+		Arrays.sort(waitMillis);
+		return new SimulationResult(window, samples, waitMillis, arrived, abandoned, ghostPromotions,
+			soldOutRejected, soldOutAt, waitingCount, peakWaiting, peakJoinsPerSecond, peakPromotionsPerSecond);
+	}
+
+	/**
+	 * 초 단위로 진입 인원을 정하고 그 초 안에 고르게 배치합니다. 소수점 아래 인원은 다음 초로 넘깁니다.
+	 */
+	private void scheduleArrivals(long endMillis) {
+		double carry = 0;
+		for (long second = 0; second * 1000 < endMillis; second++) {
+			double expected = config.arrivals().rateAt(second) + carry;
+			long count = (long)Math.floor(expected);
+			carry = expected - count;
+			peakJoinsPerSecond = Math.max(peakJoinsPerSecond, count);
+			for (long i = 0; i < count; i++) {
+				schedule(second * 1000 + i * 1000 / count, this::arrive);
+			}
+		}
+	}
+
+	private void arrive() {
+		arrived++;
+		if (soldOutAt >= 0) {
+			soldOutRejected++;
+			return;
+		}
+		Fan fan = new Fan(now);
+		waiting.addLast(fan);
+		waitingCount++;
+		peakWaiting = Math.max(peakWaiting, waitingCount);
+		if (config.abandonPerMinute() > 0) {
+			schedule(now + exponential(60_000.0 / config.abandonPerMinute()), () -> abandon(fan));
+		}
+	}
+
+	private void abandon(Fan fan) {
+		if (fan.promoted || fan.removed) {
+			return;
+		}
+		fan.abandoned = true;
+		abandoned++;
+		// 연결이 끊긴 유저는 dispatcher의 sweeper가 presence-stale 이후에 대기열에서 제거
+		schedule(now + config.presenceStaleMillis(), () -> {
+			if (!fan.promoted && !fan.removed) {
+				fan.removed = true;
+				waitingCount--;
+			}
+		});
+	}
+
+	/**
+	 * promote_waiting_for_event.lua와 같이 남은 자리 수만큼 대기 유저를 꺼내 입장시킵니다.
+	 * 이미 제거된 유저는 대기열에 없으므로 자리를 쓰지 않습니다.
+	 */
+	private void promote() {
+		long count = QueueWaitModel.promotable(available, waitingCount);
+		long promoted = 0;
+		while (promoted < count && !waiting.isEmpty()) {
+			Fan fan = waiting.pollFirst();
+			if (fan.removed) {
+				continue;
+			}
+			fan.promoted = true;
+			waitingCount--;
+			available--;
+			promoted++;
+			promotedTotal++;
+			if (fan.abandoned) {
+				// 이미 떠난 유저는 아무 API도 호출하지 않으므로 lease가 만료되어 reaper가 회수할 때까지 자리를 차지
+				ghostPromotions++;
+				schedule(now + config.entryLeaseMillis(), this::release);
+				continue;
+			}
+			waits.add(now - fan.arrivedAt);
+			schedule(now + exponential(config.holdMeanMillis()), this::hold);
+		}
+		peakPromotionsPerSecond = Math.max(peakPromotionsPerSecond, promoted);
+	}
+
+	private void hold() {
+		if (soldOutAt < 0 && random.nextDouble() < config.checkoutRatio()) {
+			schedule(now + exponential(config.checkoutMeanMillis()), this::checkout);
+		} else {
+			release();
+		}
+	}
+
+	private void checkout() {
+		if (soldOutAt < 0) {
+			seatsLeft = Math.max(0, seatsLeft - config.seatsPerOrder());
+			if (seatsLeft == 0) {
+				soldOut();
+			}
+		}
+		release();
+	}
+
+	/**
+	 * 매진되면 dispatcher가 대기열을 비우고 대기 유저에게 매진을 알립니다.
+	 */
+	private void soldOut() {
+		soldOutAt = now;
+		soldOutRejected += waitingCount;
+		waiting.forEach(fan -> fan.removed = true);
+		waiting.clear();
+		waitingCount = 0;
+	}
+
+	private void release() {
+		available++;
+	}
+
+	private void sample(long second) {
+		samples.add(new SimulationResult.Sample(second, waitingCount, window - available, promotedTotal, seatsLeft));
+	}
+
+	private long exponential(double mean) {
+		return (long)(-mean * Math.log(1 - random.nextDouble()));
+	}
+
+	private void schedule(long at, Runnable action) {
+		tasks.add(new Task(at, sequence++, action));
+	}
+
+	/**
+	 * 같은 시각의 작업은 예약한 순서대로 실행합니다.
+	 */
+	private record Task(long at, long sequence, Runnable action) implements Comparable<Task> {
+		@Override
+		public int compareTo(Task other) {
+			int byTime = Long.compare(at, other.at);
+			return byTime != 0 ? byTime : Long.compare(sequence, other.sequence);
+		}
+	}
+
+	private static final class Fan {
+		private final long arrivedAt;
+		private boolean abandoned;
+		private boolean promoted;
+		private boolean removed;
+
+		private Fan(long arrivedAt) {
+			this.arrivedAt = arrivedAt;
+		}
+	}
+}
@@ -0,0 +1,96 @@
+package org.codenbug.simulator;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Properties;
+
+import org.codenbug.common.queue.QueueWaitModel;
+
+/**
+ * 대기열 대기 시간 / 필요 용량 시뮬레이터
+ * <p>
+ * 진입 곡선, 이탈률, 좌석 선점 / 결제 시간을 입력받아 entry window 크기별로 시간에 따른 대기 인원,
+ * 대기 시간 백분위, 필요한 queue-server / dispatcher 인스턴스 수를 출력합니다.
+ * 승급 규칙과 대기 시간 계산은 운영 중인 대기열과 같은 {@link QueueWaitModel}을 사용합니다.
+ * </p>
+ * 실행: {@code ./gradlew :simulator:simulate --args="config=my.properties window=100,200 seats=5000"}
+ * <p>
+ * 기본 입력은 {@code simulation.properties}이며, {@code config=파일}과 {@code key=value} 인자로 덮어씁니다.
+ * </p>
+ */
+public class QueueSimulator {
+
+	public static void main(String[] args) {
+		SimulationConfig config = SimulationConfig.from(loadProperties(args));
+		for (long window : config.windows()) {
+			print(config, new QueueSimulation(config, window).run());
+		}
+	}
+
+	private static Properties loadProperties(String[] args) {
+		Properties properties = new Properties();
+		try (InputStream defaults = QueueSimulator.class.getResourceAsStream("/simulation.properties")) {
+			if (defaults != null) {
+				properties.load(defaults);
+			}
+			for (String arg : args) {
+				if (arg.startsWith("config=")) {
+					try (InputStream file = Files.newInputStream(Path.of(arg.substring("config=".length())))) {
+						properties.load(file);
+					}
+				}
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		for (String arg : args) {
+			int separator = arg.indexOf('=');
+			if (separator > 0 && !arg.startsWith("config=")) {
+				properties.setProperty(arg.substring(0, separator), arg.substring(separator + 1));
+			}
+		}
+		return properties;
+	}
+
+	private static void print(SimulationConfig config, SimulationResult result) {
+		System.out.printf("%n=== entry window %d ===%n", result.window());
+		System.out.printf("%8s %10s %10s %10s %10s%n", "초", "대기", "입장 중", "누적 입장", "남은 좌석");
+		for (SimulationResult.Sample sample : result.samples()) {
+			System.out.printf("%8d %10d %10d %10d %10d%n", sample.second(), sample.waiting(), sample.inEntry(),
+				sample.promoted(), sample.seatsLeft());
+		}
+
+		System.out.printf("진입 %d명, 입장 %d명, 이탈 %d명 (ghost 승급 %d명), 매진으로 정리 %d명, 종료 시 대기 %d명%n",
+			result.arrived(), result.waitMillis().length, result.abandoned(), result.ghostPromotions(),
+			result.soldOutRejected(), result.stillWaiting());
+		System.out.printf("매진: %s%n",
+			result.soldOutAtMillis() < 0 ? "안 됨" : String.format("%.0f초", result.soldOutAtMillis() / 1000.0));
+		System.out.printf("대기 시간 p50 %s, p90 %s, p99 %s, 최대 %s%n",
+			seconds(result.waitPercentile(0.5)), seconds(result.waitPercentile(0.9)),
+			seconds(result.waitPercentile(0.99)), seconds(result.waitPercentile(1.0)));
+
+		double meanStayMillis = config.holdMeanMillis() + config.checkoutRatio() * config.checkoutMeanMillis();
+		System.out.printf("window가 찼을 때 초당 입장 %.1f명 (평균 체류 %.0f초)%n",
+			QueueWaitModel.steadyThroughput(result.window(), meanStayMillis), meanStayMillis / 1000);
+
+		long queueServers = Math.max(
+			ceilDiv(result.peakWaiting(), config.connectionsPerQueueServer()),
+			ceilDiv(result.peakJoinsPerSecond(), config.joinsPerQueueServerPerSecond()));
+		long dispatchers = ceilDiv(result.peakPromotionsPerSecond(), config.promotionsPerDispatcherPerSecond());
+		System.out.printf("최대 대기 연결 %d, 최대 초당 진입 %d, 최대 초당 승급 %d%n",
+			result.peakWaiting(), result.peakJoinsPerSecond(), result.peakPromotionsPerSecond());
+		System.out.printf("필요 인스턴스: queue-server %d, message-dispatcher %d%n",
+			Math.max(1, queueServers), Math.max(1, dispatchers));
+	}
+
+	private static String seconds(long millis) {
+		return millis < 0 ? "-" : String.format("%.1f초", millis / 1000.0);
+	}
+
+	private static long ceilDiv(long value, long divisor) {
+		return divisor <= 0 ? 0 : (value + divisor - 1) / divisor;
+	}
+}
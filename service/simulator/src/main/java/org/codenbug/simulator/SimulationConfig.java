@@ -0,0 +1,57 @@
+package org.codenbug.simulator;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * 시뮬레이션 입력. 각 값의 의미는 {@code simulation.properties}에 있습니다.
+ */
+public record SimulationConfig(
+	long durationSeconds,
+	ArrivalCurve arrivals,
+	long seats,
+	int seatsPerOrder,
+	List<Long> windows,
+	double abandonPerMinute,
+	double holdMeanMillis,
+	double checkoutRatio,
+	double checkoutMeanMillis,
+	long entryLeaseMillis,
+	long presenceStaleMillis,
+	long sampleSeconds,
+	long seed,
+	long connectionsPerQueueServer,
+	long joinsPerQueueServerPerSecond,
+	long promotionsPerDispatcherPerSecond
+) {
+
+	public static SimulationConfig from(Properties properties) {
+		return new SimulationConfig(
+			Long.parseLong(required(properties, "duration-seconds")),
+			new ArrivalCurve(required(properties, "arrivals")),
+			Long.parseLong(required(properties, "seats")),
+			Integer.parseInt(required(properties, "seats-per-order")),
+			Arrays.stream(required(properties, "window").split(",")).map(String::trim).map(Long::parseLong).toList(),
+			Double.parseDouble(required(properties, "abandon-per-minute")),
+			Double.parseDouble(required(properties, "hold-mean-millis")),
+			Double.parseDouble(required(properties, "checkout-ratio")),
+			Double.parseDouble(required(properties, "checkout-mean-millis")),
+			Long.parseLong(required(properties, "entry-lease-millis")),
+			Long.parseLong(required(properties, "presence-stale-millis")),
+			Long.parseLong(required(properties, "sample-seconds")),
+			Long.parseLong(required(properties, "seed")),
+			Long.parseLong(required(properties, "connections-per-queue-server")),
+			Long.parseLong(required(properties, "joins-per-queue-server-per-second")),
+			Long.parseLong(required(properties, "promotions-per-dispatcher-per-second"))
+		);
+	}
+
+	private static String required(Properties properties, String key) {
+		String value = properties.getProperty(key);
+		if (value == null || value.isBlank()) {
+			throw new IllegalArgumentException("시뮬레이션 입력이 없습니다: " + key);
+		}
+		return value.trim();
+	}
+}
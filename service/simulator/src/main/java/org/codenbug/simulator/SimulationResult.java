@@ -0,0 +1,58 @@
+package org.codenbug.simulator;
+
+import java.util.List;
+
+/**
+ * entry window 하나에 대한 시뮬레이션 결과
+ *
+ * @param window entry window 크기
+ * @param samples 일정 간격으로 기록한 대기열 상태
+ * @param waitMillis 입장한 유저의 대기 시간. 오름차순
+ * @param arrived 진입한 인원
+ * @param abandoned 대기 중 이탈한 인원
+ * @param ghostPromotions 이탈했지만 ghost로 제거되기 전에 승급되어 lease 만료까지 자리를 차지한 인원
+ * @param soldOutRejected 매진 후 진입이 거절되거나 대기열에서 정리된 인원
+ * @param soldOutAtMillis 매진 시각. 매진되지 않았다면 -1
+ * @param stillWaiting 시뮬레이션 종료 시점의 대기 인원
+ * @param peakWaiting 최대 대기 인원 (대기 중인 sse 연결 수)
+ * @param peakJoinsPerSecond 1초 동안의 최대 진입 인원
+ * @param peakPromotionsPerSecond 한 승급 주기의 최대 승급 인원
+ */
+public record SimulationResult(
+	long window,
+	List<Sample> samples,
+	long[] waitMillis,
+	long arrived,
+	long abandoned,
+	long ghostPromotions,
+	long soldOutRejected,
+	long soldOutAtMillis,
+	long stillWaiting,
+	long peakWaiting,
+	long peakJoinsPerSecond,
+	long peakPromotionsPerSecond
+) {
+
+	/**
+	 * 한 시점의 대기열 상태
+	 *
+	 * @param second 경과 시간(초)
+	 * @param waiting 대기 인원
+	 * @param inEntry 입장 자리를 차지한 인원 (ghost 포함)
+	 * @param promoted 누적 입장 인원
+	 * @param seatsLeft 남은 좌석 수
+	 */
+	public record Sample(long second, long waiting, long inEntry, long promoted, long seatsLeft) {
+	}
+
+	/**
+	 * 입장한 유저 대기 시간의 백분위 값(ms). 입장한 유저가 없다면 -1
+	 */
+	public long waitPercentile(double percentile) {
+		if (waitMillis.length == 0) {
+			return -1L;
+		}
+		int index = (int)Math.ceil(percentile * waitMillis.length) - 1;
+		return waitMillis[Math.min(waitMillis.length - 1, Math.max(0, index))];
+	}
+}
@@ -0,0 +1,91 @@
+package org.codenbug.simulator;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+import java.util.Properties;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class QueueSimulationTest {
+
+	@DisplayName("여유 있는 window - 모든 유저가 다음 승급 주기 안에 입장")
+	@Test
+	void run_underCapacity() {
+		// given
+		SimulationConfig config = config(Map.of("duration-seconds", "60", "arrivals", "0:10",
+			"abandon-per-minute", "0"));
+
+		// when
+		SimulationResult result = new QueueSimulation(config, 1_000).run();
+
+		// then
+		assertThat(result.arrived()).isEqualTo(600);
+		assertThat(result.stillWaiting()).isZero();
+		assertThat(result.waitMillis()).hasSize(600);
+		assertThat(result.waitPercentile(1.0)).isLessThanOrEqualTo(1_000);
+	}
+
+	@DisplayName("window 제한 - 입장 자리를 차지한 인원과 한 주기의 승급 인원이 window를 넘지 않음")
+	@Test
+	void run_windowBound() {
+		// given
+		long window = 50;
+		SimulationConfig config = config(Map.of("duration-seconds", "300", "arrivals", "0:200,60:20"));
+
+		// when
+		SimulationResult result = new QueueSimulation(config, window).run();
+
+		// then
+		assertThat(result.peakPromotionsPerSecond()).isLessThanOrEqualTo(window);
+		assertThat(result.samples()).allSatisfy(sample -> assertThat(sample.inEntry()).isLessThanOrEqualTo(window));
+		assertThat(result.peakWaiting()).isGreaterThan(window);
+	}
+
+	@DisplayName("매진 - 좌석이 모두 팔리면 대기열을 비우고 이후 진입을 거절")
+	@Test
+	void run_soldOut() {
+		// given
+		SimulationConfig config = config(Map.of("duration-seconds", "600", "arrivals", "0:20", "seats", "10",
+			"checkout-ratio", "1", "hold-mean-millis", "1000", "checkout-mean-millis", "1000"));
+
+		// when
+		SimulationResult result = new QueueSimulation(config, 20).run();
+
+		// then
+		assertThat(result.soldOutAtMillis()).isPositive();
+		assertThat(result.soldOutRejected()).isPositive();
+		assertThat(result.stillWaiting()).isZero();
+		assertThat(result.samples().get(result.samples().size() - 1).seatsLeft()).isZero();
+	}
+
+	@DisplayName("재현성 - 같은 seed라면 같은 결과")
+	@Test
+	void run_deterministic() {
+		// given
+		SimulationConfig config = config(Map.of("duration-seconds", "300"));
+
+		// when
+		SimulationResult first = new QueueSimulation(config, 100).run();
+		SimulationResult second = new QueueSimulation(config, 100).run();
+
+		// then
+		assertThat(second.waitMillis()).isEqualTo(first.waitMillis());
+		assertThat(second.samples()).isEqualTo(first.samples());
+	}
+
+	// 기본 입력에 일부 값만 바꾼 설정
+	private static SimulationConfig config(Map<String, String> overrides) {
+		Properties properties = new Properties();
+		try (InputStream defaults = QueueSimulationTest.class.getResourceAsStream("/simulation.properties")) {
+			properties.load(defaults);
+		} catch (IOException e) {
+			throw new IllegalStateException(e);
+		}
+		properties.putAll(overrides);
+		return SimulationConfig.from(properties);
+	}
+}